@@ -0,0 +1,134 @@
+package io.smallrye.opentelemetry.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.common.export.HttpResponse;
+import io.opentelemetry.sdk.common.export.HttpSender;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.DefaultAggregationSelector;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import io.smallrye.opentelemetry.implementation.exporters.metrics.VertxHttpMetricsExporter;
+
+/**
+ * Exports the same metrics with each memory mode of the metric exporters, to a sender that serializes the requests
+ * and drops them.
+ * <p>
+ * Run with the GC profiler to compare the allocation per export, {@code gc.alloc.rate.norm}:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package -pl benchmarks -am
+ * java -jar benchmarks/target/benchmarks.jar MetricExporterBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricExporterBenchmark {
+
+    @Param({ "IMMUTABLE_DATA", "REUSABLE_DATA" })
+    MemoryMode memoryMode;
+
+    @Param({ "100" })
+    int metrics;
+
+    @Param({ "100" })
+    int pointsPerMetric;
+
+    private List<MetricData> metricData;
+    private VertxHttpMetricsExporter exporter;
+
+    @Setup
+    public void setup() {
+        Resource resource = Resource.getDefault();
+        InstrumentationScopeInfo scope = InstrumentationScopeInfo.create("benchmark");
+        metricData = new ArrayList<>(metrics);
+        for (int i = 0; i < metrics; i++) {
+            List<LongPointData> points = new ArrayList<>(pointsPerMetric);
+            for (int j = 0; j < pointsPerMetric; j++) {
+                points.add(ImmutableLongPointData.create(1_000_000L, 2_000_000L,
+                        Attributes.builder().put("series", j).put("host", "host-" + (j % 10)).build(), j));
+            }
+            metricData.add(ImmutableMetricData.createLongSum(resource, scope, "metric." + i, "A counter", "1",
+                    ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, points)));
+        }
+        exporter = new VertxHttpMetricsExporter(new DiscardingHttpSender(),
+                AggregationTemporalitySelector.alwaysCumulative(),
+                DefaultAggregationSelector.getDefault(),
+                0,
+                memoryMode);
+    }
+
+    @Benchmark
+    public CompletableResultCode export() {
+        return exporter.export(metricData);
+    }
+
+    private static final class DiscardingHttpSender implements HttpSender {
+        private static final HttpResponse OK = new HttpResponse() {
+            @Override
+            public int getStatusCode() {
+                return 200;
+            }
+
+            @Override
+            public String getStatusMessage() {
+                return "OK";
+            }
+
+            @Override
+            public byte[] getResponseBody() {
+                return new byte[0];
+            }
+        };
+
+        private final OutputStream output = OutputStream.nullOutputStream();
+
+        @Override
+        public void send(MessageWriter messageWriter, Consumer<HttpResponse> onHttpResponseRead,
+                Consumer<Throwable> onError) {
+            try {
+                messageWriter.writeMessage(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            onHttpResponseRead.accept(OK);
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
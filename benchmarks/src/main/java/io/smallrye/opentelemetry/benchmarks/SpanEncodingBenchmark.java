@@ -0,0 +1,148 @@
+package io.smallrye.opentelemetry.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.internal.otlp.traces.LowAllocationTraceRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.EncodedCache;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.SpanEncoder;
+
+/**
+ * Serializes the same spans into a pooled direct buffer, as the senders do, with the SDK marshalers and with the
+ * direct encoder.
+ * <p>
+ * Run with the GC profiler to also compare the allocation per request, {@code gc.alloc.rate.norm}:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package -pl benchmarks -am
+ * java -jar benchmarks/target/benchmarks.jar SpanEncodingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanEncodingBenchmark {
+
+    private static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+    private static final AttributeKey<Long> HTTP_STATUS = AttributeKey.longKey("http.response.status_code");
+    private static final AttributeKey<String> USER_AGENT = AttributeKey.stringKey("user_agent.original");
+
+    @Param({ "512" })
+    int spans;
+
+    private List<SpanData> spanData;
+    private final LowAllocationTraceRequestMarshaler lowAllocationMarshaler = new LowAllocationTraceRequestMarshaler();
+    private final SpanEncoder encoder = new SpanEncoder(new EncodedCache());
+
+    @Setup
+    public void setup() {
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault())
+                .build();
+        Tracer tracer = tracerProvider.get("benchmark");
+        spanData = new ArrayList<>(spans);
+        for (int i = 0; i < spans; i++) {
+            Span span = tracer.spanBuilder("GET /items/{id}")
+                    .setSpanKind(SpanKind.SERVER)
+                    .setAttribute(HTTP_ROUTE, "/items/{id}")
+                    .setAttribute(HTTP_STATUS, 200L)
+                    .setAttribute(USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64)")
+                    .startSpan();
+            span.addEvent("cache miss");
+            span.setStatus(StatusCode.OK);
+            span.end();
+            spanData.add(((ReadableSpan) span).toSpanData());
+        }
+        tracerProvider.close();
+
+        int expected = TraceRequestMarshaler.create(spanData).getBinarySerializedSize();
+        encoder.initialize(spanData);
+        int actual = encoder.getContentLength();
+        encoder.reset();
+        if (actual != expected) {
+            throw new IllegalStateException("The direct encoding is " + actual + " bytes, the SDK one " + expected);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoder.reset();
+        lowAllocationMarshaler.reset();
+    }
+
+    @Benchmark
+    public int sdkMarshaler() throws IOException {
+        TraceRequestMarshaler marshaler = TraceRequestMarshaler.create(spanData);
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(marshaler.getBinarySerializedSize());
+        try {
+            marshaler.writeBinaryTo(new ByteBufOutputStream(buffer));
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public int sdkLowAllocationMarshaler() throws IOException {
+        lowAllocationMarshaler.initialize(spanData);
+        try {
+            ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(
+                    lowAllocationMarshaler.getBinarySerializedSize());
+            try {
+                lowAllocationMarshaler.writeBinaryTo(new ByteBufOutputStream(buffer));
+                return buffer.readableBytes();
+            } finally {
+                buffer.release();
+            }
+        } finally {
+            lowAllocationMarshaler.reset();
+        }
+    }
+
+    @Benchmark
+    public int directEncoder() {
+        encoder.initialize(spanData);
+        try {
+            ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(encoder.getContentLength());
+            try {
+                encoder.writeTo(buffer);
+                return buffer.readableBytes();
+            } finally {
+                buffer.release();
+            }
+        } finally {
+            encoder.reset();
+        }
+    }
+}
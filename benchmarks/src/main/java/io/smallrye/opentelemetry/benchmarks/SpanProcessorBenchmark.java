@@ -0,0 +1,91 @@
+package io.smallrye.opentelemetry.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.smallrye.opentelemetry.implementation.exporters.traces.StripedSpanProcessor;
+
+/**
+ * Ends spans from many threads at once, with the batch span processor of the SDK and with the striped span processor,
+ * exporting to an exporter that drops the spans.
+ * <p>
+ * The striped processor is only worth making the default if it ends spans faster under contention:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package -pl benchmarks -am
+ * java -jar benchmarks/target/benchmarks.jar SpanProcessorBenchmark -t 32
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class SpanProcessorBenchmark {
+
+    @Param({ "batch", "striped" })
+    String processor;
+
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @Setup
+    public void setup() {
+        SpanExporter exporter = new DiscardingSpanExporter();
+        SpanProcessor spanProcessor = "striped".equals(processor)
+                ? StripedSpanProcessor.builder(exporter).build()
+                : BatchSpanProcessor.builder(exporter).build();
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(spanProcessor).build();
+        tracer = tracerProvider.get("benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void endSpan() {
+        tracer.spanBuilder("span").startSpan().end();
+    }
+
+    private static final class DiscardingSpanExporter implements SpanExporter {
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
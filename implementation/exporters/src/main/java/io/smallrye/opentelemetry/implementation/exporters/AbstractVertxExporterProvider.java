@@ -6,27 +6,99 @@ import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_VERTX_CDI_QUALIFIER;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTLP_GRPC_ENDPOINT;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTLP_HTTP_PROTOBUF_ENDPOINT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CIRCUIT_BREAKER_FAILURE_RATE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CIRCUIT_BREAKER_OPEN_DURATION;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CIRCUIT_BREAKER_WINDOW_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_COALESCING_LINGER;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_COALESCING_MAX_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_COMPRESSION_LEVEL;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_COMPRESSION_OFFLOAD_THRESHOLD;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_COMPRESSION_WORKERS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONCURRENCY_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONCURRENCY_INITIAL;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONCURRENCY_MAX;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONCURRENCY_MIN;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONCURRENCY_QUEUE_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONNECTION_KEEPALIVE_INTERVAL;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_CONNECTION_PREWARM;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_DIRECT_ENCODING;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_DOMAIN_SOCKET_FALLBACK_ENDPOINT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_FANOUT_ENDPOINTS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_FANOUT_POLICY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_GRPC_SHARED_CLIENT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_HEDGING_MAX_RATIO;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_HEDGING_MIN_DELAY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_HEDGING_PERCENTILE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_LB_DNS_REFRESH_INTERVAL;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_LB_EJECTION_DURATION;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_LB_EJECTION_THRESHOLD;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_LB_ENDPOINTS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_LB_POLICY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_MAX_REQUEST_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_METRICS_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SHUTDOWN_DRAIN_TIMEOUT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_DIRECTORY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_MAX_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_REPLAY_INTERVAL;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_REPLAY_RATE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPOOL_SEGMENT_SIZE;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getCompression;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getLongestTimeout;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getOtlpEndpoint;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getPort;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getRetryPolicy;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getTimeout;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.isDomainSocket;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.spi.CDI;
 
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
 import io.opentelemetry.sdk.common.export.GrpcSender;
 import io.opentelemetry.sdk.common.export.HttpSender;
 import io.smallrye.common.annotation.Identifier;
+import io.smallrye.opentelemetry.implementation.exporters.spool.DiskSpool;
+import io.smallrye.opentelemetry.implementation.exporters.spool.SpoolReplayer;
+import io.smallrye.opentelemetry.senders.CoalescingGrpcSender;
+import io.smallrye.opentelemetry.senders.CoalescingHttpSender;
+import io.smallrye.opentelemetry.senders.FanOutGrpcSender;
+import io.smallrye.opentelemetry.senders.FanOutHttpSender;
 import io.smallrye.opentelemetry.senders.VertxGrpcSender;
 import io.smallrye.opentelemetry.senders.VertxHttpSender;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.CompressionCodec;
+import io.smallrye.opentelemetry.senders.common.EndpointGroup;
+import io.smallrye.opentelemetry.senders.common.FanOut;
+import io.smallrye.opentelemetry.senders.common.ReplayableSender;
+import io.smallrye.opentelemetry.senders.common.SenderOptions;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.net.SocketAddress;
 
 public abstract class AbstractVertxExporterProvider {
+    private static final long DEFAULT_SPOOL_MAX_SIZE = 256L * 1024 * 1024;
+    private static final int DEFAULT_SPOOL_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long DEFAULT_SPOOL_REPLAY_RATE = 1024 * 1024;
+    private static final int DEFAULT_COALESCING_MAX_SIZE = 256 * 1024;
+
     private final String signalType;
     private final String exporterName;
 
@@ -47,10 +119,11 @@ public abstract class AbstractVertxExporterProvider {
 
     /**
      * If the CDI qualifier is specified in the config, it tries to get it from CDI, and if CDI does not provide such
-     * an instance on the specified qualifier, it will log some WARNING messages and return a new Vertx instance.
-     * If the CDI qualifier is not specified in the config, it creates a new Vertx instance.
+     * an instance on the specified qualifier, it will log some WARNING messages and return the shared exporters Vertx
+     * instance. If the CDI qualifier is not specified in the config, it returns the shared exporters Vertx instance,
+     * which is released when the sender shuts down.
      */
-    private Vertx getVertx(ConfigProperties config) {
+    private Vertx getVertx(ConfigProperties config, SenderOptions senderOptions) {
         String cdiQualifier = config.getString(OTEL_EXPORTER_VERTX_CDI_QUALIFIER);
         if (cdiQualifier != null && !cdiQualifier.isEmpty()) {
             Instance<Vertx> vertxCDI = CDI.current().select(Vertx.class, Identifier.Literal.of(cdiQualifier));
@@ -61,33 +134,351 @@ public abstract class AbstractVertxExporterProvider {
                         cdiQualifier);
             }
         }
-        logger.log(Level.INFO, "Create a new Vertx instance");
-        return Vertx.vertx();
+        senderOptions.setShutdownHook(SharedVertx::release);
+        return SharedVertx.acquire(config);
+    }
+
+    /**
+     * Releases the shared Vertx instance acquired for a sender that could not be created.
+     */
+    private static void releaseVertx(SenderOptions senderOptions) {
+        Runnable shutdownHook = senderOptions.getShutdownHook();
+        if (shutdownHook != null) {
+            shutdownHook.run();
+        }
     }
 
     protected GrpcSender createGrpcSender(ConfigProperties config, String grpcEndpointPath) throws URISyntaxException {
         URI baseUri = new URI(getOtlpEndpoint(config, OTLP_GRPC_ENDPOINT, signalType));
-        return new VertxGrpcSender(
-                baseUri,
-                grpcEndpointPath,
-                getCompression(config, signalType),
-                getTimeout(config, signalType),
-                OtlpExporterUtil.populateTracingExportHttpHeaders(),
-                new HttpClientOptionsConsumer(config, baseUri, signalType),
-                getVertx(config));
+        List<String> fanOutEndpoints = config.getList(SROTEL_FANOUT_ENDPOINTS);
+        GrpcSender sender;
+        if (fanOutEndpoints.isEmpty()) {
+            sender = createGrpcSender(config, grpcEndpointPath, baseUri, true, "grpc");
+        } else {
+            List<GrpcSender> senders = new ArrayList<>(fanOutEndpoints.size() + 1);
+            senders.add(createGrpcSender(config, grpcEndpointPath, baseUri, true, "grpc"));
+            for (int i = 0; i < fanOutEndpoints.size(); i++) {
+                senders.add(createGrpcSender(config, grpcEndpointPath, new URI(fanOutEndpoints.get(i)), false,
+                        "grpc-" + (i + 1)));
+            }
+            sender = new FanOutGrpcSender(senders, getFanOutPolicy(config));
+        }
+        Duration linger = getCoalescingLinger(config);
+        if (linger == null) {
+            return sender;
+        }
+        SenderOptions coalescingOptions = new SenderOptions();
+        Vertx vertx = getVertx(config, coalescingOptions);
+        try {
+            return new CoalescingGrpcSender(sender, vertx, linger, getCoalescingMaxSize(config),
+                    coalescingOptions.getShutdownHook());
+        } catch (RuntimeException e) {
+            releaseVertx(coalescingOptions);
+            throw e;
+        }
+    }
+
+    private GrpcSender createGrpcSender(ConfigProperties config, String grpcEndpointPath, URI endpoint,
+            boolean primary, String spoolName) {
+        SenderOptions senderOptions = getSenderOptions(config);
+        Vertx vertx = getVertx(config, senderOptions);
+        DiskSpool spool;
+        VertxGrpcSender sender;
+        try {
+            URI baseUri = fallBackFromDomainSocket(config, vertx, endpoint, OTLP_GRPC_ENDPOINT);
+            if (primary) {
+                senderOptions.setEndpointGroup(createEndpointGroup(config, vertx, baseUri));
+            }
+            spool = openSpool(config, spoolName);
+            Consumer<HttpClientOptions> clientOptions = new HttpClientOptionsConsumer(config, baseUri, signalType);
+            if (senderOptions.isShareGrpcClient()) {
+                // Shared by the signals, the idle connections of the client must outlive the longest export of all
+                int readIdleTimeout = (int) getLongestTimeout(config).getSeconds();
+                clientOptions = clientOptions.andThen(options -> options.setReadIdleTimeout(readIdleTimeout));
+            }
+            sender = new VertxGrpcSender(
+                    baseUri,
+                    grpcEndpointPath,
+                    getCompression(config, signalType) != Compression.NONE,
+                    getTimeout(config, signalType),
+                    OtlpExporterUtil.populateTracingExportHttpHeaders(),
+                    clientOptions,
+                    vertx,
+                    senderOptions.setSpool(spool));
+        } catch (RuntimeException e) {
+            releaseVertx(senderOptions);
+            throw e;
+        }
+        if (spool != null) {
+            startReplayer(config, vertx, spool, sender);
+        }
+        return sender;
     }
 
     protected HttpSender createHttpSender(ConfigProperties config, String httpEndpointPath) throws URISyntaxException {
         URI baseUri = new URI(getOtlpEndpoint(config, OTLP_HTTP_PROTOBUF_ENDPOINT, signalType));
-        return new VertxHttpSender(
-                baseUri,
-                httpEndpointPath,
-                getCompression(config, signalType),
-                getTimeout(config, signalType),
-                OtlpExporterUtil.populateTracingExportHttpHeaders(),
-                MIMETYPE_PROTOBUF,
-                new HttpClientOptionsConsumer(config, baseUri, signalType),
-                getVertx(config));
+        List<String> fanOutEndpoints = config.getList(SROTEL_FANOUT_ENDPOINTS);
+        HttpSender sender;
+        if (fanOutEndpoints.isEmpty()) {
+            sender = createHttpSender(config, httpEndpointPath, baseUri, true, "http");
+        } else {
+            List<HttpSender> senders = new ArrayList<>(fanOutEndpoints.size() + 1);
+            senders.add(createHttpSender(config, httpEndpointPath, baseUri, true, "http"));
+            for (int i = 0; i < fanOutEndpoints.size(); i++) {
+                senders.add(createHttpSender(config, httpEndpointPath, new URI(fanOutEndpoints.get(i)), false,
+                        "http-" + (i + 1)));
+            }
+            sender = new FanOutHttpSender(senders, getFanOutPolicy(config));
+        }
+        Duration linger = getCoalescingLinger(config);
+        if (linger == null) {
+            return sender;
+        }
+        SenderOptions coalescingOptions = new SenderOptions();
+        Vertx vertx = getVertx(config, coalescingOptions);
+        try {
+            return new CoalescingHttpSender(sender, vertx, linger, getCoalescingMaxSize(config),
+                    coalescingOptions.getShutdownHook());
+        } catch (RuntimeException e) {
+            releaseVertx(coalescingOptions);
+            throw e;
+        }
+    }
+
+    private HttpSender createHttpSender(ConfigProperties config, String httpEndpointPath, URI endpoint,
+            boolean primary, String spoolName) {
+        SenderOptions senderOptions = getSenderOptions(config);
+        Vertx vertx = getVertx(config, senderOptions);
+        DiskSpool spool;
+        VertxHttpSender sender;
+        try {
+            URI baseUri = fallBackFromDomainSocket(config, vertx, endpoint, OTLP_HTTP_PROTOBUF_ENDPOINT);
+            if (primary) {
+                senderOptions.setEndpointGroup(createEndpointGroup(config, vertx, baseUri));
+            }
+            spool = openSpool(config, spoolName);
+            sender = new VertxHttpSender(
+                    baseUri,
+                    httpEndpointPath,
+                    getCompression(config, signalType) != Compression.NONE,
+                    getTimeout(config, signalType),
+                    OtlpExporterUtil.populateTracingExportHttpHeaders(),
+                    MIMETYPE_PROTOBUF,
+                    new HttpClientOptionsConsumer(config, baseUri, signalType),
+                    vertx,
+                    senderOptions.setSpool(spool));
+        } catch (RuntimeException e) {
+            releaseVertx(senderOptions);
+            throw e;
+        }
+        if (spool != null) {
+            startReplayer(config, vertx, spool, sender);
+        }
+        return sender;
+    }
+
+    /**
+     * Unix domain sockets require the native transport. Without it, the exports go over TCP to the configured fallback
+     * endpoint, or to the default endpoint of the protocol.
+     */
+    private URI fallBackFromDomainSocket(ConfigProperties config, Vertx vertx, URI endpoint, String defaultEndpoint) {
+        if (!isDomainSocket(endpoint) || vertx.isNativeTransportEnabled()) {
+            return endpoint;
+        }
+        String fallback = config.getString(SROTEL_DOMAIN_SOCKET_FALLBACK_ENDPOINT, defaultEndpoint);
+        logger.log(Level.WARNING, "Native transport is not available to reach " + endpoint + ", falling back to "
+                + fallback, vertx.unavailableNativeTransportCause());
+        try {
+            return new URI(fallback);
+        } catch (URISyntaxException e) {
+            throw new ConfigurationException("Invalid " + SROTEL_DOMAIN_SOCKET_FALLBACK_ENDPOINT + ": " + fallback, e);
+        }
+    }
+
+    /**
+     * @return how long the small exports are held to be sent together, {@code null} if they are sent right away
+     */
+    protected Duration getCoalescingLinger(ConfigProperties config) {
+        Duration linger = config.getDuration(SROTEL_COALESCING_LINGER);
+        return linger == null || linger.isZero() || linger.isNegative() ? null : linger;
+    }
+
+    /**
+     * @return the size from which the held exports are sent without waiting, which stays below the size requests are
+     *         split at
+     */
+    protected int getCoalescingMaxSize(ConfigProperties config) {
+        int maxSize = config.getInt(SROTEL_COALESCING_MAX_SIZE, DEFAULT_COALESCING_MAX_SIZE);
+        int maxRequestSize = getMaxRequestSize(config);
+        return maxRequestSize > 0 ? Math.min(maxSize, maxRequestSize) : maxSize;
+    }
+
+    /**
+     * @return whether a fanned out export succeeds when all its destinations accept it, the default, or any of them
+     */
+    protected FanOut.Policy getFanOutPolicy(ConfigProperties config) {
+        String policy = config.getString(SROTEL_FANOUT_POLICY, "all");
+        try {
+            return FanOut.Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Unrecognized fan-out policy: " + policy, e);
+        }
+    }
+
+    protected SenderOptions getSenderOptions(ConfigProperties config) {
+        return new SenderOptions()
+                .setRetryPolicy(getRetryPolicy(config))
+                .setConcurrencyLimitEnabled(config.getBoolean(SROTEL_CONCURRENCY_ENABLED, false))
+                .setInitialConcurrency(
+                        config.getInt(SROTEL_CONCURRENCY_INITIAL, SenderOptions.DEFAULT_INITIAL_CONCURRENCY))
+                .setMinConcurrency(config.getInt(SROTEL_CONCURRENCY_MIN, SenderOptions.DEFAULT_MIN_CONCURRENCY))
+                .setMaxConcurrency(config.getInt(SROTEL_CONCURRENCY_MAX, SenderOptions.DEFAULT_MAX_CONCURRENCY))
+                .setMaxQueuedExports(
+                        config.getInt(SROTEL_CONCURRENCY_QUEUE_SIZE, SenderOptions.DEFAULT_MAX_QUEUED_EXPORTS))
+                .setShareGrpcClient(
+                        config.getBoolean(SROTEL_GRPC_SHARED_CLIENT, SenderOptions.DEFAULT_SHARE_GRPC_CLIENT))
+                .setHedgingPercentile(config.getDouble(SROTEL_HEDGING_PERCENTILE, 0d))
+                .setHedgingMinDelay(config.getDuration(SROTEL_HEDGING_MIN_DELAY, Duration.ofMillis(50)))
+                .setHedgingMaxRatio(config.getDouble(SROTEL_HEDGING_MAX_RATIO, 0.05d))
+                .setCircuitBreakerFailureThreshold(config.getInt(SROTEL_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+                        SenderOptions.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD))
+                .setCircuitBreakerFailureRate(config.getDouble(SROTEL_CIRCUIT_BREAKER_FAILURE_RATE,
+                        SenderOptions.DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE))
+                .setCircuitBreakerWindowSize(config.getInt(SROTEL_CIRCUIT_BREAKER_WINDOW_SIZE,
+                        SenderOptions.DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE))
+                .setCircuitBreakerOpenDuration(config.getDuration(SROTEL_CIRCUIT_BREAKER_OPEN_DURATION,
+                        SenderOptions.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION))
+                .setMeterProvider(config.getBoolean(SROTEL_METRICS_ENABLED, true)
+                        ? AbstractVertxExporterProvider::getMeterProvider
+                        : null)
+                .setCompressionCodec(CompressionCodec.create(getCompression(config, signalType),
+                        config.getInt(SROTEL_COMPRESSION_LEVEL, CompressionCodec.DEFAULT_LEVEL)))
+                .setCompressionWorkers(config.getInt(SROTEL_COMPRESSION_WORKERS,
+                        SenderOptions.DEFAULT_COMPRESSION_WORKERS))
+                .setCompressionOffloadThreshold(config.getInt(SROTEL_COMPRESSION_OFFLOAD_THRESHOLD,
+                        SenderOptions.DEFAULT_COMPRESSION_OFFLOAD_THRESHOLD))
+                .setConnectionPrewarm(config.getBoolean(SROTEL_CONNECTION_PREWARM, false))
+                .setKeepAliveInterval(config.getDuration(SROTEL_CONNECTION_KEEPALIVE_INTERVAL))
+                .setDrainTimeout(
+                        config.getDuration(SROTEL_SHUTDOWN_DRAIN_TIMEOUT, SenderOptions.DEFAULT_DRAIN_TIMEOUT));
+    }
+
+    /**
+     * @return the serialized size above which an export is split into several requests, {@code 0} to never split
+     */
+    protected int getMaxRequestSize(ConfigProperties config) {
+        return config.getInt(SROTEL_MAX_REQUEST_SIZE, RequestSplitter.DEFAULT_MAX_REQUEST_SIZE);
+    }
+
+    /**
+     * @return {@code true} if the requests are encoded straight into the payload buffers of the senders, rather than
+     *         with the SDK marshalers
+     */
+    protected boolean isDirectEncoding(ConfigProperties config) {
+        return config.getBoolean(SROTEL_DIRECT_ENCODING, false);
+    }
+
+    /**
+     * The meter provider of the {@link OpenTelemetry} instance produced by CDI, looked up once the senders start
+     * exporting, which is after that instance is built.
+     */
+    static MeterProvider getMeterProvider() {
+        try {
+            Instance<OpenTelemetry> openTelemetry = CDI.current().select(OpenTelemetry.class);
+            if (openTelemetry.isResolvable()) {
+                return openTelemetry.get().getMeterProvider();
+            }
+        } catch (IllegalStateException e) {
+            // No CDI container
+        }
+        return MeterProvider.noop();
+    }
+
+    /**
+     * Builds the endpoints to balance the exports across: the static list of endpoints if configured, otherwise the
+     * addresses the endpoint host resolves to if DNS re-resolution is enabled, otherwise nothing and the sender only
+     * uses the endpoint URI.
+     */
+    private EndpointGroup createEndpointGroup(ConfigProperties config, Vertx vertx, URI baseUri) {
+        List<String> endpoints = config.getList(SROTEL_LB_ENDPOINTS);
+        Duration refreshInterval = config.getDuration(SROTEL_LB_DNS_REFRESH_INTERVAL);
+        // A domain socket is a single local endpoint
+        if (endpoints.isEmpty() && refreshInterval == null || isDomainSocket(baseUri)) {
+            return null;
+        }
+        String policyName = config.getString(SROTEL_LB_POLICY, "round_robin");
+        EndpointGroup.Policy policy;
+        try {
+            policy = EndpointGroup.Policy.valueOf(policyName.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Unrecognized value for " + SROTEL_LB_POLICY + ": " + policyName, e);
+        }
+        int ejectionThreshold = config.getInt(SROTEL_LB_EJECTION_THRESHOLD, 3);
+        Duration ejectionDuration = config.getDuration(SROTEL_LB_EJECTION_DURATION, Duration.ofSeconds(30));
+        int defaultPort = getPort(baseUri);
+        if (!endpoints.isEmpty()) {
+            List<SocketAddress> addresses = new ArrayList<>();
+            for (String endpoint : endpoints) {
+                // Accept both URIs and host:port pairs
+                URI uri;
+                try {
+                    uri = new URI(endpoint.contains("://") ? endpoint : "//" + endpoint);
+                } catch (URISyntaxException e) {
+                    throw new ConfigurationException("Invalid endpoint in " + SROTEL_LB_ENDPOINTS + ": " + endpoint, e);
+                }
+                if (uri.getHost() == null) {
+                    throw new ConfigurationException("Invalid endpoint in " + SROTEL_LB_ENDPOINTS + ": " + endpoint
+                            + ", expected host:port or a URI with a host");
+                }
+                addresses.add(SocketAddress.inetSocketAddress(uri.getPort() > -1 ? uri.getPort() : defaultPort,
+                        uri.getHost()));
+            }
+            return EndpointGroup.ofStatic(addresses, policy, ejectionThreshold, ejectionDuration);
+        }
+        try {
+            return EndpointGroup.ofDns(vertx, baseUri.getHost(), defaultPort, refreshInterval, policy,
+                    ejectionThreshold, ejectionDuration);
+        } catch (UnknownHostException e) {
+            logger.log(Level.WARNING, "Unable to resolve " + baseUri.getHost()
+                    + ", falling back to a single endpoint", e);
+            return null;
+        }
+    }
+
+    /**
+     * Opens the spool of this signal and destination if spooling is enabled. Each combination gets its own directory,
+     * as the spooled payloads are only valid for the endpoint they were encoded for.
+     *
+     * @param destination the protocol, suffixed with the index of the destination when fanning out
+     */
+    private DiskSpool openSpool(ConfigProperties config, String destination) {
+        if (!config.getBoolean(SROTEL_SPOOL_ENABLED, false)) {
+            return null;
+        }
+        Path directory = Path.of(config.getString(SROTEL_SPOOL_DIRECTORY,
+                Path.of(System.getProperty("java.io.tmpdir"), "smallrye-opentelemetry-spool").toString()))
+                .resolve(signalType + "-" + destination);
+        try {
+            return DiskSpool.open(
+                    directory,
+                    config.getLong(SROTEL_SPOOL_MAX_SIZE, DEFAULT_SPOOL_MAX_SIZE),
+                    config.getInt(SROTEL_SPOOL_SEGMENT_SIZE, DEFAULT_SPOOL_SEGMENT_SIZE));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to open the export spool in " + directory
+                    + ", failed exports will not be spooled", e);
+            return null;
+        }
+    }
+
+    private void startReplayer(ConfigProperties config, Vertx vertx, DiskSpool spool,
+            ReplayableSender sender) {
+        new SpoolReplayer(
+                vertx,
+                spool,
+                sender,
+                config.getLong(SROTEL_SPOOL_REPLAY_RATE, DEFAULT_SPOOL_REPLAY_RATE),
+                config.getDuration(SROTEL_SPOOL_REPLAY_INTERVAL, Duration.ofSeconds(5)))
+                .start();
     }
 
     protected IllegalArgumentException buildUnsupportedProtocolException(String protocol) {
@@ -35,6 +35,13 @@ public class Constants {
     static final String OTEL_EXPORTER_OTLP_COMPRESSION = "otel.exporter.otlp.compression";
     static final String OTEL_EXPORTER_OTLP_SIGNAL_COMPRESSION = "otel.exporter.otlp.%s.compression";
 
+    static final String OTEL_JAVA_EXPORTER_MEMORY_MODE = "otel.java.exporter.memory_mode";
+
+    static final String OTEL_BSP_SCHEDULE_DELAY = "otel.bsp.schedule.delay";
+    static final String OTEL_BSP_MAX_QUEUE_SIZE = "otel.bsp.max.queue.size";
+    static final String OTEL_BSP_MAX_EXPORT_BATCH_SIZE = "otel.bsp.max.export.batch.size";
+    static final String OTEL_BSP_EXPORT_TIMEOUT = "otel.bsp.export.timeout";
+
     static final String MIMETYPE_PROTOBUF = "application/x-protobuf";
 
     static final String SROTEL_TLS_TRUST_ALL = "otel.exporter.tls.trustAll";
@@ -44,4 +51,92 @@ public class Constants {
     static final String SROTEL_PROXY_PASSWORD = "otel.exporter.proxy.password";
     static final String SROTEL_PROXY_HOST = "otel.exporter.proxy.host";
     static final String SROTEL_PROXY_PORT = "otel.exporter.proxy.port";
+    // Retry options
+    static final String SROTEL_RETRY_MAX_ATTEMPTS = "otel.exporter.retry.max.attempts";
+    static final String SROTEL_RETRY_INITIAL_BACKOFF = "otel.exporter.retry.initial.backoff";
+    static final String SROTEL_RETRY_MAX_BACKOFF = "otel.exporter.retry.max.backoff";
+    static final String SROTEL_RETRY_BACKOFF_MULTIPLIER = "otel.exporter.retry.backoff.multiplier";
+    static final String SROTEL_RETRY_JITTER = "otel.exporter.retry.jitter";
+    static final String SROTEL_RETRY_DEADLINE = "otel.exporter.retry.deadline";
+    // Concurrency options
+    static final String SROTEL_CONCURRENCY_ENABLED = "otel.exporter.concurrency.enabled";
+    static final String SROTEL_CONCURRENCY_INITIAL = "otel.exporter.concurrency.initial";
+    static final String SROTEL_CONCURRENCY_MIN = "otel.exporter.concurrency.min";
+    static final String SROTEL_CONCURRENCY_MAX = "otel.exporter.concurrency.max";
+    static final String SROTEL_CONCURRENCY_QUEUE_SIZE = "otel.exporter.concurrency.queue.size";
+    // gRPC connection sharing options
+    static final String SROTEL_GRPC_SHARED_CLIENT = "otel.exporter.grpc.shared.client";
+    static final String SROTEL_GRPC_MAX_CONCURRENT_STREAMS = "otel.exporter.grpc.max.concurrent.streams";
+    // Load balancing options
+    static final String SROTEL_LB_ENDPOINTS = "otel.exporter.lb.endpoints";
+    static final String SROTEL_LB_DNS_REFRESH_INTERVAL = "otel.exporter.lb.dns.refresh.interval";
+    static final String SROTEL_LB_POLICY = "otel.exporter.lb.policy";
+    static final String SROTEL_LB_EJECTION_THRESHOLD = "otel.exporter.lb.ejection.threshold";
+    static final String SROTEL_LB_EJECTION_DURATION = "otel.exporter.lb.ejection.duration";
+    // Fan-out options
+    static final String SROTEL_FANOUT_ENDPOINTS = "otel.exporter.fanout.endpoints";
+    static final String SROTEL_FANOUT_POLICY = "otel.exporter.fanout.policy";
+    // Hedging options
+    static final String SROTEL_HEDGING_PERCENTILE = "otel.exporter.hedging.percentile";
+    static final String SROTEL_HEDGING_MIN_DELAY = "otel.exporter.hedging.min.delay";
+    static final String SROTEL_HEDGING_MAX_RATIO = "otel.exporter.hedging.max.ratio";
+    // Circuit breaker options
+    static final String SROTEL_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "otel.exporter.circuit.breaker.failure.threshold";
+    static final String SROTEL_CIRCUIT_BREAKER_FAILURE_RATE = "otel.exporter.circuit.breaker.failure.rate";
+    static final String SROTEL_CIRCUIT_BREAKER_WINDOW_SIZE = "otel.exporter.circuit.breaker.window.size";
+    static final String SROTEL_CIRCUIT_BREAKER_OPEN_DURATION = "otel.exporter.circuit.breaker.open.duration";
+    // Compression options
+    static final String SROTEL_COMPRESSION_LEVEL = "otel.exporter.compression.level";
+    static final String SROTEL_COMPRESSION_WORKERS = "otel.exporter.compression.workers";
+    static final String SROTEL_COMPRESSION_OFFLOAD_THRESHOLD = "otel.exporter.compression.offload.threshold";
+    // Metrics options
+    static final String SROTEL_METRICS_ENABLED = "otel.exporter.metrics.enabled";
+    // Max request size options
+    static final String SROTEL_MAX_REQUEST_SIZE = "otel.exporter.max.request.size";
+    // Encoding options
+    static final String SROTEL_DIRECT_ENCODING = "otel.exporter.direct.encoding";
+    // Span processor options
+    static final String SROTEL_SPAN_PROCESSOR = "otel.exporter.span.processor";
+    static final String SROTEL_SPAN_PROCESSOR_STRIPES = "otel.exporter.span.processor.stripes";
+    static final String SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY = "otel.exporter.span.processor.wait.strategy";
+    static final String SROTEL_SPAN_PROCESSOR_SHEDDING_ENABLED = "otel.exporter.span.processor.shedding.enabled";
+    static final String SROTEL_SPAN_PROCESSOR_SHEDDING_LATENCY_THRESHOLD = "otel.exporter.span.processor.shedding.latency.threshold";
+    static final String SROTEL_SPAN_PROCESSOR_SHEDDING_MIN_DURATION = "otel.exporter.span.processor.shedding.min.duration";
+    static final String SROTEL_SPAN_PROCESSOR_SHEDDING_LOW_WATERMARK = "otel.exporter.span.processor.shedding.low.watermark";
+    static final String SROTEL_SPAN_PROCESSOR_SHEDDING_NORMAL_WATERMARK = "otel.exporter.span.processor.shedding.normal.watermark";
+    // Tail sampling options
+    static final String SROTEL_TAIL_SAMPLING_ENABLED = "otel.exporter.tail.sampling.enabled";
+    static final String SROTEL_TAIL_SAMPLING_RATIO = "otel.exporter.tail.sampling.ratio";
+    static final String SROTEL_TAIL_SAMPLING_LATENCY_THRESHOLD = "otel.exporter.tail.sampling.latency.threshold";
+    static final String SROTEL_TAIL_SAMPLING_ROUTE_LATENCY = "otel.exporter.tail.sampling.route.latency.thresholds";
+    static final String SROTEL_TAIL_SAMPLING_DECISION_WAIT = "otel.exporter.tail.sampling.decision.wait";
+    static final String SROTEL_TAIL_SAMPLING_MAX_TRACES = "otel.exporter.tail.sampling.max.traces";
+    static final String SROTEL_TAIL_SAMPLING_MAX_SPANS = "otel.exporter.tail.sampling.max.spans";
+    static final String SROTEL_TAIL_SAMPLING_MAX_SPANS_PER_TRACE = "otel.exporter.tail.sampling.max.spans.per.trace";
+    // Prometheus options
+    static final String SROTEL_PROMETHEUS_ENABLED = "otel.exporter.prometheus.enabled";
+    static final String SROTEL_PROMETHEUS_HOST = "otel.exporter.prometheus.host";
+    static final String SROTEL_PROMETHEUS_PORT = "otel.exporter.prometheus.port";
+    static final String SROTEL_PROMETHEUS_PATH = "otel.exporter.prometheus.path";
+    static final String SROTEL_PROMETHEUS_CACHE_WINDOW = "otel.exporter.prometheus.cache.window";
+    // Shared Vert.x options
+    static final String SROTEL_VERTX_EVENT_LOOPS = "otel.exporter.vertx.event.loops";
+    static final String SROTEL_VERTX_PREFER_NATIVE_TRANSPORT = "otel.exporter.vertx.prefer.native.transport";
+    // Domain socket options
+    static final String SROTEL_DOMAIN_SOCKET_FALLBACK_ENDPOINT = "otel.exporter.domain.socket.fallback.endpoint";
+    // Connection options
+    static final String SROTEL_CONNECTION_PREWARM = "otel.exporter.connection.prewarm";
+    static final String SROTEL_CONNECTION_KEEPALIVE_INTERVAL = "otel.exporter.connection.keepalive.interval";
+    // Shutdown options
+    static final String SROTEL_SHUTDOWN_DRAIN_TIMEOUT = "otel.exporter.shutdown.drain.timeout";
+    // Coalescing options
+    static final String SROTEL_COALESCING_LINGER = "otel.exporter.coalescing.linger";
+    static final String SROTEL_COALESCING_MAX_SIZE = "otel.exporter.coalescing.max.size";
+    // Spool options
+    static final String SROTEL_SPOOL_ENABLED = "otel.exporter.spool.enabled";
+    static final String SROTEL_SPOOL_DIRECTORY = "otel.exporter.spool.directory";
+    static final String SROTEL_SPOOL_MAX_SIZE = "otel.exporter.spool.max.size";
+    static final String SROTEL_SPOOL_SEGMENT_SIZE = "otel.exporter.spool.segment.size";
+    static final String SROTEL_SPOOL_REPLAY_RATE = "otel.exporter.spool.replay.rate";
+    static final String SROTEL_SPOOL_REPLAY_INTERVAL = "otel.exporter.spool.replay.interval";
 }
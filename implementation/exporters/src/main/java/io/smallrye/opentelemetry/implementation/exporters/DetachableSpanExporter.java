@@ -0,0 +1,49 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import java.util.Collection;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * A span exporter which ignores {@link #shutdown()} while it is detached, so that the
+ * {@link io.opentelemetry.sdk.trace.export.BatchSpanProcessor} replaced by
+ * {@link VertxAutoConfigurationCustomizerProvider} can be shut down without shutting down the exporter it shares with
+ * its replacement.
+ */
+final class DetachableSpanExporter implements SpanExporter {
+    private final SpanExporter delegate;
+    private volatile boolean detached;
+
+    DetachableSpanExporter(SpanExporter delegate) {
+        this.delegate = delegate;
+    }
+
+    void setDetached(boolean detached) {
+        this.detached = detached;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        return delegate.export(spans);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (detached) {
+            return CompletableResultCode.ofSuccess();
+        }
+        return delegate.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import java.util.function.Function;
+
+import io.opentelemetry.exporter.internal.marshal.Marshaler;
+import io.opentelemetry.exporter.internal.otlp.logs.LogsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.logs.LowAllocationLogsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.metrics.LowAllocationMetricsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.metrics.MetricsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.traces.LowAllocationTraceRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.EncodedCache;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.LogEncoder;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.MetricEncoder;
+import io.smallrye.opentelemetry.implementation.exporters.otlp.SpanEncoder;
+
+/**
+ * Builds the request pipeline of the exporters: how their batches are marshaled, and split.
+ * <p>
+ * The requests are marshaled by the SDK marshalers, reused or not depending on the {@link MemoryMode}, or, with direct
+ * encoding, by pooled {@link io.smallrye.opentelemetry.implementation.exporters.otlp.OtlpEncoder}s, which the senders
+ * write straight into their payload buffers.
+ */
+public final class ExportRequests {
+
+    private ExportRequests() {
+    }
+
+    /**
+     * @param sender sends a request, and returns its result
+     */
+    public static RequestSplitter<SpanData, ?> spans(int maxRequestSize, MemoryMode memoryMode, boolean directEncoding,
+            Function<MessageWriter, CompletableResultCode> sender) {
+        if (directEncoding) {
+            EncodedCache cache = new EncodedCache();
+            MarshalerPool<SpanData, SpanEncoder> encoders = MarshalerPool.reusable(
+                    () -> new SpanEncoder(cache), SpanEncoder::initialize, SpanEncoder::reset);
+            return new RequestSplitter<>(maxRequestSize, encoders, SpanEncoder::getContentLength, sender::apply);
+        }
+        MarshalerPool<SpanData, Marshaler> marshalers = MarshalerPool.create(memoryMode,
+                TraceRequestMarshaler::create,
+                LowAllocationTraceRequestMarshaler::new,
+                LowAllocationTraceRequestMarshaler::initialize,
+                LowAllocationTraceRequestMarshaler::reset);
+        return new RequestSplitter<>(maxRequestSize, marshalers, Marshaler::getBinarySerializedSize,
+                marshaler -> sender.apply(marshaler.toBinaryMessageWriter()));
+    }
+
+    /**
+     * @param sender sends a request, and returns its result
+     */
+    public static RequestSplitter<LogRecordData, ?> logs(int maxRequestSize, MemoryMode memoryMode,
+            boolean directEncoding, Function<MessageWriter, CompletableResultCode> sender) {
+        if (directEncoding) {
+            EncodedCache cache = new EncodedCache();
+            MarshalerPool<LogRecordData, LogEncoder> encoders = MarshalerPool.reusable(
+                    () -> new LogEncoder(cache), LogEncoder::initialize, LogEncoder::reset);
+            return new RequestSplitter<>(maxRequestSize, encoders, LogEncoder::getContentLength, sender::apply);
+        }
+        MarshalerPool<LogRecordData, Marshaler> marshalers = MarshalerPool.create(memoryMode,
+                LogsRequestMarshaler::create,
+                LowAllocationLogsRequestMarshaler::new,
+                LowAllocationLogsRequestMarshaler::initialize,
+                LowAllocationLogsRequestMarshaler::reset);
+        return new RequestSplitter<>(maxRequestSize, marshalers, Marshaler::getBinarySerializedSize,
+                marshaler -> sender.apply(marshaler.toBinaryMessageWriter()));
+    }
+
+    /**
+     * @param sender sends a request, and returns its result
+     */
+    public static RequestSplitter<MetricData, ?> metrics(int maxRequestSize, MemoryMode memoryMode,
+            boolean directEncoding, Function<MessageWriter, CompletableResultCode> sender) {
+        if (directEncoding) {
+            EncodedCache cache = new EncodedCache();
+            MarshalerPool<MetricData, MetricEncoder> encoders = MarshalerPool.reusable(
+                    () -> new MetricEncoder(cache), MetricEncoder::initialize, MetricEncoder::reset);
+            return new RequestSplitter<>(maxRequestSize, encoders, MetricEncoder::getContentLength, sender::apply);
+        }
+        MarshalerPool<MetricData, Marshaler> marshalers = MarshalerPool.create(memoryMode,
+                MetricsRequestMarshaler::create,
+                LowAllocationMetricsRequestMarshaler::new,
+                LowAllocationMetricsRequestMarshaler::initialize,
+                LowAllocationMetricsRequestMarshaler::reset);
+        return new RequestSplitter<>(maxRequestSize, marshalers, Marshaler::getBinarySerializedSize,
+                marshaler -> sender.apply(marshaler.toBinaryMessageWriter()));
+    }
+}
@@ -6,6 +6,7 @@ import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_CERTIFICATE;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_CLIENT_CERTIFICATE;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_CLIENT_KEY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_GRPC_MAX_CONCURRENT_STREAMS;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROXY_ENABLED;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROXY_HOST;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROXY_PASSWORD;
@@ -41,6 +42,12 @@ class HttpClientOptionsConsumer implements Consumer<HttpClientOptions> {
         if (Boolean.parseBoolean(getConfig(config, "false", SROTEL_PROXY_ENABLED))) {
             configureProxyOptions(options);
         }
+
+        Integer maxConcurrentStreams = config.getInt(SROTEL_GRPC_MAX_CONCURRENT_STREAMS);
+        if (maxConcurrentStreams != null) {
+            // Streams per HTTP/2 connection, the gRPC exports of all the signals are multiplexed on the same pool
+            options.setHttp2MultiplexingLimit(maxConcurrentStreams);
+        }
     }
 
     private void configureTLS(HttpClientOptions options) {
@@ -0,0 +1,122 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.export.MemoryMode;
+
+/**
+ * Provides the marshalers of the export requests.
+ * <p>
+ * With {@link MemoryMode#IMMUTABLE_DATA}, a new marshaler is created for every request. With
+ * {@link MemoryMode#REUSABLE_DATA}, marshalers are kept between exports: a released marshaler is reset and handed out
+ * again for the next request, so that a steady export rate does not allocate a marshaler tree per request. A marshaler
+ * must only be released once the request it produced has completed, the senders may still serialize it until then.
+ *
+ * @param <T> the type of the exported items
+ * @param <R> the type of the marshalers
+ */
+public abstract class MarshalerPool<T, R> {
+
+    /**
+     * A pool creating a new marshaler for every request, and never reusing them.
+     */
+    public static <T, R> MarshalerPool<T, R> of(Function<Collection<T>, ? extends R> factory) {
+        return new MarshalerPool<>() {
+            @Override
+            public R acquire(Collection<T> items) {
+                return factory.apply(items);
+            }
+
+            @Override
+            public void release(R marshaler) {
+            }
+
+            @Override
+            public MemoryMode getMemoryMode() {
+                return MemoryMode.IMMUTABLE_DATA;
+            }
+        };
+    }
+
+    /**
+     * A pool reusing its marshalers.
+     *
+     * @param factory creates an empty marshaler
+     * @param initializer fills a marshaler with the items of a request
+     * @param resetter clears a marshaler before it goes back to the pool
+     */
+    public static <T, R, M extends R> MarshalerPool<T, R> reusable(Supplier<M> factory,
+            BiConsumer<M, Collection<T>> initializer, Consumer<M> resetter) {
+        return new Reusable<>(factory, initializer, resetter);
+    }
+
+    /**
+     * A pool for the given memory mode.
+     */
+    public static <T, R, M extends R> MarshalerPool<T, R> create(MemoryMode memoryMode,
+            Function<Collection<T>, ? extends R> factory, Supplier<M> reusableFactory,
+            BiConsumer<M, Collection<T>> initializer, Consumer<M> resetter) {
+        return memoryMode == MemoryMode.REUSABLE_DATA ? reusable(reusableFactory, initializer, resetter) : of(factory);
+    }
+
+    /**
+     * @return the marshaler of a request containing {@code items}
+     */
+    public abstract R acquire(Collection<T> items);
+
+    /**
+     * Gives back a marshaler returned by {@link #acquire(Collection)}, once its request has completed.
+     */
+    public abstract void release(R marshaler);
+
+    public abstract MemoryMode getMemoryMode();
+
+    private static final class Reusable<T, R, M extends R> extends MarshalerPool<T, R> {
+        private final Deque<M> pool = new ConcurrentLinkedDeque<>();
+        private final Supplier<M> factory;
+        private final BiConsumer<M, Collection<T>> initializer;
+        private final Consumer<M> resetter;
+
+        Reusable(Supplier<M> factory, BiConsumer<M, Collection<T>> initializer, Consumer<M> resetter) {
+            this.factory = factory;
+            this.initializer = initializer;
+            this.resetter = resetter;
+        }
+
+        @Override
+        public R acquire(Collection<T> items) {
+            M marshaler = pool.poll();
+            if (marshaler == null) {
+                marshaler = factory.get();
+            }
+            try {
+                initializer.accept(marshaler, items);
+            } catch (RuntimeException e) {
+                resetter.accept(marshaler);
+                pool.push(marshaler);
+                throw e;
+            }
+            return marshaler;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void release(R marshaler) {
+            M reusable = (M) marshaler;
+            resetter.accept(reusable);
+            // Last in, first out, the most recently used marshalers have the largest warm buffers
+            pool.push(reusable);
+        }
+
+        @Override
+        public MemoryMode getMemoryMode() {
+            return MemoryMode.REUSABLE_DATA;
+        }
+    }
+}
@@ -6,6 +6,13 @@ import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_ENDPOINT;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_PROTOCOL;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_EXPORTER_OTLP_SIGNAL_TIMEOUT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_JAVA_EXPORTER_MEMORY_MODE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_BACKOFF_MULTIPLIER;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_DEADLINE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_INITIAL_BACKOFF;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_JITTER;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_MAX_ATTEMPTS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_RETRY_MAX_BACKOFF;
 
 import java.net.URI;
 import java.time.Duration;
@@ -16,7 +23,11 @@ import java.util.Map;
 import java.util.Objects;
 
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.common.export.MemoryMode;
 import io.smallrye.opentelemetry.api.OpenTelemetryConfig;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.RetryPolicy;
 
 public final class OtlpExporterUtil {
     private OtlpExporterUtil() {
@@ -45,6 +56,27 @@ public final class OtlpExporterUtil {
         return "https".equals(uri.getScheme().toLowerCase(Locale.ROOT));
     }
 
+    /**
+     * @return {@code true} for the {@code unix:///path/to.sock} endpoints of a Unix domain socket
+     */
+    public static boolean isDomainSocket(URI uri) {
+        return uri.getScheme() != null && "unix".equals(uri.getScheme().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return {@code true} if the OTLP endpoint of any signal is a Unix domain socket, which requires the native
+     *         transport
+     */
+    public static boolean isDomainSocketConfigured(ConfigProperties config) {
+        for (String signalType : new String[] { "span", "metric", "log" }) {
+            String endpoint = getOtlpEndpoint(config, null, signalType);
+            if (endpoint != null && endpoint.trim().toLowerCase(Locale.ROOT).startsWith("unix:")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Given the OpenTelemetry config, lookup a value using the given keys, stopping with the first non-null value. If
      * no keys are found, return the defaultValue. Since the OpenTelemetry API offers signal-specific settings, as well
@@ -79,15 +111,40 @@ public final class OtlpExporterUtil {
     }
 
     /**
-     * Determine whether to enable compression
+     * Determine the compression of the payloads: {@code gzip}, {@code zstd}, {@code snappy} or {@code none}. The
+     * {@code true} and {@code false} values of earlier versions stand for gzip and none.
      *
      * @param config OpenTelemetry configuration
      * @return either the configured or default value
      */
-    public static boolean getCompression(ConfigProperties config, String signalType) {
-        return Boolean.parseBoolean(getConfig(config, "true",
+    public static Compression getCompression(ConfigProperties config, String signalType) {
+        String compression = getConfig(config, "gzip",
                 String.format(OTEL_EXPORTER_OTLP_SIGNAL_COMPRESSION, signalType),
-                OTEL_EXPORTER_OTLP_COMPRESSION));
+                OTEL_EXPORTER_OTLP_COMPRESSION);
+        switch (compression.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+                return Compression.GZIP;
+            case "false":
+                return Compression.NONE;
+            default:
+                return Compression.fromName(compression);
+        }
+    }
+
+    /**
+     * Determine whether the exporters may reuse the data they are given and their own marshalers between exports:
+     * {@code immutable_data}, the default, or {@code reusable_data}.
+     *
+     * @param config OpenTelemetry configuration
+     * @return either the configured or default value
+     */
+    public static MemoryMode getMemoryMode(ConfigProperties config) {
+        String memoryMode = config.getString(OTEL_JAVA_EXPORTER_MEMORY_MODE, "immutable_data");
+        try {
+            return MemoryMode.valueOf(memoryMode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Unrecognized memory mode: " + memoryMode, e);
+        }
     }
 
     /**
@@ -102,9 +159,24 @@ public final class OtlpExporterUtil {
                         String.format(OTEL_EXPORTER_OTLP_SIGNAL_TIMEOUT, signalType), Constants.OTEL_EXPORTER_OTLP_TIMEOUT)));
     }
 
+    /**
+     * @return the longest export timeout of the signals
+     */
+    public static Duration getLongestTimeout(ConfigProperties config) {
+        Duration longest = Duration.ZERO;
+        for (String signalType : new String[] { "span", "metric", "log" }) {
+            Duration timeout = getTimeout(config, signalType);
+            if (timeout.compareTo(longest) > 0) {
+                longest = timeout;
+            }
+        }
+        return longest;
+    }
+
     /**
      * Gets the OTLP traces endpoint, if defined. If it is not, it returns the OTLP endpoint. If that is not defined,
-     * it returns defaultEndpoint.
+     * it returns defaultEndpoint. Besides {@code http} and {@code https} URIs, the endpoint may be the
+     * {@code unix:///path/to.sock} socket file of a collector agent running on the same node.
      *
      * @param config OpenTelemetry configuration
      * @param defaultEndpoint The default endpoint for the desired protocol
@@ -115,4 +187,22 @@ public final class OtlpExporterUtil {
                 String.format(OTEL_EXPORTER_OTLP_SIGNAL_ENDPOINT, signalType),
                 Constants.OTEL_EXPORTER_OTLP_ENDPOINT);
     }
+
+    /**
+     * Builds the retry policy of the senders, falling back to {@link RetryPolicy#getDefault()} for every setting that
+     * is not configured.
+     *
+     * @param config OpenTelemetry configuration
+     * @return the retry policy
+     */
+    public static RetryPolicy getRetryPolicy(ConfigProperties config) {
+        RetryPolicy defaults = RetryPolicy.getDefault();
+        return new RetryPolicy(
+                config.getInt(SROTEL_RETRY_MAX_ATTEMPTS, defaults.getMaxAttempts()),
+                config.getDuration(SROTEL_RETRY_INITIAL_BACKOFF, defaults.getInitialBackoff()),
+                config.getDuration(SROTEL_RETRY_MAX_BACKOFF, defaults.getMaxBackoff()),
+                config.getDouble(SROTEL_RETRY_BACKOFF_MULTIPLIER, defaults.getBackoffMultiplier()),
+                config.getBoolean(SROTEL_RETRY_JITTER, defaults.isJitter()),
+                config.getDuration(SROTEL_RETRY_DEADLINE, defaults.getDeadline()));
+    }
 }
@@ -0,0 +1,120 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Splits the batches whose request would be larger than {@code maxRequestSize} into several requests.
+ * <p>
+ * A batch that fits is sent as is, from the calling thread. An oversized batch is cut into as many chunks as its size
+ * calls for, and each chunk is marshaled and sent from a task of the common {@link ForkJoinPool}, so that the chunks
+ * are serialized and compressed concurrently. A chunk still too large is halved again, down to a single item, which is
+ * sent whatever its size. The result of the batch succeeds only if all its requests do.
+ * <p>
+ * The requests come from a {@link MarshalerPool}, and go back to it once they have completed.
+ *
+ * @param <T> the type of the exported items
+ * @param <R> the type of the requests, an SDK marshaler or an encoder
+ */
+public final class RequestSplitter<T, R> {
+
+    private static final Logger logger = Logger.getLogger(RequestSplitter.class.getName());
+
+    /**
+     * The default maximum size of a gRPC message received by the collector.
+     */
+    public static final int DEFAULT_MAX_REQUEST_SIZE = 4 * 1024 * 1024;
+
+    private final int maxRequestSize;
+    private final MarshalerPool<T, R> marshalers;
+    private final ToIntFunction<R> sizer;
+    private final Function<R, CompletableResultCode> sender;
+
+    /**
+     * @param maxRequestSize the maximum size of a serialized request, before compression, {@code 0} to never split
+     * @param marshalers provides the requests of the batches and chunks
+     * @param sizer returns the serialized size of a request
+     * @param sender sends a request
+     */
+    public RequestSplitter(int maxRequestSize, MarshalerPool<T, R> marshalers, ToIntFunction<R> sizer,
+            Function<R, CompletableResultCode> sender) {
+        this.maxRequestSize = maxRequestSize;
+        this.marshalers = marshalers;
+        this.sizer = sizer;
+        this.sender = sender;
+    }
+
+    public CompletableResultCode export(Collection<T> items) {
+        R marshaler = marshalers.acquire(items);
+        int size = sizer.applyAsInt(marshaler);
+        if (maxRequestSize <= 0 || size <= maxRequestSize || items.size() < 2) {
+            return send(marshaler);
+        }
+        marshalers.release(marshaler);
+
+        List<T> list = items instanceof List ? (List<T>) items : new ArrayList<>(items);
+        int chunks = (int) Math.min(list.size(), (size + (long) maxRequestSize - 1) / maxRequestSize);
+        logger.log(Level.FINE, "Splitting an export request of {0} bytes into {1} requests",
+                new Object[] { size, chunks });
+        List<CompletableResultCode> results = new ArrayList<>(chunks);
+        int from = 0;
+        for (int i = 0; i < chunks; i++) {
+            // Spread the remainder over the first chunks
+            int to = from + list.size() / chunks + (i < list.size() % chunks ? 1 : 0);
+            List<T> chunk = list.subList(from, to);
+            CompletableResultCode result = new CompletableResultCode();
+            results.add(result);
+            ForkJoinPool.commonPool().execute(() -> exportChunk(chunk, result));
+            from = to;
+        }
+        return CompletableResultCode.ofAll(results);
+    }
+
+    private void exportChunk(List<T> chunk, CompletableResultCode result) {
+        CompletableResultCode chunkResult;
+        try {
+            R marshaler = marshalers.acquire(chunk);
+            if (chunk.size() > 1 && sizer.applyAsInt(marshaler) > maxRequestSize) {
+                marshalers.release(marshaler);
+                CompletableResultCode first = new CompletableResultCode();
+                CompletableResultCode second = new CompletableResultCode();
+                int half = chunk.size() / 2;
+                ForkJoinPool.commonPool().execute(() -> exportChunk(chunk.subList(half, chunk.size()), second));
+                exportChunk(chunk.subList(0, half), first);
+                chunkResult = CompletableResultCode.ofAll(List.of(first, second));
+            } else {
+                chunkResult = send(marshaler);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to export a part of a split export request", e);
+            result.fail();
+            return;
+        }
+        chunkResult.whenComplete(() -> {
+            if (chunkResult.isSuccess()) {
+                result.succeed();
+            } else {
+                result.fail();
+            }
+        });
+    }
+
+    private CompletableResultCode send(R marshaler) {
+        CompletableResultCode result;
+        try {
+            result = sender.apply(marshaler);
+        } catch (RuntimeException e) {
+            marshalers.release(marshaler);
+            throw e;
+        }
+        return result.whenComplete(() -> marshalers.release(marshaler));
+    }
+}
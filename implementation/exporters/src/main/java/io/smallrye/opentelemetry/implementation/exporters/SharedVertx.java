@@ -0,0 +1,59 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_VERTX_EVENT_LOOPS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_VERTX_PREFER_NATIVE_TRANSPORT;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+
+/**
+ * The Vert.x instance shared by the span, metric and log exporters when no instance is provided through CDI.
+ * <p>
+ * It is created by the first sender that needs it, with the configuration that sender was created with, and closed
+ * when the last sender using it shuts down.
+ */
+final class SharedVertx {
+
+    private static final Logger logger = Logger.getLogger(SharedVertx.class.getName());
+
+    private static final int DEFAULT_EVENT_LOOPS = 2;
+
+    private static Vertx vertx;
+    private static int references;
+
+    private SharedVertx() {
+    }
+
+    static synchronized Vertx acquire(ConfigProperties config) {
+        if (vertx == null) {
+            VertxOptions options = new VertxOptions()
+                    .setEventLoopPoolSize(config.getInt(SROTEL_VERTX_EVENT_LOOPS, DEFAULT_EVENT_LOOPS))
+                    // Unix domain sockets are only available with the native transport
+                    .setPreferNativeTransport(config.getBoolean(SROTEL_VERTX_PREFER_NATIVE_TRANSPORT,
+                            OtlpExporterUtil.isDomainSocketConfigured(config)));
+            logger.log(Level.INFO, "Create a new Vertx instance shared by the exporters");
+            vertx = Vertx.vertx(options);
+            if (options.getPreferNativeTransport() && !vertx.isNativeTransportEnabled()) {
+                logger.log(Level.WARNING, "Native transport is not available, falling back to NIO",
+                        vertx.unavailableNativeTransportCause());
+            }
+        }
+        references++;
+        return vertx;
+    }
+
+    static synchronized void release() {
+        if (references == 0) {
+            return;
+        }
+        if (--references == 0) {
+            Vertx closing = vertx;
+            vertx = null;
+            closing.close().onFailure(t -> logger.log(Level.FINE, "Unable to close the exporters Vertx instance", t));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_BSP_EXPORT_TIMEOUT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_BSP_MAX_EXPORT_BATCH_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_BSP_MAX_QUEUE_SIZE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.OTEL_BSP_SCHEDULE_DELAY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_METRICS_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROMETHEUS_CACHE_WINDOW;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROMETHEUS_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROMETHEUS_HOST;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROMETHEUS_PATH;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_PROMETHEUS_PORT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_SHEDDING_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_SHEDDING_LATENCY_THRESHOLD;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_SHEDDING_LOW_WATERMARK;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_SHEDDING_MIN_DURATION;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_SHEDDING_NORMAL_WATERMARK;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_STRIPES;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_DECISION_WAIT;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_LATENCY_THRESHOLD;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_MAX_SPANS;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_MAX_SPANS_PER_TRACE;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_MAX_TRACES;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_RATIO;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_TAIL_SAMPLING_ROUTE_LATENCY;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizer;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.smallrye.opentelemetry.implementation.exporters.metrics.VertxPrometheusMetricReader;
+import io.smallrye.opentelemetry.implementation.exporters.traces.SheddingPolicy;
+import io.smallrye.opentelemetry.implementation.exporters.traces.StripedSpanProcessor;
+import io.smallrye.opentelemetry.implementation.exporters.traces.TailSamplingSpanProcessor;
+
+/**
+ * Customizes the autoconfigured SDK for the Vert.x exporters.
+ * <p>
+ * With {@code otel.exporter.span.processor=striped}, the {@link BatchSpanProcessor} is replaced with a
+ * {@link StripedSpanProcessor} exporting to the same exporters, and configured with the same {@code otel.bsp.*}
+ * properties. The batch processor stays the default. The replaced batch processor is shut down, without shutting down
+ * the exporters it shares with the striped processor.
+ * <p>
+ * With {@code otel.exporter.tail.sampling.enabled=true}, the span processor is wrapped in a
+ * {@link TailSamplingSpanProcessor}, so that only the spans of the kept traces reach the exporters.
+ * <p>
+ * With {@code otel.exporter.prometheus.enabled=true}, a {@link VertxPrometheusMetricReader} serves the metrics to
+ * Prometheus scrapes, from the Vert.x instance shared by the exporters.
+ */
+public class VertxAutoConfigurationCustomizerProvider implements AutoConfigurationCustomizerProvider {
+
+    static final String SPAN_PROCESSOR_BATCH = "batch";
+    static final String SPAN_PROCESSOR_STRIPED = "striped";
+
+    static final String DEFAULT_PROMETHEUS_HOST = "0.0.0.0";
+    static final int DEFAULT_PROMETHEUS_PORT = 9464;
+    static final String DEFAULT_PROMETHEUS_PATH = "/metrics";
+    static final Duration DEFAULT_PROMETHEUS_CACHE_WINDOW = Duration.ofSeconds(1);
+
+    @Override
+    public void customize(AutoConfigurationCustomizer autoConfiguration) {
+        // The exporters of this SDK, detached while the batch span processor they are replaced in is shut down
+        List<DetachableSpanExporter> exporters = new CopyOnWriteArrayList<>();
+        autoConfiguration.addSpanExporterCustomizer((exporter, config) -> {
+            if (!isStriped(config)) {
+                return exporter;
+            }
+            DetachableSpanExporter detachable = new DetachableSpanExporter(exporter);
+            exporters.add(detachable);
+            return detachable;
+        });
+        autoConfiguration.addSpanProcessorCustomizer(
+                (processor, config) -> customizeSpanProcessor(processor, config, exporters));
+        autoConfiguration.addMeterProviderCustomizer(VertxAutoConfigurationCustomizerProvider::customizeMeterProvider);
+    }
+
+    static SdkMeterProviderBuilder customizeMeterProvider(SdkMeterProviderBuilder builder, ConfigProperties config) {
+        if (config.getBoolean(SROTEL_PROMETHEUS_ENABLED, false)) {
+            builder.registerMetricReader(new VertxPrometheusMetricReader(SharedVertx.acquire(config),
+                    config.getString(SROTEL_PROMETHEUS_HOST, DEFAULT_PROMETHEUS_HOST),
+                    config.getInt(SROTEL_PROMETHEUS_PORT, DEFAULT_PROMETHEUS_PORT),
+                    config.getString(SROTEL_PROMETHEUS_PATH, DEFAULT_PROMETHEUS_PATH),
+                    config.getDuration(SROTEL_PROMETHEUS_CACHE_WINDOW, DEFAULT_PROMETHEUS_CACHE_WINDOW),
+                    SharedVertx::release));
+        }
+        return builder;
+    }
+
+    static SpanProcessor customizeSpanProcessor(SpanProcessor processor, ConfigProperties config,
+            List<DetachableSpanExporter> exporters) {
+        SpanProcessor customized = replaceBatchSpanProcessor(processor, config, exporters);
+        if (config.getBoolean(SROTEL_TAIL_SAMPLING_ENABLED, false)) {
+            customized = createTailSamplingSpanProcessor(customized, config);
+        }
+        return customized;
+    }
+
+    private static boolean isStriped(ConfigProperties config) {
+        String type = config.getString(SROTEL_SPAN_PROCESSOR, SPAN_PROCESSOR_BATCH).toLowerCase(Locale.ROOT);
+        if (SPAN_PROCESSOR_BATCH.equals(type)) {
+            return false;
+        }
+        if (!SPAN_PROCESSOR_STRIPED.equals(type)) {
+            throw new ConfigurationException("Unrecognized value for " + SROTEL_SPAN_PROCESSOR + ": " + type);
+        }
+        return true;
+    }
+
+    private static SpanProcessor replaceBatchSpanProcessor(SpanProcessor processor, ConfigProperties config,
+            List<DetachableSpanExporter> exporters) {
+        if (!isStriped(config)) {
+            return processor;
+        }
+        // Other customizers may have already replaced it, e.g. with a SimpleSpanProcessor under a security manager
+        if (!(processor instanceof BatchSpanProcessor)) {
+            return processor;
+        }
+
+        BatchSpanProcessor batchSpanProcessor = (BatchSpanProcessor) processor;
+        StripedSpanProcessor.Builder builder = StripedSpanProcessor
+                .builder(batchSpanProcessor.getSpanExporter())
+                .setMaxQueueSize(config.getInt(OTEL_BSP_MAX_QUEUE_SIZE,
+                        StripedSpanProcessor.Builder.DEFAULT_MAX_QUEUE_SIZE))
+                .setMaxExportBatchSize(config.getInt(OTEL_BSP_MAX_EXPORT_BATCH_SIZE,
+                        StripedSpanProcessor.Builder.DEFAULT_MAX_EXPORT_BATCH_SIZE))
+                .setScheduleDelay(config.getDuration(OTEL_BSP_SCHEDULE_DELAY,
+                        StripedSpanProcessor.Builder.DEFAULT_SCHEDULE_DELAY))
+                .setExportTimeout(config.getDuration(OTEL_BSP_EXPORT_TIMEOUT,
+                        StripedSpanProcessor.Builder.DEFAULT_EXPORT_TIMEOUT))
+                .setWaitStrategy(getWaitStrategy(config))
+                .setMeterProvider(getMeterProvider(config));
+        Integer stripes = config.getInt(SROTEL_SPAN_PROCESSOR_STRIPES);
+        if (stripes != null) {
+            builder.setStripes(stripes);
+        }
+        if (config.getBoolean(SROTEL_SPAN_PROCESSOR_SHEDDING_ENABLED, false)) {
+            builder.setSheddingPolicy(SheddingPolicy.builder()
+                    .setLatencyThreshold(config.getDuration(SROTEL_SPAN_PROCESSOR_SHEDDING_LATENCY_THRESHOLD,
+                            SheddingPolicy.Builder.DEFAULT_LATENCY_THRESHOLD))
+                    .setMinDuration(config.getDuration(SROTEL_SPAN_PROCESSOR_SHEDDING_MIN_DURATION,
+                            SheddingPolicy.Builder.DEFAULT_MIN_DURATION))
+                    .setLowWatermark(config.getDouble(SROTEL_SPAN_PROCESSOR_SHEDDING_LOW_WATERMARK,
+                            SheddingPolicy.Builder.DEFAULT_LOW_WATERMARK))
+                    .setNormalWatermark(config.getDouble(SROTEL_SPAN_PROCESSOR_SHEDDING_NORMAL_WATERMARK,
+                            SheddingPolicy.Builder.DEFAULT_NORMAL_WATERMARK))
+                    .build());
+        }
+        StripedSpanProcessor striped = builder.build();
+        shutdownDetached(batchSpanProcessor, exporters);
+        return striped;
+    }
+
+    private static StripedSpanProcessor.WaitStrategy getWaitStrategy(ConfigProperties config) {
+        String waitStrategy = config.getString(SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY, "park");
+        try {
+            return StripedSpanProcessor.WaitStrategy.valueOf(waitStrategy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(
+                    "Unrecognized value for " + SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY + ": " + waitStrategy, e);
+        }
+    }
+
+    /**
+     * Stops the worker thread and the metrics of a replaced batch span processor. Its exporters are detached
+     * meanwhile: the processor was never fed, so its shutdown completes right away, and the exporters are only shut
+     * down with the processor replacing it. Exporters of other SDKs are not affected.
+     */
+    private static void shutdownDetached(BatchSpanProcessor batchSpanProcessor,
+            List<DetachableSpanExporter> exporters) {
+        exporters.forEach(exporter -> exporter.setDetached(true));
+        try {
+            batchSpanProcessor.shutdown().join(10, TimeUnit.SECONDS);
+        } finally {
+            exporters.forEach(exporter -> exporter.setDetached(false));
+        }
+    }
+
+    private static SpanProcessor createTailSamplingSpanProcessor(SpanProcessor processor, ConfigProperties config) {
+        // Route thresholds are given in milliseconds, e.g. /checkout=500,/items/{id}=200
+        Map<String, Duration> routeThresholds = new LinkedHashMap<>();
+        config.getMap(SROTEL_TAIL_SAMPLING_ROUTE_LATENCY).forEach((route, millis) -> {
+            try {
+                routeThresholds.put(route, Duration.ofMillis(Long.parseLong(millis.trim())));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("Invalid latency threshold for route " + route + " in "
+                        + SROTEL_TAIL_SAMPLING_ROUTE_LATENCY + ": " + millis, e);
+            }
+        });
+        return TailSamplingSpanProcessor.builder(processor)
+                .setRatio(config.getDouble(SROTEL_TAIL_SAMPLING_RATIO,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_RATIO))
+                .setLatencyThreshold(config.getDuration(SROTEL_TAIL_SAMPLING_LATENCY_THRESHOLD,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_LATENCY_THRESHOLD))
+                .setRouteLatencyThresholds(routeThresholds)
+                .setDecisionWait(config.getDuration(SROTEL_TAIL_SAMPLING_DECISION_WAIT,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_DECISION_WAIT))
+                .setMaxTraces(config.getInt(SROTEL_TAIL_SAMPLING_MAX_TRACES,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_MAX_TRACES))
+                .setMaxSpans(config.getInt(SROTEL_TAIL_SAMPLING_MAX_SPANS,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_MAX_SPANS))
+                .setMaxSpansPerTrace(config.getInt(SROTEL_TAIL_SAMPLING_MAX_SPANS_PER_TRACE,
+                        TailSamplingSpanProcessor.Builder.DEFAULT_MAX_SPANS_PER_TRACE))
+                .setMeterProvider(getMeterProvider(config))
+                .build();
+    }
+
+    private static Supplier<MeterProvider> getMeterProvider(ConfigProperties config) {
+        return config.getBoolean(SROTEL_METRICS_ENABLED, true) ? AbstractVertxExporterProvider::getMeterProvider : null;
+    }
+}
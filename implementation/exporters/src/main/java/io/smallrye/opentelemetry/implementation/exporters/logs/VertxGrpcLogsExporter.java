@@ -2,25 +2,59 @@ package io.smallrye.opentelemetry.implementation.exporters.logs;
 
 import java.util.Collection;
 
-import io.opentelemetry.exporter.internal.otlp.logs.LogsRequestMarshaler;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.GrpcSender;
 import io.opentelemetry.sdk.common.export.GrpcStatusCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.logs.data.LogRecordData;
 import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import io.smallrye.opentelemetry.implementation.exporters.ExportRequests;
+import io.smallrye.opentelemetry.implementation.exporters.RequestSplitter;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
 
 public class VertxGrpcLogsExporter implements LogRecordExporter {
     private final GrpcSender sender;
+    private final RequestSplitter<LogRecordData, ?> splitter;
 
     public VertxGrpcLogsExporter(GrpcSender sender) {
+        this(sender, 0);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     */
+    public VertxGrpcLogsExporter(GrpcSender sender, int maxRequestSize) {
+        this(sender, maxRequestSize, MemoryMode.IMMUTABLE_DATA);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     */
+    public VertxGrpcLogsExporter(GrpcSender sender, int maxRequestSize, MemoryMode memoryMode) {
+        this(sender, maxRequestSize, memoryMode, false);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     * @param directEncoding {@code true} to encode the requests straight into the payload buffers of the sender,
+     *        rather than with the SDK marshalers
+     */
+    public VertxGrpcLogsExporter(GrpcSender sender, int maxRequestSize, MemoryMode memoryMode, boolean directEncoding) {
         this.sender = sender;
+        this.splitter = ExportRequests.logs(maxRequestSize, memoryMode, directEncoding, this::send);
     }
 
     @Override
     public CompletableResultCode export(Collection<LogRecordData> logs) {
-        LogsRequestMarshaler marshaler = LogsRequestMarshaler.create(logs);
+        return splitter.export(logs);
+    }
+
+    private CompletableResultCode send(MessageWriter messageWriter) {
         CompletableResultCode result = new CompletableResultCode();
-        sender.send(marshaler.toBinaryMessageWriter(),
+        sender.send(messageWriter,
                 response -> {
                     if (response.getStatusCode() == GrpcStatusCode.OK) {
                         result.succeed();
@@ -34,7 +68,9 @@ public class VertxGrpcLogsExporter implements LogRecordExporter {
 
     @Override
     public CompletableResultCode flush() {
-        return CompletableResultCode.ofSuccess();
+        // Completes once the exports in flight have completed
+        return sender instanceof FlushableSender ? ((FlushableSender) sender).flush()
+                : CompletableResultCode.ofSuccess();
     }
 
     @Override
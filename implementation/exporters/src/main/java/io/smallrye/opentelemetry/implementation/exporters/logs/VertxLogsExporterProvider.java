@@ -2,6 +2,7 @@ package io.smallrye.opentelemetry.implementation.exporters.logs;
 
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_GRPC;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_HTTP_PROTOBUF;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getMemoryMode;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getProtocol;
 
 import java.net.URISyntaxException;
@@ -25,9 +26,11 @@ public class VertxLogsExporterProvider extends AbstractVertxExporterProvider
             final String protocol = getProtocol(config, getSignalType());
 
             if (PROTOCOL_GRPC.equals(protocol)) {
-                return new VertxGrpcLogsExporter(createGrpcSender(config, VertxGrpcSender.GRPC_LOG_SERVICE_NAME));
+                return new VertxGrpcLogsExporter(createGrpcSender(config, VertxGrpcSender.GRPC_LOG_SERVICE_NAME),
+                        getMaxRequestSize(config), getMemoryMode(config), isDirectEncoding(config));
             } else if (PROTOCOL_HTTP_PROTOBUF.equals(protocol)) {
-                return new VertxHttpLogsExporter(createHttpSender(config, VertxHttpSender.LOGS_PATH));
+                return new VertxHttpLogsExporter(createHttpSender(config, VertxHttpSender.LOGS_PATH),
+                        getMaxRequestSize(config), getMemoryMode(config), isDirectEncoding(config));
             } else {
                 throw buildUnsupportedProtocolException(protocol);
             }
@@ -0,0 +1,375 @@
+package io.smallrye.opentelemetry.implementation.exporters.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.data.SumData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.data.ValueAtQuantile;
+import io.opentelemetry.sdk.resources.Resource;
+
+/**
+ * Writes metrics in the Prometheus text exposition format, version 0.0.4, straight into a {@link ByteBuf}.
+ * <p>
+ * Names get the unit and {@code _total} suffixes of the OpenTelemetry to Prometheus compatibility rules, the scope is
+ * added as the {@code otel_scope_name} and {@code otel_scope_version} labels, and the resource is exposed as the
+ * {@code target_info} metric. The format has no exponential histograms, they are skipped.
+ */
+final class PrometheusTextEncoder {
+
+    private static final Logger logger = Logger.getLogger(PrometheusTextEncoder.class.getName());
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Map<String, String> UNITS = Map.ofEntries(
+            Map.entry("d", "days"),
+            Map.entry("h", "hours"),
+            Map.entry("min", "minutes"),
+            Map.entry("s", "seconds"),
+            Map.entry("ms", "milliseconds"),
+            Map.entry("us", "microseconds"),
+            Map.entry("ns", "nanoseconds"),
+            Map.entry("By", "bytes"),
+            Map.entry("KiBy", "kibibytes"),
+            Map.entry("MiBy", "mebibytes"),
+            Map.entry("GiBy", "gibibytes"),
+            Map.entry("KBy", "kilobytes"),
+            Map.entry("MBy", "megabytes"),
+            Map.entry("GBy", "gigabytes"),
+            Map.entry("m", "meters"),
+            Map.entry("V", "volts"),
+            Map.entry("A", "amperes"),
+            Map.entry("J", "joules"),
+            Map.entry("W", "watts"),
+            Map.entry("g", "grams"),
+            Map.entry("Cel", "celsius"),
+            Map.entry("Hz", "hertz"),
+            Map.entry("%", "percent"));
+
+    private static final Map<String, String> PER_UNITS = Map.of(
+            "s", "second",
+            "m", "minute",
+            "h", "hour",
+            "d", "day");
+
+    // The names only depend on the instruments, which rarely change between scrapes
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+
+    void encode(Collection<MetricData> metrics, ByteBuf out) {
+        // All the samples of a metric must be contiguous, whatever the scope that reported them
+        Map<String, List<MetricData>> byName = new LinkedHashMap<>();
+        Resource resource = null;
+        for (MetricData metric : metrics) {
+            if (metric.getType() == MetricDataType.EXPONENTIAL_HISTOGRAM) {
+                continue;
+            }
+            if (resource == null) {
+                resource = metric.getResource();
+            }
+            byName.computeIfAbsent(name(metric), n -> new ArrayList<>(1)).add(metric);
+        }
+
+        if (resource != null && !resource.getAttributes().isEmpty()) {
+            ByteBufUtil.writeAscii(out, "# HELP target_info Target metadata\n# TYPE target_info gauge\ntarget_info");
+            writeLabels(out, resource.getAttributes(), null, null, null);
+            ByteBufUtil.writeAscii(out, " 1\n");
+        }
+
+        for (Map.Entry<String, List<MetricData>> entry : byName.entrySet()) {
+            String name = entry.getKey();
+            List<MetricData> group = entry.getValue();
+            MetricData first = group.get(0);
+            String type = type(first);
+            writeHeader(out, name, first.getDescription(), type);
+            for (MetricData metric : group) {
+                if (!type.equals(type(metric))) {
+                    logger.log(Level.FINE, "Skipping the {0} metric of {1}, as another scope reports it as a {2}",
+                            new Object[] { name, metric.getInstrumentationScopeInfo().getName(), type });
+                    continue;
+                }
+                writeMetric(out, name, metric);
+            }
+        }
+    }
+
+    private void writeHeader(ByteBuf out, String name, String description, String type) {
+        if (description != null && !description.isEmpty()) {
+            ByteBufUtil.writeAscii(out, "# HELP ");
+            ByteBufUtil.writeAscii(out, name);
+            out.writeByte(' ');
+            writeEscaped(out, description, false);
+            out.writeByte('\n');
+        }
+        ByteBufUtil.writeAscii(out, "# TYPE ");
+        ByteBufUtil.writeAscii(out, name);
+        out.writeByte(' ');
+        ByteBufUtil.writeAscii(out, type);
+        out.writeByte('\n');
+    }
+
+    private void writeMetric(ByteBuf out, String name, MetricData metric) {
+        InstrumentationScopeInfo scope = metric.getInstrumentationScopeInfo();
+        switch (metric.getType()) {
+            case LONG_GAUGE:
+            case LONG_SUM:
+                for (PointData point : metric.getData().getPoints()) {
+                    writeSample(out, name, point.getAttributes(), scope, null, null);
+                    ByteBufUtil.writeAscii(out, Long.toString(((LongPointData) point).getValue()));
+                    out.writeByte('\n');
+                }
+                break;
+            case DOUBLE_GAUGE:
+            case DOUBLE_SUM:
+                for (PointData point : metric.getData().getPoints()) {
+                    writeSample(out, name, point.getAttributes(), scope, null, null);
+                    writeDouble(out, ((DoublePointData) point).getValue());
+                    out.writeByte('\n');
+                }
+                break;
+            case HISTOGRAM:
+                for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+                    writeHistogram(out, name, point, scope);
+                }
+                break;
+            case SUMMARY:
+                for (SummaryPointData point : metric.getSummaryData().getPoints()) {
+                    for (ValueAtQuantile quantile : point.getValues()) {
+                        writeSample(out, name, point.getAttributes(), scope, "quantile",
+                                doubleToString(quantile.getQuantile()));
+                        writeDouble(out, quantile.getValue());
+                        out.writeByte('\n');
+                    }
+                    writeSample(out, name + "_sum", point.getAttributes(), scope, null, null);
+                    writeDouble(out, point.getSum());
+                    out.writeByte('\n');
+                    writeSample(out, name + "_count", point.getAttributes(), scope, null, null);
+                    ByteBufUtil.writeAscii(out, Long.toString(point.getCount()));
+                    out.writeByte('\n');
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeHistogram(ByteBuf out, String name, HistogramPointData point, InstrumentationScopeInfo scope) {
+        String bucket = name + "_bucket";
+        List<Double> boundaries = point.getBoundaries();
+        List<Long> counts = point.getCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            cumulative += counts.get(i);
+            String le = i < boundaries.size() ? doubleToString(boundaries.get(i)) : "+Inf";
+            writeSample(out, bucket, point.getAttributes(), scope, "le", le);
+            ByteBufUtil.writeAscii(out, Long.toString(cumulative));
+            out.writeByte('\n');
+        }
+        writeSample(out, name + "_sum", point.getAttributes(), scope, null, null);
+        writeDouble(out, point.getSum());
+        out.writeByte('\n');
+        writeSample(out, name + "_count", point.getAttributes(), scope, null, null);
+        ByteBufUtil.writeAscii(out, Long.toString(point.getCount()));
+        out.writeByte('\n');
+    }
+
+    /**
+     * Writes the name and the labels of a sample, followed by the space before its value.
+     */
+    private void writeSample(ByteBuf out, String name, Attributes attributes, InstrumentationScopeInfo scope,
+            String extraLabel, String extraValue) {
+        ByteBufUtil.writeAscii(out, name);
+        writeLabels(out, attributes, scope, extraLabel, extraValue);
+        out.writeByte(' ');
+    }
+
+    private void writeLabels(ByteBuf out, Attributes attributes, InstrumentationScopeInfo scope, String extraLabel,
+            String extraValue) {
+        boolean first = true;
+        for (Map.Entry<AttributeKey<?>, Object> attribute : attributes.asMap().entrySet()) {
+            first = writeLabel(out, first, label(attribute.getKey().getKey()), String.valueOf(attribute.getValue()));
+        }
+        if (scope != null) {
+            first = writeLabel(out, first, "otel_scope_name", scope.getName());
+            if (scope.getVersion() != null) {
+                first = writeLabel(out, first, "otel_scope_version", scope.getVersion());
+            }
+        }
+        if (extraLabel != null) {
+            first = writeLabel(out, first, extraLabel, extraValue);
+        }
+        if (!first) {
+            out.writeByte('}');
+        }
+    }
+
+    private static boolean writeLabel(ByteBuf out, boolean first, String label, String value) {
+        out.writeByte(first ? '{' : ',');
+        ByteBufUtil.writeAscii(out, label);
+        out.writeByte('=');
+        out.writeByte('"');
+        writeEscaped(out, value, true);
+        out.writeByte('"');
+        return false;
+    }
+
+    /**
+     * Escapes backslashes and line feeds, and double quotes in label values.
+     */
+    private static void writeEscaped(ByteBuf out, String value, boolean quotes) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped;
+            if (c == '\\') {
+                escaped = "\\\\";
+            } else if (c == '\n') {
+                escaped = "\\n";
+            } else if (c == '"' && quotes) {
+                escaped = "\\\"";
+            } else {
+                continue;
+            }
+            ByteBufUtil.writeUtf8(out, value, start, i);
+            ByteBufUtil.writeAscii(out, escaped);
+            start = i + 1;
+        }
+        ByteBufUtil.writeUtf8(out, value, start, value.length());
+    }
+
+    private static void writeDouble(ByteBuf out, double value) {
+        ByteBufUtil.writeAscii(out, doubleToString(value));
+    }
+
+    private static String doubleToString(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static String type(MetricData metric) {
+        switch (metric.getType()) {
+            case LONG_SUM:
+            case DOUBLE_SUM:
+                return isCounter(metric) ? "counter" : "gauge";
+            case HISTOGRAM:
+                return "histogram";
+            case SUMMARY:
+                return "summary";
+            default:
+                return "gauge";
+        }
+    }
+
+    private static boolean isCounter(MetricData metric) {
+        SumData<?> sum = metric.getType() == MetricDataType.LONG_SUM ? metric.getLongSumData()
+                : metric.getDoubleSumData();
+        return sum.isMonotonic();
+    }
+
+    private String name(MetricData metric) {
+        boolean counter = (metric.getType() == MetricDataType.LONG_SUM || metric.getType() == MetricDataType.DOUBLE_SUM)
+                && isCounter(metric);
+        boolean gauge = "gauge".equals(type(metric));
+        String key = metric.getName() + '\u0000' + metric.getUnit() + '\u0000' + (counter ? 'c' : gauge ? 'g' : 'o');
+        String name = names.get(key);
+        if (name == null) {
+            name = buildName(metric.getName(), metric.getUnit(), counter, gauge);
+            names.put(key, name);
+        }
+        return name;
+    }
+
+    private static String buildName(String metricName, String unit, boolean counter, boolean gauge) {
+        String name = sanitize(metricName, true);
+        String suffix = unitSuffix(unit, gauge);
+        if (!suffix.isEmpty() && !name.endsWith("_" + suffix)) {
+            name = name + "_" + suffix;
+        }
+        if (counter) {
+            if (name.endsWith("_total")) {
+                return name;
+            }
+            name = name + "_total";
+        }
+        return name;
+    }
+
+    private static String unitSuffix(String unit, boolean gauge) {
+        if (unit == null || unit.isEmpty()) {
+            return "";
+        }
+        // Annotations, e.g. {requests}, are not units
+        String stripped = unit.replaceAll("\\{[^}]*}", "").trim();
+        if (stripped.isEmpty()) {
+            return "";
+        }
+        if ("1".equals(stripped)) {
+            return gauge ? "ratio" : "";
+        }
+        int slash = stripped.indexOf('/');
+        if (slash < 0) {
+            return sanitize(UNITS.getOrDefault(stripped, stripped), false);
+        }
+        String numerator = stripped.substring(0, slash);
+        String denominator = stripped.substring(slash + 1);
+        String per = "per_" + sanitize(PER_UNITS.getOrDefault(denominator, denominator), false);
+        return numerator.isEmpty() ? per : sanitize(UNITS.getOrDefault(numerator, numerator), false) + "_" + per;
+    }
+
+    private String label(String key) {
+        String label = labels.get(key);
+        if (label == null) {
+            label = sanitize(key, false);
+            if (!label.isEmpty() && Character.isDigit(label.charAt(0))) {
+                label = "key_" + label;
+            }
+            labels.put(key, label);
+        }
+        return label;
+    }
+
+    /**
+     * Replaces the characters not allowed in metric names, or in label names, with underscores, and collapses them.
+     */
+    private static String sanitize(String value, boolean metricName) {
+        StringBuilder sanitized = new StringBuilder(value.length() + 1);
+        boolean underscore = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || (c == ':' && metricName);
+            if (valid) {
+                sanitized.append(c);
+                underscore = false;
+            } else if (!underscore) {
+                sanitized.append('_');
+                underscore = true;
+            }
+        }
+        if (metricName && sanitized.length() > 0 && Character.isDigit(sanitized.charAt(0))) {
+            sanitized.insert(0, '_');
+        }
+        return sanitized.toString();
+    }
+}
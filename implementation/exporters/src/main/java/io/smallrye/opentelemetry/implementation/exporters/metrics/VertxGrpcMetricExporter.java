@@ -2,11 +2,11 @@ package io.smallrye.opentelemetry.implementation.exporters.metrics;
 
 import java.util.Collection;
 
-import io.opentelemetry.exporter.internal.otlp.metrics.MetricsRequestMarshaler;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.GrpcSender;
 import io.opentelemetry.sdk.common.export.GrpcStatusCode;
 import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.metrics.Aggregation;
 import io.opentelemetry.sdk.metrics.InstrumentType;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
@@ -14,26 +14,74 @@ import io.opentelemetry.sdk.metrics.data.MetricData;
 import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
 import io.opentelemetry.sdk.metrics.export.DefaultAggregationSelector;
 import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.smallrye.opentelemetry.implementation.exporters.ExportRequests;
+import io.smallrye.opentelemetry.implementation.exporters.RequestSplitter;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
 
 public class VertxGrpcMetricExporter implements MetricExporter {
 
     private final GrpcSender sender;
+    private final MemoryMode memoryMode;
+    private final RequestSplitter<MetricData, ?> splitter;
     private final AggregationTemporalitySelector aggregationTemporalitySelector;
     private final DefaultAggregationSelector defaultAggregationSelector;
 
     public VertxGrpcMetricExporter(GrpcSender sender,
             AggregationTemporalitySelector aggregationTemporalitySelector,
             DefaultAggregationSelector defaultAggregationSelector) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, 0);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     */
+    public VertxGrpcMetricExporter(GrpcSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, maxRequestSize,
+                MemoryMode.IMMUTABLE_DATA);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     */
+    public VertxGrpcMetricExporter(GrpcSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize,
+            MemoryMode memoryMode) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, maxRequestSize, memoryMode, false);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     * @param directEncoding {@code true} to encode the requests straight into the payload buffers of the sender,
+     *        rather than with the SDK marshalers
+     */
+    public VertxGrpcMetricExporter(GrpcSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize,
+            MemoryMode memoryMode,
+            boolean directEncoding) {
         this.sender = sender;
         this.aggregationTemporalitySelector = aggregationTemporalitySelector;
         this.defaultAggregationSelector = defaultAggregationSelector;
+        this.memoryMode = memoryMode;
+        this.splitter = ExportRequests.metrics(maxRequestSize, memoryMode, directEncoding, this::send);
     }
 
     @Override
     public CompletableResultCode export(Collection<MetricData> metrics) {
-        MetricsRequestMarshaler marshaler = MetricsRequestMarshaler.create(metrics);
+        return splitter.export(metrics);
+    }
+
+    private CompletableResultCode send(MessageWriter messageWriter) {
         CompletableResultCode result = new CompletableResultCode();
-        sender.send(marshaler.toBinaryMessageWriter(),
+        sender.send(messageWriter,
                 response -> {
                     if (response.getStatusCode() == GrpcStatusCode.OK) {
                         result.succeed();
@@ -47,7 +95,9 @@ public class VertxGrpcMetricExporter implements MetricExporter {
 
     @Override
     public CompletableResultCode flush() {
-        return CompletableResultCode.ofSuccess();
+        // Completes once the exports in flight have completed
+        return sender instanceof FlushableSender ? ((FlushableSender) sender).flush()
+                : CompletableResultCode.ofSuccess();
     }
 
     @Override
@@ -67,6 +117,6 @@ public class VertxGrpcMetricExporter implements MetricExporter {
 
     @Override
     public MemoryMode getMemoryMode() {
-        return MemoryMode.IMMUTABLE_DATA;
+        return memoryMode;
     }
 }
@@ -2,10 +2,10 @@ package io.smallrye.opentelemetry.implementation.exporters.metrics;
 
 import java.util.Collection;
 
-import io.opentelemetry.exporter.internal.otlp.metrics.MetricsRequestMarshaler;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.HttpSender;
 import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.metrics.Aggregation;
 import io.opentelemetry.sdk.metrics.InstrumentType;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
@@ -13,26 +13,74 @@ import io.opentelemetry.sdk.metrics.data.MetricData;
 import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
 import io.opentelemetry.sdk.metrics.export.DefaultAggregationSelector;
 import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.smallrye.opentelemetry.implementation.exporters.ExportRequests;
+import io.smallrye.opentelemetry.implementation.exporters.RequestSplitter;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
 
 public class VertxHttpMetricsExporter implements MetricExporter {
 
     private final HttpSender sender;
+    private final MemoryMode memoryMode;
+    private final RequestSplitter<MetricData, ?> splitter;
     private final AggregationTemporalitySelector aggregationTemporalitySelector;
     private final DefaultAggregationSelector defaultAggregationSelector;
 
     public VertxHttpMetricsExporter(HttpSender sender,
             AggregationTemporalitySelector aggregationTemporalitySelector,
             DefaultAggregationSelector defaultAggregationSelector) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, 0);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     */
+    public VertxHttpMetricsExporter(HttpSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, maxRequestSize,
+                MemoryMode.IMMUTABLE_DATA);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     */
+    public VertxHttpMetricsExporter(HttpSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize,
+            MemoryMode memoryMode) {
+        this(sender, aggregationTemporalitySelector, defaultAggregationSelector, maxRequestSize, memoryMode, false);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     * @param directEncoding {@code true} to encode the requests straight into the payload buffers of the sender,
+     *        rather than with the SDK marshalers
+     */
+    public VertxHttpMetricsExporter(HttpSender sender,
+            AggregationTemporalitySelector aggregationTemporalitySelector,
+            DefaultAggregationSelector defaultAggregationSelector,
+            int maxRequestSize,
+            MemoryMode memoryMode,
+            boolean directEncoding) {
         this.sender = sender;
         this.aggregationTemporalitySelector = aggregationTemporalitySelector;
         this.defaultAggregationSelector = defaultAggregationSelector;
+        this.memoryMode = memoryMode;
+        this.splitter = ExportRequests.metrics(maxRequestSize, memoryMode, directEncoding, this::send);
     }
 
     @Override
     public CompletableResultCode export(Collection<MetricData> metrics) {
-        MetricsRequestMarshaler marshaler = MetricsRequestMarshaler.create(metrics);
+        return splitter.export(metrics);
+    }
+
+    private CompletableResultCode send(MessageWriter messageWriter) {
         CompletableResultCode result = new CompletableResultCode();
-        sender.send(marshaler.toBinaryMessageWriter(),
+        sender.send(messageWriter,
                 response -> {
                     if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
                         result.succeed();
@@ -46,7 +94,9 @@ public class VertxHttpMetricsExporter implements MetricExporter {
 
     @Override
     public CompletableResultCode flush() {
-        return CompletableResultCode.ofSuccess();
+        // Completes once the exports in flight have completed
+        return sender instanceof FlushableSender ? ((FlushableSender) sender).flush()
+                : CompletableResultCode.ofSuccess();
     }
 
     @Override
@@ -66,6 +116,6 @@ public class VertxHttpMetricsExporter implements MetricExporter {
 
     @Override
     public MemoryMode getMemoryMode() {
-        return MemoryMode.IMMUTABLE_DATA;
+        return memoryMode;
     }
 }
@@ -3,6 +3,7 @@ package io.smallrye.opentelemetry.implementation.exporters.metrics;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_GRPC;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_HTTP_PROTOBUF;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getConfig;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getMemoryMode;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getProtocol;
 
 import java.net.URISyntaxException;
@@ -36,12 +37,18 @@ public class VertxMetricsExporterProvider extends AbstractVertxExporterProvider
                 return new VertxGrpcMetricExporter(
                         createGrpcSender(config, VertxGrpcSender.GRPC_METRIC_SERVICE_NAME),
                         aggregationTemporalityResolver(config),
-                        aggregationResolver(config));
+                        aggregationResolver(config),
+                        getMaxRequestSize(config),
+                        getMemoryMode(config),
+                        isDirectEncoding(config));
             } else if (PROTOCOL_HTTP_PROTOBUF.equals(protocol)) {
                 return new VertxHttpMetricsExporter(
                         createHttpSender(config, VertxHttpSender.METRICS_PATH),
                         aggregationTemporalityResolver(config),
-                        aggregationResolver(config));
+                        aggregationResolver(config),
+                        getMaxRequestSize(config),
+                        getMemoryMode(config),
+                        isDirectEncoding(config));
             } else {
                 throw buildUnsupportedProtocolException(protocol);
             }
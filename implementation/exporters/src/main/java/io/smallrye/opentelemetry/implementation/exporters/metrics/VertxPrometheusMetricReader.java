@@ -0,0 +1,237 @@
+package io.smallrye.opentelemetry.implementation.exporters.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * A metric reader serving the metrics in the Prometheus text format, from an HTTP server on the Vert.x instance of the
+ * exporters.
+ * <p>
+ * A scrape collects and encodes the metrics once, off the event loop, and the encoded response is cached for the
+ * configured window: concurrent scrapes, e.g. from several Prometheus replicas, share a single collection and encoding,
+ * and its gzip compression. The response is written to the connection in chunks, as the connection drains.
+ */
+public final class VertxPrometheusMetricReader implements MetricReader, Handler<HttpServerRequest> {
+
+    private static final Logger logger = Logger.getLogger(VertxPrometheusMetricReader.class.getName());
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Vertx vertx;
+    private final String path;
+    private final long cacheWindowNanos;
+    private final Runnable shutdownHook;
+    private final PrometheusTextEncoder encoder = new PrometheusTextEncoder();
+    private final HttpServer server;
+    private final CompletableResultCode shutdownResult = new CompletableResultCode();
+
+    private volatile CollectionRegistration registration = CollectionRegistration.noop();
+    private volatile Scrape cached;
+    private Future<Scrape> pending;
+    private boolean shutdown;
+
+    /**
+     * @param cacheWindow how long an encoded response is served to the following scrapes
+     * @param shutdownHook called once the server is closed, e.g. to release the Vert.x instance
+     */
+    public VertxPrometheusMetricReader(Vertx vertx, String host, int port, String path, Duration cacheWindow,
+            Runnable shutdownHook) {
+        this.vertx = vertx;
+        this.path = path;
+        this.cacheWindowNanos = cacheWindow.toNanos();
+        this.shutdownHook = shutdownHook;
+        this.server = vertx.createHttpServer(new HttpServerOptions().setHost(host).setPort(port))
+                .requestHandler(this);
+        server.listen().onFailure(new Handler<>() {
+            @Override
+            public void handle(Throwable t) {
+                logger.log(Level.SEVERE, "Unable to serve the Prometheus metrics on " + host + ":" + port, t);
+            }
+        });
+    }
+
+    @Override
+    public void register(CollectionRegistration registration) {
+        this.registration = registration;
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return AggregationTemporality.CUMULATIVE;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        synchronized (this) {
+            if (shutdown) {
+                return shutdownResult;
+            }
+            shutdown = true;
+        }
+        registration = CollectionRegistration.noop();
+        server.close().onComplete(new Handler<>() {
+            @Override
+            public void handle(AsyncResult<Void> result) {
+                if (shutdownHook != null) {
+                    shutdownHook.run();
+                }
+                if (result.succeeded()) {
+                    shutdownResult.succeed();
+                } else {
+                    shutdownResult.fail();
+                }
+            }
+        });
+        return shutdownResult;
+    }
+
+    @Override
+    public void handle(HttpServerRequest request) {
+        HttpServerResponse response = request.response();
+        if (!path.equals(request.path())) {
+            response.setStatusCode(404).end();
+            return;
+        }
+        if (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD) {
+            response.setStatusCode(405).putHeader(HttpHeaders.ALLOW, "GET, HEAD").end();
+            return;
+        }
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        scrape().compose(scrape -> gzip ? scrape.gzipped(vertx) : Future.succeededFuture(scrape.content))
+                .onComplete(result -> {
+                    if (result.failed()) {
+                        logger.log(Level.WARNING, "Unable to collect the Prometheus metrics", result.cause());
+                        response.setStatusCode(500).end();
+                        return;
+                    }
+                    ByteBuf content = result.result();
+                    response.putHeader(HttpHeaders.CONTENT_TYPE, PrometheusTextEncoder.CONTENT_TYPE)
+                            .putHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(content.readableBytes()));
+                    if (gzip) {
+                        response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.DEFLATE_GZIP);
+                    }
+                    if (request.method() == HttpMethod.HEAD) {
+                        response.end();
+                    } else {
+                        write(response, content, content.readerIndex());
+                    }
+                });
+    }
+
+    /**
+     * @return the cached scrape while it is fresh, otherwise the collection in progress, or a new one
+     */
+    private Future<Scrape> scrape() {
+        Scrape scrape = cached;
+        if (scrape != null && System.nanoTime() - scrape.createdNanos < cacheWindowNanos) {
+            return Future.succeededFuture(scrape);
+        }
+        synchronized (this) {
+            scrape = cached;
+            if (scrape != null && System.nanoTime() - scrape.createdNanos < cacheWindowNanos) {
+                return Future.succeededFuture(scrape);
+            }
+            if (pending == null) {
+                Future<Scrape> collection = vertx.executeBlocking(this::collect, false);
+                pending = collection;
+                collection.onComplete(result -> {
+                    synchronized (this) {
+                        pending = null;
+                        if (result.succeeded()) {
+                            cached = result.result();
+                        }
+                    }
+                });
+            }
+            return pending;
+        }
+    }
+
+    private Scrape collect() {
+        Collection<MetricData> metrics = registration.collectAllMetrics();
+        // Unpooled, the response is shared by the scrapes and left to the GC once replaced
+        ByteBuf content = Unpooled.buffer(cached != null ? cached.content.readableBytes() : 16 * 1024);
+        encoder.encode(metrics, content);
+        return new Scrape(content, System.nanoTime());
+    }
+
+    /**
+     * Writes the content in chunks, waiting for the connection to drain when its write queue is full.
+     */
+    private static void write(HttpServerResponse response, ByteBuf content, int offset) {
+        int end = content.writerIndex();
+        while (offset < end) {
+            if (response.writeQueueFull()) {
+                int resumeAt = offset;
+                response.drainHandler(v -> write(response, content, resumeAt));
+                return;
+            }
+            int length = Math.min(CHUNK_SIZE, end - offset);
+            response.write(Buffer.buffer(Unpooled.unreleasableBuffer(content.slice(offset, length))));
+            offset += length;
+        }
+        response.end();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private static final class Scrape {
+        final ByteBuf content;
+        final long createdNanos;
+        private Future<ByteBuf> gzipped;
+
+        Scrape(ByteBuf content, long createdNanos) {
+            this.content = content;
+            this.createdNanos = createdNanos;
+        }
+
+        synchronized Future<ByteBuf> gzipped(Vertx vertx) {
+            if (gzipped == null) {
+                gzipped = vertx.executeBlocking(this::compress, false);
+            }
+            return gzipped;
+        }
+
+        private ByteBuf compress() throws IOException {
+            ByteBuf compressed = Unpooled.buffer(Math.max(256, content.readableBytes() / 4));
+            try (OutputStream out = new GZIPOutputStream(new ByteBufOutputStream(compressed))) {
+                content.getBytes(content.readerIndex(), out, content.readableBytes());
+            }
+            return compressed;
+        }
+    }
+}
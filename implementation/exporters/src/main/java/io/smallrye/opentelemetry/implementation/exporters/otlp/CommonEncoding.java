@@ -0,0 +1,212 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.KeyValue;
+import io.opentelemetry.api.common.Value;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+
+/**
+ * Encodes the messages of {@code common.proto} and {@code resource.proto} shared by all signals.
+ */
+final class CommonEncoding implements BiConsumer<AttributeKey<?>, Object> {
+
+    // KeyValue
+    private static final int KEY_VALUE_KEY = 1;
+    private static final int KEY_VALUE_VALUE = 2;
+    // AnyValue
+    private static final int ANY_VALUE_STRING = 1;
+    private static final int ANY_VALUE_BOOL = 2;
+    private static final int ANY_VALUE_INT = 3;
+    private static final int ANY_VALUE_DOUBLE = 4;
+    private static final int ANY_VALUE_ARRAY = 5;
+    private static final int ANY_VALUE_KVLIST = 6;
+    private static final int ANY_VALUE_BYTES = 7;
+    // ArrayValue and KeyValueList
+    private static final int VALUES = 1;
+    // Resource
+    private static final int RESOURCE_ATTRIBUTES = 1;
+    // InstrumentationScope
+    private static final int SCOPE_NAME = 1;
+    private static final int SCOPE_VERSION = 2;
+    private static final int SCOPE_ATTRIBUTES = 3;
+
+    private final ProtoOutput output;
+    // The field of the attributes being written by forEach
+    private int attributesField;
+
+    CommonEncoding(ProtoOutput output) {
+        this.output = output;
+    }
+
+    void resource(Resource resource) {
+        attributes(RESOURCE_ATTRIBUTES, resource.getAttributes());
+    }
+
+    void scope(InstrumentationScopeInfo scope) {
+        string(SCOPE_NAME, scope.getName());
+        string(SCOPE_VERSION, scope.getVersion());
+        attributes(SCOPE_ATTRIBUTES, scope.getAttributes());
+    }
+
+    /**
+     * Writes the string, unless it is {@code null} or empty.
+     */
+    void string(int field, String value) {
+        if (value != null && !value.isEmpty()) {
+            output.string(field, value);
+        }
+    }
+
+    void attributes(int field, Attributes attributes) {
+        if (attributes.isEmpty()) {
+            return;
+        }
+        attributesField = field;
+        // Not reentrant: attribute values do not hold attributes
+        attributes.forEach(this);
+    }
+
+    /**
+     * Writes the number of attributes that were dropped, if any.
+     */
+    void droppedAttributes(int field, int totalAttributeCount, Attributes attributes) {
+        int dropped = totalAttributeCount - attributes.size();
+        if (dropped > 0) {
+            output.varint(field, dropped);
+        }
+    }
+
+    @Override
+    public void accept(AttributeKey<?> key, Object value) {
+        output.startMessage(attributesField);
+        string(KEY_VALUE_KEY, key.getKey());
+        output.startMessage(KEY_VALUE_VALUE);
+        switch (key.getType()) {
+            case STRING:
+                output.string(ANY_VALUE_STRING, (String) value);
+                break;
+            case BOOLEAN:
+                output.bool(ANY_VALUE_BOOL, (Boolean) value);
+                break;
+            case LONG:
+                output.varint(ANY_VALUE_INT, (Long) value);
+                break;
+            case DOUBLE:
+                output.doubleValue(ANY_VALUE_DOUBLE, (Double) value);
+                break;
+            case STRING_ARRAY:
+            case BOOLEAN_ARRAY:
+            case LONG_ARRAY:
+            case DOUBLE_ARRAY:
+                array((List<?>) value);
+                break;
+            default:
+                if (value instanceof Value) {
+                    anyValue((Value<?>) value);
+                } else {
+                    output.string(ANY_VALUE_STRING, String.valueOf(value));
+                }
+                break;
+        }
+        output.endMessage();
+        output.endMessage();
+    }
+
+    private void array(List<?> values) {
+        output.startMessage(ANY_VALUE_ARRAY);
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            output.startMessage(VALUES);
+            if (value instanceof String) {
+                output.string(ANY_VALUE_STRING, (String) value);
+            } else if (value instanceof Boolean) {
+                output.bool(ANY_VALUE_BOOL, (Boolean) value);
+            } else if (value instanceof Long) {
+                output.varint(ANY_VALUE_INT, (Long) value);
+            } else if (value instanceof Double) {
+                output.doubleValue(ANY_VALUE_DOUBLE, (Double) value);
+            }
+            output.endMessage();
+        }
+        output.endMessage();
+    }
+
+    /**
+     * Writes the content of an {@code AnyValue}.
+     */
+    @SuppressWarnings("unchecked")
+    void anyValue(Value<?> value) {
+        switch (value.getType()) {
+            case STRING:
+                output.string(ANY_VALUE_STRING, (String) value.getValue());
+                break;
+            case BOOLEAN:
+                output.bool(ANY_VALUE_BOOL, (Boolean) value.getValue());
+                break;
+            case LONG:
+                output.varint(ANY_VALUE_INT, (Long) value.getValue());
+                break;
+            case DOUBLE:
+                output.doubleValue(ANY_VALUE_DOUBLE, (Double) value.getValue());
+                break;
+            case ARRAY:
+                output.startMessage(ANY_VALUE_ARRAY);
+                for (Value<?> element : (List<Value<?>>) value.getValue()) {
+                    output.startMessage(VALUES);
+                    anyValue(element);
+                    output.endMessage();
+                }
+                output.endMessage();
+                break;
+            case KEY_VALUE_LIST:
+                output.startMessage(ANY_VALUE_KVLIST);
+                for (KeyValue keyValue : (List<KeyValue>) value.getValue()) {
+                    output.startMessage(VALUES);
+                    string(KEY_VALUE_KEY, keyValue.getKey());
+                    output.startMessage(KEY_VALUE_VALUE);
+                    anyValue(keyValue.getValue());
+                    output.endMessage();
+                    output.endMessage();
+                }
+                output.endMessage();
+                break;
+            case BYTES:
+                output.bytes(ANY_VALUE_BYTES, (ByteBuffer) value.getValue());
+                break;
+            default:
+                // An empty value
+                break;
+        }
+    }
+
+    /**
+     * Writes the W3C representation of a trace state, unless it is empty.
+     */
+    void traceState(int field, TraceState traceState) {
+        if (traceState.isEmpty()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        traceState.forEach((key, value) -> {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(key).append('=').append(value);
+        });
+        output.string(field, builder.toString());
+    }
+
+    /**
+     * The flags of a span or a link: the trace flags, and whether the parent or linked span is remote.
+     */
+    static int spanFlags(byte traceFlags, boolean remote) {
+        return (traceFlags & 0xff) | 0x100 | (remote ? 0x200 : 0);
+    }
+}
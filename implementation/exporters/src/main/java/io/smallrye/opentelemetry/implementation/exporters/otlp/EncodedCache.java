@@ -0,0 +1,60 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import io.netty.buffer.Unpooled;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+
+/**
+ * The encoded {@code Resource} and {@code InstrumentationScope} messages, shared by the encoders of an exporter. An
+ * application has a handful of them, repeated in every export, so they are encoded once.
+ */
+public final class EncodedCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<Resource, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<InstrumentationScopeInfo, byte[]> scopes = new ConcurrentHashMap<>();
+
+    byte[] resource(Resource resource) {
+        byte[] encoded = resources.get(resource);
+        if (encoded == null) {
+            encoded = encode(common -> common.resource(resource));
+            put(resources, resource, encoded);
+        }
+        return encoded;
+    }
+
+    byte[] scope(InstrumentationScopeInfo scope) {
+        byte[] encoded = scopes.get(scope);
+        if (encoded == null) {
+            encoded = encode(common -> common.scope(scope));
+            put(scopes, scope, encoded);
+        }
+        return encoded;
+    }
+
+    private static <K> void put(Map<K, byte[]> cache, K key, byte[] encoded) {
+        if (cache.size() >= MAX_ENTRIES) {
+            // Something creates resources or scopes on the fly, do not keep them all
+            cache.clear();
+        }
+        cache.put(key, encoded);
+    }
+
+    private static byte[] encode(Consumer<CommonEncoding> message) {
+        ProtoOutput output = new ProtoOutput();
+        CommonEncoding common = new CommonEncoding(output);
+        output.beginSizing();
+        message.accept(common);
+        int length = output.endSizing();
+        byte[] encoded = new byte[length];
+        output.beginWriting(Unpooled.wrappedBuffer(encoded).clear());
+        message.accept(common);
+        output.endWriting();
+        return encoded;
+    }
+}
@@ -0,0 +1,72 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import io.opentelemetry.api.common.Value;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.resources.Resource;
+
+/**
+ * Encodes an {@code ExportLogsServiceRequest}.
+ */
+public final class LogEncoder extends OtlpEncoder<LogRecordData> {
+
+    // LogRecord
+    private static final int TIME = 1;
+    private static final int SEVERITY_NUMBER = 2;
+    private static final int SEVERITY_TEXT = 3;
+    private static final int BODY = 5;
+    private static final int ATTRIBUTES = 6;
+    private static final int DROPPED_ATTRIBUTES = 7;
+    private static final int FLAGS = 8;
+    private static final int TRACE_ID = 9;
+    private static final int SPAN_ID = 10;
+    private static final int OBSERVED_TIME = 11;
+    private static final int EVENT_NAME = 12;
+
+    public LogEncoder(EncodedCache cache) {
+        super(cache);
+    }
+
+    @Override
+    Resource getResource(LogRecordData log) {
+        return log.getResource();
+    }
+
+    @Override
+    InstrumentationScopeInfo getScope(LogRecordData log) {
+        return log.getInstrumentationScopeInfo();
+    }
+
+    @Override
+    void encode(LogRecordData log) {
+        SpanContext spanContext = log.getSpanContext();
+
+        output.startMessage(SCOPE_ITEMS);
+        time(TIME, log.getTimestampEpochNanos());
+        time(OBSERVED_TIME, log.getObservedTimestampEpochNanos());
+        int severity = log.getSeverity().getSeverityNumber();
+        if (severity != 0) {
+            output.varint(SEVERITY_NUMBER, severity);
+        }
+        common.string(SEVERITY_TEXT, log.getSeverityText());
+        Value<?> body = log.getBodyValue();
+        if (body != null) {
+            output.startMessage(BODY);
+            common.anyValue(body);
+            output.endMessage();
+        }
+        common.attributes(ATTRIBUTES, log.getAttributes());
+        common.droppedAttributes(DROPPED_ATTRIBUTES, log.getTotalAttributeCount(), log.getAttributes());
+        int flags = spanContext.getTraceFlags().asByte() & 0xff;
+        if (flags != 0) {
+            output.fixed32(FLAGS, flags);
+        }
+        if (spanContext.isValid()) {
+            output.base16(TRACE_ID, spanContext.getTraceId());
+            output.base16(SPAN_ID, spanContext.getSpanId());
+        }
+        common.string(EVENT_NAME, log.getEventName());
+        output.endMessage();
+    }
+}
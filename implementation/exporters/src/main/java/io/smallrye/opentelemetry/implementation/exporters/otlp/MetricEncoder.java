@@ -0,0 +1,296 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import java.util.Collection;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoubleExemplarData;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.ExemplarData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongExemplarData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.data.ValueAtQuantile;
+import io.opentelemetry.sdk.resources.Resource;
+
+/**
+ * Encodes an {@code ExportMetricsServiceRequest}.
+ */
+public final class MetricEncoder extends OtlpEncoder<MetricData> {
+
+    // Metric
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int UNIT = 3;
+    private static final int GAUGE = 5;
+    private static final int SUM = 7;
+    private static final int HISTOGRAM = 9;
+    private static final int EXPONENTIAL_HISTOGRAM = 10;
+    private static final int SUMMARY = 11;
+    // Gauge, Sum, Histogram, ExponentialHistogram and Summary
+    private static final int DATA_POINTS = 1;
+    private static final int AGGREGATION_TEMPORALITY = 2;
+    private static final int IS_MONOTONIC = 3;
+    // All the data points
+    private static final int START_TIME = 2;
+    private static final int TIME = 3;
+    // NumberDataPoint
+    private static final int NUMBER_AS_DOUBLE = 4;
+    private static final int NUMBER_EXEMPLARS = 5;
+    private static final int NUMBER_AS_INT = 6;
+    private static final int NUMBER_ATTRIBUTES = 7;
+    // HistogramDataPoint
+    private static final int HISTOGRAM_COUNT = 4;
+    private static final int HISTOGRAM_SUM = 5;
+    private static final int HISTOGRAM_BUCKET_COUNTS = 6;
+    private static final int HISTOGRAM_EXPLICIT_BOUNDS = 7;
+    private static final int HISTOGRAM_EXEMPLARS = 8;
+    private static final int HISTOGRAM_ATTRIBUTES = 9;
+    private static final int HISTOGRAM_MIN = 11;
+    private static final int HISTOGRAM_MAX = 12;
+    // ExponentialHistogramDataPoint
+    private static final int EXPONENTIAL_ATTRIBUTES = 1;
+    private static final int EXPONENTIAL_COUNT = 4;
+    private static final int EXPONENTIAL_SUM = 5;
+    private static final int EXPONENTIAL_SCALE = 6;
+    private static final int EXPONENTIAL_ZERO_COUNT = 7;
+    private static final int EXPONENTIAL_POSITIVE = 8;
+    private static final int EXPONENTIAL_NEGATIVE = 9;
+    private static final int EXPONENTIAL_EXEMPLARS = 11;
+    private static final int EXPONENTIAL_MIN = 12;
+    private static final int EXPONENTIAL_MAX = 13;
+    // ExponentialHistogramDataPoint.Buckets
+    private static final int BUCKETS_OFFSET = 1;
+    private static final int BUCKETS_COUNTS = 2;
+    // SummaryDataPoint
+    private static final int SUMMARY_COUNT = 4;
+    private static final int SUMMARY_SUM = 5;
+    private static final int SUMMARY_QUANTILE_VALUES = 6;
+    private static final int SUMMARY_ATTRIBUTES = 7;
+    // SummaryDataPoint.ValueAtQuantile
+    private static final int QUANTILE = 1;
+    private static final int QUANTILE_VALUE = 2;
+    // Exemplar
+    private static final int EXEMPLAR_TIME = 2;
+    private static final int EXEMPLAR_AS_DOUBLE = 3;
+    private static final int EXEMPLAR_SPAN_ID = 4;
+    private static final int EXEMPLAR_TRACE_ID = 5;
+    private static final int EXEMPLAR_AS_INT = 6;
+    private static final int EXEMPLAR_FILTERED_ATTRIBUTES = 7;
+
+    public MetricEncoder(EncodedCache cache) {
+        super(cache);
+    }
+
+    @Override
+    Resource getResource(MetricData metric) {
+        return metric.getResource();
+    }
+
+    @Override
+    InstrumentationScopeInfo getScope(MetricData metric) {
+        return metric.getInstrumentationScopeInfo();
+    }
+
+    @Override
+    void encode(MetricData metric) {
+        output.startMessage(SCOPE_ITEMS);
+        common.string(NAME, metric.getName());
+        common.string(DESCRIPTION, metric.getDescription());
+        common.string(UNIT, metric.getUnit());
+        switch (metric.getType()) {
+            case LONG_GAUGE:
+                output.startMessage(GAUGE);
+                longPoints(metric.getLongGaugeData().getPoints());
+                output.endMessage();
+                break;
+            case DOUBLE_GAUGE:
+                output.startMessage(GAUGE);
+                doublePoints(metric.getDoubleGaugeData().getPoints());
+                output.endMessage();
+                break;
+            case LONG_SUM:
+                output.startMessage(SUM);
+                longPoints(metric.getLongSumData().getPoints());
+                temporality(metric.getLongSumData().getAggregationTemporality());
+                monotonic(metric.getLongSumData().isMonotonic());
+                output.endMessage();
+                break;
+            case DOUBLE_SUM:
+                output.startMessage(SUM);
+                doublePoints(metric.getDoubleSumData().getPoints());
+                temporality(metric.getDoubleSumData().getAggregationTemporality());
+                monotonic(metric.getDoubleSumData().isMonotonic());
+                output.endMessage();
+                break;
+            case HISTOGRAM:
+                output.startMessage(HISTOGRAM);
+                for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+                    histogramPoint(point);
+                }
+                temporality(metric.getHistogramData().getAggregationTemporality());
+                output.endMessage();
+                break;
+            case EXPONENTIAL_HISTOGRAM:
+                output.startMessage(EXPONENTIAL_HISTOGRAM);
+                for (ExponentialHistogramPointData point : metric.getExponentialHistogramData().getPoints()) {
+                    exponentialHistogramPoint(point);
+                }
+                temporality(metric.getExponentialHistogramData().getAggregationTemporality());
+                output.endMessage();
+                break;
+            case SUMMARY:
+                output.startMessage(SUMMARY);
+                for (SummaryPointData point : metric.getSummaryData().getPoints()) {
+                    summaryPoint(point);
+                }
+                output.endMessage();
+                break;
+        }
+        output.endMessage();
+    }
+
+    private void longPoints(Collection<LongPointData> points) {
+        for (LongPointData point : points) {
+            output.startMessage(DATA_POINTS);
+            times(point);
+            output.fixed64(NUMBER_AS_INT, point.getValue());
+            exemplars(NUMBER_EXEMPLARS, point);
+            common.attributes(NUMBER_ATTRIBUTES, point.getAttributes());
+            output.endMessage();
+        }
+    }
+
+    private void doublePoints(Collection<DoublePointData> points) {
+        for (DoublePointData point : points) {
+            output.startMessage(DATA_POINTS);
+            times(point);
+            output.doubleValue(NUMBER_AS_DOUBLE, point.getValue());
+            exemplars(NUMBER_EXEMPLARS, point);
+            common.attributes(NUMBER_ATTRIBUTES, point.getAttributes());
+            output.endMessage();
+        }
+    }
+
+    private void histogramPoint(HistogramPointData point) {
+        output.startMessage(DATA_POINTS);
+        times(point);
+        fixed64(HISTOGRAM_COUNT, point.getCount());
+        output.doubleValue(HISTOGRAM_SUM, point.getSum());
+        if (point.hasMin()) {
+            output.doubleValue(HISTOGRAM_MIN, point.getMin());
+        }
+        if (point.hasMax()) {
+            output.doubleValue(HISTOGRAM_MAX, point.getMax());
+        }
+        if (!point.getCounts().isEmpty()) {
+            output.packedFixed64(HISTOGRAM_BUCKET_COUNTS, point.getCounts());
+        }
+        if (!point.getBoundaries().isEmpty()) {
+            output.packedDouble(HISTOGRAM_EXPLICIT_BOUNDS, point.getBoundaries());
+        }
+        exemplars(HISTOGRAM_EXEMPLARS, point);
+        common.attributes(HISTOGRAM_ATTRIBUTES, point.getAttributes());
+        output.endMessage();
+    }
+
+    private void exponentialHistogramPoint(ExponentialHistogramPointData point) {
+        output.startMessage(DATA_POINTS);
+        times(point);
+        fixed64(EXPONENTIAL_COUNT, point.getCount());
+        output.doubleValue(EXPONENTIAL_SUM, point.getSum());
+        if (point.hasMin()) {
+            output.doubleValue(EXPONENTIAL_MIN, point.getMin());
+        }
+        if (point.hasMax()) {
+            output.doubleValue(EXPONENTIAL_MAX, point.getMax());
+        }
+        if (point.getScale() != 0) {
+            output.sint32(EXPONENTIAL_SCALE, point.getScale());
+        }
+        fixed64(EXPONENTIAL_ZERO_COUNT, point.getZeroCount());
+        buckets(EXPONENTIAL_POSITIVE, point.getPositiveBuckets());
+        buckets(EXPONENTIAL_NEGATIVE, point.getNegativeBuckets());
+        exemplars(EXPONENTIAL_EXEMPLARS, point);
+        common.attributes(EXPONENTIAL_ATTRIBUTES, point.getAttributes());
+        output.endMessage();
+    }
+
+    private void buckets(int field, ExponentialHistogramBuckets buckets) {
+        output.startMessage(field);
+        if (buckets.getOffset() != 0) {
+            output.sint32(BUCKETS_OFFSET, buckets.getOffset());
+        }
+        if (!buckets.getBucketCounts().isEmpty()) {
+            output.packedVarint(BUCKETS_COUNTS, buckets.getBucketCounts());
+        }
+        output.endMessage();
+    }
+
+    private void summaryPoint(SummaryPointData point) {
+        output.startMessage(DATA_POINTS);
+        times(point);
+        fixed64(SUMMARY_COUNT, point.getCount());
+        doubleValue(SUMMARY_SUM, point.getSum());
+        for (ValueAtQuantile quantile : point.getValues()) {
+            output.startMessage(SUMMARY_QUANTILE_VALUES);
+            doubleValue(QUANTILE, quantile.getQuantile());
+            doubleValue(QUANTILE_VALUE, quantile.getValue());
+            output.endMessage();
+        }
+        common.attributes(SUMMARY_ATTRIBUTES, point.getAttributes());
+        output.endMessage();
+    }
+
+    private void exemplars(int field, PointData point) {
+        for (ExemplarData exemplar : point.getExemplars()) {
+            SpanContext spanContext = exemplar.getSpanContext();
+            output.startMessage(field);
+            time(EXEMPLAR_TIME, exemplar.getEpochNanos());
+            if (exemplar instanceof LongExemplarData) {
+                output.fixed64(EXEMPLAR_AS_INT, ((LongExemplarData) exemplar).getValue());
+            } else if (exemplar instanceof DoubleExemplarData) {
+                output.doubleValue(EXEMPLAR_AS_DOUBLE, ((DoubleExemplarData) exemplar).getValue());
+            }
+            if (spanContext.isValid()) {
+                output.base16(EXEMPLAR_SPAN_ID, spanContext.getSpanId());
+                output.base16(EXEMPLAR_TRACE_ID, spanContext.getTraceId());
+            }
+            common.attributes(EXEMPLAR_FILTERED_ATTRIBUTES, exemplar.getFilteredAttributes());
+            output.endMessage();
+        }
+    }
+
+    private void times(PointData point) {
+        time(START_TIME, point.getStartEpochNanos());
+        time(TIME, point.getEpochNanos());
+    }
+
+    private void temporality(AggregationTemporality temporality) {
+        output.varint(AGGREGATION_TEMPORALITY, temporality == AggregationTemporality.DELTA ? 1 : 2);
+    }
+
+    private void monotonic(boolean monotonic) {
+        if (monotonic) {
+            output.bool(IS_MONOTONIC, true);
+        }
+    }
+
+    private void fixed64(int field, long value) {
+        if (value != 0) {
+            output.fixed64(field, value);
+        }
+    }
+
+    private void doubleValue(int field, double value) {
+        if (value != 0) {
+            output.doubleValue(field, value);
+        }
+    }
+}
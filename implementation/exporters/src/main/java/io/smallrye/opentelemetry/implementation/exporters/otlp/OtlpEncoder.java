@@ -0,0 +1,144 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.buffer.ByteBuf;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.smallrye.opentelemetry.senders.common.PayloadWriter;
+
+/**
+ * Encodes an OTLP export request straight from the SDK data, with no intermediate marshaler objects.
+ * <p>
+ * {@link #initialize(Collection)} groups the items by resource and scope and sizes the request; the sender then calls
+ * {@link #writeTo(ByteBuf)}, which writes it into its payload buffer in a single pass. The resources and scopes come
+ * already encoded from the {@link EncodedCache}. An encoder holds one request at a time and is meant to be pooled:
+ * {@link #reset()} makes it ready for the next one, keeping its buffers.
+ *
+ * @param <T> the type of the exported items
+ */
+public abstract class OtlpEncoder<T> implements PayloadWriter {
+
+    // The request, ResourceX and ScopeX messages share their field numbers across signals
+    private static final int REQUEST_RESOURCES = 1;
+    private static final int RESOURCE_RESOURCE = 1;
+    private static final int RESOURCE_SCOPES = 2;
+    private static final int RESOURCE_SCHEMA_URL = 3;
+    private static final int SCOPE_SCOPE = 1;
+    static final int SCOPE_ITEMS = 2;
+    private static final int SCOPE_SCHEMA_URL = 3;
+
+    final ProtoOutput output = new ProtoOutput();
+    final CommonEncoding common = new CommonEncoding(output);
+
+    private final EncodedCache cache;
+    private final Map<Resource, Map<InstrumentationScopeInfo, List<T>>> groups = new LinkedHashMap<>();
+    private int contentLength;
+
+    // Most exports have a single resource and scope, which are then looked up once
+    private Resource lastResource;
+    private byte[] lastResourceEncoded;
+    private InstrumentationScopeInfo lastScope;
+    private byte[] lastScopeEncoded;
+
+    OtlpEncoder(EncodedCache cache) {
+        this.cache = cache;
+    }
+
+    public void initialize(Collection<T> items) {
+        for (T item : items) {
+            groups.computeIfAbsent(getResource(item), r -> new LinkedHashMap<>())
+                    .computeIfAbsent(getScope(item), s -> new ArrayList<>())
+                    .add(item);
+        }
+        output.beginSizing();
+        encode();
+        contentLength = output.endSizing();
+    }
+
+    public void reset() {
+        groups.clear();
+        output.reset();
+        contentLength = 0;
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buffer) {
+        int start = buffer.writerIndex();
+        buffer.ensureWritable(contentLength);
+        output.beginWriting(buffer);
+        try {
+            encode();
+        } finally {
+            output.endWriting();
+        }
+        int written = buffer.writerIndex() - start;
+        if (written != contentLength) {
+            throw new IllegalStateException("Wrote " + written + " bytes instead of " + contentLength);
+        }
+    }
+
+    private void encode() {
+        for (Map.Entry<Resource, Map<InstrumentationScopeInfo, List<T>>> resourceGroup : groups.entrySet()) {
+            Resource resource = resourceGroup.getKey();
+            output.startMessage(REQUEST_RESOURCES);
+            output.message(RESOURCE_RESOURCE, encoded(resource));
+            for (Map.Entry<InstrumentationScopeInfo, List<T>> scopeGroup : resourceGroup.getValue().entrySet()) {
+                InstrumentationScopeInfo scope = scopeGroup.getKey();
+                output.startMessage(RESOURCE_SCOPES);
+                output.message(SCOPE_SCOPE, encoded(scope));
+                List<T> items = scopeGroup.getValue();
+                for (int i = 0; i < items.size(); i++) {
+                    encode(items.get(i));
+                }
+                common.string(SCOPE_SCHEMA_URL, scope.getSchemaUrl());
+                output.endMessage();
+            }
+            common.string(RESOURCE_SCHEMA_URL, resource.getSchemaUrl());
+            output.endMessage();
+        }
+    }
+
+    private byte[] encoded(Resource resource) {
+        if (resource != lastResource) {
+            lastResourceEncoded = cache.resource(resource);
+            lastResource = resource;
+        }
+        return lastResourceEncoded;
+    }
+
+    private byte[] encoded(InstrumentationScopeInfo scope) {
+        if (scope != lastScope) {
+            lastScopeEncoded = cache.scope(scope);
+            lastScope = scope;
+        }
+        return lastScopeEncoded;
+    }
+
+    /**
+     * Writes a timestamp, unless it is not set.
+     */
+    void time(int field, long epochNanos) {
+        if (epochNanos != 0) {
+            output.fixed64(field, epochNanos);
+        }
+    }
+
+    abstract Resource getResource(T item);
+
+    abstract InstrumentationScopeInfo getScope(T item);
+
+    /**
+     * Writes an item, as the {@link #SCOPE_ITEMS} field of its scope message.
+     */
+    abstract void encode(T item);
+}
@@ -0,0 +1,277 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * Protobuf output run twice over the same message: first to size it, then to write it.
+ * <p>
+ * An embedded message or a string is prefixed with its length, which is only known once its content has been visited.
+ * The sizing pass records these lengths in visiting order, and the writing pass, which must visit exactly the same
+ * fields in the same order, reads them back. The encoders describe a message once, against this class, so that both
+ * passes cannot diverge.
+ * <p>
+ * Fields are always written; skipping the fields that hold their default value is left to the callers, since a
+ * {@code oneof} member must be written even then.
+ */
+final class ProtoOutput {
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int WIRE_FIXED32 = 5;
+
+    // Lengths of the embedded messages and strings, in visiting order
+    private int[] lengths = new int[256];
+    private int next;
+
+    // Sizing: the open messages, and the size of everything visited so far
+    private int[] openSlots = new int[16];
+    private int[] openPositions = new int[16];
+    private int depth;
+    private int position;
+
+    // Writing: null while sizing
+    private ByteBuf buffer;
+
+    void beginSizing() {
+        buffer = null;
+        next = 0;
+        depth = 0;
+        position = 0;
+    }
+
+    /**
+     * @return the size of the message
+     */
+    int endSizing() {
+        if (depth != 0) {
+            throw new IllegalStateException("Unbalanced embedded messages");
+        }
+        return position;
+    }
+
+    void beginWriting(ByteBuf buffer) {
+        this.buffer = buffer;
+        next = 0;
+    }
+
+    void endWriting() {
+        buffer = null;
+    }
+
+    void reset() {
+        buffer = null;
+        next = 0;
+        depth = 0;
+        position = 0;
+        if (lengths.length > 64 * 1024) {
+            // Do not keep the lengths of a huge request forever
+            lengths = new int[256];
+        }
+    }
+
+    private boolean sizing() {
+        return buffer == null;
+    }
+
+    private int reserve() {
+        if (next == lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        return next++;
+    }
+
+    void startMessage(int field) {
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED));
+            if (depth == openSlots.length) {
+                openSlots = Arrays.copyOf(openSlots, depth * 2);
+                openPositions = Arrays.copyOf(openPositions, depth * 2);
+            }
+            openSlots[depth] = reserve();
+            openPositions[depth] = position;
+            depth++;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(lengths[next++]);
+        }
+    }
+
+    void endMessage() {
+        if (sizing()) {
+            depth--;
+            int length = position - openPositions[depth];
+            lengths[openSlots[depth]] = length;
+            position += varintSize(length);
+        }
+    }
+
+    /**
+     * Writes a message encoded beforehand.
+     */
+    void message(int field, byte[] encoded) {
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(encoded.length) + encoded.length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(encoded.length);
+            buffer.writeBytes(encoded);
+        }
+    }
+
+    void string(int field, String value) {
+        if (sizing()) {
+            int length = ByteBufUtil.utf8Bytes(value);
+            lengths[reserve()] = length;
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            int length = lengths[next++];
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(length);
+            ByteBufUtil.reserveAndWriteUtf8(buffer, value, length);
+        }
+    }
+
+    void bytes(int field, ByteBuffer value) {
+        int length = value.remaining();
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(length);
+            buffer.writeBytes(value.duplicate());
+        }
+    }
+
+    /**
+     * Writes the bytes that a base16 string, such as a trace or span id, stands for.
+     */
+    void base16(int field, String value) {
+        int length = value.length() / 2;
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(length);
+            for (int i = 0; i < length; i++) {
+                buffer.writeByte(
+                        (Character.digit(value.charAt(2 * i), 16) << 4) | Character.digit(value.charAt(2 * i + 1), 16));
+            }
+        }
+    }
+
+    void varint(int field, long value) {
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_VARINT)) + varintSize(value);
+        } else {
+            writeTag(field, WIRE_VARINT);
+            writeVarint(value);
+        }
+    }
+
+    void bool(int field, boolean value) {
+        varint(field, value ? 1 : 0);
+    }
+
+    void sint32(int field, int value) {
+        varint(field, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    void fixed64(int field, long value) {
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_FIXED64)) + 8;
+        } else {
+            writeTag(field, WIRE_FIXED64);
+            buffer.writeLongLE(value);
+        }
+    }
+
+    void doubleValue(int field, double value) {
+        fixed64(field, Double.doubleToRawLongBits(value));
+    }
+
+    void fixed32(int field, int value) {
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_FIXED32)) + 4;
+        } else {
+            writeTag(field, WIRE_FIXED32);
+            buffer.writeIntLE(value);
+        }
+    }
+
+    void packedFixed64(int field, List<Long> values) {
+        int length = values.size() * 8;
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(length);
+            for (int i = 0; i < values.size(); i++) {
+                buffer.writeLongLE(values.get(i));
+            }
+        }
+    }
+
+    void packedDouble(int field, List<Double> values) {
+        int length = values.size() * 8;
+        if (sizing()) {
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(length);
+            for (int i = 0; i < values.size(); i++) {
+                buffer.writeLongLE(Double.doubleToRawLongBits(values.get(i)));
+            }
+        }
+    }
+
+    void packedVarint(int field, List<Long> values) {
+        if (sizing()) {
+            int length = 0;
+            for (int i = 0; i < values.size(); i++) {
+                length += varintSize(values.get(i));
+            }
+            lengths[reserve()] = length;
+            position += varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(length) + length;
+        } else {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(lengths[next++]);
+            for (int i = 0; i < values.size(); i++) {
+                writeVarint(values.get(i));
+            }
+        }
+    }
+
+    private static int tag(int field, int wireType) {
+        return (field << 3) | wireType;
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeVarint(tag(field, wireType));
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+
+    static int varintSize(long value) {
+        if (value < 0) {
+            return 10;
+        }
+        int size = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
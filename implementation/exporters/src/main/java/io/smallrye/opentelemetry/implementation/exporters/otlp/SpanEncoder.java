@@ -0,0 +1,127 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+/**
+ * Encodes an {@code ExportTraceServiceRequest}.
+ */
+public final class SpanEncoder extends OtlpEncoder<SpanData> {
+
+    // Span
+    private static final int TRACE_ID = 1;
+    private static final int SPAN_ID = 2;
+    private static final int TRACE_STATE = 3;
+    private static final int PARENT_SPAN_ID = 4;
+    private static final int NAME = 5;
+    private static final int KIND = 6;
+    private static final int START_TIME = 7;
+    private static final int END_TIME = 8;
+    private static final int ATTRIBUTES = 9;
+    private static final int DROPPED_ATTRIBUTES = 10;
+    private static final int EVENTS = 11;
+    private static final int DROPPED_EVENTS = 12;
+    private static final int LINKS = 13;
+    private static final int DROPPED_LINKS = 14;
+    private static final int STATUS = 15;
+    private static final int FLAGS = 16;
+    // Span.Event
+    private static final int EVENT_TIME = 1;
+    private static final int EVENT_NAME = 2;
+    private static final int EVENT_ATTRIBUTES = 3;
+    private static final int EVENT_DROPPED_ATTRIBUTES = 4;
+    // Span.Link
+    private static final int LINK_TRACE_ID = 1;
+    private static final int LINK_SPAN_ID = 2;
+    private static final int LINK_TRACE_STATE = 3;
+    private static final int LINK_ATTRIBUTES = 4;
+    private static final int LINK_DROPPED_ATTRIBUTES = 5;
+    private static final int LINK_FLAGS = 6;
+    // Status
+    private static final int STATUS_MESSAGE = 2;
+    private static final int STATUS_CODE = 3;
+
+    public SpanEncoder(EncodedCache cache) {
+        super(cache);
+    }
+
+    @Override
+    Resource getResource(SpanData span) {
+        return span.getResource();
+    }
+
+    @Override
+    InstrumentationScopeInfo getScope(SpanData span) {
+        return span.getInstrumentationScopeInfo();
+    }
+
+    @Override
+    void encode(SpanData span) {
+        SpanContext spanContext = span.getSpanContext();
+        SpanContext parentSpanContext = span.getParentSpanContext();
+
+        output.startMessage(SCOPE_ITEMS);
+        output.base16(TRACE_ID, spanContext.getTraceId());
+        output.base16(SPAN_ID, spanContext.getSpanId());
+        common.traceState(TRACE_STATE, spanContext.getTraceState());
+        if (parentSpanContext.isValid()) {
+            output.base16(PARENT_SPAN_ID, parentSpanContext.getSpanId());
+        }
+        common.string(NAME, span.getName());
+        // INTERNAL to CONSUMER are 1 to 5 in the protocol, 0 is unspecified
+        output.varint(KIND, span.getKind().ordinal() + 1);
+        time(START_TIME, span.getStartEpochNanos());
+        time(END_TIME, span.getEndEpochNanos());
+        common.attributes(ATTRIBUTES, span.getAttributes());
+        common.droppedAttributes(DROPPED_ATTRIBUTES, span.getTotalAttributeCount(), span.getAttributes());
+
+        for (EventData event : span.getEvents()) {
+            output.startMessage(EVENTS);
+            time(EVENT_TIME, event.getEpochNanos());
+            common.string(EVENT_NAME, event.getName());
+            common.attributes(EVENT_ATTRIBUTES, event.getAttributes());
+            common.droppedAttributes(EVENT_DROPPED_ATTRIBUTES, event.getTotalAttributeCount(), event.getAttributes());
+            output.endMessage();
+        }
+        int droppedEvents = span.getTotalRecordedEvents() - span.getEvents().size();
+        if (droppedEvents > 0) {
+            output.varint(DROPPED_EVENTS, droppedEvents);
+        }
+
+        for (LinkData link : span.getLinks()) {
+            SpanContext linkContext = link.getSpanContext();
+            output.startMessage(LINKS);
+            output.base16(LINK_TRACE_ID, linkContext.getTraceId());
+            output.base16(LINK_SPAN_ID, linkContext.getSpanId());
+            common.traceState(LINK_TRACE_STATE, linkContext.getTraceState());
+            common.attributes(LINK_ATTRIBUTES, link.getAttributes());
+            common.droppedAttributes(LINK_DROPPED_ATTRIBUTES, link.getTotalAttributeCount(), link.getAttributes());
+            output.fixed32(LINK_FLAGS,
+                    CommonEncoding.spanFlags(linkContext.getTraceFlags().asByte(), linkContext.isRemote()));
+            output.endMessage();
+        }
+        int droppedLinks = span.getTotalRecordedLinks() - span.getLinks().size();
+        if (droppedLinks > 0) {
+            output.varint(DROPPED_LINKS, droppedLinks);
+        }
+
+        StatusData status = span.getStatus();
+        output.startMessage(STATUS);
+        common.string(STATUS_MESSAGE, status.getDescription());
+        // UNSET, OK and ERROR are 0, 1 and 2 in both the API and the protocol
+        int statusCode = status.getStatusCode().ordinal();
+        if (statusCode != 0) {
+            output.varint(STATUS_CODE, statusCode);
+        }
+        output.endMessage();
+
+        output.fixed32(FLAGS,
+                CommonEncoding.spanFlags(spanContext.getTraceFlags().asByte(), parentSpanContext.isRemote()));
+        output.endMessage();
+    }
+}
@@ -0,0 +1,469 @@
+package io.smallrye.opentelemetry.implementation.exporters.spool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import io.netty.buffer.Unpooled;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.ExportSpool;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * An append-only store of export payloads, kept in fixed size memory-mapped segment files.
+ * <p>
+ * Each record is laid out as {@code [status:1][flags:1][reserved:2][length:4][crc32:4][payload:length]}. The status
+ * byte is written last, so that a record torn by a crash is seen as the end of its segment; the checksum catches
+ * records whose pages did not all reach the disk. Records are marked as acknowledged in place once replayed, and a
+ * segment file is deleted when all its records are. When the spool is full, the oldest segment is evicted.
+ * <p>
+ * The spool is rebuilt from the segment files when it is opened again, so pending records survive a restart. Dirty
+ * pages are forced to disk when a segment is full and on {@link #close()}; in between, they are flushed by the OS,
+ * which covers a crash of the process but not of the machine.
+ * <p>
+ * {@link #store} is called by the senders on their event loops, while the collector is down: it only copies the
+ * payload, and the records are written, the segments created and forced, by a dedicated thread. At most a segment
+ * worth of payloads waits for that thread, the payloads beyond are dropped.
+ */
+public final class DiskSpool implements ExportSpool {
+
+    private static final Logger logger = Logger.getLogger(DiskSpool.class.getName());
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String LOCK_FILE = "spool.lock";
+
+    static final int HEADER_SIZE = 12;
+    private static final byte STATUS_EMPTY = 0;
+    private static final byte STATUS_READY = 1;
+    private static final byte STATUS_ACKED = 2;
+    // The low bits of the flags hold the ordinal of the compression of the payload, 1 being gzip as in earlier spools
+    private static final int COMPRESSION_MASK = 0x0f;
+    private static final Compression[] COMPRESSIONS = Compression.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ExecutorService writer;
+    // The size of the payloads copied by store() and not written yet
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    // Only changed by the writer thread once the spool is open
+    private Segment writeSegment;
+    private long nextSegmentId;
+    private long pendingRecords;
+    private long evictedRecords;
+    private long droppedRecords;
+    private volatile boolean closed;
+
+    private DiskSpool(Path directory, long maxBytes, int segmentSize, FileChannel lockChannel, FileLock lock) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxBytes / segmentSize));
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smallrye-opentelemetry-spool-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the spool stored in the given directory, recovering the records left by a previous run.
+     *
+     * @param directory the directory of the segment files, created if needed
+     * @param maxBytes the maximum size of the spool on disk
+     * @param segmentSize the size of each segment file, which bounds the size of a record
+     * @throws IOException if the directory cannot be used, or is used by another process
+     */
+    public static DiskSpool open(Path directory, long maxBytes, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + HEADER_SIZE);
+        }
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked by another spool of this process
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Spool directory " + directory + " is already in use");
+        }
+        DiskSpool spool = new DiskSpool(directory, maxBytes, segmentSize, lockChannel, lock);
+        spool.recover();
+        return spool;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            long id;
+            try {
+                String name = file.getFileName().toString();
+                id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            Segment segment = Segment.recover(id, file);
+            if (segment == null || segment.pending == 0) {
+                deleteQuietly(file);
+                continue;
+            }
+            segments.add(segment);
+            pendingRecords += segment.pending;
+        }
+        while (segments.size() > maxSegments) {
+            evictOldest();
+        }
+        if (pendingRecords > 0) {
+            logger.log(Level.INFO, "Recovered {0} spooled exports from {1}", new Object[] { pendingRecords, directory });
+        }
+    }
+
+    /**
+     * Copies the payload and queues it to be written by the writer thread.
+     */
+    @Override
+    public void store(Buffer payload, Compression compression) {
+        if (closed) {
+            return;
+        }
+        int length = payload.length();
+        if (HEADER_SIZE + length > segmentSize) {
+            drop();
+            logger.log(Level.FINE, "Export of {0} bytes is too large to be spooled", length);
+            return;
+        }
+        if (queuedBytes.addAndGet(length) > segmentSize) {
+            queuedBytes.addAndGet(-length);
+            drop();
+            logger.log(Level.FINE, "Spool {0} is not written fast enough, dropped an export", directory);
+            return;
+        }
+        // Copied right away, the payload is released as soon as this returns
+        byte[] copy = payload.getBytes();
+        try {
+            writer.execute(() -> {
+                try {
+                    write(copy, compression);
+                } finally {
+                    queuedBytes.addAndGet(-length);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile
+            queuedBytes.addAndGet(-length);
+        }
+    }
+
+    private synchronized void drop() {
+        droppedRecords++;
+    }
+
+    /**
+     * Appends a record, on the writer thread. The disk I/O happens outside of the lock, which {@link #peek()} and
+     * {@link #ack} take on the event loop; a record is only visible to them once written.
+     */
+    private void write(byte[] payload, Compression compression) {
+        int recordSize = HEADER_SIZE + payload.length;
+        Segment full = null;
+        if (writeSegment == null || writeSegment.writePosition + recordSize > segmentSize) {
+            full = writeSegment;
+            try {
+                roll();
+            } catch (IOException e) {
+                drop();
+                logger.log(Level.WARNING, "Unable to create a spool segment in " + directory, e);
+                return;
+            }
+        }
+
+        Segment segment = writeSegment;
+        int position = segment.writePosition;
+        ByteBuffer target = segment.buffer.duplicate();
+        target.limit(position + recordSize);
+        target.position(position + HEADER_SIZE);
+        target.put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.put(position + 1, (byte) compression.ordinal());
+        buffer.putInt(position + 4, payload.length);
+        buffer.putInt(position + 8, (int) crc.getValue());
+        buffer.put(position, STATUS_READY);
+
+        synchronized (this) {
+            segment.writePosition = position + recordSize;
+            segment.pending++;
+            pendingRecords++;
+        }
+        if (full != null) {
+            full.buffer.force();
+        }
+    }
+
+    /**
+     * Returns the oldest record not acknowledged yet, or {@code null} if the spool is empty. The same record is
+     * returned until it is acknowledged.
+     * <p>
+     * The payload is a view of the mapped segment, it is not copied to the heap.
+     */
+    public synchronized SpooledRecord peek() {
+        while (!closed) {
+            Segment segment = segments.peekFirst();
+            if (segment == null) {
+                return null;
+            }
+            while (segment.readPosition < segment.writePosition) {
+                int position = segment.readPosition;
+                int length = segment.buffer.getInt(position + 4);
+                if (segment.buffer.get(position) == STATUS_READY) {
+                    ByteBuffer slice = segment.buffer.duplicate();
+                    slice.limit(position + HEADER_SIZE + length);
+                    slice.position(position + HEADER_SIZE);
+                    int compression = segment.buffer.get(position + 1) & COMPRESSION_MASK;
+                    return new SpooledRecord(segment, position,
+                            compression < COMPRESSIONS.length ? COMPRESSIONS[compression] : Compression.NONE,
+                            Buffer.buffer(Unpooled.wrappedBuffer(slice.slice())));
+                }
+                segment.readPosition = position + HEADER_SIZE + length;
+            }
+            if (segment == writeSegment) {
+                return null;
+            }
+            // Fully replayed
+            segments.pollFirst();
+            deleteLater(segment.path);
+        }
+        return null;
+    }
+
+    /**
+     * Marks a record returned by {@link #peek()} as replayed.
+     */
+    public synchronized void ack(SpooledRecord record) {
+        Segment segment = record.segment;
+        if (closed || segment.evicted || segment.buffer.get(record.position) != STATUS_READY) {
+            return;
+        }
+        segment.buffer.put(record.position, STATUS_ACKED);
+        segment.pending--;
+        pendingRecords--;
+    }
+
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized long getEvictedRecords() {
+        return evictedRecords;
+    }
+
+    public synchronized long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops accepting payloads. The payloads already stored are still written, then the segments are forced to disk
+     * and the directory unlocked, on the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            writer.execute(this::release);
+        } catch (RejectedExecutionException e) {
+            release();
+        }
+        writer.shutdown();
+    }
+
+    private void release() {
+        List<Segment> open;
+        synchronized (this) {
+            open = new ArrayList<>(segments);
+        }
+        for (Segment segment : open) {
+            segment.buffer.force();
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to release the spool lock", e);
+        }
+    }
+
+    /**
+     * Creates the next segment, on the writer thread, and evicts the oldest ones if the spool is full.
+     */
+    private void roll() throws IOException {
+        long id = nextSegmentId++;
+        Segment created = Segment.create(id, directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX)),
+                segmentSize);
+        synchronized (this) {
+            while (segments.size() >= maxSegments) {
+                evictOldest();
+            }
+            writeSegment = created;
+            segments.addLast(created);
+        }
+    }
+
+    private void evictOldest() {
+        Segment oldest = segments.pollFirst();
+        if (oldest == null) {
+            return;
+        }
+        oldest.evicted = true;
+        if (oldest.pending > 0) {
+            evictedRecords += oldest.pending;
+            pendingRecords -= oldest.pending;
+            logger.log(Level.WARNING, "Spool {0} is full, dropped {1} of the oldest spooled exports",
+                    new Object[] { directory, oldest.pending });
+        }
+        if (oldest == writeSegment) {
+            writeSegment = null;
+        }
+        deleteQuietly(oldest.path);
+    }
+
+    /**
+     * Deletes a segment file on the writer thread.
+     */
+    private void deleteLater(Path file) {
+        try {
+            writer.execute(() -> deleteQuietly(file));
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(file);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            // The mapping stays valid until it is garbage collected
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to delete spool segment " + file, e);
+        }
+    }
+
+    static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int readPosition;
+        int pending;
+        boolean evicted;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        static Segment create(long id, Path path, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment recover(long id, Path path) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size <= HEADER_SIZE || size > Integer.MAX_VALUE) {
+                    return null;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to read spool segment " + path, e);
+                return null;
+            }
+            Segment segment = new Segment(id, path, buffer);
+            int limit = buffer.capacity();
+            int position = 0;
+            boolean firstReady = true;
+            while (position + HEADER_SIZE <= limit) {
+                byte status = buffer.get(position);
+                int length = buffer.getInt(position + 4);
+                if (status == STATUS_EMPTY || length < 0 || length > limit - position - HEADER_SIZE) {
+                    break;
+                }
+                if (status == STATUS_READY) {
+                    ByteBuffer payload = buffer.duplicate();
+                    payload.limit(position + HEADER_SIZE + length);
+                    payload.position(position + HEADER_SIZE);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() == buffer.getInt(position + 8)) {
+                        segment.pending++;
+                        if (firstReady) {
+                            segment.readPosition = position;
+                            firstReady = false;
+                        }
+                    } else {
+                        buffer.put(position, STATUS_ACKED);
+                    }
+                }
+                position += HEADER_SIZE + length;
+            }
+            // Recovered segments are only read, new records go to a new segment
+            segment.writePosition = position;
+            return segment;
+        }
+    }
+}
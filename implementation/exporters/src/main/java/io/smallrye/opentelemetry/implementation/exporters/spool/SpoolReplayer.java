@@ -0,0 +1,102 @@
+package io.smallrye.opentelemetry.implementation.exporters.spool;
+
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.smallrye.opentelemetry.senders.common.ReplayableSender;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * Drains a {@link DiskSpool} through a sender, one record at a time and at most {@code bytesPerSecond}.
+ * <p>
+ * Each tick replays records until the budget of the tick is spent or the spool is empty. A failed replay means the
+ * endpoint is still unavailable: the record stays in the spool and the next tick is delayed exponentially, up to
+ * {@link #MAX_BACKOFF}. The replayer stops by itself once the spool is closed, which happens on sender shutdown.
+ */
+public final class SpoolReplayer implements Handler<Long> {
+
+    private static final Logger logger = Logger.getLogger(SpoolReplayer.class.getName());
+
+    static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private final Vertx vertx;
+    private final DiskSpool spool;
+    private final ReplayableSender sender;
+    private final long intervalMillis;
+    private final long bytesPerTick;
+
+    private final Handler<AsyncResult<Void>> replayHandler = this::handleReplay;
+
+    private SpooledRecord current;
+    private long budget;
+    private int failures;
+
+    public SpoolReplayer(Vertx vertx, DiskSpool spool, ReplayableSender sender, long bytesPerSecond,
+            Duration interval) {
+        this.vertx = vertx;
+        this.spool = spool;
+        this.sender = sender;
+        this.intervalMillis = Math.max(1, interval.toMillis());
+        this.bytesPerTick = Math.max(1, bytesPerSecond * intervalMillis / 1000);
+    }
+
+    public void start() {
+        schedule(intervalMillis);
+    }
+
+    /**
+     * Tick.
+     */
+    @Override
+    public void handle(Long timerId) {
+        budget = bytesPerTick;
+        replayNext();
+    }
+
+    private void replayNext() {
+        if (spool.isClosed()) {
+            return;
+        }
+        SpooledRecord record = spool.peek();
+        if (record == null) {
+            schedule(intervalMillis);
+            return;
+        }
+        current = record;
+        sender.replay(record.getPayload(), record.getCompression(), replayHandler);
+    }
+
+    private void handleReplay(AsyncResult<Void> result) {
+        SpooledRecord record = current;
+        current = null;
+        if (result.failed()) {
+            failures++;
+            long delay = Math.min(MAX_BACKOFF.toMillis(), intervalMillis << Math.min(failures, 16));
+            logger.log(Level.FINE, "Unable to replay spooled export, next attempt in {0} ms", delay);
+            schedule(delay);
+            return;
+        }
+        failures = 0;
+        spool.ack(record);
+        budget -= record.getPayload().length();
+        if (budget > 0) {
+            replayNext();
+        } else {
+            schedule(intervalMillis);
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        if (spool.isClosed()) {
+            return;
+        }
+        try {
+            vertx.setTimer(delayMillis, this);
+        } catch (IllegalStateException e) {
+            // Vert.x is closing
+        }
+    }
+}
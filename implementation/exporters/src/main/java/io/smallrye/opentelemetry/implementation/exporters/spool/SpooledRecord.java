@@ -0,0 +1,31 @@
+package io.smallrye.opentelemetry.implementation.exporters.spool;
+
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * A payload read back from a {@link DiskSpool}, to be acknowledged with {@link DiskSpool#ack(SpooledRecord)} once
+ * replayed.
+ */
+public final class SpooledRecord {
+
+    final DiskSpool.Segment segment;
+    final int position;
+    private final Compression compression;
+    private final Buffer payload;
+
+    SpooledRecord(DiskSpool.Segment segment, int position, Compression compression, Buffer payload) {
+        this.segment = segment;
+        this.position = position;
+        this.compression = compression;
+        this.payload = payload;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public Buffer getPayload() {
+        return payload;
+    }
+}
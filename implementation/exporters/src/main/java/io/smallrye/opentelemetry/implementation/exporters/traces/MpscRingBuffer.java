@@ -0,0 +1,116 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer.
+ * <p>
+ * Each slot carries a sequence number telling whether it is free for the producer claiming that position, or holds an
+ * element for the consumer. Producers claim a position by incrementing the tail, write the element, then publish it by
+ * advancing the sequence of its slot; the consumer only reads a slot once it is published, and frees it by advancing
+ * its sequence by the capacity.
+ * <p>
+ * Closing the buffer sets a bit of the tail, so that no producer can claim a position afterwards, while the elements of
+ * the positions claimed before are still published and polled.
+ *
+ * @param <E> the type of the elements
+ */
+final class MpscRingBuffer<E> {
+
+    private static final long CLOSED = 1L << 62;
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity the maximum number of elements, rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} if the buffer is full or closed
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Only called by the consumer.
+     *
+     * @return the oldest element, {@code null} if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.lazySet(index, position + elements.length);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Makes all the following offers fail.
+     */
+    void close() {
+        tail.getAndUpdate(position -> position | CLOSED);
+    }
+
+    boolean isClosed() {
+        return (tail.get() & CLOSED) != 0;
+    }
+
+    /**
+     * Only called by the consumer.
+     *
+     * @return {@code true} if the buffer is closed, and all the elements offered before were polled
+     */
+    boolean isDrained() {
+        long position = tail.get();
+        return (position & CLOSED) != 0 && head.get() == (position & ~CLOSED);
+    }
+
+    /**
+     * @return the number of elements, which may be momentarily off while producers and the consumer are active
+     */
+    int size() {
+        return (int) Math.max(0, (tail.get() & ~CLOSED) - head.get());
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+}
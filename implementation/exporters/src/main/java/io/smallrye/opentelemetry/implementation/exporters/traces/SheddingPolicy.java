@@ -0,0 +1,154 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+
+/**
+ * Which spans a {@link StripedSpanProcessor} drops first when the export cannot keep up.
+ * <p>
+ * Each span is given a {@link Priority}, and a span is only queued while its stripe is filled below the watermark of
+ * its priority: as the stripe fills up, the low priority spans are dropped first, then the normal ones, and the
+ * remaining room is kept for the high priority ones. The spans are only classified once their stripe is past the low
+ * watermark, so the processor pays nothing for it until it is under pressure.
+ */
+public final class SheddingPolicy {
+
+    static final AttributeKey<String> PRIORITY = AttributeKey.stringKey("priority");
+    // The OpenTracing convention a sampling policy marks a span it would not keep with
+    static final AttributeKey<Long> SAMPLING_PRIORITY = AttributeKey.longKey("sampling.priority");
+
+    public enum Priority {
+        /**
+         * Spans marked with a {@code sampling.priority} of {@code 0} or less, {@code INTERNAL} spans, and the spans
+         * shorter than the minimum duration.
+         */
+        LOW,
+        /**
+         * The other spans.
+         */
+        NORMAL,
+        /**
+         * Spans with an error status, server spans starting a trace or entering the service, and the spans longer than
+         * the latency threshold. They are only dropped when their stripe is full.
+         */
+        HIGH;
+
+        final Attributes attributes = Attributes.of(PRIORITY, name().toLowerCase(Locale.ROOT));
+    }
+
+    private final long latencyThresholdNanos;
+    private final long minDurationNanos;
+    private final double lowWatermark;
+    private final double normalWatermark;
+
+    private SheddingPolicy(Builder builder) {
+        this.latencyThresholdNanos = builder.latencyThreshold.toNanos();
+        this.minDurationNanos = builder.minDuration.toNanos();
+        this.lowWatermark = builder.lowWatermark;
+        this.normalWatermark = builder.normalWatermark;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Classifies an ended span, from the cheapest checks to the most expensive one.
+     */
+    public Priority classify(ReadableSpan span) {
+        long latency = span.getLatencyNanos();
+        if (latency >= latencyThresholdNanos) {
+            return Priority.HIGH;
+        }
+        if (span.getKind() == SpanKind.SERVER) {
+            SpanContext parent = span.getParentSpanContext();
+            if (!parent.isValid() || parent.isRemote()) {
+                return Priority.HIGH;
+            }
+        }
+        // The status is only available from the span data
+        if (span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR) {
+            return Priority.HIGH;
+        }
+        Long samplingPriority = span.getAttribute(SAMPLING_PRIORITY);
+        if (samplingPriority != null && samplingPriority <= 0
+                || span.getKind() == SpanKind.INTERNAL
+                || latency < minDurationNanos) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * @return the number of spans from which a stripe of the given capacity drops the spans of each priority, indexed
+     *         by {@link Priority#ordinal()}
+     */
+    int[] limits(int capacity) {
+        int[] limits = new int[Priority.values().length];
+        limits[Priority.LOW.ordinal()] = Math.max(1, (int) (capacity * lowWatermark));
+        limits[Priority.NORMAL.ordinal()] = Math.max(1, (int) (capacity * normalWatermark));
+        limits[Priority.HIGH.ordinal()] = Integer.MAX_VALUE;
+        return limits;
+    }
+
+    public static final class Builder {
+        public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofSeconds(1);
+        public static final Duration DEFAULT_MIN_DURATION = Duration.ofMillis(1);
+        public static final double DEFAULT_LOW_WATERMARK = 0.5;
+        public static final double DEFAULT_NORMAL_WATERMARK = 0.8;
+
+        private Duration latencyThreshold = DEFAULT_LATENCY_THRESHOLD;
+        private Duration minDuration = DEFAULT_MIN_DURATION;
+        private double lowWatermark = DEFAULT_LOW_WATERMARK;
+        private double normalWatermark = DEFAULT_NORMAL_WATERMARK;
+
+        private Builder() {
+        }
+
+        /**
+         * @param latencyThreshold the duration above which a span is kept as long as possible
+         */
+        public Builder setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        /**
+         * @param minDuration the duration below which a span is dropped first
+         */
+        public Builder setMinDuration(Duration minDuration) {
+            this.minDuration = minDuration;
+            return this;
+        }
+
+        /**
+         * @param lowWatermark the fraction of a stripe from which the low priority spans are dropped
+         */
+        public Builder setLowWatermark(double lowWatermark) {
+            this.lowWatermark = lowWatermark;
+            return this;
+        }
+
+        /**
+         * @param normalWatermark the fraction of a stripe from which the normal priority spans are dropped
+         */
+        public Builder setNormalWatermark(double normalWatermark) {
+            this.normalWatermark = normalWatermark;
+            return this;
+        }
+
+        public SheddingPolicy build() {
+            if (lowWatermark <= 0 || lowWatermark > normalWatermark || normalWatermark > 1) {
+                throw new IllegalArgumentException("The watermarks must be such that 0 < low <= normal <= 1");
+            }
+            return new SheddingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * A batching span processor for many threads ending spans concurrently.
+ * <p>
+ * Where the {@code BatchSpanProcessor} of the SDK queues the ended spans in a single blocking queue, this processor
+ * spreads them over several lock-free {@link MpscRingBuffer}s, each thread always using the same one. A single drainer
+ * thread collects the spans from all the stripes, and hands them to the exporter in batches, when a batch is full or
+ * when the schedule delay elapses. Ending a span never blocks: when the stripe of the thread is full, the span is
+ * dropped, and counted by {@link DropReason}.
+ * <p>
+ * The configured queue size is split between the stripes, so a single thread can only fill its own share of it.
+ * <p>
+ * With a {@link SheddingPolicy}, the spans of low value are dropped first as a stripe fills up, keeping its remaining
+ * room for the errors, the entry points and the slow spans.
+ */
+public final class StripedSpanProcessor implements SpanProcessor {
+
+    private static final Logger logger = Logger.getLogger(StripedSpanProcessor.class.getName());
+
+    static final String INSTRUMENTATION_NAME = "io.smallrye.opentelemetry.exporters";
+    static final AttributeKey<String> REASON = AttributeKey.stringKey("reason");
+
+    /**
+     * How the drainer thread waits for spans when the stripes are empty.
+     */
+    public enum WaitStrategy {
+        /**
+         * Parks until the schedule delay elapses, or until a stripe holds its share of a batch. Uses the least CPU.
+         */
+        PARK,
+        /**
+         * Yields the CPU between two checks of the stripes.
+         */
+        YIELD,
+        /**
+         * Busy spins between two checks of the stripes, and keeps a core busy. Hands the spans to the exporter with
+         * the lowest latency.
+         */
+        SPIN
+    }
+
+    public enum DropReason {
+        /**
+         * The stripe of the thread ending the span was full.
+         */
+        QUEUE_FULL,
+        /**
+         * The span ended after the processor was shut down.
+         */
+        SHUTDOWN,
+        /**
+         * The span was part of a batch the exporter failed to export.
+         */
+        EXPORT_FAILED;
+
+        private final Attributes attributes = Attributes.of(REASON, name().toLowerCase(Locale.ROOT));
+    }
+
+    private final SpanExporter exporter;
+    private final MpscRingBuffer<ReadableSpan>[] stripes;
+    private final int stripeMask;
+    private final int wakeUpThreshold;
+    private final int maxExportBatchSize;
+    private final long scheduleDelayNanos;
+    private final long exportTimeoutNanos;
+    private final WaitStrategy waitStrategy;
+    private final Supplier<MeterProvider> meterProvider;
+    private final SheddingPolicy sheddingPolicy;
+    // The stripe sizes from which the spans of each priority are shed, null without shedding policy
+    private final int[] sheddingLimits;
+
+    private final LongAdder[] dropped = new LongAdder[DropReason.values().length];
+    private final LongAdder[] shed = new LongAdder[SheddingPolicy.Priority.values().length];
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final AtomicReference<CompletableResultCode> flushRequest = new AtomicReference<>();
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+    private final CompletableResultCode shutdownResult = new CompletableResultCode();
+    private final List<AutoCloseable> instruments = new ArrayList<>();
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+    // Only accessed by the drainer
+    private List<SpanData> batch;
+    private int nextStripe;
+    private boolean metricsStarted;
+
+    @SuppressWarnings("unchecked")
+    private StripedSpanProcessor(Builder builder) {
+        this.exporter = builder.exporter;
+        int stripeCount = builder.stripes <= 1 ? 1 : Integer.highestOneBit(builder.stripes - 1) << 1;
+        this.stripes = new MpscRingBuffer[stripeCount];
+        int stripeCapacity = Math.max(1, (builder.maxQueueSize + stripeCount - 1) / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new MpscRingBuffer<>(stripeCapacity);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.maxExportBatchSize = builder.maxExportBatchSize;
+        this.wakeUpThreshold = Math.max(1, Math.min(maxExportBatchSize / stripeCount, stripes[0].capacity() / 2));
+        this.scheduleDelayNanos = builder.scheduleDelay.toNanos();
+        this.exportTimeoutNanos = builder.exportTimeout.toNanos();
+        this.waitStrategy = builder.waitStrategy;
+        this.meterProvider = builder.meterProvider;
+        this.sheddingPolicy = builder.sheddingPolicy;
+        this.sheddingLimits = sheddingPolicy != null ? sheddingPolicy.limits(stripes[0].capacity()) : null;
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+        for (int i = 0; i < shed.length; i++) {
+            shed[i] = new LongAdder();
+        }
+        this.batch = new ArrayList<>(maxExportBatchSize);
+        this.drainer = new Thread(this::drain, "smallrye-opentelemetry-span-processor");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public static Builder builder(SpanExporter exporter) {
+        return new Builder(exporter);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!span.getSpanContext().isSampled()) {
+            return;
+        }
+        if (shutdown.get()) {
+            dropped[DropReason.SHUTDOWN.ordinal()].increment();
+            return;
+        }
+        MpscRingBuffer<ReadableSpan> stripe = stripes[stripeIndex()];
+        if (sheddingLimits != null) {
+            int size = stripe.size();
+            // Only classified under pressure
+            if (size >= sheddingLimits[SheddingPolicy.Priority.LOW.ordinal()]) {
+                SheddingPolicy.Priority priority = sheddingPolicy.classify(span);
+                if (size >= sheddingLimits[priority.ordinal()]) {
+                    shed(priority);
+                    return;
+                }
+            }
+        }
+        if (!stripe.offer(span)) {
+            if (stripe.isClosed()) {
+                // Shut down since the check above
+                dropped[DropReason.SHUTDOWN.ordinal()].increment();
+            } else if (sheddingPolicy != null) {
+                shed(sheddingPolicy.classify(span));
+            } else {
+                dropped[DropReason.QUEUE_FULL.ordinal()].increment();
+                wakeUp();
+            }
+        } else if (waitStrategy == WaitStrategy.PARK && stripe.size() >= wakeUpThreshold) {
+            wakeUp();
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        if (shutdown.get()) {
+            return shutdownResult;
+        }
+        CompletableResultCode result = new CompletableResultCode();
+        CompletableResultCode pending = flushRequest.compareAndExchange(null, result);
+        if (pending != null) {
+            return pending;
+        }
+        wakeUp();
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (shutdown.compareAndSet(false, true)) {
+            running = false;
+            LockSupport.unpark(drainer);
+        }
+        return shutdownResult;
+    }
+
+    /**
+     * @return the number of spans dropped for the given reason, since the processor was created
+     */
+    public long getDropped(DropReason reason) {
+        return dropped[reason.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of spans of the given priority dropped because their stripe was too full, since the processor
+     *         was created; always {@code 0} without shedding policy
+     */
+    public long getShed(SheddingPolicy.Priority priority) {
+        return shed[priority.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of spans waiting in the stripes
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (MpscRingBuffer<ReadableSpan> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private int stripeIndex() {
+        int hash = Thread.currentThread().hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Drops a span under pressure. It also counts as dropped because of a full queue.
+     */
+    private void shed(SheddingPolicy.Priority priority) {
+        shed[priority.ordinal()].increment();
+        dropped[DropReason.QUEUE_FULL.ordinal()].increment();
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        // Read first, so that threads ending spans while a wake-up is pending do not contend on a write
+        if (!wakeUpPending.get() && wakeUpPending.compareAndSet(false, true)) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drain() {
+        long nextExport = System.nanoTime() + scheduleDelayNanos;
+        while (running) {
+            wakeUpPending.set(false);
+            int drained = poll(maxExportBatchSize - batch.size());
+
+            // Taken before the export, so that a flush requested meanwhile also exports the spans ended meanwhile
+            CompletableResultCode flush = flushRequest.get() != null ? flushRequest.getAndSet(null) : null;
+            if (flush != null) {
+                completeFlush(flush, exportAll());
+                nextExport = System.nanoTime() + scheduleDelayNanos;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            if (batch.size() >= maxExportBatchSize || now - nextExport >= 0) {
+                if (!batch.isEmpty()) {
+                    export();
+                }
+                nextExport = System.nanoTime() + scheduleDelayNanos;
+            } else if (drained == 0) {
+                idle(nextExport - now);
+            }
+        }
+
+        boolean success = exportRemaining();
+        CompletableResultCode flush = flushRequest.getAndSet(null);
+        if (flush != null) {
+            completeFlush(flush, success);
+        }
+        closeMetrics();
+        CompletableResultCode exporterShutdown = exporter.shutdown();
+        exporterShutdown.whenComplete(() -> completeFlush(shutdownResult, success && exporterShutdown.isSuccess()));
+    }
+
+    private void idle(long remainingNanos) {
+        switch (waitStrategy) {
+            case PARK:
+                if (remainingNanos > 0) {
+                    LockSupport.parkNanos(this, remainingNanos);
+                }
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                Thread.onSpinWait();
+                break;
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} spans from the stripes to the batch, starting with a different stripe every time so
+     * that none of them is favored.
+     *
+     * @return the number of spans moved
+     */
+    private int poll(int limit) {
+        int polled = 0;
+        int start = nextStripe++;
+        for (int i = 0; i < stripes.length && polled < limit; i++) {
+            MpscRingBuffer<ReadableSpan> stripe = stripes[(start + i) & stripeMask];
+            ReadableSpan span;
+            while (polled < limit && (span = stripe.poll()) != null) {
+                batch.add(span.toSpanData());
+                polled++;
+            }
+        }
+        return polled;
+    }
+
+    /**
+     * Exports all the queued spans.
+     *
+     * @return {@code true} if all the exports succeeded
+     */
+    private boolean exportAll() {
+        boolean success = true;
+        while (true) {
+            poll(maxExportBatchSize - batch.size());
+            if (batch.isEmpty()) {
+                return success;
+            }
+            success &= export();
+        }
+    }
+
+    /**
+     * Exports all the queued spans on shutdown, then closes the stripes and exports the spans of the threads that
+     * passed the shutdown check before it was set, until none of them can offer a span anymore.
+     *
+     * @return {@code true} if all the exports succeeded
+     */
+    private boolean exportRemaining() {
+        boolean success = exportAll();
+        for (MpscRingBuffer<ReadableSpan> stripe : stripes) {
+            stripe.close();
+        }
+        while (true) {
+            success &= exportAll();
+            if (isDrained()) {
+                return success;
+            }
+            // A thread claimed a slot before the stripe was closed, and is still writing the span
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean isDrained() {
+        for (MpscRingBuffer<ReadableSpan> stripe : stripes) {
+            if (!stripe.isDrained()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean export() {
+        startMetrics();
+        int size = batch.size();
+        CompletableResultCode result = null;
+        try {
+            result = exporter.export(Collections.unmodifiableList(batch));
+            result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to export " + size + " spans", e);
+        }
+        if (result != null && !result.isDone()) {
+            // The exporter may still be reading the batch
+            batch = new ArrayList<>(maxExportBatchSize);
+        } else {
+            batch.clear();
+        }
+        if (result == null || !result.isSuccess()) {
+            dropped[DropReason.EXPORT_FAILED.ordinal()].add(size);
+            return false;
+        }
+        return true;
+    }
+
+    private static void completeFlush(CompletableResultCode flush, boolean success) {
+        if (success) {
+            flush.succeed();
+        } else {
+            flush.fail();
+        }
+    }
+
+    /**
+     * Registers the metrics of the processor, on its first export: the processor is built with the SDK, before the
+     * meter provider is available.
+     */
+    private void startMetrics() {
+        if (metricsStarted || meterProvider == null) {
+            return;
+        }
+        metricsStarted = true;
+        Meter meter;
+        try {
+            meter = meterProvider.get().get(INSTRUMENTATION_NAME);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Unable to get the meter of the span processor metrics", e);
+            return;
+        }
+        synchronized (instruments) {
+            instruments.add(meter.counterBuilder("otel.span_processor.dropped")
+                    .setDescription("The spans dropped by the span processor, by reason")
+                    .buildWithCallback(m -> {
+                        for (DropReason reason : DropReason.values()) {
+                            m.record(getDropped(reason), reason.attributes);
+                        }
+                    }));
+            if (sheddingPolicy != null) {
+                instruments.add(meter.counterBuilder("otel.span_processor.shed")
+                        .setDescription("The spans dropped by the span processor under pressure, by priority")
+                        .buildWithCallback(m -> {
+                            for (SheddingPolicy.Priority priority : SheddingPolicy.Priority.values()) {
+                                m.record(getShed(priority), priority.attributes);
+                            }
+                        }));
+            }
+            instruments.add(meter.upDownCounterBuilder("otel.span_processor.queue.size")
+                    .setDescription("The spans waiting to be exported")
+                    .buildWithCallback(m -> m.record(getQueueSize())));
+        }
+    }
+
+    private void closeMetrics() {
+        synchronized (instruments) {
+            for (AutoCloseable instrument : instruments) {
+                try {
+                    instrument.close();
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "Unable to close a span processor metric", e);
+                }
+            }
+            instruments.clear();
+        }
+    }
+
+    public static final class Builder {
+        public static final int DEFAULT_MAX_QUEUE_SIZE = 2048;
+        public static final int DEFAULT_MAX_EXPORT_BATCH_SIZE = 512;
+        public static final Duration DEFAULT_SCHEDULE_DELAY = Duration.ofSeconds(5);
+        public static final Duration DEFAULT_EXPORT_TIMEOUT = Duration.ofSeconds(30);
+
+        private final SpanExporter exporter;
+        private int stripes = Runtime.getRuntime().availableProcessors();
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+        private int maxExportBatchSize = DEFAULT_MAX_EXPORT_BATCH_SIZE;
+        private Duration scheduleDelay = DEFAULT_SCHEDULE_DELAY;
+        private Duration exportTimeout = DEFAULT_EXPORT_TIMEOUT;
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+        private Supplier<MeterProvider> meterProvider;
+        private SheddingPolicy sheddingPolicy;
+
+        private Builder(SpanExporter exporter) {
+            this.exporter = exporter;
+        }
+
+        /**
+         * @param stripes the number of ring buffers, rounded up to a power of two; defaults to the number of
+         *        processors
+         */
+        public Builder setStripes(int stripes) {
+            this.stripes = stripes;
+            return this;
+        }
+
+        /**
+         * @param maxQueueSize the number of spans the stripes hold together
+         */
+        public Builder setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public Builder setMaxExportBatchSize(int maxExportBatchSize) {
+            this.maxExportBatchSize = maxExportBatchSize;
+            return this;
+        }
+
+        public Builder setScheduleDelay(Duration scheduleDelay) {
+            this.scheduleDelay = scheduleDelay;
+            return this;
+        }
+
+        public Builder setExportTimeout(Duration exportTimeout) {
+            this.exportTimeout = exportTimeout;
+            return this;
+        }
+
+        public Builder setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * @param meterProvider supplies the provider to report the dropped spans and the queue size with, looked up on
+         *        the first export; {@code null} to not report anything
+         */
+        public Builder setMeterProvider(Supplier<MeterProvider> meterProvider) {
+            this.meterProvider = meterProvider;
+            return this;
+        }
+
+        /**
+         * @param sheddingPolicy the policy choosing the spans dropped first as the stripes fill up; {@code null}, the
+         *        default, to only drop the spans when their stripe is full
+         */
+        public Builder setSheddingPolicy(SheddingPolicy sheddingPolicy) {
+            this.sheddingPolicy = sheddingPolicy;
+            return this;
+        }
+
+        public StripedSpanProcessor build() {
+            if (maxExportBatchSize <= 0 || maxQueueSize <= 0) {
+                throw new IllegalArgumentException("The queue and batch sizes must be positive");
+            }
+            return new StripedSpanProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * A span processor deciding which traces to export once they have ended, and only handing the spans of the kept
+ * traces to the processor it wraps.
+ * <p>
+ * The ended spans are buffered per trace until the local root span of the trace ends, then the trace is kept if:
+ * <ul>
+ * <li>one of its spans has an error status,</li>
+ * <li>or its local root span lasted longer than the latency threshold of its {@code http.route}, or the default
+ * threshold,</li>
+ * <li>or its trace id falls within the sampling ratio, so that the services of a trace keep the same traces.</li>
+ * </ul>
+ * Spans ending after the decision follow it. Only the spans sampled by the head sampler reach this processor, which
+ * should then sample all of them, the ratio applying here instead.
+ * <p>
+ * The buffered traces are split into shards by trace id, each holding its share of the maximum number of traces and
+ * spans. When a shard is full, or when a trace has waited longer than the decision wait, for instance because its root
+ * span is never ended, the oldest traces of the shard are decided without their root span: by their errors and the
+ * sampling ratio.
+ */
+public final class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final Logger logger = Logger.getLogger(TailSamplingSpanProcessor.class.getName());
+
+    static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+    static final AttributeKey<String> DECISION = AttributeKey.stringKey("decision");
+
+    private static final long RANDOM_MASK = 0x00FF_FFFF_FFFF_FFFFL;
+
+    /**
+     * Why a trace was kept, or dropped.
+     */
+    public enum Decision {
+        ERROR(true),
+        LATENCY(true),
+        RATIO(true),
+        DROPPED(false),
+        /**
+         * The trace was decided without its root span, as its shard was full.
+         */
+        EVICTED_KEPT(true),
+        EVICTED_DROPPED(false);
+
+        private final boolean keep;
+        private final Attributes attributes = Attributes.of(DECISION, name().toLowerCase(Locale.ROOT));
+
+        Decision(boolean keep) {
+            this.keep = keep;
+        }
+
+        public boolean isKeep() {
+            return keep;
+        }
+    }
+
+    private final SpanProcessor delegate;
+    private final Shard[] shards;
+    private final int shardMask;
+    private final int maxTracesPerShard;
+    private final int maxSpansPerShard;
+    private final int maxSpansPerTrace;
+    private final long decisionWaitNanos;
+    private final long ratioBound;
+    private final long latencyThresholdNanos;
+    private final Map<String, Long> routeLatencyThresholdsNanos;
+    private final Supplier<MeterProvider> meterProvider;
+
+    private final LongAdder[] decisions = new LongAdder[Decision.values().length];
+    private final LongAdder droppedSpans = new LongAdder();
+    private final AtomicBoolean metricsStarted = new AtomicBoolean();
+    private final List<AutoCloseable> instruments = new ArrayList<>();
+
+    private TailSamplingSpanProcessor(Builder builder) {
+        this.delegate = builder.delegate;
+        int shardCount = builder.shards <= 1 ? 1 : Integer.highestOneBit(builder.shards - 1) << 1;
+        this.shards = new Shard[shardCount];
+        this.maxTracesPerShard = Math.max(1, builder.maxTraces / shardCount);
+        this.maxSpansPerShard = Math.max(1, builder.maxSpans / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            // Remember as many decisions as there can be buffered traces, for the spans ending after them
+            shards[i] = new Shard(maxTracesPerShard);
+        }
+        this.shardMask = shardCount - 1;
+        this.maxSpansPerTrace = builder.maxSpansPerTrace;
+        this.decisionWaitNanos = builder.decisionWait.toNanos();
+        this.ratioBound = (long) (Math.max(0d, Math.min(1d, builder.ratio)) * (RANDOM_MASK + 1d));
+        this.latencyThresholdNanos = builder.latencyThreshold.toNanos();
+        Map<String, Long> routeThresholds = new LinkedHashMap<>();
+        builder.routeLatencyThresholds.forEach((route, threshold) -> routeThresholds.put(route, threshold.toNanos()));
+        this.routeLatencyThresholdsNanos = routeThresholds;
+        this.meterProvider = builder.meterProvider;
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param delegate the processor receiving the spans of the kept traces
+     */
+    public static Builder builder(SpanProcessor delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        if (delegate.isStartRequired()) {
+            delegate.onStart(parentContext, span);
+        }
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext spanContext = span.getSpanContext();
+        if (!spanContext.isSampled()) {
+            return;
+        }
+        String traceId = spanContext.getTraceId();
+        boolean error = span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+        SpanContext parent = span.getParentSpanContext();
+        boolean root = !parent.isValid() || parent.isRemote();
+        long now = System.nanoTime();
+
+        Shard shard = shards[(traceId.hashCode() ^ (traceId.hashCode() >>> 16)) & shardMask];
+        List<Trace> kept = null;
+        boolean keepSpan = false;
+        synchronized (shard) {
+            Decision decision = shard.decisions.get(traceId);
+            if (decision != null) {
+                keepSpan = decision.isKeep();
+            } else {
+                Trace trace = shard.traces.get(traceId);
+                if (trace == null) {
+                    trace = new Trace(traceId, now);
+                    shard.traces.put(traceId, trace);
+                }
+                if (trace.spans.size() < maxSpansPerTrace || root) {
+                    trace.spans.add(span);
+                    trace.error |= error;
+                    shard.spans++;
+                } else {
+                    droppedSpans.increment();
+                }
+                if (root) {
+                    kept = decide(shard, trace, span, kept);
+                }
+                kept = evict(shard, now, kept);
+            }
+        }
+
+        if (keepSpan) {
+            delegate.onEnd(span);
+        }
+        if (kept != null) {
+            forward(kept);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        List<Trace> kept = null;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Iterator<Trace> it = shard.traces.values().iterator(); it.hasNext();) {
+                    Trace trace = it.next();
+                    it.remove();
+                    kept = record(shard, trace, decideWithoutRoot(trace, false), kept);
+                }
+            }
+        }
+        if (kept != null) {
+            forward(kept);
+        }
+        closeMetrics();
+        return delegate.shutdown();
+    }
+
+    /**
+     * @return the number of traces decided for the given reason, since the processor was created
+     */
+    public long getDecisions(Decision decision) {
+        return decisions[decision.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of spans dropped because their trace already buffered the maximum number of spans per trace
+     */
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    private List<Trace> decide(Shard shard, Trace trace, ReadableSpan root, List<Trace> kept) {
+        shard.traces.remove(trace.traceId);
+        Decision decision;
+        if (trace.error) {
+            decision = Decision.ERROR;
+        } else if (root.getLatencyNanos() > latencyThreshold(root)) {
+            decision = Decision.LATENCY;
+        } else if (isSampled(trace.traceId)) {
+            decision = Decision.RATIO;
+        } else {
+            decision = Decision.DROPPED;
+        }
+        return record(shard, trace, decision, kept);
+    }
+
+    /**
+     * Decides the oldest traces of the shard while it holds too many traces or spans, or while they have waited for
+     * longer than the decision wait.
+     */
+    private List<Trace> evict(Shard shard, long now, List<Trace> kept) {
+        Iterator<Trace> it = shard.traces.values().iterator();
+        while (it.hasNext()) {
+            Trace oldest = it.next();
+            boolean full = shard.traces.size() > maxTracesPerShard || shard.spans > maxSpansPerShard;
+            if (!full && now - oldest.createdNanos < decisionWaitNanos) {
+                break;
+            }
+            it.remove();
+            kept = record(shard, oldest, decideWithoutRoot(oldest, full), kept);
+        }
+        return kept;
+    }
+
+    private Decision decideWithoutRoot(Trace trace, boolean evicted) {
+        boolean keep = trace.error || isSampled(trace.traceId);
+        if (evicted) {
+            return keep ? Decision.EVICTED_KEPT : Decision.EVICTED_DROPPED;
+        }
+        return trace.error ? Decision.ERROR : keep ? Decision.RATIO : Decision.DROPPED;
+    }
+
+    private List<Trace> record(Shard shard, Trace trace, Decision decision, List<Trace> kept) {
+        shard.decisions.put(trace.traceId, decision);
+        shard.spans -= trace.spans.size();
+        decisions[decision.ordinal()].increment();
+        if (!decision.isKeep()) {
+            return kept;
+        }
+        if (kept == null) {
+            kept = new ArrayList<>(2);
+        }
+        kept.add(trace);
+        return kept;
+    }
+
+    private void forward(List<Trace> kept) {
+        startMetrics();
+        for (Trace trace : kept) {
+            for (ReadableSpan span : trace.spans) {
+                delegate.onEnd(span);
+            }
+        }
+    }
+
+    private long latencyThreshold(ReadableSpan root) {
+        if (!routeLatencyThresholdsNanos.isEmpty()) {
+            String route = root.getAttribute(HTTP_ROUTE);
+            if (route != null) {
+                Long threshold = routeLatencyThresholdsNanos.get(route);
+                if (threshold != null) {
+                    return threshold;
+                }
+            }
+        }
+        return latencyThresholdNanos;
+    }
+
+    /**
+     * Samples on the 56 rightmost bits of the trace id, which are random in W3C trace ids, so that every service
+     * sampling at the same ratio keeps the same traces.
+     */
+    private boolean isSampled(String traceId) {
+        return (Long.parseUnsignedLong(traceId, 16, 32, 16) & RANDOM_MASK) < ratioBound;
+    }
+
+    private void startMetrics() {
+        if (meterProvider == null || !metricsStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Meter meter;
+        try {
+            meter = meterProvider.get().get(StripedSpanProcessor.INSTRUMENTATION_NAME);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Unable to get the meter of the tail sampling metrics", e);
+            return;
+        }
+        synchronized (instruments) {
+            instruments.add(meter.counterBuilder("otel.tail_sampling.traces")
+                    .setDescription("The traces decided by the tail sampler, by decision")
+                    .buildWithCallback(m -> {
+                        for (Decision decision : Decision.values()) {
+                            m.record(getDecisions(decision), decision.attributes);
+                        }
+                    }));
+            instruments.add(meter.counterBuilder("otel.tail_sampling.dropped_spans")
+                    .setDescription("The spans dropped as their trace buffered the maximum number of spans")
+                    .buildWithCallback(m -> m.record(getDroppedSpans())));
+        }
+    }
+
+    private void closeMetrics() {
+        synchronized (instruments) {
+            for (AutoCloseable instrument : instruments) {
+                try {
+                    instrument.close();
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "Unable to close a tail sampling metric", e);
+                }
+            }
+            instruments.clear();
+        }
+    }
+
+    private static final class Shard {
+        // Insertion ordered, the eldest entries are the oldest traces
+        final LinkedHashMap<String, Trace> traces = new LinkedHashMap<>();
+        final LinkedHashMap<String, Decision> decisions;
+        int spans;
+
+        Shard(int maxDecisions) {
+            this.decisions = new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Decision> eldest) {
+                    return size() > maxDecisions;
+                }
+            };
+        }
+    }
+
+    private static final class Trace {
+        final String traceId;
+        final long createdNanos;
+        final List<ReadableSpan> spans = new ArrayList<>(4);
+        boolean error;
+
+        Trace(String traceId, long createdNanos) {
+            this.traceId = traceId;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    public static final class Builder {
+        public static final double DEFAULT_RATIO = 0.1d;
+        public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofSeconds(1);
+        public static final Duration DEFAULT_DECISION_WAIT = Duration.ofSeconds(30);
+        public static final int DEFAULT_MAX_TRACES = 10_000;
+        public static final int DEFAULT_MAX_SPANS = 100_000;
+        public static final int DEFAULT_MAX_SPANS_PER_TRACE = 1_000;
+
+        private final SpanProcessor delegate;
+        private int shards = Runtime.getRuntime().availableProcessors() * 2;
+        private double ratio = DEFAULT_RATIO;
+        private Duration latencyThreshold = DEFAULT_LATENCY_THRESHOLD;
+        private Map<String, Duration> routeLatencyThresholds = Collections.emptyMap();
+        private Duration decisionWait = DEFAULT_DECISION_WAIT;
+        private int maxTraces = DEFAULT_MAX_TRACES;
+        private int maxSpans = DEFAULT_MAX_SPANS;
+        private int maxSpansPerTrace = DEFAULT_MAX_SPANS_PER_TRACE;
+        private Supplier<MeterProvider> meterProvider;
+
+        private Builder(SpanProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @param shards the number of shards of the buffered traces, rounded up to a power of two
+         */
+        public Builder setShards(int shards) {
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * @param ratio the ratio of the traces without errors nor high latency to keep
+         */
+        public Builder setRatio(double ratio) {
+            this.ratio = ratio;
+            return this;
+        }
+
+        /**
+         * @param latencyThreshold the duration of the local root span above which a trace is kept
+         */
+        public Builder setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        /**
+         * @param routeLatencyThresholds the latency thresholds by {@code http.route} of the local root span, overriding
+         *        the default threshold
+         */
+        public Builder setRouteLatencyThresholds(Map<String, Duration> routeLatencyThresholds) {
+            this.routeLatencyThresholds = routeLatencyThresholds;
+            return this;
+        }
+
+        /**
+         * @param decisionWait how long a trace waits for its root span to end before it is decided without it
+         */
+        public Builder setDecisionWait(Duration decisionWait) {
+            this.decisionWait = decisionWait;
+            return this;
+        }
+
+        public Builder setMaxTraces(int maxTraces) {
+            this.maxTraces = maxTraces;
+            return this;
+        }
+
+        public Builder setMaxSpans(int maxSpans) {
+            this.maxSpans = maxSpans;
+            return this;
+        }
+
+        public Builder setMaxSpansPerTrace(int maxSpansPerTrace) {
+            this.maxSpansPerTrace = maxSpansPerTrace;
+            return this;
+        }
+
+        /**
+         * @param meterProvider supplies the provider to report the decisions with, looked up on the first kept trace;
+         *        {@code null} to not report anything
+         */
+        public Builder setMeterProvider(Supplier<MeterProvider> meterProvider) {
+            this.meterProvider = meterProvider;
+            return this;
+        }
+
+        public TailSamplingSpanProcessor build() {
+            if (maxTraces <= 0 || maxSpans <= 0 || maxSpansPerTrace <= 0) {
+                throw new IllegalArgumentException("The maximum numbers of traces and spans must be positive");
+            }
+            return new TailSamplingSpanProcessor(this);
+        }
+    }
+}
@@ -2,25 +2,59 @@ package io.smallrye.opentelemetry.implementation.exporters.traces;
 
 import java.util.Collection;
 
-import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.HttpSender;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.smallrye.opentelemetry.implementation.exporters.ExportRequests;
+import io.smallrye.opentelemetry.implementation.exporters.RequestSplitter;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
 
 public final class VertxHttpSpanExporter implements SpanExporter {
 
     private final HttpSender sender;
+    private final RequestSplitter<SpanData, ?> splitter;
 
     public VertxHttpSpanExporter(HttpSender sender) {
+        this(sender, 0);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     */
+    public VertxHttpSpanExporter(HttpSender sender, int maxRequestSize) {
+        this(sender, maxRequestSize, MemoryMode.IMMUTABLE_DATA);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     */
+    public VertxHttpSpanExporter(HttpSender sender, int maxRequestSize, MemoryMode memoryMode) {
+        this(sender, maxRequestSize, memoryMode, false);
+    }
+
+    /**
+     * @param maxRequestSize the size above which a batch is split into several requests, {@code 0} to never split
+     * @param memoryMode {@link MemoryMode#REUSABLE_DATA} to reuse the request marshalers between exports
+     * @param directEncoding {@code true} to encode the requests straight into the payload buffers of the sender,
+     *        rather than with the SDK marshalers
+     */
+    public VertxHttpSpanExporter(HttpSender sender, int maxRequestSize, MemoryMode memoryMode, boolean directEncoding) {
         this.sender = sender;
+        this.splitter = ExportRequests.spans(maxRequestSize, memoryMode, directEncoding, this::send);
     }
 
     @Override
     public CompletableResultCode export(Collection<SpanData> spans) {
-        TraceRequestMarshaler marshaler = TraceRequestMarshaler.create(spans);
+        return splitter.export(spans);
+    }
+
+    private CompletableResultCode send(MessageWriter messageWriter) {
         CompletableResultCode result = new CompletableResultCode();
-        sender.send(marshaler.toBinaryMessageWriter(),
+        sender.send(messageWriter,
                 response -> {
                     if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
                         result.succeed();
@@ -34,7 +68,9 @@ public final class VertxHttpSpanExporter implements SpanExporter {
 
     @Override
     public CompletableResultCode flush() {
-        return CompletableResultCode.ofSuccess();
+        // Completes once the exports in flight have completed
+        return sender instanceof FlushableSender ? ((FlushableSender) sender).flush()
+                : CompletableResultCode.ofSuccess();
     }
 
     @Override
@@ -2,6 +2,7 @@ package io.smallrye.opentelemetry.implementation.exporters.traces;
 
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_GRPC;
 import static io.smallrye.opentelemetry.implementation.exporters.Constants.PROTOCOL_HTTP_PROTOBUF;
+import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getMemoryMode;
 import static io.smallrye.opentelemetry.implementation.exporters.OtlpExporterUtil.getProtocol;
 
 import java.net.URISyntaxException;
@@ -26,9 +27,11 @@ public class VertxSpanExporterProvider extends AbstractVertxExporterProvider
             final String protocol = getProtocol(config, getSignalType());
 
             if (PROTOCOL_GRPC.equals(protocol)) {
-                return new VertxGrpcSpanExporter(createGrpcSender(config, VertxGrpcSender.GRPC_TRACE_SERVICE_NAME));
+                return new VertxGrpcSpanExporter(createGrpcSender(config, VertxGrpcSender.GRPC_TRACE_SERVICE_NAME),
+                        getMaxRequestSize(config), getMemoryMode(config), isDirectEncoding(config));
             } else if (PROTOCOL_HTTP_PROTOBUF.equals(protocol)) {
-                return new VertxHttpSpanExporter(createHttpSender(config, VertxHttpSender.TRACES_PATH));
+                return new VertxHttpSpanExporter(createHttpSender(config, VertxHttpSender.TRACES_PATH),
+                        getMaxRequestSize(config), getMemoryMode(config), isDirectEncoding(config));
             } else {
                 throw buildUnsupportedProtocolException(protocol);
             }
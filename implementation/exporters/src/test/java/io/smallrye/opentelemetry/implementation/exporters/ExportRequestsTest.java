@@ -0,0 +1,173 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.testing.logs.TestLogRecordData;
+import io.opentelemetry.sdk.testing.trace.TestSpanData;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+class ExportRequestsTest {
+    private static final Resource RESOURCE = Resource.create(
+            Attributes.of(AttributeKey.stringKey("service.name"), "a"));
+    private static final Resource OTHER_RESOURCE = Resource.create(
+            Attributes.of(AttributeKey.stringKey("service.name"), "b"));
+    private static final InstrumentationScopeInfo SCOPE = InstrumentationScopeInfo.builder("scope")
+            .setVersion("1.0")
+            .build();
+
+    @Test
+    void reusableSpanMarshalers() {
+        List<SpanData> first = List.of(span(RESOURCE, 1), span(RESOURCE, 2), span(OTHER_RESOURCE, 3));
+        List<SpanData> second = List.of(span(OTHER_RESOURCE, 4));
+
+        List<byte[]> immutable = new ArrayList<>();
+        RequestSplitter<SpanData, ?> splitter = ExportRequests.spans(0, MemoryMode.IMMUTABLE_DATA, false,
+                writer -> send(writer, immutable));
+        export(splitter, first);
+        export(splitter, second);
+
+        List<byte[]> reusable = new ArrayList<>();
+        splitter = ExportRequests.spans(0, MemoryMode.REUSABLE_DATA, false, writer -> send(writer, reusable));
+        export(splitter, first);
+        // The second request reuses the marshaler of the first one, once reset
+        export(splitter, second);
+
+        assertRequestsEqual(immutable, reusable);
+    }
+
+    @Test
+    void reusableLogMarshalers() {
+        List<LogRecordData> first = List.of(log(RESOURCE, 1), log(RESOURCE, 2), log(OTHER_RESOURCE, 3));
+        List<LogRecordData> second = List.of(log(OTHER_RESOURCE, 4));
+
+        List<byte[]> immutable = new ArrayList<>();
+        RequestSplitter<LogRecordData, ?> splitter = ExportRequests.logs(0, MemoryMode.IMMUTABLE_DATA, false,
+                writer -> send(writer, immutable));
+        export(splitter, first);
+        export(splitter, second);
+
+        List<byte[]> reusable = new ArrayList<>();
+        splitter = ExportRequests.logs(0, MemoryMode.REUSABLE_DATA, false, writer -> send(writer, reusable));
+        export(splitter, first);
+        export(splitter, second);
+
+        assertRequestsEqual(immutable, reusable);
+    }
+
+    @Test
+    void reusableMetricMarshalers() {
+        List<MetricData> first = List.of(metric(RESOURCE, 1), metric(RESOURCE, 2), metric(OTHER_RESOURCE, 3));
+        List<MetricData> second = List.of(metric(OTHER_RESOURCE, 4));
+
+        List<byte[]> immutable = new ArrayList<>();
+        RequestSplitter<MetricData, ?> splitter = ExportRequests.metrics(0, MemoryMode.IMMUTABLE_DATA, false,
+                writer -> send(writer, immutable));
+        export(splitter, first);
+        export(splitter, second);
+
+        List<byte[]> reusable = new ArrayList<>();
+        splitter = ExportRequests.metrics(0, MemoryMode.REUSABLE_DATA, false, writer -> send(writer, reusable));
+        export(splitter, first);
+        export(splitter, second);
+
+        assertRequestsEqual(immutable, reusable);
+    }
+
+    static <T> void export(RequestSplitter<T, ?> splitter, List<T> items) {
+        assertTrue(splitter.export(items).join(5, TimeUnit.SECONDS).isSuccess());
+    }
+
+    static CompletableResultCode send(MessageWriter writer, List<byte[]> requests) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            writer.writeMessage(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        assertEquals(writer.getContentLength(), output.size());
+        requests.add(output.toByteArray());
+        return CompletableResultCode.ofSuccess();
+    }
+
+    static void assertRequestsEqual(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "Request " + i);
+        }
+    }
+
+    private static SpanData span(Resource resource, int id) {
+        return TestSpanData.builder()
+                .setSpanContext(spanContext(id))
+                .setResource(resource)
+                .setInstrumentationScopeInfo(SCOPE)
+                .setName("span-" + id)
+                .setKind(SpanKind.SERVER)
+                .setStartEpochNanos(1_000_000L * id)
+                .setEndEpochNanos(2_000_000L * id)
+                .setAttributes(Attributes.of(AttributeKey.longKey("id"), (long) id))
+                .setEvents(List.of(EventData.create(1_500_000L * id, "event", Attributes.empty())))
+                .setTotalRecordedEvents(1)
+                .setStatus(StatusData.ok())
+                .setHasEnded(true)
+                .build();
+    }
+
+    private static LogRecordData log(Resource resource, int id) {
+        return TestLogRecordData.builder()
+                .setResource(resource)
+                .setInstrumentationScopeInfo(SCOPE)
+                .setSpanContext(spanContext(id))
+                .setTimestamp(id, TimeUnit.MILLISECONDS)
+                .setObservedTimestamp(id + 1, TimeUnit.MILLISECONDS)
+                .setSeverity(Severity.INFO)
+                .setSeverityText("INFO")
+                .setBody("log-" + id)
+                .setAttributes(Attributes.of(AttributeKey.longKey("id"), (long) id))
+                .setTotalAttributeCount(1)
+                .build();
+    }
+
+    private static MetricData metric(Resource resource, int id) {
+        return ImmutableMetricData.createLongSum(resource, SCOPE, "metric-" + id, "A counter", "1",
+                ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, List.of(
+                        ImmutableLongPointData.create(1_000_000L, 2_000_000L * id,
+                                Attributes.of(AttributeKey.longKey("id"), (long) id), 10L * id))));
+    }
+
+    private static SpanContext spanContext(int id) {
+        return SpanContext.create(String.format("%032x", id), String.format("%016x", id), TraceFlags.getSampled(),
+                TraceState.getDefault());
+    }
+}
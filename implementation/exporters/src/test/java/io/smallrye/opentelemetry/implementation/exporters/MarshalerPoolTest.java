@@ -0,0 +1,104 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.common.export.MemoryMode;
+
+class MarshalerPoolTest {
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Test
+    void immutable() {
+        MarshalerPool<String, String> pool = MarshalerPool.of(items -> String.join(",", items));
+        assertEquals(MemoryMode.IMMUTABLE_DATA, pool.getMemoryMode());
+        assertEquals("a,b", pool.acquire(List.of("a", "b")));
+    }
+
+    @Test
+    void reusesTheReleasedMarshalers() {
+        MarshalerPool<String, StringBuilder> pool = reusable();
+        assertEquals(MemoryMode.REUSABLE_DATA, pool.getMemoryMode());
+
+        StringBuilder first = pool.acquire(List.of("a", "b"));
+        assertEquals("ab", first.toString());
+        pool.release(first);
+        // The released marshaler was reset
+        assertEquals(0, first.length());
+
+        StringBuilder second = pool.acquire(List.of("c"));
+        assertSame(first, second);
+        assertEquals("c", second.toString());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void createsMarshalersWhileAllAreInUse() {
+        MarshalerPool<String, StringBuilder> pool = reusable();
+        StringBuilder first = pool.acquire(List.of("a"));
+        StringBuilder second = pool.acquire(List.of("b"));
+        assertNotSame(first, second);
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void lastInFirstOut() {
+        MarshalerPool<String, StringBuilder> pool = reusable();
+        StringBuilder first = pool.acquire(List.of("a"));
+        StringBuilder second = pool.acquire(List.of("b"));
+        pool.release(first);
+        pool.release(second);
+
+        assertSame(second, pool.acquire(List.of("c")));
+        assertSame(first, pool.acquire(List.of("d")));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void keepsAMarshalerThatFailedToInitialize() {
+        MarshalerPool<String, StringBuilder> pool = reusable();
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(List.of("a", "")));
+
+        StringBuilder marshaler = pool.acquire(List.of("b"));
+        assertEquals("b", marshaler.toString());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void create() {
+        assertEquals(MemoryMode.IMMUTABLE_DATA, create(MemoryMode.IMMUTABLE_DATA).getMemoryMode());
+        assertEquals(MemoryMode.REUSABLE_DATA, create(MemoryMode.REUSABLE_DATA).getMemoryMode());
+    }
+
+    private MarshalerPool<String, StringBuilder> reusable() {
+        return MarshalerPool.reusable(this::newMarshaler, MarshalerPoolTest::initialize,
+                builder -> builder.setLength(0));
+    }
+
+    private MarshalerPool<String, StringBuilder> create(MemoryMode memoryMode) {
+        return MarshalerPool.create(memoryMode, items -> new StringBuilder(String.join("", items)), this::newMarshaler,
+                MarshalerPoolTest::initialize, builder -> builder.setLength(0));
+    }
+
+    private StringBuilder newMarshaler() {
+        created.incrementAndGet();
+        return new StringBuilder();
+    }
+
+    private static void initialize(StringBuilder builder, Collection<String> items) {
+        for (String item : items) {
+            if (item.isEmpty()) {
+                throw new IllegalArgumentException("Empty item");
+            }
+            builder.append(item);
+        }
+    }
+}
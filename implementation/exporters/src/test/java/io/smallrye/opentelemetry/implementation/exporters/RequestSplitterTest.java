@@ -0,0 +1,116 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+
+class RequestSplitterTest {
+    private final List<List<Integer>> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger acquired = new AtomicInteger();
+    private final AtomicInteger released = new AtomicInteger();
+    private final MarshalerPool<Integer, List<Integer>> marshalers = new MarshalerPool<>() {
+        @Override
+        public List<Integer> acquire(Collection<Integer> items) {
+            acquired.incrementAndGet();
+            return List.copyOf(items);
+        }
+
+        @Override
+        public void release(List<Integer> marshaler) {
+            released.incrementAndGet();
+        }
+
+        @Override
+        public MemoryMode getMemoryMode() {
+            return MemoryMode.IMMUTABLE_DATA;
+        }
+    };
+
+    @Test
+    void sendsABatchThatFitsAsIs() {
+        CompletableResultCode result = splitter(100, request -> CompletableResultCode.ofSuccess())
+                .export(List.of(10, 20, 30));
+        assertTrue(result.join(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(List.of(List.of(10, 20, 30)), requests);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    void splitsAnOversizedBatch() {
+        List<Integer> items = Collections.nCopies(10, 10);
+        CompletableResultCode result = splitter(30, request -> CompletableResultCode.ofSuccess()).export(items);
+        assertTrue(result.join(5, TimeUnit.SECONDS).isSuccess());
+
+        assertEquals(4, requests.size());
+        for (List<Integer> request : requests) {
+            assertTrue(size(request) <= 30, "Oversized request " + request);
+        }
+        assertEquals(10, requests.stream().mapToInt(List::size).sum());
+        // The request of the whole batch, then one per chunk
+        assertEquals(5, acquired.get());
+        assertEquals(5, released.get());
+    }
+
+    @Test
+    void halvesAChunkStillTooLarge() {
+        CompletableResultCode result = splitter(50, request -> CompletableResultCode.ofSuccess())
+                .export(List.of(1, 2, 3, 40, 30));
+        assertTrue(result.join(5, TimeUnit.SECONDS).isSuccess());
+
+        // The chunk [40, 30] is halved
+        List<Integer> sent = new ArrayList<>();
+        for (List<Integer> request : requests) {
+            assertTrue(size(request) <= 50, "Oversized request " + request);
+            sent.addAll(request);
+        }
+        Collections.sort(sent);
+        assertEquals(List.of(1, 2, 3, 30, 40), sent);
+        assertEquals(acquired.get(), released.get());
+    }
+
+    @Test
+    void sendsASingleItemWhateverItsSize() {
+        CompletableResultCode result = splitter(10, request -> CompletableResultCode.ofSuccess())
+                .export(List.of(100));
+        assertTrue(result.join(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(List.of(List.of(100)), requests);
+    }
+
+    @Test
+    void failsIfARequestFails() {
+        CompletableResultCode result = splitter(5,
+                request -> request.contains(3) ? CompletableResultCode.ofFailure() : CompletableResultCode.ofSuccess())
+                .export(List.of(1, 2, 3, 4));
+        assertFalse(result.join(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(4, requests.stream().mapToInt(List::size).sum());
+        assertEquals(acquired.get(), released.get());
+    }
+
+    private RequestSplitter<Integer, List<Integer>> splitter(int maxRequestSize,
+            Function<List<Integer>, CompletableResultCode> sender) {
+        return new RequestSplitter<>(maxRequestSize, marshalers, RequestSplitterTest::size,
+                request -> {
+                    requests.add(request);
+                    return sender.apply(request);
+                });
+    }
+
+    private static int size(List<Integer> request) {
+        return request.stream().collect(Collectors.summingInt(Integer::intValue));
+    }
+}
@@ -0,0 +1,46 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+
+class SharedVertxTest {
+
+    @Test
+    void sharedUntilTheLastRelease() throws Exception {
+        ConfigProperties config = DefaultConfigProperties.createFromMap(Map.of());
+        Vertx first = SharedVertx.acquire(config);
+        try {
+            assertSame(first, SharedVertx.acquire(config));
+            SharedVertx.release();
+            // Still referenced by the first acquisition
+            assertSame(first, SharedVertx.acquire(config));
+            SharedVertx.release();
+        } finally {
+            SharedVertx.release();
+        }
+
+        // Closed with the last release
+        ((VertxInternal) first).closeFuture().future().toCompletionStage().toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(((VertxInternal) first).closeFuture().isClosed());
+
+        // And created again by the next acquisition
+        Vertx second = SharedVertx.acquire(config);
+        try {
+            assertNotSame(first, second);
+        } finally {
+            SharedVertx.release();
+        }
+    }
+}
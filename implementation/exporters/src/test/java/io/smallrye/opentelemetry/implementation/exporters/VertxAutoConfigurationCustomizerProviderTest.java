@@ -0,0 +1,71 @@
+package io.smallrye.opentelemetry.implementation.exporters;
+
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_METRICS_ENABLED;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR;
+import static io.smallrye.opentelemetry.implementation.exporters.Constants.SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.smallrye.opentelemetry.implementation.exporters.traces.StripedSpanProcessor;
+
+class VertxAutoConfigurationCustomizerProviderTest {
+
+    @Test
+    void replacedBatchSpanProcessorKeepsTheExporters() {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        DetachableSpanExporter detachable = new DetachableSpanExporter(exporter);
+        // The exporter of another SDK
+        InMemorySpanExporter otherExporter = InMemorySpanExporter.create();
+        DetachableSpanExporter otherDetachable = new DetachableSpanExporter(otherExporter);
+
+        SpanProcessor processor = VertxAutoConfigurationCustomizerProvider.customizeSpanProcessor(
+                BatchSpanProcessor.builder(detachable).build(), config(Map.of()), List.of(detachable));
+        try {
+            assertInstanceOf(StripedSpanProcessor.class, processor);
+            assertTrue(exporter.export(List.of()).isSuccess());
+
+            otherDetachable.shutdown();
+            assertFalse(otherExporter.export(List.of()).isSuccess());
+        } finally {
+            processor.shutdown().join(10, TimeUnit.SECONDS);
+        }
+        // Shut down with the striped processor
+        assertFalse(exporter.export(List.of()).isSuccess());
+    }
+
+    @Test
+    void unrecognizedWaitStrategy() {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        BatchSpanProcessor processor = BatchSpanProcessor.builder(exporter).build();
+        try {
+            ConfigurationException e = assertThrows(ConfigurationException.class,
+                    () -> VertxAutoConfigurationCustomizerProvider.customizeSpanProcessor(processor,
+                            config(Map.of(SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY, "sleep")), List.of()));
+            assertTrue(e.getMessage().contains(SROTEL_SPAN_PROCESSOR_WAIT_STRATEGY));
+        } finally {
+            processor.shutdown().join(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ConfigProperties config(Map<String, String> properties) {
+        Map<String, String> config = new HashMap<>(properties);
+        config.put(SROTEL_SPAN_PROCESSOR, "striped");
+        config.put(SROTEL_METRICS_ENABLED, "false");
+        return DefaultConfigProperties.createFromMap(config);
+    }
+}
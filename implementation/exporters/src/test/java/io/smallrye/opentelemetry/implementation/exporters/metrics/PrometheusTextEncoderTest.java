@@ -0,0 +1,162 @@
+package io.smallrye.opentelemetry.implementation.exporters.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSummaryData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSummaryPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableValueAtQuantile;
+import io.opentelemetry.sdk.resources.Resource;
+
+class PrometheusTextEncoderTest {
+    private static final InstrumentationScopeInfo SCOPE = InstrumentationScopeInfo.create("scope");
+
+    @Test
+    void counterAndTargetInfo() {
+        Resource resource = Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "service"));
+        InstrumentationScopeInfo scope = InstrumentationScopeInfo.builder("scope").setVersion("1.0").build();
+        MetricData counter = ImmutableMetricData.createLongSum(resource, scope, "http.server.requests", "Requests",
+                "{request}", ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, List.of(
+                        ImmutableLongPointData.create(0, 1, Attributes.of(AttributeKey.stringKey("method"), "GET"),
+                                10))));
+
+        assertEquals("# HELP target_info Target metadata\n"
+                + "# TYPE target_info gauge\n"
+                + "target_info{service_name=\"service\"} 1\n"
+                + "# HELP http_server_requests_total Requests\n"
+                + "# TYPE http_server_requests_total counter\n"
+                + "http_server_requests_total{method=\"GET\",otel_scope_name=\"scope\","
+                + "otel_scope_version=\"1.0\"} 10\n",
+                encode(List.of(counter)));
+    }
+
+    @Test
+    void gaugesAndSums() {
+        List<MetricData> metrics = List.of(
+                ImmutableMetricData.createDoubleGauge(Resource.empty(), SCOPE, "cpu.utilization", "", "1",
+                        ImmutableGaugeData.create(List.of(
+                                ImmutableDoublePointData.create(0, 1, Attributes.empty(), 0.5)))),
+                ImmutableMetricData.createLongSum(Resource.empty(), SCOPE, "memory.used", "Used memory", "By",
+                        ImmutableSumData.create(false, AggregationTemporality.CUMULATIVE, List.of(
+                                ImmutableLongPointData.create(0, 1, Attributes.empty(), 1024)))),
+                ImmutableMetricData.createDoubleSum(Resource.empty(), SCOPE, "processing", "", "s",
+                        ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, List.of(
+                                ImmutableDoublePointData.create(0, 1, Attributes.empty(), 1.5)))));
+
+        assertEquals("# TYPE cpu_utilization_ratio gauge\n"
+                + "cpu_utilization_ratio{otel_scope_name=\"scope\"} 0.5\n"
+                + "# HELP memory_used_bytes Used memory\n"
+                + "# TYPE memory_used_bytes gauge\n"
+                + "memory_used_bytes{otel_scope_name=\"scope\"} 1024\n"
+                + "# TYPE processing_seconds_total counter\n"
+                + "processing_seconds_total{otel_scope_name=\"scope\"} 1.5\n",
+                encode(metrics));
+    }
+
+    @Test
+    void histogram() {
+        MetricData histogram = ImmutableMetricData.createDoubleHistogram(Resource.empty(), SCOPE, "http.duration",
+                "Duration", "ms", ImmutableHistogramData.create(AggregationTemporality.CUMULATIVE, List.of(
+                        ImmutableHistogramPointData.create(0, 1, Attributes.empty(), 12.5, false, 0, false, 0,
+                                List.of(1.0, 5.0), List.of(1L, 2L, 3L)))));
+
+        assertEquals("# HELP http_duration_milliseconds Duration\n"
+                + "# TYPE http_duration_milliseconds histogram\n"
+                + "http_duration_milliseconds_bucket{otel_scope_name=\"scope\",le=\"1.0\"} 1\n"
+                + "http_duration_milliseconds_bucket{otel_scope_name=\"scope\",le=\"5.0\"} 3\n"
+                + "http_duration_milliseconds_bucket{otel_scope_name=\"scope\",le=\"+Inf\"} 6\n"
+                + "http_duration_milliseconds_sum{otel_scope_name=\"scope\"} 12.5\n"
+                + "http_duration_milliseconds_count{otel_scope_name=\"scope\"} 6\n",
+                encode(List.of(histogram)));
+    }
+
+    @Test
+    void summary() {
+        MetricData summary = ImmutableMetricData.createDoubleSummary(Resource.empty(), SCOPE, "latency", "", "s",
+                ImmutableSummaryData.create(List.of(
+                        ImmutableSummaryPointData.create(0, 1, Attributes.empty(), 3, 6.0, List.of(
+                                ImmutableValueAtQuantile.create(0.5, 1.0),
+                                ImmutableValueAtQuantile.create(0.99, 2.0))))));
+
+        assertEquals("# TYPE latency_seconds summary\n"
+                + "latency_seconds{otel_scope_name=\"scope\",quantile=\"0.5\"} 1.0\n"
+                + "latency_seconds{otel_scope_name=\"scope\",quantile=\"0.99\"} 2.0\n"
+                + "latency_seconds_sum{otel_scope_name=\"scope\"} 6.0\n"
+                + "latency_seconds_count{otel_scope_name=\"scope\"} 3\n",
+                encode(List.of(summary)));
+    }
+
+    @Test
+    void escaping() {
+        MetricData gauge = ImmutableMetricData.createLongGauge(Resource.empty(), SCOPE, "queue-size",
+                "Line\nwith a \\ backslash", "", ImmutableGaugeData.create(List.of(
+                        ImmutableLongPointData.create(0, 1,
+                                Attributes.of(AttributeKey.stringKey("1st.key"), "say \"hi\""), 7))));
+
+        assertEquals("# HELP queue_size Line\\nwith a \\\\ backslash\n"
+                + "# TYPE queue_size gauge\n"
+                + "queue_size{key_1st_key=\"say \\\"hi\\\"\",otel_scope_name=\"scope\"} 7\n",
+                encode(List.of(gauge)));
+    }
+
+    @Test
+    void groupsTheSamplesOfAMetric() {
+        InstrumentationScopeInfo other = InstrumentationScopeInfo.create("other");
+        List<MetricData> metrics = List.of(
+                counter(SCOPE, "requests", 1),
+                ImmutableMetricData.createExponentialHistogram(Resource.empty(), SCOPE, "exponential", "", "",
+                        ImmutableExponentialHistogramData.create(AggregationTemporality.DELTA, List.of(
+                                ImmutableExponentialHistogramPointData.create(0, 1.0, 0, false, 0, false, 0,
+                                        ImmutableExponentialHistogramBuckets.create(0, 0, List.of(1L)),
+                                        ImmutableExponentialHistogramBuckets.create(0, 0, List.of()),
+                                        0, 1, Attributes.empty(), List.of())))),
+                counter(SCOPE, "errors", 2),
+                counter(other, "requests", 3));
+
+        // The exponential histogram has no text representation
+        assertEquals("# TYPE requests_total counter\n"
+                + "requests_total{otel_scope_name=\"scope\"} 1\n"
+                + "requests_total{otel_scope_name=\"other\"} 3\n"
+                + "# TYPE errors_total counter\n"
+                + "errors_total{otel_scope_name=\"scope\"} 2\n",
+                encode(metrics));
+    }
+
+    private static MetricData counter(InstrumentationScopeInfo scope, String name, long value) {
+        return ImmutableMetricData.createLongSum(Resource.empty(), scope, name, "", "",
+                ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, List.of(
+                        ImmutableLongPointData.create(0, 1, Attributes.empty(), value))));
+    }
+
+    private static String encode(Collection<MetricData> metrics) {
+        ByteBuf out = Unpooled.buffer();
+        try {
+            new PrometheusTextEncoder().encode(metrics, out);
+            return out.toString(StandardCharsets.UTF_8);
+        } finally {
+            out.release();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package io.smallrye.opentelemetry.implementation.exporters.otlp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.exporter.internal.marshal.Marshaler;
+import io.opentelemetry.exporter.internal.otlp.logs.LogsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.metrics.MetricsRequestMarshaler;
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoubleExemplarData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongExemplarData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSummaryData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSummaryPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableValueAtQuantile;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.testing.logs.TestLogRecordData;
+import io.opentelemetry.sdk.testing.trace.TestSpanData;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+/**
+ * The encoders must write the very same bytes as the SDK marshalers.
+ */
+class OtlpEncoderTest {
+    private static final Resource RESOURCE = Resource.create(Attributes.builder()
+            .put("service.name", "service")
+            .put("host.cores", 8L)
+            .build(), "https://opentelemetry.io/schemas/1.24.0");
+    private static final InstrumentationScopeInfo SCOPE = InstrumentationScopeInfo.builder("scope")
+            .setVersion("1.0")
+            .setSchemaUrl("https://opentelemetry.io/schemas/1.24.0")
+            .setAttributes(Attributes.of(AttributeKey.stringKey("library"), "smallrye"))
+            .build();
+    private static final Attributes ATTRIBUTES = Attributes.builder()
+            .put("string", "value")
+            .put("empty", "")
+            .put("boolean", true)
+            .put("long", -42L)
+            .put("double", 0.5)
+            .put(AttributeKey.stringArrayKey("strings"), List.of("a", "b"))
+            .put(AttributeKey.booleanArrayKey("booleans"), List.of(true, false))
+            .put(AttributeKey.longArrayKey("longs"), List.of(1L, Long.MAX_VALUE))
+            .put(AttributeKey.doubleArrayKey("doubles"), List.of(1.5, -2.5))
+            .build();
+    private static final SpanContext SPAN_CONTEXT = SpanContext.create("0123456789abcdef0123456789abcdef",
+            "0123456789abcdef", TraceFlags.getSampled(), TraceState.builder().put("key", "value").build());
+    private static final SpanContext PARENT_SPAN_CONTEXT = SpanContext.createFromRemoteParent(
+            "0123456789abcdef0123456789abcdef", "fedcba9876543210", TraceFlags.getSampled(), TraceState.getDefault());
+
+    @Test
+    void spans() {
+        List<SpanData> spans = List.of(
+                TestSpanData.builder()
+                        .setSpanContext(SPAN_CONTEXT)
+                        .setParentSpanContext(PARENT_SPAN_CONTEXT)
+                        .setResource(RESOURCE)
+                        .setInstrumentationScopeInfo(SCOPE)
+                        .setName("server")
+                        .setKind(SpanKind.SERVER)
+                        .setStartEpochNanos(1_000_000_000L)
+                        .setEndEpochNanos(2_000_000_000L)
+                        .setAttributes(ATTRIBUTES)
+                        .setTotalAttributeCount(ATTRIBUTES.size() + 2)
+                        .setEvents(List.of(
+                                EventData.create(1_500_000_000L, "event", ATTRIBUTES),
+                                EventData.create(1_600_000_000L, "empty", Attributes.empty())))
+                        .setTotalRecordedEvents(5)
+                        .setLinks(List.of(LinkData.create(PARENT_SPAN_CONTEXT, ATTRIBUTES, ATTRIBUTES.size() + 1)))
+                        .setTotalRecordedLinks(3)
+                        .setStatus(StatusData.create(StatusCode.ERROR, "failure"))
+                        .setHasEnded(true)
+                        .build(),
+                TestSpanData.builder()
+                        .setSpanContext(SpanContext.create("0123456789abcdef0123456789abcdef", "1111111111111111",
+                                TraceFlags.getDefault(), TraceState.getDefault()))
+                        .setParentSpanContext(SPAN_CONTEXT)
+                        .setResource(RESOURCE)
+                        .setInstrumentationScopeInfo(SCOPE)
+                        .setName("internal")
+                        .setKind(SpanKind.INTERNAL)
+                        .setStartEpochNanos(1_100_000_000L)
+                        .setEndEpochNanos(1_200_000_000L)
+                        .setStatus(StatusData.unset())
+                        .setHasEnded(true)
+                        .build(),
+                TestSpanData.builder()
+                        .setSpanContext(SpanContext.create("0123456789abcdef0123456789abcdef", "2222222222222222",
+                                TraceFlags.getSampled(), TraceState.getDefault()))
+                        .setParentSpanContext(SPAN_CONTEXT)
+                        .setResource(RESOURCE)
+                        .setInstrumentationScopeInfo(SCOPE)
+                        .setName("client")
+                        .setKind(SpanKind.CLIENT)
+                        .setStartEpochNanos(1_300_000_000L)
+                        .setEndEpochNanos(1_400_000_000L)
+                        .setStatus(StatusData.ok())
+                        .setHasEnded(true)
+                        .build());
+
+        assertEncodedAsTheSdk(new SpanEncoder(new EncodedCache()), spans, TraceRequestMarshaler.create(spans));
+    }
+
+    @Test
+    void logs() {
+        List<LogRecordData> logs = List.of(
+                TestLogRecordData.builder()
+                        .setResource(RESOURCE)
+                        .setInstrumentationScopeInfo(SCOPE)
+                        .setSpanContext(SPAN_CONTEXT)
+                        .setTimestamp(1, TimeUnit.SECONDS)
+                        .setObservedTimestamp(2, TimeUnit.SECONDS)
+                        .setSeverity(Severity.ERROR)
+                        .setSeverityText("ERROR")
+                        .setBody("message")
+                        .setAttributes(ATTRIBUTES)
+                        .setTotalAttributeCount(ATTRIBUTES.size() + 1)
+                        .setEventName("session.start")
+                        .build(),
+                TestLogRecordData.builder()
+                        .setResource(RESOURCE)
+                        .setInstrumentationScopeInfo(SCOPE)
+                        .setObservedTimestamp(3, TimeUnit.SECONDS)
+                        .build());
+
+        assertEncodedAsTheSdk(new LogEncoder(new EncodedCache()), logs, LogsRequestMarshaler.create(logs));
+    }
+
+    @Test
+    void metrics() {
+        Attributes attributes = Attributes.of(AttributeKey.stringKey("method"), "GET");
+        List<MetricData> metrics = List.of(
+                ImmutableMetricData.createLongGauge(RESOURCE, SCOPE, "long.gauge", "A gauge", "1",
+                        ImmutableGaugeData.create(List.of(
+                                ImmutableLongPointData.create(0, 2_000L, attributes, -3L,
+                                        List.of(ImmutableLongExemplarData.create(attributes, 1_500L, SPAN_CONTEXT,
+                                                5L)))))),
+                ImmutableMetricData.createDoubleGauge(RESOURCE, SCOPE, "double.gauge", "", "",
+                        ImmutableGaugeData.create(List.of(
+                                ImmutableDoublePointData.create(0, 2_000L, Attributes.empty(), 0.25)))),
+                ImmutableMetricData.createLongSum(RESOURCE, SCOPE, "long.sum", "A counter", "{request}",
+                        ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, List.of(
+                                ImmutableLongPointData.create(1_000L, 2_000L, attributes, 10L),
+                                ImmutableLongPointData.create(1_000L, 2_000L, Attributes.empty(), 0L)))),
+                ImmutableMetricData.createDoubleSum(RESOURCE, SCOPE, "double.sum", "An up down counter", "s",
+                        ImmutableSumData.create(false, AggregationTemporality.DELTA, List.of(
+                                ImmutableDoublePointData.create(1_000L, 2_000L, attributes, -1.5,
+                                        List.of(ImmutableDoubleExemplarData.create(Attributes.empty(), 1_500L,
+                                                SpanContext.getInvalid(), 2.5)))))),
+                ImmutableMetricData.createDoubleHistogram(RESOURCE, SCOPE, "histogram", "A histogram", "ms",
+                        ImmutableHistogramData.create(AggregationTemporality.CUMULATIVE, List.of(
+                                ImmutableHistogramPointData.create(1_000L, 2_000L, attributes, 12.5, true, 0.5, true,
+                                        10.0, List.of(1.0, 5.0), List.of(1L, 2L, 3L),
+                                        List.of(ImmutableDoubleExemplarData.create(attributes, 1_500L, SPAN_CONTEXT,
+                                                10.0))),
+                                ImmutableHistogramPointData.create(1_000L, 2_000L, Attributes.empty(), 0, false, 0,
+                                        false, 0, List.of(), List.of(0L))))),
+                ImmutableMetricData.createExponentialHistogram(RESOURCE, SCOPE, "exponential", "", "ms",
+                        ImmutableExponentialHistogramData.create(AggregationTemporality.DELTA, List.of(
+                                ImmutableExponentialHistogramPointData.create(2, 20.5, 1, true, 0.0, true, 10.0,
+                                        ImmutableExponentialHistogramBuckets.create(2, 3, List.of(1L, 0L, 2L)),
+                                        ImmutableExponentialHistogramBuckets.create(2, 0, List.of()),
+                                        1_000L, 2_000L, attributes, List.of())))),
+                ImmutableMetricData.createDoubleSummary(RESOURCE, SCOPE, "summary", "A summary", "ms",
+                        ImmutableSummaryData.create(List.of(
+                                ImmutableSummaryPointData.create(1_000L, 2_000L, attributes, 3L, 6.0, List.of(
+                                        ImmutableValueAtQuantile.create(0.0, 1.0),
+                                        ImmutableValueAtQuantile.create(1.0, 3.0)))))));
+
+        assertEncodedAsTheSdk(new MetricEncoder(new EncodedCache()), metrics, MetricsRequestMarshaler.create(metrics));
+    }
+
+    private static <T> void assertEncodedAsTheSdk(OtlpEncoder<T> encoder, Collection<T> items, Marshaler marshaler) {
+        byte[] expected = sdkBytes(marshaler);
+        // Twice, the second time with the resource and scope from the cache, and an encoder once reset
+        for (int i = 0; i < 2; i++) {
+            encoder.initialize(items);
+            assertEquals(expected.length, encoder.getContentLength());
+
+            ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(16);
+            try {
+                // The senders write a frame header before the message
+                buffer.writeByte(0x7f);
+                encoder.writeTo(buffer);
+                assertArrayEquals(expected, ByteBufUtil.getBytes(buffer, 1, buffer.readableBytes() - 1));
+            } finally {
+                buffer.release();
+            }
+            encoder.reset();
+        }
+    }
+
+    private static byte[] sdkBytes(Marshaler marshaler) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            marshaler.writeBinaryTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+}
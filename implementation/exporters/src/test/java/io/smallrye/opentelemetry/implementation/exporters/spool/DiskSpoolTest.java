@@ -0,0 +1,175 @@
+package io.smallrye.opentelemetry.implementation.exporters.spool;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.vertx.core.buffer.Buffer;
+
+class DiskSpoolTest {
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysInOrder() throws IOException {
+        DiskSpool spool = DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE);
+        try {
+            store(spool, "first", Compression.NONE);
+            store(spool, "second", Compression.GZIP);
+            await().until(() -> spool.getPendingRecords() == 2);
+
+            SpooledRecord first = spool.peek();
+            assertEquals("first", text(first));
+            assertEquals(Compression.NONE, first.getCompression());
+            // Until acknowledged
+            assertEquals("first", text(spool.peek()));
+            spool.ack(first);
+
+            SpooledRecord second = spool.peek();
+            assertEquals("second", text(second));
+            assertEquals(Compression.GZIP, second.getCompression());
+            spool.ack(second);
+            spool.ack(second);
+
+            assertNull(spool.peek());
+            assertEquals(0, spool.getPendingRecords());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    void recoversThePendingRecords() throws IOException {
+        DiskSpool spool = DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE);
+        store(spool, "acked", Compression.NONE);
+        store(spool, "pending", Compression.GZIP);
+        await().until(() -> spool.getPendingRecords() == 2);
+        spool.ack(spool.peek());
+        spool.close();
+
+        DiskSpool reopened = reopen();
+        try {
+            assertEquals(1, reopened.getPendingRecords());
+            SpooledRecord record = reopened.peek();
+            assertEquals("pending", text(record));
+            assertEquals(Compression.GZIP, record.getCompression());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void skipsTornAndCorruptRecords() throws IOException {
+        DiskSpool spool = DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE);
+        store(spool, "intact", Compression.NONE);
+        store(spool, "corrupt", Compression.NONE);
+        store(spool, "torn", Compression.NONE);
+        store(spool, "after", Compression.NONE);
+        await().until(() -> spool.getPendingRecords() == 4);
+        spool.close();
+
+        int corrupt = DiskSpool.HEADER_SIZE + "intact".length();
+        int torn = corrupt + DiskSpool.HEADER_SIZE + "corrupt".length();
+        try (FileChannel channel = FileChannel.open(segmentFile(), StandardOpenOption.WRITE)) {
+            // A payload byte that did not reach the disk, then a record whose status byte did not
+            channel.write(ByteBuffer.wrap(new byte[] { 'C' }), corrupt + DiskSpool.HEADER_SIZE);
+            channel.write(ByteBuffer.wrap(new byte[] { 0 }), torn);
+        }
+
+        DiskSpool reopened = reopen();
+        try {
+            assertEquals(1, reopened.getPendingRecords());
+            SpooledRecord record = reopened.peek();
+            assertEquals("intact", text(record));
+            reopened.ack(record);
+            assertNull(reopened.peek());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void evictsTheOldestSegmentWhenFull() throws IOException {
+        // Two segments of one record each
+        DiskSpool spool = DiskSpool.open(directory, 128, 64);
+        try {
+            String payload = "x".repeat(40);
+            store(spool, "1" + payload, Compression.NONE);
+            await().until(() -> spool.getPendingRecords() == 1);
+            store(spool, "2" + payload, Compression.NONE);
+            await().until(() -> spool.getPendingRecords() == 2);
+            store(spool, "3" + payload, Compression.NONE);
+            await().until(() -> spool.getEvictedRecords() == 1);
+
+            assertEquals(2, spool.getPendingRecords());
+            assertEquals("2" + payload, text(spool.peek()));
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    void dropsRecordsLargerThanASegment() throws IOException {
+        DiskSpool spool = DiskSpool.open(directory, 1 << 20, 64);
+        try {
+            store(spool, "x".repeat(64), Compression.NONE);
+            assertEquals(1, spool.getDroppedRecords());
+            assertEquals(0, spool.getPendingRecords());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    void locksTheDirectory() throws IOException {
+        DiskSpool spool = DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE);
+        try {
+            assertThrows(IOException.class, () -> DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE));
+        } finally {
+            spool.close();
+        }
+    }
+
+    private static void store(DiskSpool spool, String payload, Compression compression) {
+        spool.store(Buffer.buffer(payload.getBytes(StandardCharsets.UTF_8)), compression);
+    }
+
+    private static String text(SpooledRecord record) {
+        return new String(record.getPayload().getBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The directory is unlocked by the writer thread once the segments are forced.
+     */
+    private DiskSpool reopen() {
+        AtomicReference<DiskSpool> reopened = new AtomicReference<>();
+        await().ignoreExceptions().until(() -> {
+            reopened.set(DiskSpool.open(directory, 1 << 20, SEGMENT_SIZE));
+            return true;
+        });
+        return reopened.get();
+    }
+
+    private Path segmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".spool")).findFirst().orElseThrow();
+        }
+    }
+}
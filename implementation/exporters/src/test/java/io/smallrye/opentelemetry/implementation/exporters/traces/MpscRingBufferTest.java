@@ -0,0 +1,125 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MpscRingBufferTest {
+
+    @Test
+    void capacity() {
+        assertEquals(1, new MpscRingBuffer<>(0).capacity());
+        assertEquals(1, new MpscRingBuffer<>(1).capacity());
+        assertEquals(4, new MpscRingBuffer<>(3).capacity());
+        assertEquals(4, new MpscRingBuffer<>(4).capacity());
+        assertEquals(8, new MpscRingBuffer<>(5).capacity());
+    }
+
+    @Test
+    void firstInFirstOut() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        // The freed slot is used again
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void wrapsAround() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.offer(i));
+            assertTrue(buffer.offer(-i));
+            assertEquals(i, buffer.poll());
+            assertEquals(-i, buffer.poll());
+        }
+    }
+
+    @Test
+    void close() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        assertTrue(buffer.offer(0));
+        assertTrue(buffer.offer(1));
+        assertFalse(buffer.isDrained());
+
+        buffer.close();
+        assertTrue(buffer.isClosed());
+        assertFalse(buffer.offer(2));
+        assertEquals(2, buffer.size());
+        assertFalse(buffer.isDrained());
+
+        // The elements offered before are still polled
+        assertEquals(0, buffer.poll());
+        assertEquals(1, buffer.poll());
+        assertNull(buffer.poll());
+        assertTrue(buffer.isDrained());
+    }
+
+    @Test
+    void concurrentProducers() throws Exception {
+        int producers = 4;
+        int elements = 100_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < elements; i++) {
+                        long[] element = { producer, i };
+                        while (!buffer.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // Every element is received once, in the order of its producer
+            long[] next = new long[producers];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int received = 0; received < producers * elements;) {
+                long[] element = buffer.poll();
+                if (element == null) {
+                    assertTrue(System.nanoTime() < deadline, "Only received " + received + " elements");
+                    Thread.yield();
+                    continue;
+                }
+                assertEquals(next[(int) element[0]]++, element[1]);
+                received++;
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertNull(buffer.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+
+class SheddingPolicyTest {
+    private static final long START = TimeUnit.SECONDS.toNanos(1);
+    private static final long TEN_MILLIS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder().build();
+    private final Tracer tracer = tracerProvider.get("test");
+    private final SheddingPolicy policy = SheddingPolicy.builder().build();
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void high() {
+        Span parent = tracer.spanBuilder("parent").startSpan();
+        Context local = Context.root().with(parent);
+        Context remote = Context.root().with(Span.wrap(SpanContext.createFromRemoteParent(
+                "0123456789abcdef0123456789abcdef", "0123456789abcdef", TraceFlags.getSampled(),
+                TraceState.getDefault())));
+
+        // Slow
+        assertEquals(SheddingPolicy.Priority.HIGH,
+                classify(tracer.spanBuilder("slow").setParent(local), TimeUnit.SECONDS.toNanos(2)));
+        // Entry points
+        assertEquals(SheddingPolicy.Priority.HIGH,
+                classify(tracer.spanBuilder("root").setSpanKind(SpanKind.SERVER).setNoParent(), TEN_MILLIS));
+        assertEquals(SheddingPolicy.Priority.HIGH,
+                classify(tracer.spanBuilder("entry").setSpanKind(SpanKind.SERVER).setParent(remote), TEN_MILLIS));
+        // Error, even when internal and short
+        Span error = tracer.spanBuilder("error").setParent(local).setStartTimestamp(START, TimeUnit.NANOSECONDS)
+                .startSpan()
+                .setStatus(StatusCode.ERROR);
+        error.end(START, TimeUnit.NANOSECONDS);
+        assertEquals(SheddingPolicy.Priority.HIGH, policy.classify((ReadableSpan) error));
+    }
+
+    @Test
+    void normal() {
+        Context local = Context.root().with(tracer.spanBuilder("parent").startSpan());
+
+        assertEquals(SheddingPolicy.Priority.NORMAL,
+                classify(tracer.spanBuilder("client").setSpanKind(SpanKind.CLIENT).setParent(local), TEN_MILLIS));
+        assertEquals(SheddingPolicy.Priority.NORMAL,
+                classify(tracer.spanBuilder("server").setSpanKind(SpanKind.SERVER).setParent(local), TEN_MILLIS));
+    }
+
+    @Test
+    void low() {
+        Context local = Context.root().with(tracer.spanBuilder("parent").startSpan());
+
+        assertEquals(SheddingPolicy.Priority.LOW,
+                classify(tracer.spanBuilder("internal").setSpanKind(SpanKind.INTERNAL).setParent(local), TEN_MILLIS));
+        assertEquals(SheddingPolicy.Priority.LOW,
+                classify(tracer.spanBuilder("short").setSpanKind(SpanKind.CLIENT).setParent(local), 0));
+        assertEquals(SheddingPolicy.Priority.LOW,
+                classify(tracer.spanBuilder("unwanted")
+                        .setSpanKind(SpanKind.CLIENT)
+                        .setParent(local)
+                        .setAttribute(SheddingPolicy.SAMPLING_PRIORITY, 0L), TEN_MILLIS));
+    }
+
+    @Test
+    void limits() {
+        assertArrayEquals(new int[] { 50, 80, Integer.MAX_VALUE }, policy.limits(100));
+        // Never shed before a span is queued
+        assertArrayEquals(new int[] { 1, 1, Integer.MAX_VALUE }, policy.limits(1));
+        assertArrayEquals(new int[] { 25, 75, Integer.MAX_VALUE }, SheddingPolicy.builder()
+                .setLowWatermark(0.25)
+                .setNormalWatermark(0.75)
+                .build()
+                .limits(100));
+    }
+
+    @Test
+    void invalidWatermarks() {
+        assertThrows(IllegalArgumentException.class, () -> SheddingPolicy.builder().setLowWatermark(0).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SheddingPolicy.builder().setLowWatermark(0.9).setNormalWatermark(0.5).build());
+        assertThrows(IllegalArgumentException.class, () -> SheddingPolicy.builder().setNormalWatermark(1.5).build());
+    }
+
+    private SheddingPolicy.Priority classify(SpanBuilder builder, long latencyNanos) {
+        Span span = builder.setStartTimestamp(START, TimeUnit.NANOSECONDS).startSpan();
+        span.end(START + latencyNanos, TimeUnit.NANOSECONDS);
+        return policy.classify((ReadableSpan) span);
+    }
+}
@@ -0,0 +1,231 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+class StripedSpanProcessorTest {
+    private final TestExporter exporter = new TestExporter();
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void tearDown() {
+        exporter.release();
+        if (tracerProvider != null) {
+            tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void exportsOnFlush() {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setScheduleDelay(Duration.ofHours(1))
+                .build();
+        Tracer tracer = tracer(processor);
+        for (int i = 0; i < 10; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(10, exporter.exported.size());
+        assertEquals(0, processor.getQueueSize());
+    }
+
+    @Test
+    void exportsFullBatches() {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setStripes(1)
+                .setMaxExportBatchSize(4)
+                .setScheduleDelay(Duration.ofHours(1))
+                .build();
+        Tracer tracer = tracer(processor);
+        for (int i = 0; i < 8; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> exporter.exported.size() == 8);
+        assertTrue(exporter.batchSizes.stream().allMatch(size -> size <= 4));
+    }
+
+    @Test
+    void exportsAfterTheScheduleDelay() {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setScheduleDelay(Duration.ofMillis(50))
+                .build();
+        tracer(processor).spanBuilder("span").startSpan().end();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> exporter.exported.size() == 1);
+    }
+
+    @Test
+    void dropsTheSpansOfAFullStripe() throws Exception {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setStripes(1)
+                .setMaxQueueSize(4)
+                .setMaxExportBatchSize(1)
+                .setScheduleDelay(Duration.ofHours(1))
+                .build();
+        Tracer tracer = tracer(processor);
+        exporter.block();
+        tracer.spanBuilder("span").startSpan().end();
+        assertTrue(exporter.exporting.await(10, TimeUnit.SECONDS));
+
+        // The drainer is stuck in the export, nothing empties the stripe
+        for (int i = 0; i < 5; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+        assertEquals(4, processor.getQueueSize());
+        assertEquals(1, processor.getDropped(StripedSpanProcessor.DropReason.QUEUE_FULL));
+
+        exporter.release();
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(5, exporter.exported.size());
+    }
+
+    @Test
+    void shedsTheSpansOfLowValueFirst() throws Exception {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setStripes(1)
+                .setMaxQueueSize(8)
+                .setMaxExportBatchSize(1)
+                .setScheduleDelay(Duration.ofHours(1))
+                .setSheddingPolicy(SheddingPolicy.builder()
+                        .setMinDuration(Duration.ZERO)
+                        .setLowWatermark(0.5)
+                        .setNormalWatermark(0.75)
+                        .build())
+                .build();
+        Tracer tracer = tracer(processor);
+        exporter.block();
+        tracer.spanBuilder("span").startSpan().end();
+        assertTrue(exporter.exporting.await(10, TimeUnit.SECONDS));
+
+        // Queued below 4 spans
+        for (int i = 0; i < 6; i++) {
+            tracer.spanBuilder("internal").setSpanKind(SpanKind.INTERNAL).startSpan().end();
+        }
+        // Queued below 6 spans
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("client").setSpanKind(SpanKind.CLIENT).startSpan().end();
+        }
+        // Queued until the stripe is full
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("server").setSpanKind(SpanKind.SERVER).startSpan().end();
+        }
+
+        assertEquals(8, processor.getQueueSize());
+        assertEquals(2, processor.getShed(SheddingPolicy.Priority.LOW));
+        assertEquals(1, processor.getShed(SheddingPolicy.Priority.NORMAL));
+        assertEquals(1, processor.getShed(SheddingPolicy.Priority.HIGH));
+        assertEquals(4, processor.getDropped(StripedSpanProcessor.DropReason.QUEUE_FULL));
+
+        exporter.release();
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(9, exporter.exported.size());
+    }
+
+    @Test
+    void countsTheFailedExports() {
+        exporter.fail.set(true);
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setScheduleDelay(Duration.ofHours(1))
+                .build();
+        Tracer tracer = tracer(processor);
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        assertFalse(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(3, processor.getDropped(StripedSpanProcessor.DropReason.EXPORT_FAILED));
+    }
+
+    @Test
+    void shutdownExportsTheQueuedSpans() {
+        StripedSpanProcessor processor = StripedSpanProcessor.builder(exporter)
+                .setScheduleDelay(Duration.ofHours(1))
+                .build();
+        Tracer tracer = tracer(processor);
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        assertTrue(processor.shutdown().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(3, exporter.exported.size());
+        assertTrue(exporter.shutdown.get());
+
+        tracer.spanBuilder("span").startSpan().end();
+        assertEquals(1, processor.getDropped(StripedSpanProcessor.DropReason.SHUTDOWN));
+        assertEquals(3, exporter.exported.size());
+    }
+
+    private Tracer tracer(SpanProcessor processor) {
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        return tracerProvider.get("test");
+    }
+
+    static final class TestExporter implements SpanExporter {
+        final List<SpanData> exported = new CopyOnWriteArrayList<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicBoolean fail = new AtomicBoolean();
+        final AtomicBoolean shutdown = new AtomicBoolean();
+        final CountDownLatch exporting = new CountDownLatch(1);
+        private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+        void block() {
+            blocked = new CountDownLatch(1);
+        }
+
+        void release() {
+            blocked.countDown();
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            exporting.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableResultCode.ofFailure();
+            }
+            if (fail.get()) {
+                return CompletableResultCode.ofFailure();
+            }
+            exported.addAll(new ArrayList<>(spans));
+            batchSizes.add(spans.size());
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            shutdown.set(true);
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
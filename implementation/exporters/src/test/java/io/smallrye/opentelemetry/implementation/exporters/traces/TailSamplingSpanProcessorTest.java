@@ -0,0 +1,168 @@
+package io.smallrye.opentelemetry.implementation.exporters.traces;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+class TailSamplingSpanProcessorTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider tracerProvider;
+    private TailSamplingSpanProcessor processor;
+    private Tracer tracer;
+
+    @AfterEach
+    void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void keepsTheTracesWithAnError() {
+        setUp(builder -> builder.setRatio(0));
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root).setStatus(StatusCode.ERROR).end();
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+        root.end();
+
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.ERROR));
+    }
+
+    @Test
+    void keepsTheSlowTraces() {
+        setUp(builder -> builder.setRatio(0).setLatencyThreshold(Duration.ofMillis(10)));
+        Span root = tracer.spanBuilder("root").setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+        child(root).end();
+        root.end(2, TimeUnit.SECONDS);
+
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.LATENCY));
+    }
+
+    @Test
+    void latencyThresholdOfTheRoute() {
+        setUp(builder -> builder.setRatio(0)
+                .setLatencyThreshold(Duration.ofMillis(10))
+                .setRouteLatencyThresholds(Map.of("/export", Duration.ofSeconds(10))));
+        tracer.spanBuilder("root")
+                .setAttribute(TailSamplingSpanProcessor.HTTP_ROUTE, "/export")
+                .setStartTimestamp(1, TimeUnit.SECONDS)
+                .startSpan()
+                .end(2, TimeUnit.SECONDS);
+
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.DROPPED));
+    }
+
+    @Test
+    void dropsTheOtherTraces() {
+        setUp(builder -> builder.setRatio(0));
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root).end();
+        root.end();
+        // Follows the decision
+        child(root).end();
+
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.DROPPED));
+    }
+
+    @Test
+    void keepsTheTracesWithinTheRatio() {
+        setUp(builder -> builder.setRatio(1));
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root).end();
+        root.end();
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+
+        // Follows the decision
+        child(root).end();
+        assertEquals(3, exporter.getFinishedSpanItems().size());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.RATIO));
+    }
+
+    @Test
+    void evictsTheOldestTraces() {
+        setUp(builder -> builder.setRatio(0).setShards(1).setMaxTraces(2));
+        Span first = tracer.spanBuilder("first").startSpan();
+        child(first).setStatus(StatusCode.ERROR).end();
+        Span second = tracer.spanBuilder("second").startSpan();
+        child(second).end();
+        Span third = tracer.spanBuilder("third").startSpan();
+        child(third).end();
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.EVICTED_KEPT));
+        assertEquals(1, exporter.getFinishedSpanItems().size());
+
+        Span fourth = tracer.spanBuilder("fourth").startSpan();
+        child(fourth).end();
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.EVICTED_DROPPED));
+
+        // The root span follows the decision taken without it
+        first.end();
+        second.end();
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+        assertEquals(0, processor.getDecisions(TailSamplingSpanProcessor.Decision.ERROR));
+    }
+
+    @Test
+    void evictsTheTracesWaitingForTooLong() {
+        setUp(builder -> builder.setRatio(1).setDecisionWait(Duration.ZERO));
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root).end();
+
+        assertEquals(1, exporter.getFinishedSpanItems().size());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.RATIO));
+    }
+
+    @Test
+    void limitsTheSpansOfATrace() {
+        setUp(builder -> builder.setRatio(1).setMaxSpansPerTrace(2));
+        Span root = tracer.spanBuilder("root").startSpan();
+        for (int i = 0; i < 3; i++) {
+            child(root).end();
+        }
+        root.end();
+
+        // The root span is always kept
+        assertEquals(3, exporter.getFinishedSpanItems().size());
+        assertEquals(1, processor.getDroppedSpans());
+    }
+
+    @Test
+    void shutdownDecidesTheBufferedTraces() {
+        setUp(builder -> builder.setRatio(1));
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root).end();
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+
+        assertTrue(processor.shutdown().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, processor.getDecisions(TailSamplingSpanProcessor.Decision.RATIO));
+    }
+
+    private void setUp(UnaryOperator<TailSamplingSpanProcessor.Builder> configuration) {
+        processor = configuration.apply(TailSamplingSpanProcessor.builder(SimpleSpanProcessor.create(exporter)))
+                .build();
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        tracer = tracerProvider.get("test");
+    }
+
+    private Span child(Span parent) {
+        return tracer.spanBuilder("child").setParent(Context.current().with(parent)).startSpan();
+    }
+}
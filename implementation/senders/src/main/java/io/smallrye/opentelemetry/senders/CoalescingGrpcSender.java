@@ -0,0 +1,62 @@
+package io.smallrye.opentelemetry.senders;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.GrpcResponse;
+import io.opentelemetry.sdk.common.export.GrpcSender;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.smallrye.opentelemetry.senders.common.Coalescer;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
+import io.vertx.core.Vertx;
+
+/**
+ * Holds small consecutive exports for up to a linger time, or until they reach a size, and sends them to the delegate
+ * sender as a single request, which each of them completes with.
+ */
+public final class CoalescingGrpcSender implements GrpcSender, FlushableSender {
+
+    private final GrpcSender sender;
+    private final Coalescer<GrpcResponse> coalescer;
+    private final Runnable shutdownHook;
+
+    /**
+     * @param linger how long the first export of a request waits for others
+     * @param maxBytes the serialized size from which the request is sent without waiting
+     * @param shutdownHook called once the delegate sender is shut down, may be {@code null}
+     */
+    public CoalescingGrpcSender(GrpcSender sender, Vertx vertx, Duration linger, int maxBytes, Runnable shutdownHook) {
+        this.sender = sender;
+        this.coalescer = new Coalescer<>(vertx, linger, maxBytes, sender::send);
+        this.shutdownHook = shutdownHook;
+    }
+
+    @Override
+    public void send(MessageWriter messageWriter,
+            Consumer<GrpcResponse> onResponse,
+            Consumer<Throwable> onError) {
+        coalescer.send(messageWriter, onResponse, onError);
+    }
+
+    public GrpcSender getSender() {
+        return sender;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        coalescer.flush();
+        return sender instanceof FlushableSender ? ((FlushableSender) sender).flush()
+                : CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        coalescer.close();
+        CompletableResultCode result = sender.shutdown();
+        if (shutdownHook != null) {
+            result.whenComplete(shutdownHook);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package io.smallrye.opentelemetry.senders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.GrpcResponse;
+import io.opentelemetry.sdk.common.export.GrpcSender;
+import io.opentelemetry.sdk.common.export.GrpcStatusCode;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.smallrye.opentelemetry.senders.common.FanOut;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
+import io.smallrye.opentelemetry.senders.common.SharedPayload;
+
+/**
+ * Sends every export to several destinations, each through its own sender with its own retries and concurrency
+ * limit. The export is serialized and compressed once, and the destinations send the same pooled bytes.
+ */
+public final class FanOutGrpcSender implements GrpcSender, FlushableSender {
+
+    private final List<GrpcSender> senders;
+    private final FanOut.Policy policy;
+
+    public FanOutGrpcSender(List<GrpcSender> senders, FanOut.Policy policy) {
+        this.senders = List.copyOf(senders);
+        this.policy = policy;
+    }
+
+    @Override
+    public void send(MessageWriter messageWriter,
+            Consumer<GrpcResponse> onResponse,
+            Consumer<Throwable> onError) {
+        SharedPayload payload = new SharedPayload(messageWriter);
+        FanOut<GrpcResponse> fanOut = new FanOut<>(senders.size(), policy, FanOutGrpcSender::isSuccess,
+                onResponse, onError, payload::release);
+        for (GrpcSender sender : senders) {
+            sender.send(payload, fanOut::onResponse, fanOut::onError);
+        }
+    }
+
+    public List<GrpcSender> getSenders() {
+        return senders;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        List<CompletableResultCode> results = new ArrayList<>(senders.size());
+        for (GrpcSender sender : senders) {
+            if (sender instanceof FlushableSender) {
+                results.add(((FlushableSender) sender).flush());
+            }
+        }
+        return CompletableResultCode.ofAll(results);
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        List<CompletableResultCode> results = new ArrayList<>(senders.size());
+        for (GrpcSender sender : senders) {
+            results.add(sender.shutdown());
+        }
+        return CompletableResultCode.ofAll(results);
+    }
+
+    private static boolean isSuccess(GrpcResponse response) {
+        return response.getStatusCode() == GrpcStatusCode.OK;
+    }
+}
@@ -0,0 +1,68 @@
+package io.smallrye.opentelemetry.senders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.HttpResponse;
+import io.opentelemetry.sdk.common.export.HttpSender;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.smallrye.opentelemetry.senders.common.FanOut;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
+import io.smallrye.opentelemetry.senders.common.SharedPayload;
+
+/**
+ * Sends every export to several destinations, each through its own sender with its own retries and concurrency
+ * limit. The export is serialized and compressed once, and the destinations send the same pooled bytes.
+ */
+public final class FanOutHttpSender implements HttpSender, FlushableSender {
+
+    private final List<HttpSender> senders;
+    private final FanOut.Policy policy;
+
+    public FanOutHttpSender(List<HttpSender> senders, FanOut.Policy policy) {
+        this.senders = List.copyOf(senders);
+        this.policy = policy;
+    }
+
+    @Override
+    public void send(MessageWriter requestBodyWriter,
+            Consumer<HttpResponse> onHttpResponseRead,
+            Consumer<Throwable> onError) {
+        SharedPayload payload = new SharedPayload(requestBodyWriter);
+        FanOut<HttpResponse> fanOut = new FanOut<>(senders.size(), policy, FanOutHttpSender::isSuccess,
+                onHttpResponseRead, onError, payload::release);
+        for (HttpSender sender : senders) {
+            sender.send(payload, fanOut::onResponse, fanOut::onError);
+        }
+    }
+
+    public List<HttpSender> getSenders() {
+        return senders;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        List<CompletableResultCode> results = new ArrayList<>(senders.size());
+        for (HttpSender sender : senders) {
+            if (sender instanceof FlushableSender) {
+                results.add(((FlushableSender) sender).flush());
+            }
+        }
+        return CompletableResultCode.ofAll(results);
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        List<CompletableResultCode> results = new ArrayList<>(senders.size());
+        for (HttpSender sender : senders) {
+            results.add(sender.shutdown());
+        }
+        return CompletableResultCode.ofAll(results);
+    }
+
+    private static boolean isSuccess(HttpResponse response) {
+        return response.getStatusCode() >= 200 && response.getStatusCode() < 300;
+    }
+}
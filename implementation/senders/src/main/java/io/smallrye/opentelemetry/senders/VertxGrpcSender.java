@@ -1,6 +1,7 @@
 package io.smallrye.opentelemetry.senders;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.io.IOException;
 import java.net.URI;
@@ -9,16 +10,15 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.CompletionStage;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.GrpcResponse;
 import io.opentelemetry.sdk.common.export.GrpcSender;
@@ -26,13 +26,32 @@ import io.opentelemetry.sdk.common.export.GrpcStatusCode;
 import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.common.internal.ThrottlingLogger;
 import io.smallrye.common.annotation.SuppressForbidden;
-import io.smallrye.mutiny.Uni;
-import io.smallrye.opentelemetry.senders.common.BufferOutputStream;
+import io.smallrye.opentelemetry.senders.common.CircuitBreaker;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.CompressionCodec;
+import io.smallrye.opentelemetry.senders.common.ConcurrencyLimiter;
+import io.smallrye.opentelemetry.senders.common.ConnectionKeeper;
+import io.smallrye.opentelemetry.senders.common.EndpointGroup;
+import io.smallrye.opentelemetry.senders.common.ExportSpool;
+import io.smallrye.opentelemetry.senders.common.ExporterMetrics;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
+import io.smallrye.opentelemetry.senders.common.Hedger;
+import io.smallrye.opentelemetry.senders.common.InFlightExports;
 import io.smallrye.opentelemetry.senders.common.OTelExporterUtil;
+import io.smallrye.opentelemetry.senders.common.PayloadEncoder;
+import io.smallrye.opentelemetry.senders.common.PooledBuffer;
+import io.smallrye.opentelemetry.senders.common.ReplayableSender;
+import io.smallrye.opentelemetry.senders.common.RetryHints;
+import io.smallrye.opentelemetry.senders.common.RetryPolicy;
+import io.smallrye.opentelemetry.senders.common.SenderOptions;
+import io.smallrye.opentelemetry.senders.common.SharedGrpcClients;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.net.SocketAddress;
@@ -41,10 +60,11 @@ import io.vertx.grpc.client.GrpcClient;
 import io.vertx.grpc.client.GrpcClientRequest;
 import io.vertx.grpc.client.GrpcClientResponse;
 import io.vertx.grpc.common.GrpcError;
+import io.vertx.grpc.common.GrpcMessage;
 import io.vertx.grpc.common.GrpcStatus;
 import io.vertx.grpc.common.ServiceName;
 
-public final class VertxGrpcSender implements GrpcSender {
+public final class VertxGrpcSender implements GrpcSender, ReplayableSender, FlushableSender {
 
     public static final String GRPC_TRACE_SERVICE_NAME = "opentelemetry.proto.collector.trace.v1.TraceService";
     public static final String GRPC_METRIC_SERVICE_NAME = "opentelemetry.proto.collector.metrics.v1.MetricsService";
@@ -53,9 +73,9 @@ public final class VertxGrpcSender implements GrpcSender {
 
     private static final String GRPC_STATUS = "grpc-status";
     private static final String GRPC_MESSAGE = "grpc-message";
+    private static final String GRPC_STATUS_DETAILS = "grpc-status-details-bin";
 
     private static final Logger internalLogger = Logger.getLogger(VertxGrpcSender.class.getName());
-    private static final int MAX_ATTEMPTS = 3;
     private static final SecurityManager SECURITY_MANAGER = System.getSecurityManager();
 
     private final ThrottlingLogger logger = new ThrottlingLogger(internalLogger);
@@ -63,13 +83,35 @@ public final class VertxGrpcSender implements GrpcSender {
     private final AtomicBoolean loggedUnimplemented = new AtomicBoolean();
     private final AtomicBoolean isShutdown = new AtomicBoolean();
     private final CompletableResultCode shutdownResult = new CompletableResultCode();
+    private final InFlightExports inFlightExports = new InFlightExports();
+    private final Duration drainTimeout;
+    // Set once the exports are drained, or abandoned, and the client is closing
+    private volatile boolean closed;
     private final SocketAddress server;
-    private final boolean compressionEnabled;
+    private final EndpointGroup endpointGroup;
+    private final CompressionCodec codec;
+    private final WorkerExecutor compressionWorkers;
+    private final int compressionOffloadThreshold;
     private final Map<String, String> headers;
-    private final String grpcEndpointPath;
+    private final ServiceName serviceName;
     private final Duration exportTimeout;
+    private final RetryPolicy retryPolicy;
+    private final long maxServerDelayNanos;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Hedger hedger;
+    private final CircuitBreaker circuitBreaker;
+    private final ExporterMetrics exporterMetrics;
+    // The attributes of the failed attempts, by status
+    private final Attributes[] statusAttributes;
+    private final Attributes transportErrorAttributes;
+    private final ExportSpool spool;
+    private final Runnable shutdownHook;
 
+    private final Vertx vertx;
+    private final SharedGrpcClients.Lease clientLease;
     private final GrpcClient client;
+    private final AtomicInteger activeStreams;
+    private final ConnectionKeeper connectionKeeper;
 
     public VertxGrpcSender(
             URI grpcBaseUri,
@@ -79,42 +121,188 @@ public final class VertxGrpcSender implements GrpcSender {
             Map<String, String> headersMap,
             Consumer<HttpClientOptions> clientOptionsCustomizer,
             Vertx vertx) {
-        this.grpcEndpointPath = grpcEndpointPath;
-        this.server = SocketAddress.inetSocketAddress(OTelExporterUtil.getPort(grpcBaseUri), grpcBaseUri.getHost());
-        this.compressionEnabled = compressionEnabled;
+        this(grpcBaseUri, grpcEndpointPath, compressionEnabled, timeout, headersMap, clientOptionsCustomizer, vertx,
+                new SenderOptions());
+    }
+
+    public VertxGrpcSender(
+            URI grpcBaseUri,
+            String grpcEndpointPath,
+            boolean compressionEnabled,
+            Duration timeout,
+            Map<String, String> headersMap,
+            Consumer<HttpClientOptions> clientOptionsCustomizer,
+            Vertx vertx,
+            SenderOptions senderOptions) {
+        this.serviceName = ServiceName.create(grpcEndpointPath);
+        this.server = OTelExporterUtil.getServerAddress(grpcBaseUri);
+        this.codec = compressionEnabled ? senderOptions.getCompressionCodec() : null;
         this.headers = headersMap;
         this.exportTimeout = timeout;
+        this.retryPolicy = senderOptions.getRetryPolicy();
+        // A server asking for a longer delay is not waited for, the export fails instead of holding the queue
+        this.maxServerDelayNanos = Math.max(retryPolicy.getMaxBackoff().toNanos(), timeout.toNanos());
+        this.concurrencyLimiter = senderOptions.createConcurrencyLimiter(this::startQueued);
+        this.hedger = senderOptions.createHedger();
+        this.circuitBreaker = senderOptions.createCircuitBreaker(grpcEndpointPath);
+        this.exporterMetrics = new ExporterMetrics(senderOptions.getMeterProvider(), "grpc", grpcEndpointPath);
+        this.statusAttributes = new Attributes[GrpcStatus.values().length];
+        for (GrpcStatus status : GrpcStatus.values()) {
+            statusAttributes[status.ordinal()] = exporterMetrics.statusAttributes(status.name());
+        }
+        this.transportErrorAttributes = exporterMetrics.statusAttributes("TRANSPORT_ERROR");
+        this.spool = senderOptions.getSpool();
+        this.endpointGroup = senderOptions.getEndpointGroup() != null ? senderOptions.getEndpointGroup()
+                : EndpointGroup.single(server);
+        this.shutdownHook = senderOptions.getShutdownHook();
+        this.drainTimeout = senderOptions.getDrainTimeout();
+        this.vertx = vertx;
+        this.compressionWorkers = codec != null ? senderOptions.createCompressionWorkers(vertx) : null;
+        this.compressionOffloadThreshold = senderOptions.getCompressionOffloadThreshold();
         var httpClientOptions = new HttpClientOptions()
                 .setHttp2ClearTextUpgrade(false) // needed otherwise connections get closed immediately
+                // Pinged connections are kept open while idle, instead of expiring and being replaced
+                .setHttp2KeepAliveTimeout(senderOptions.getKeepAliveInterval() != null ? 0
+                        : HttpClientOptions.DEFAULT_HTTP2_KEEP_ALIVE_TIMEOUT)
                 .setReadIdleTimeout((int) timeout.getSeconds())
                 .setTracingPolicy(TracingPolicy.IGNORE); // needed to avoid tracing the calls from this gRPC client
         clientOptionsCustomizer.accept(httpClientOptions);
         // FIXME No way to set the connection exception handler for the gRPC client, at the moment.
-        this.client = GrpcClient.client(vertx, httpClientOptions);
+        this.clientLease = senderOptions.isShareGrpcClient()
+                ? SharedGrpcClients.acquire(vertx, server, httpClientOptions)
+                : SharedGrpcClients.unshared(vertx, server, httpClientOptions);
+        this.client = clientLease.client();
+        this.activeStreams = clientLease.streamCounter(grpcEndpointPath);
+        // Closed with the lease, as the other senders of a shared client use the same keeper
+        this.connectionKeeper = clientLease.connectionKeeper(senderOptions);
     }
 
     @Override
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
     public void send(MessageWriter messageWriter,
             Consumer<GrpcResponse> onResponse,
             Consumer<Throwable> onError) {
         if (isShutdown.get()) {
+            // Callers such as the fan-out senders wait for every export to complete
+            onError.accept(new IllegalStateException("Sender is shut down"));
+            return;
+        }
+        exporterMetrics.start(circuitBreaker, concurrencyLimiter);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            // Nothing is sent nor logged while the collector is known to be down, the payload is only kept for later
+            spoolShortCircuited(messageWriter);
+            onError.accept(circuitBreaker.getOpenException());
             return;
         }
 
-        final String marshalerType = messageWriter.getClass().getSimpleName();
-        var onSuccessHandler = new ClientRequestOnSuccessHandler(client, server, headers, compressionEnabled,
-                messageWriter,
-                loggedUnimplemented, logger, marshalerType, onResponse, onError, 1, grpcEndpointPath,
-                isShutdown::get, exportTimeout);
+        CompletableResultCode inFlight = inFlightExports.begin();
+        GrpcExport export = new GrpcExport(messageWriter, inFlightExports.endWith(inFlight, onResponse),
+                inFlightExports.endWith(inFlight, onError));
+        try {
+            concurrencyLimiter.execute(export);
+        } catch (RejectedExecutionException e) {
+            export.reportIgnored();
+            logger.log(Level.WARNING, "Failed to export " + export.type + "s. " + e.getMessage());
+            export.onError.accept(e);
+        }
+    }
+
+    /**
+     * Starts an export that waited for a slot of the concurrency limit. The slot is usually released on the event loop
+     * that completed another export, which must not be stalled serializing and compressing the next payload.
+     */
+    private void startQueued(Runnable export) {
+        if (!Context.isOnEventLoopThread()) {
+            export.run();
+            return;
+        }
+        vertx.executeBlocking(() -> {
+            export.run();
+            return null;
+        }, false);
+    }
 
-        initiateSend(client, server, MAX_ATTEMPTS, onSuccessHandler, exportTimeout, new Consumer<>() {
-            @Override
-            public void accept(Throwable throwable) {
-                failOnClientRequest(marshalerType, throwable, onError);
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+    private void spoolShortCircuited(MessageWriter messageWriter) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            PooledBuffer payload = PayloadEncoder.encode(messageWriter, codec);
+            try {
+                spool.store(payload.buffer(), codec != null ? codec.compression() : Compression.NONE);
+            } finally {
+                payload.release();
             }
-        });
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to spool the short-circuited export", e);
+        }
     }
 
+    @Override
+    public void replay(Buffer payload, Compression compression, Handler<AsyncResult<Void>> resultHandler) {
+        if (isShutdown.get()) {
+            resultHandler.handle(Future.failedFuture(new IllegalStateException("Sender is shut down")));
+            return;
+        }
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            resultHandler.handle(Future.failedFuture(circuitBreaker.getOpenException()));
+            return;
+        }
+        GrpcExport export = new GrpcExport(payload, compression, resultHandler);
+        try {
+            concurrencyLimiter.execute(export);
+        } catch (RejectedExecutionException e) {
+            export.reportIgnored();
+            resultHandler.handle(Future.failedFuture(e));
+        }
+    }
+
+    /**
+     * @return the number of streams this sender has open, which may share their connection with other senders
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    public SharedGrpcClients.Lease getClientLease() {
+        return clientLease;
+    }
+
+    /**
+     * @return the hedger of this sender, or {@code null} if hedging is disabled
+     */
+    public Hedger getHedger() {
+        return hedger;
+    }
+
+    /**
+     * @return the circuit breaker of this sender, or {@code null} if it is disabled
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @return the number of exports accepted and not completed yet, retries included
+     */
+    public int getInFlightExports() {
+        return inFlightExports.size();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return inFlightExports.flush();
+    }
+
+    /**
+     * Stops accepting exports, waits for the exports in flight to complete for at most the drain timeout, then closes
+     * the client.
+     */
     @Override
     @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
     public CompletableResultCode shutdown() {
@@ -123,8 +311,33 @@ public final class VertxGrpcSender implements GrpcSender {
             return shutdownResult;
         }
 
+        inFlightExports.drain(vertx, drainTimeout).onComplete(abandoned -> {
+            if (abandoned.result() > 0) {
+                logger.log(Level.WARNING, "Abandoned " + abandoned.result() + " gRPC exports still in flight after "
+                        + drainTimeout.toMillis() + "ms on shutdown");
+            }
+            close();
+        });
+        return shutdownResult;
+    }
+
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+    private void close() {
+        closed = true;
+        if (spool != null) {
+            spool.close();
+        }
+        endpointGroup.close();
+        exporterMetrics.close();
+        if (compressionWorkers != null) {
+            compressionWorkers.close();
+        }
+        if (shutdownHook != null) {
+            shutdownResult.whenComplete(shutdownHook);
+        }
+
         try {
-            client.close()
+            clientLease.close()
                     .onSuccess(
                             new Handler<>() {
                                 @Override
@@ -144,120 +357,334 @@ public final class VertxGrpcSender implements GrpcSender {
             // which we need to handle
             shutdownResult.fail();
         }
-        return shutdownResult;
     }
 
-    private static void initiateSend(GrpcClient client, SocketAddress server,
-            int numberOfAttempts,
-            Handler<GrpcClientRequest<Buffer, Buffer>> onSuccessHandler, Duration exportTimeout,
-            Consumer<Throwable> onFailureCallback) {
-        Uni.createFrom().completionStage(new Supplier<CompletionStage<GrpcClientRequest<Buffer, Buffer>>>() {
-            @Override
-            public CompletionStage<GrpcClientRequest<Buffer, Buffer>> get() {
-
-                Supplier<CompletionStage<GrpcClientRequest<Buffer, Buffer>>> supplier = () -> client.request(server)
-                        .timeout(exportTimeout.toMillis(), MILLISECONDS)
-                        .toCompletionStage();
-                return SECURITY_MANAGER == null ? supplier.get()
-                        : AccessController
-                                .doPrivileged(
-                                        (PrivilegedAction<CompletionStage<GrpcClientRequest<Buffer, Buffer>>>) supplier::get);
-            }
-        })
-                .onFailure(new Predicate<Throwable>() {
-                    @Override
-                    public boolean test(Throwable t) {
-                        // Will not retry on shutdown
-                        return t instanceof IllegalStateException ||
-                                t instanceof RejectedExecutionException;
-                    }
-                })
-                .recoverWithUni(new Supplier<Uni<? extends GrpcClientRequest<Buffer, Buffer>>>() {
-                    @Override
-                    public Uni<? extends GrpcClientRequest<Buffer, Buffer>> get() {
-                        return Uni.createFrom().nothing();
-                    }
-                })
-                .onFailure()
-                .retry()
-                .withBackOff(Duration.ofMillis(100))
-                .atMost(numberOfAttempts)
-                .subscribe().with(
-                        new Consumer<>() {
-                            @Override
-                            public void accept(GrpcClientRequest<Buffer, Buffer> request) {
-                                onSuccessHandler.handle(request);
-                            }
-                        }, onFailureCallback);
+    /**
+     * Per OTLP, only these statuses may be retried. {@code RESOURCE_EXHAUSTED} is retried only when the server says
+     * when to come back.
+     */
+    private static boolean isRetryable(GrpcStatus status) {
+        if (status == null) {
+            return false;
+        }
+        switch (status) {
+            case CANCELLED:
+            case DEADLINE_EXCEEDED:
+            case ABORTED:
+            case OUT_OF_RANGE:
+            case UNAVAILABLE:
+            case DATA_LOSS:
+            case RESOURCE_EXHAUSTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static GrpcStatus getStatus(GrpcClientResponse<?, ?> response) {
+        // Status can either be in the headers or trailers depending on error
+        GrpcStatus result = response.status();
+        if (result == null) {
+            String statusFromTrailer = response.trailers().get(GRPC_STATUS);
+            if (statusFromTrailer != null) {
+                result = GrpcStatus.valueOf(Integer.parseInt(statusFromTrailer));
+            }
+        }
+        return result;
+    }
+
+    private static String getStatusMessage(GrpcClientResponse<Buffer, Buffer> response) {
+        // Status message can either be in the headers or trailers depending on error
+        String result = response.statusMessage();
+        if (result == null) {
+            result = response.trailers().get(GRPC_MESSAGE);
+            if (result != null) {
+                result = QueryStringDecoder.decodeComponent(result, StandardCharsets.UTF_8);
+            }
+
+        }
+        return result;
+    }
+
+    private static long getServerRetryDelay(GrpcClientResponse<Buffer, Buffer> response) {
+        // Trailers-only responses carry the status details in the headers
+        String details = response.trailers().get(GRPC_STATUS_DETAILS);
+        if (details == null) {
+            details = response.headers().get(GRPC_STATUS_DETAILS);
+        }
+        return RetryHints.parseGrpcRetryDelay(details);
     }
 
     @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
-    private void failOnClientRequest(String type, Throwable t, Consumer<Throwable> onError) {
-        String message = "Failed to export "
-                + type
-                + ". The request could not be executed. Full error message: "
-                + (t.getMessage() == null ? t.getClass().getName() : t.getMessage());
-        logger.log(Level.WARNING, message);
-        onError.accept(t);
+    private void logAppropriateWarning(String type, GrpcStatus status, String statusMessage) {
+        if (status == GrpcStatus.UNIMPLEMENTED) {
+            if (loggedUnimplemented.compareAndSet(false, true)) {
+                logUnimplemented(internalLogger, type, statusMessage);
+            }
+        } else if (status == GrpcStatus.UNAVAILABLE) {
+            logger.log(
+                    Level.WARNING,
+                    "Failed to export "
+                            + type
+                            + "s. Server is UNAVAILABLE. "
+                            + "Make sure your collector is running and reachable from this network. "
+                            + "Full error message:"
+                            + statusMessage);
+        } else {
+            if (status == null) {
+                if (statusMessage == null) {
+                    logger.log(
+                            Level.WARNING,
+                            "Failed to export "
+                                    + type
+                                    + "s. Perhaps the collector does not support collecting traces using grpc? Try configuring the protocol to 'http/protobuf'");
+                } else {
+                    logger.log(
+                            Level.WARNING,
+                            "Failed to export "
+                                    + type
+                                    + "s. Server responded with error message: "
+                                    + statusMessage);
+                }
+            } else {
+                logger.log(
+                        Level.WARNING,
+                        "Failed to export "
+                                + type
+                                + "s. Server responded with "
+                                + status.code
+                                + ". Error message: "
+                                + statusMessage);
+            }
+        }
     }
 
-    private static final class ClientRequestOnSuccessHandler implements Handler<GrpcClientRequest<Buffer, Buffer>> {
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+    private static void logUnimplemented(Logger logger, String type, String fullErrorMessage) {
+        String envVar;
+        switch (type) {
+            case "span":
+                envVar = "OTEL_TRACES_EXPORTER";
+                break;
+            case "metric":
+                envVar = "OTEL_METRICS_EXPORTER";
+                break;
+            case "log":
+                envVar = "OTEL_LOGS_EXPORTER";
+                break;
+            default:
+                throw new IllegalStateException(
+                        "Unrecognized type, this is a programming bug in the OpenTelemetry SDK");
+        }
 
-        private final GrpcClient client;
-        private final SocketAddress server;
-        private final Map<String, String> headers;
-        private final boolean compressionEnabled;
+        logger.log(
+                Level.WARNING,
+                "Failed to export "
+                        + type
+                        + "s. Server responded with UNIMPLEMENTED. "
+                        + "This usually means that your collector is not configured with an otlp "
+                        + "receiver in the \"pipelines\" section of the configuration. "
+                        + "If export is not desired and you are using OpenTelemetry autoconfiguration or the javaagent, "
+                        + "disable export by setting "
+                        + envVar
+                        + "=none. "
+                        + "Full error message: "
+                        + fullErrorMessage);
+    }
+
+    /**
+     * Drives one export through its attempts. The export is run by the {@link ConcurrencyLimiter} once it gets a slot,
+     * and gives the slot back when it completes. The handlers are allocated once per export and reused by every
+     * attempt; retries are scheduled with a Vert.x timer that calls back {@link #handle(Long)}.
+     * <p>
+     * With hedging, a {@link Hedge} may run concurrently with an attempt, possibly on another event loop: the first
+     * of them to complete the export wins, and the payload is only released once the export is complete and no
+     * request is still sending it.
+     */
+    private final class GrpcExport implements Runnable, Handler<Long> {
 
-        private final MessageWriter messageWriter;
-        private final AtomicBoolean loggedUnimplemented;
-        private final ThrottlingLogger logger;
         private final String type;
+        private final MessageWriter messageWriter;
+        private final Compression compression;
         private final Consumer<GrpcResponse> onResponse;
         private final Consumer<Throwable> onError;
-        private final String grpcEndpointPath;
-
-        private final int attemptNumber;
-        private final Supplier<Boolean> isShutdown;
-        private final Duration exportTimeout;
-
-        public ClientRequestOnSuccessHandler(GrpcClient client,
-                SocketAddress server,
-                Map<String, String> headers,
-                boolean compressionEnabled,
-                MessageWriter messageWriter,
-                AtomicBoolean loggedUnimplemented,
-                ThrottlingLogger logger,
-                String type,
-                Consumer<GrpcResponse> onResponse,
-                Consumer<Throwable> onError,
-                int attemptNumber,
-                String grpcEndpointPath,
-                Supplier<Boolean> isShutdown,
-                Duration exportTimeout) {
-            this.client = client;
-            this.server = server;
-            this.grpcEndpointPath = grpcEndpointPath;
-            this.headers = headers;
-            this.compressionEnabled = compressionEnabled;
+        // Only set for replays of spooled payloads, which are never retried, hedged nor spooled again
+        private final Handler<AsyncResult<Void>> replayHandler;
+
+        private final Handler<AsyncResult<GrpcClientRequest<Buffer, Buffer>>> requestHandler = this::handleRequest;
+        private final Handler<AsyncResult<GrpcClientResponse<Buffer, Buffer>>> responseHandler = this::handleResponse;
+        private final Handler<Throwable> responseExceptionHandler = this::handleResponseException;
+        private final Handler<GrpcError> responseErrorHandler = this::handleResponseError;
+        private final Handler<Void> responseEndHandler = this::handleResponseEnd;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // One reference for the export, plus one per request in flight
+        private final AtomicInteger payloadReferences = new AtomicInteger(1);
+
+        private PooledBuffer payload;
+        private GrpcMessage grpcMessage;
+        private long startNanos;
+        private long attemptStartNanos;
+        private int attempt;
+        private boolean attemptCompleted;
+        private EndpointGroup.Endpoint endpoint;
+        private GrpcClientResponse<Buffer, Buffer> response;
+        private long hedgeTimerId = -1;
+        // Cancelled when a hedge completes the export while a retry is pending
+        private volatile long retryTimerId = -1;
+
+        GrpcExport(MessageWriter messageWriter, Consumer<GrpcResponse> onResponse, Consumer<Throwable> onError) {
+            this.type = messageWriter.getClass().getSimpleName();
             this.messageWriter = messageWriter;
-            this.loggedUnimplemented = loggedUnimplemented;
-            this.logger = logger;
-            this.type = type;
+            this.compression = codec != null ? codec.compression() : Compression.NONE;
             this.onResponse = onResponse;
             this.onError = onError;
-            this.attemptNumber = attemptNumber;
-            this.isShutdown = isShutdown;
-            this.exportTimeout = exportTimeout;
+            this.replayHandler = null;
+        }
+
+        GrpcExport(Buffer payload, Compression compression, Handler<AsyncResult<Void>> replayHandler) {
+            this.type = "spooled export";
+            this.messageWriter = null;
+            this.compression = compression;
+            this.grpcMessage = GrpcMessage.message(compression.grpcEncoding(), payload);
+            this.onResponse = null;
+            this.onError = null;
+            this.replayHandler = replayHandler;
         }
 
+        /**
+         * Runs once a slot is available.
+         */
         @Override
-        public void handle(GrpcClientRequest<Buffer, Buffer> request) {
-            if (compressionEnabled) {
-                request.encoding("gzip");
+        public void run() {
+            if (closed) {
+                concurrencyLimiter.onIgnore();
+                reportIgnored();
+                if (replayHandler != null) {
+                    replayHandler.handle(Future.failedFuture(new IllegalStateException("Sender is shut down")));
+                } else {
+                    onError.accept(new IllegalStateException("Sender is shut down"));
+                }
+                return;
+            }
+            if (replayHandler != null) {
+                begin();
+                return;
+            }
+            // Encode and compress once, every attempt sends the same bytes
+            if (compressionWorkers != null && Context.isOnEventLoopThread()
+                    && messageWriter.getContentLength() >= compressionOffloadThreshold) {
+                // Compressing a large payload would stall the event loop, and every connection it serves
+                compressionWorkers.executeBlocking(this::encode, false).onComplete(this::handleEncoded);
+                return;
+            }
+            PooledBuffer encoded;
+            try {
+                encoded = encode();
+            } catch (IOException e) {
+                encodingFailed(e);
+                return;
+            }
+            encoded(encoded);
+        }
+
+        private PooledBuffer encode() throws IOException {
+            long encodeStartNanos = System.nanoTime();
+            PooledBuffer encoded = PayloadEncoder.encode(messageWriter, codec);
+            exporterMetrics.recordEncoded(messageWriter.getContentLength(), encoded.buffer().length(),
+                    System.nanoTime() - encodeStartNanos);
+            return encoded;
+        }
+
+        private void handleEncoded(AsyncResult<PooledBuffer> result) {
+            if (result.succeeded()) {
+                encoded(result.result());
+            } else {
+                encodingFailed(result.cause());
+            }
+        }
+
+        private void encoded(PooledBuffer encoded) {
+            payload = encoded;
+            grpcMessage = GrpcMessage.message(compression.grpcEncoding(), payload.buffer());
+            begin();
+        }
+
+        @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+        private void encodingFailed(Throwable t) {
+            concurrencyLimiter.onIgnore();
+            reportIgnored();
+            final String message = "Failed to export "
+                    + type
+                    + "s. Unable to serialize payload. Full error message: "
+                    + (t.getMessage() == null ? t.getClass().getName() : t.getMessage());
+            logger.log(Level.WARNING, message);
+            onError.accept(t);
+        }
+
+        private void begin() {
+            startNanos = System.nanoTime();
+            start();
+            if (hedger != null && replayHandler == null) {
+                scheduleHedge();
+            }
+        }
+
+        void start() {
+            // A hedge may have completed the export, and released the payload, while the retry was pending
+            if (completed.get() || !retainPayload()) {
+                return;
+            }
+            attempt++;
+            attemptStartNanos = System.nanoTime();
+            attemptCompleted = false;
+            activeStreams.incrementAndGet();
+            exporterMetrics.recordAttempt();
+            endpoint = endpointGroup.select();
+            response = null;
+            Future<GrpcClientRequest<Buffer, Buffer>> request;
+            try {
+                request = SECURITY_MANAGER == null ? newRequest(endpoint)
+                        : AccessController.doPrivileged(
+                                (PrivilegedAction<Future<GrpcClientRequest<Buffer, Buffer>>>) () -> newRequest(
+                                        endpoint));
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Will not retry on shutdown
+                attemptCompleted = true;
+                activeStreams.decrementAndGet();
+                endpointGroup.onIgnore(endpoint);
+                releasePayload();
+                fail(e);
+                return;
+            }
+            request.onComplete(requestHandler);
+        }
+
+        private void endAttempt(boolean endpointHealthy) {
+            attemptCompleted = true;
+            activeStreams.decrementAndGet();
+            if (endpointHealthy) {
+                endpointGroup.onSuccess(endpoint);
+            } else {
+                endpointGroup.onFailure(endpoint);
+            }
+            releasePayload();
+        }
+
+        private Future<GrpcClientRequest<Buffer, Buffer>> newRequest(EndpointGroup.Endpoint endpoint) {
+            return client.request(endpoint.address()).timeout(exportTimeout.toMillis(), MILLISECONDS);
+        }
+
+        private void prepare(GrpcClientRequest<Buffer, Buffer> request) {
+            if (connectionKeeper != null) {
+                connectionKeeper.track(request.connection());
+            }
+            if (compression != Compression.NONE) {
+                request.encoding(compression.grpcEncoding());
             }
 
             // Set the service name and the method to call
-            request.serviceName(ServiceName.create(grpcEndpointPath));
+            request.serviceName(serviceName);
             request.methodName(GRPC_METHOD_NAME);
 
             if (!headers.isEmpty()) {
@@ -266,239 +693,406 @@ public final class VertxGrpcSender implements GrpcSender {
                     vertxHeaders.set(entry.getKey(), entry.getValue());
                 }
             }
+        }
 
-            try {
-                int messageSize = messageWriter.getContentLength();
-                Buffer buffer = Buffer.buffer(messageSize);
-                var os = new BufferOutputStream(buffer);
-                messageWriter.writeMessage(os);
-                request.send(buffer).onSuccess(new Handler<>() {
-                    @Override
-                    public void handle(GrpcClientResponse<Buffer, Buffer> response) {
-                        response.exceptionHandler(new Handler<>() {
-                            @Override
-                            public void handle(Throwable t) {
-                                if (attemptNumber <= MAX_ATTEMPTS && !isShutdown.get()) {
-                                    // retry
-                                    initiateSend(client, server,
-                                            MAX_ATTEMPTS - attemptNumber,
-                                            newAttempt(), exportTimeout,
-                                            new Consumer<>() {
-                                                @Override
-                                                public void accept(Throwable throwable) {
-                                                    failOnClientRequest(throwable, onError, attemptNumber);
-                                                }
-                                            });
-
-                                } else {
-                                    failOnClientRequest(t, onError, attemptNumber);
-                                }
-                            }
-                        }).errorHandler(new Handler<>() {
-                            @Override
-                            public void handle(GrpcError error) {
-                                handleError(error.status, response);
-                            }
-                        }).endHandler(new Handler<>() {
-                            @Override
-                            public void handle(Void ignored) {
-                                GrpcStatus status = getStatus(response);
-                                if (status == GrpcStatus.OK) {
-                                    onResponse.accept(new GrpcResponse() {
-                                        @Override
-                                        public GrpcStatusCode getStatusCode() {
-                                            return GrpcStatusCode.fromValue(status.code);
-                                        }
-
-                                        @Override
-                                        public String getStatusDescription() {
-                                            return status.name();
-                                        }
-
-                                        @Override
-                                        public byte[] getResponseMessage() {
-                                            if (response == null) {
-                                                return null;
-                                            }
-                                            Promise<String> promise = Promise.promise();
-                                            StringBuilder sb = new StringBuilder();
-                                            response.handler(msg -> {
-                                                sb.append(msg.toString());
-                                            });
-                                            response.endHandler(v -> {
-                                                // Done reading stream
-                                                promise.complete(sb.toString());
-                                            });
-                                            response.exceptionHandler(promise::fail);
-                                            String result = promise.future()
-                                                    .timeout(exportTimeout.toMillis(), MILLISECONDS)
-                                                    .recover(throwable -> Future.succeededFuture(
-                                                            "Response error: " + throwable.getMessage()))
-                                                    .result();
-                                            if (result == null || result.isEmpty()) {
-                                                return null;
-                                            }
-                                            return result.getBytes(StandardCharsets.UTF_8);
-                                        }
-                                    });
-                                } else {
-                                    handleError(status, response);
-                                }
-                            }
-                        });
-                    }
+        /**
+         * Retry timer.
+         */
+        @Override
+        public void handle(Long timerId) {
+            retryTimerId = -1;
+            start();
+        }
 
-                    private void handleError(GrpcStatus status, GrpcClientResponse<Buffer, Buffer> response) {
-                        String statusMessage = getStatusMessage(response);
-                        logAppropriateWarning(status, statusMessage);
-                        onError.accept(new IllegalStateException(statusMessage));
-                    }
+        private void handleRequest(AsyncResult<GrpcClientRequest<Buffer, Buffer>> result) {
+            if (result.failed()) {
+                retryOrFail(result.cause(), -1);
+                return;
+            }
+            GrpcClientRequest<Buffer, Buffer> request = result.result();
+            prepare(request);
+            request.endMessage(grpcMessage);
+            request.response().onComplete(responseHandler);
+        }
 
-                    private void logAppropriateWarning(GrpcStatus status,
-                            String statusMessage) {
-                        if (status == GrpcStatus.UNIMPLEMENTED) {
-                            if (loggedUnimplemented.compareAndSet(false, true)) {
-                                logUnimplemented(internalLogger, type, statusMessage);
-                            }
-                        } else if (status == GrpcStatus.UNAVAILABLE) {
-                            logger.log(
-                                    Level.WARNING,
-                                    "Failed to export "
-                                            + type
-                                            + "s. Server is UNAVAILABLE. "
-                                            + "Make sure your collector is running and reachable from this network. "
-                                            + "Full error message:"
-                                            + statusMessage);
-                        } else {
-                            if (status == null) {
-                                if (statusMessage == null) {
-                                    logger.log(
-                                            Level.WARNING,
-                                            "Failed to export "
-                                                    + type
-                                                    + "s. Perhaps the collector does not support collecting traces using grpc? Try configuring the protocol to 'http/protobuf'");
-                                } else {
-                                    logger.log(
-                                            Level.WARNING,
-                                            "Failed to export "
-                                                    + type
-                                                    + "s. Server responded with error message: "
-                                                    + statusMessage);
-                                }
-                            } else {
-                                logger.log(
-                                        Level.WARNING,
-                                        "Failed to export "
-                                                + type
-                                                + "s. Server responded with "
-                                                + status.code
-                                                + ". Error message: "
-                                                + statusMessage);
-                            }
-                        }
-                    }
+        private void handleResponse(AsyncResult<GrpcClientResponse<Buffer, Buffer>> result) {
+            if (result.failed()) {
+                retryOrFail(result.cause(), -1);
+                return;
+            }
+            response = result.result();
+            response.exceptionHandler(responseExceptionHandler)
+                    .errorHandler(responseErrorHandler)
+                    .endHandler(responseEndHandler);
+        }
 
-                    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
-                    private void logUnimplemented(Logger logger, String type, String fullErrorMessage) {
-                        String envVar;
-                        switch (type) {
-                            case "span":
-                                envVar = "OTEL_TRACES_EXPORTER";
-                                break;
-                            case "metric":
-                                envVar = "OTEL_METRICS_EXPORTER";
-                                break;
-                            case "log":
-                                envVar = "OTEL_LOGS_EXPORTER";
-                                break;
-                            default:
-                                throw new IllegalStateException(
-                                        "Unrecognized type, this is a programming bug in the OpenTelemetry SDK");
-                        }
+        private void handleResponseException(Throwable t) {
+            retryOrFail(t, -1);
+        }
 
-                        logger.log(
-                                Level.WARNING,
-                                "Failed to export "
-                                        + type
-                                        + "s. Server responded with UNIMPLEMENTED. "
-                                        + "This usually means that your collector is not configured with an otlp "
-                                        + "receiver in the \"pipelines\" section of the configuration. "
-                                        + "If export is not desired and you are using OpenTelemetry autoconfiguration or the javaagent, "
-                                        + "disable export by setting "
-                                        + envVar
-                                        + "=none. "
-                                        + "Full error message: "
-                                        + fullErrorMessage);
-                    }
+        private void handleResponseError(GrpcError error) {
+            handleStatus(error.status);
+        }
 
-                    private GrpcStatus getStatus(GrpcClientResponse<?, ?> response) {
-                        // Status can either be in the headers or trailers depending on error
-                        GrpcStatus result = response.status();
-                        if (result == null) {
-                            String statusFromTrailer = response.trailers().get(GRPC_STATUS);
-                            if (statusFromTrailer != null) {
-                                result = GrpcStatus.valueOf(Integer.parseInt(statusFromTrailer));
-                            }
-                        }
-                        return result;
-                    }
+        private void handleResponseEnd(Void ignored) {
+            handleStatus(getStatus(response));
+        }
 
-                    private String getStatusMessage(GrpcClientResponse<Buffer, Buffer> response) {
-                        // Status message can either be in the headers or trailers depending on error
-                        String result = response.statusMessage();
-                        if (result == null) {
-                            result = response.trailers().get(GRPC_MESSAGE);
-                            if (result != null) {
-                                result = QueryStringDecoder.decodeComponent(result, StandardCharsets.UTF_8);
-                            }
+        private void handleStatus(GrpcStatus status) {
+            if (attemptCompleted) {
+                return;
+            }
+            if (status != GrpcStatus.OK) {
+                // No status at all when something else than a gRPC server, e.g. a proxy, ended the stream
+                exporterMetrics.recordFailedAttempt(
+                        status != null ? statusAttributes[status.ordinal()] : transportErrorAttributes);
+            }
+            // An UNAVAILABLE endpoint counts towards its ejection, any other gRPC answer means it is up
+            endAttempt(status != null && status != GrpcStatus.UNAVAILABLE);
+            if (completed.get()) {
+                // A hedge won
+                return;
+            }
+            GrpcClientResponse<Buffer, Buffer> response = this.response;
+            if (status == GrpcStatus.OK) {
+                long latency = System.nanoTime() - attemptStartNanos;
+                if (hedger != null) {
+                    hedger.record(latency);
+                }
+                succeed(response, latency);
+                return;
+            }
 
-                        }
-                        return result;
-                    }
+            if (isRetryable(status)) {
+                long serverDelay = getServerRetryDelay(response);
+                if ((status != GrpcStatus.RESOURCE_EXHAUSTED || serverDelay >= 0) && scheduleRetry(serverDelay)) {
+                    return;
+                }
+            }
+            if (!complete()) {
+                return;
+            }
+            if (isRetryable(status)) {
+                spool();
+                reportFailed();
+            } else {
+                // The collector is up, even if it rejected the export
+                reportSucceeded();
+            }
 
-                }).onFailure(new Handler<>() {
-                    @Override
-                    public void handle(Throwable t) {
-                        if (attemptNumber <= MAX_ATTEMPTS && !isShutdown.get()) {
-                            // retry
-                            initiateSend(client, server,
-                                    MAX_ATTEMPTS - attemptNumber,
-                                    newAttempt(), exportTimeout,
-                                    new Consumer<>() {
-                                        @Override
-                                        public void accept(Throwable throwable) {
-                                            failOnClientRequest(throwable, onError, attemptNumber);
-                                        }
-                                    });
-                        } else {
-                            failOnClientRequest(t, onError, attemptNumber);
-                        }
-                    }
-                });
-            } catch (IOException e) {
-                final String message = "Failed to export "
-                        + type
-                        + "s. Unable to serialize payload. Full error message: "
-                        + (e.getMessage() == null ? e.getClass().getName() : e.getMessage());
-                logger.log(Level.WARNING, message);
-                onError.accept(e);
+            exporterMetrics.recordExport(System.nanoTime() - startNanos, false);
+            String statusMessage = getStatusMessage(response);
+            logAppropriateWarning(type, status, statusMessage);
+            releasePayload();
+            if (replayHandler != null) {
+                // A payload rejected for good must not be replayed again
+                replayHandler.handle(isRetryable(status)
+                        ? Future.failedFuture(new IllegalStateException(statusMessage))
+                        : Future.succeededFuture());
+            } else {
+                onError.accept(new IllegalStateException(statusMessage));
+            }
+            if (isRetryable(status)) {
+                // Exhausted retries on an overload status count against the limit
+                concurrencyLimiter.onDropped();
+            } else {
+                concurrencyLimiter.onSuccess(System.nanoTime() - attemptStartNanos);
             }
         }
 
-        private void failOnClientRequest(Throwable t, Consumer<Throwable> onError, int attemptNumber) {
+        /**
+         * Completes the export with the OK response of the original request or of a hedge.
+         */
+        private void succeed(GrpcClientResponse<Buffer, Buffer> response, long latencyNanos) {
+            if (!complete()) {
+                return;
+            }
+            releasePayload();
+            reportSucceeded();
+            exporterMetrics.recordExport(System.nanoTime() - startNanos, true);
+            if (replayHandler != null) {
+                replayHandler.handle(Future.succeededFuture());
+            } else {
+                onResponse.accept(new OkResponse(response));
+            }
+            concurrencyLimiter.onSuccess(latencyNanos);
+        }
+
+        /**
+         * @return {@code true} if the caller completes the export, {@code false} if it was already completed
+         */
+        private boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            if (hedgeTimerId >= 0) {
+                vertx.cancelTimer(hedgeTimerId);
+            }
+            long retryTimerId = this.retryTimerId;
+            if (retryTimerId >= 0) {
+                vertx.cancelTimer(retryTimerId);
+            }
+            return true;
+        }
+
+        private void retryOrFail(Throwable t, long serverDelayNanos) {
+            if (attemptCompleted) {
+                return;
+            }
+            exporterMetrics.recordFailedAttempt(transportErrorAttributes);
+            endAttempt(false);
+            if (completed.get()) {
+                // A hedge won
+                return;
+            }
+            if (!scheduleRetry(serverDelayNanos)) {
+                fail(t);
+            }
+        }
+
+        /**
+         * @return {@code true} if another attempt has been scheduled
+         */
+        private boolean scheduleRetry(long serverDelayNanos) {
+            // Retries go on while the exports are drained on shutdown
+            if (replayHandler != null || attempt >= retryPolicy.getMaxAttempts() || closed) {
+                return false;
+            }
+            if (serverDelayNanos > maxServerDelayNanos) {
+                return false;
+            }
+            long delayNanos = retryPolicy.backoffNanos(attempt, serverDelayNanos);
+            long deadlineNanos = retryPolicy.getDeadlineNanos();
+            if (deadlineNanos > 0 && System.nanoTime() - startNanos + delayNanos > deadlineNanos) {
+                return false;
+            }
+            try {
+                retryTimerId = vertx.setTimer(Math.max(1, NANOSECONDS.toMillis(delayNanos)), this);
+                return true;
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Vert.x is closing
+                return false;
+            }
+        }
+
+        @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+        private void fail(Throwable t) {
+            if (!complete()) {
+                return;
+            }
             final String message = "Failed to export "
                     + type
-                    + "s. The request could not be executed after " + attemptNumber
+                    + "s. The request could not be executed after " + attempt
                     + " attempts. Full error message: "
                     + (t != null ? t.getMessage() : "");
             logger.log(Level.WARNING, message);
-            onError.accept(t);
+            spool();
+            releasePayload();
+            reportFailed();
+            exporterMetrics.recordExport(System.nanoTime() - startNanos, false);
+            if (replayHandler != null) {
+                replayHandler.handle(Future.failedFuture(t));
+            } else {
+                onError.accept(t);
+            }
+            concurrencyLimiter.onDropped();
         }
 
-        public ClientRequestOnSuccessHandler newAttempt() {
-            return new ClientRequestOnSuccessHandler(client, server, headers, compressionEnabled, messageWriter,
-                    loggedUnimplemented, logger, type, onResponse, onError, attemptNumber + 1,
-                    grpcEndpointPath, isShutdown, exportTimeout);
+        /**
+         * Keeps the payload of an export that could not be delivered for a later replay.
+         */
+        @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+        private void spool() {
+            if (replayHandler != null || spool == null || payload == null) {
+                return;
+            }
+            try {
+                spool.store(payload.buffer(), compression);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Unable to spool the failed " + type + " export", e);
+            }
+        }
+
+        private void reportSucceeded() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess();
+            }
+        }
+
+        private void reportFailed() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+        }
+
+        void reportIgnored() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnore();
+            }
+        }
+
+        private void releasePayload() {
+            if (payloadReferences.decrementAndGet() == 0 && payload != null) {
+                payload.release();
+            }
+        }
+
+        /**
+         * @return {@code false} if the payload has already been released
+         */
+        private boolean retainPayload() {
+            int references;
+            do {
+                references = payloadReferences.get();
+                if (references == 0) {
+                    return false;
+                }
+            } while (!payloadReferences.compareAndSet(references, references + 1));
+            return true;
+        }
+
+        private void scheduleHedge() {
+            hedger.onExport();
+            long delayNanos = hedger.getDelayNanos();
+            if (delayNanos < 0) {
+                return;
+            }
+            try {
+                hedgeTimerId = vertx.setTimer(Math.max(1, NANOSECONDS.toMillis(delayNanos)), new Handler<>() {
+                    @Override
+                    public void handle(Long timerId) {
+                        hedge();
+                    }
+                });
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Vert.x is closing
+            }
+        }
+
+        private void hedge() {
+            if (completed.get() || isShutdown.get() || !retainPayload()) {
+                return;
+            }
+            if (!hedger.tryHedge()) {
+                releasePayload();
+                return;
+            }
+            new Hedge(endpointGroup.selectOther(endpoint)).start();
+        }
+
+        /**
+         * A single extra request sent while the original one is still pending. Only a successful hedge completes the
+         * export, a failed one is dropped silently and the original request carries on.
+         */
+        private final class Hedge {
+
+            private final EndpointGroup.Endpoint endpoint;
+            private final long startNanos = System.nanoTime();
+            private GrpcClientResponse<Buffer, Buffer> response;
+            private boolean ended;
+
+            Hedge(EndpointGroup.Endpoint endpoint) {
+                this.endpoint = endpoint;
+            }
+
+            void start() {
+                activeStreams.incrementAndGet();
+                exporterMetrics.recordAttempt();
+                try {
+                    newRequest(endpoint).onComplete(this::handleRequest);
+                } catch (IllegalStateException | RejectedExecutionException e) {
+                    end(null);
+                }
+            }
+
+            private void handleRequest(AsyncResult<GrpcClientRequest<Buffer, Buffer>> result) {
+                if (result.failed()) {
+                    end(null);
+                    return;
+                }
+                GrpcClientRequest<Buffer, Buffer> request = result.result();
+                prepare(request);
+                request.endMessage(grpcMessage);
+                request.response().onComplete(this::handleResponse);
+            }
+
+            private void handleResponse(AsyncResult<GrpcClientResponse<Buffer, Buffer>> result) {
+                if (result.failed()) {
+                    end(null);
+                    return;
+                }
+                response = result.result();
+                response.exceptionHandler(t -> end(null))
+                        .errorHandler(error -> end(error.status))
+                        .endHandler(v -> end(getStatus(response)));
+            }
+
+            private void end(GrpcStatus status) {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                activeStreams.decrementAndGet();
+                if (status != GrpcStatus.OK) {
+                    exporterMetrics.recordFailedAttempt(
+                            status != null ? statusAttributes[status.ordinal()] : transportErrorAttributes);
+                }
+                if (status != null && status != GrpcStatus.UNAVAILABLE) {
+                    endpointGroup.onSuccess(endpoint);
+                } else {
+                    endpointGroup.onFailure(endpoint);
+                }
+                releasePayload();
+                if (status == GrpcStatus.OK && !completed.get()) {
+                    hedger.onHedgeWon();
+                    succeed(response, System.nanoTime() - startNanos);
+                }
+            }
+        }
+    }
+
+    private final class OkResponse implements GrpcResponse {
+
+        private final GrpcClientResponse<Buffer, Buffer> response;
+
+        OkResponse(GrpcClientResponse<Buffer, Buffer> response) {
+            this.response = response;
+        }
+
+        @Override
+        public GrpcStatusCode getStatusCode() {
+            return GrpcStatusCode.fromValue(GrpcStatus.OK.code);
+        }
+
+        @Override
+        public String getStatusDescription() {
+            return GrpcStatus.OK.name();
+        }
+
+        @Override
+        public byte[] getResponseMessage() {
+            if (response == null) {
+                return null;
+            }
+            Promise<String> promise = Promise.promise();
+            StringBuilder sb = new StringBuilder();
+            response.handler(msg -> {
+                sb.append(msg.toString());
+            });
+            response.endHandler(v -> {
+                // Done reading stream
+                promise.complete(sb.toString());
+            });
+            response.exceptionHandler(promise::fail);
+            String result = promise.future()
+                    .timeout(exportTimeout.toMillis(), MILLISECONDS)
+                    .recover(throwable -> Future.succeededFuture(
+                            "Response error: " + throwable.getMessage()))
+                    .result();
+            if (result == null || result.isEmpty()) {
+                return null;
+            }
+            return result.getBytes(StandardCharsets.UTF_8);
         }
     }
 }
@@ -1,42 +1,64 @@
 package io.smallrye.opentelemetry.senders;
 
 import static io.smallrye.opentelemetry.senders.common.OTelExporterUtil.getPort;
+import static io.smallrye.opentelemetry.senders.common.OTelExporterUtil.getServerAddress;
+import static io.smallrye.opentelemetry.senders.common.OTelExporterUtil.isDomainSocket;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.CompletionStage;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPOutputStream;
 
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.HttpResponse;
 import io.opentelemetry.sdk.common.export.HttpSender;
 import io.opentelemetry.sdk.common.export.MessageWriter;
 import io.opentelemetry.sdk.common.internal.ThrottlingLogger;
 import io.smallrye.common.annotation.SuppressForbidden;
-import io.smallrye.mutiny.Uni;
-import io.smallrye.opentelemetry.senders.common.BufferOutputStream;
+import io.smallrye.opentelemetry.senders.common.CircuitBreaker;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.CompressionCodec;
+import io.smallrye.opentelemetry.senders.common.ConcurrencyLimiter;
+import io.smallrye.opentelemetry.senders.common.ConnectionKeeper;
+import io.smallrye.opentelemetry.senders.common.EndpointGroup;
+import io.smallrye.opentelemetry.senders.common.ExportSpool;
+import io.smallrye.opentelemetry.senders.common.ExporterMetrics;
+import io.smallrye.opentelemetry.senders.common.FlushableSender;
+import io.smallrye.opentelemetry.senders.common.Hedger;
+import io.smallrye.opentelemetry.senders.common.InFlightExports;
+import io.smallrye.opentelemetry.senders.common.PayloadEncoder;
+import io.smallrye.opentelemetry.senders.common.PooledBuffer;
+import io.smallrye.opentelemetry.senders.common.ReplayableSender;
+import io.smallrye.opentelemetry.senders.common.RetryHints;
+import io.smallrye.opentelemetry.senders.common.RetryPolicy;
+import io.smallrye.opentelemetry.senders.common.SenderOptions;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpConnection;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.core.tracing.TracingPolicy;
 
-public final class VertxHttpSender implements HttpSender {
+public final class VertxHttpSender implements HttpSender, ReplayableSender, FlushableSender {
 
     public static final String TRACES_PATH = "/v1/traces";
     public static final String METRICS_PATH = "/v1/metrics";
@@ -46,14 +68,37 @@ public final class VertxHttpSender implements HttpSender {
 
     private static final ThrottlingLogger throttlingLogger = new ThrottlingLogger(internalLogger);
 
-    private static final int MAX_ATTEMPTS = 3;
-
     private final String basePath;
-    private final boolean compressionEnabled;
+    private final CompressionCodec codec;
+    private final WorkerExecutor compressionWorkers;
+    private final int compressionOffloadThreshold;
     private final Map<String, String> headers;
     private final String contentType;
+    private final Vertx vertx;
     private final HttpClient client;
     private final String signalPath;
+    private final String requestURI;
+    private final String host;
+    private final int port;
+    // The Unix domain socket of the server, null when the server is reached over TCP
+    private final SocketAddress domainSocket;
+    private final EndpointGroup endpointGroup;
+    private final ConnectionKeeper connectionKeeper;
+    private final RetryPolicy retryPolicy;
+    private final long maxServerDelayNanos;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Hedger hedger;
+    private final CircuitBreaker circuitBreaker;
+    private final ExporterMetrics exporterMetrics;
+    // The attributes of the failed attempts, by status code, created on first use
+    private final Attributes[] statusAttributes = new Attributes[600];
+    private final Attributes transportErrorAttributes;
+    private final ExportSpool spool;
+    private final Runnable shutdownHook;
+    private final InFlightExports inFlightExports = new InFlightExports();
+    private final Duration drainTimeout;
+    // Set once the exports are drained, or abandoned, and the client is closing
+    private volatile boolean closed;
 
     public VertxHttpSender(
             URI baseUri,
@@ -64,30 +109,92 @@ public final class VertxHttpSender implements HttpSender {
             String contentType,
             Consumer<HttpClientOptions> clientOptionsCustomizer,
             Vertx vertx) {
-        this.basePath = determineBasePath(baseUri);
+        this(baseUri, signalPath, compressionEnabled, timeout, headersMap, contentType, clientOptionsCustomizer, vertx,
+                new SenderOptions());
+    }
+
+    public VertxHttpSender(
+            URI baseUri,
+            String signalPath,
+            boolean compressionEnabled,
+            Duration timeout,
+            Map<String, String> headersMap,
+            String contentType,
+            Consumer<HttpClientOptions> clientOptionsCustomizer,
+            Vertx vertx,
+            SenderOptions senderOptions) {
+        // The path of a domain socket URI is the socket file, the requests are then sent to the root of the server
+        this.domainSocket = isDomainSocket(baseUri) ? getServerAddress(baseUri) : null;
+        this.basePath = domainSocket != null ? "" : determineBasePath(baseUri);
         this.signalPath = signalPath;
-        this.compressionEnabled = compressionEnabled;
+        this.requestURI = basePath + signalPath;
+        this.host = domainSocket != null ? "localhost" : baseUri.getHost();
+        this.port = getPort(baseUri);
+        this.codec = compressionEnabled ? senderOptions.getCompressionCodec() : null;
         this.headers = headersMap;
         this.contentType = contentType;
+        this.retryPolicy = senderOptions.getRetryPolicy();
+        // A server asking for a longer delay is not waited for, the export fails instead of holding the queue
+        this.maxServerDelayNanos = Math.max(retryPolicy.getMaxBackoff().toNanos(), timeout.toNanos());
+        this.concurrencyLimiter = senderOptions.createConcurrencyLimiter(this::startQueued);
+        this.hedger = senderOptions.createHedger();
+        this.circuitBreaker = senderOptions.createCircuitBreaker(requestURI);
+        this.exporterMetrics = new ExporterMetrics(senderOptions.getMeterProvider(), "http", requestURI);
+        this.transportErrorAttributes = exporterMetrics.statusAttributes("TRANSPORT_ERROR");
+        this.spool = senderOptions.getSpool();
+        this.endpointGroup = senderOptions.getEndpointGroup();
+        this.shutdownHook = senderOptions.getShutdownHook();
+        this.drainTimeout = senderOptions.getDrainTimeout();
+        this.vertx = vertx;
+        this.compressionWorkers = codec != null ? senderOptions.createCompressionWorkers(vertx) : null;
+        this.compressionOffloadThreshold = senderOptions.getCompressionOffloadThreshold();
         var httpClientOptions = new HttpClientOptions()
                 .setReadIdleTimeout((int) timeout.getSeconds())
-                .setDefaultHost(baseUri.getHost())
-                .setDefaultPort(getPort(baseUri))
+                .setDefaultHost(host)
+                .setDefaultPort(port)
+                // Pinged connections are kept open while idle, instead of expiring and being replaced
+                .setHttp2KeepAliveTimeout(senderOptions.getKeepAliveInterval() != null ? 0
+                        : HttpClientOptions.DEFAULT_HTTP2_KEEP_ALIVE_TIMEOUT)
                 .setTracingPolicy(TracingPolicy.IGNORE); // needed to avoid tracing the calls from this http client
         clientOptionsCustomizer.accept(httpClientOptions);
+        ConnectionKeeper keeper = senderOptions.createConnectionKeeper(vertx, this::connect,
+                httpClientOptions.getProtocolVersion() == HttpVersion.HTTP_2);
+        this.connectionKeeper = keeper;
         this.client = vertx.httpClientBuilder()
                 .with(httpClientOptions)
                 .withConnectHandler(connection -> {
                     connection.exceptionHandler(thw -> {
                         throttlingLogger.log(Level.WARNING, "Connection handler exception: ", thw);
                     });
+                    if (keeper != null) {
+                        keeper.track(connection);
+                    }
                 })
                 .build();
+        if (keeper != null && senderOptions.isConnectionPrewarm()) {
+            keeper.start();
+        }
     }
 
     private final AtomicBoolean isShutdown = new AtomicBoolean();
     private final CompletableResultCode shutdownResult = new CompletableResultCode();
 
+    /**
+     * Opens a connection to the server with an {@code OPTIONS} request, which leaves it in the pool for the exports.
+     */
+    private Future<HttpConnection> connect() {
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.OPTIONS)
+                .setURI(requestURI);
+        if (domainSocket != null) {
+            options.setServer(domainSocket).setHost(host).setPort(port);
+        }
+        return client.request(options)
+                .compose(request -> request.send()
+                        .compose(response -> response.body())
+                        .map(body -> request.connection()));
+    }
+
     private static String determineBasePath(URI baseUri) {
         String path = baseUri.getPath();
         if (path.isEmpty() || path.equals("/")) {
@@ -107,21 +214,111 @@ public final class VertxHttpSender implements HttpSender {
             Consumer<HttpResponse> onHttpResponseRead,
             Consumer<Throwable> onError) {
         if (isShutdown.get()) {
+            // Callers such as the fan-out senders wait for every export to complete
+            onError.accept(new IllegalStateException("Sender is shut down"));
+            return;
+        }
+        exporterMetrics.start(circuitBreaker, concurrencyLimiter);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            // Nothing is sent nor logged while the collector is known to be down, the payload is only kept for later
+            spoolShortCircuited(requestBodyWriter);
+            onError.accept(circuitBreaker.getOpenException());
             return;
         }
 
-        String writerType = requestBodyWriter.getClass().getSimpleName();
-        String requestURI = basePath + signalPath;
-        var clientRequestSuccessHandler = new ClientRequestSuccessHandler(client, requestURI, headers, compressionEnabled,
-                contentType,
-                onHttpResponseRead,
-                onError, requestBodyWriter, 1, isShutdown::get);
-        initiateSend(client, requestURI, MAX_ATTEMPTS, clientRequestSuccessHandler, new Consumer<>() {
+        CompletableResultCode inFlight = inFlightExports.begin();
+        HttpExport export = new HttpExport(requestBodyWriter, inFlightExports.endWith(inFlight, onHttpResponseRead),
+                inFlightExports.endWith(inFlight, onError));
+        try {
+            concurrencyLimiter.execute(export);
+        } catch (RejectedExecutionException e) {
+            export.reportIgnored();
+            failOnClientRequest(export.type, e, export.onError);
+        }
+    }
+
+    /**
+     * Starts an export that waited for a slot of the concurrency limit. The slot is usually released on the event loop
+     * that completed another export, which must not be stalled serializing and compressing the next payload.
+     */
+    private void startQueued(Runnable export) {
+        if (!Context.isOnEventLoopThread()) {
+            export.run();
+            return;
+        }
+        vertx.executeBlocking(() -> {
+            export.run();
+            return null;
+        }, false);
+    }
+
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+    private void spoolShortCircuited(MessageWriter requestBodyWriter) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            PooledBuffer payload = PayloadEncoder.encode(requestBodyWriter, codec);
+            try {
+                spool.store(payload.buffer(), codec != null ? codec.compression() : Compression.NONE);
+            } finally {
+                payload.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            throttlingLogger.log(Level.WARNING, "Unable to spool the short-circuited export", e);
+        }
+    }
+
+    @Override
+    public void replay(Buffer payload, Compression compression, Handler<AsyncResult<Void>> resultHandler) {
+        if (isShutdown.get()) {
+            resultHandler.handle(Future.failedFuture(new IllegalStateException("Sender is shut down")));
+            return;
+        }
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            resultHandler.handle(Future.failedFuture(circuitBreaker.getOpenException()));
+            return;
+        }
+        HttpExport export = new HttpExport(payload, compression, new Consumer<>() {
             @Override
-            public void accept(Throwable throwable) {
-                failOnClientRequest(writerType, throwable, onError);
+            public void accept(HttpResponse response) {
+                if (isRetryable(response.getStatusCode())) {
+                    resultHandler.handle(Future.failedFuture(new IllegalStateException(
+                            "Server responded with " + response.getStatusCode())));
+                } else {
+                    resultHandler.handle(Future.succeededFuture());
+                }
+            }
+        }, new Consumer<>() {
+            @Override
+            public void accept(Throwable t) {
+                resultHandler.handle(Future.failedFuture(t));
             }
         });
+        try {
+            concurrencyLimiter.execute(export);
+        } catch (RejectedExecutionException e) {
+            export.reportIgnored();
+            resultHandler.handle(Future.failedFuture(e));
+        }
+    }
+
+    /**
+     * @return the hedger of this sender, or {@code null} if hedging is disabled
+     */
+    public Hedger getHedger() {
+        return hedger;
+    }
+
+    /**
+     * @return the circuit breaker of this sender, or {@code null} if it is disabled
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
     }
 
     @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
@@ -134,43 +331,22 @@ public final class VertxHttpSender implements HttpSender {
         onError.accept(t);
     }
 
-    private static void initiateSend(HttpClient client, String requestURI,
-            int numberOfAttempts,
-            Handler<HttpClientRequest> clientRequestSuccessHandler,
-            Consumer<Throwable> onFailureCallback) {
-        Uni.createFrom().completionStage(new Supplier<CompletionStage<HttpClientRequest>>() {
-            @Override
-            public CompletionStage<HttpClientRequest> get() {
-                return client.request(HttpMethod.POST, requestURI).toCompletionStage();
-            }
-        })
-                .onFailure(new Predicate<Throwable>() {
-                    @Override
-                    public boolean test(Throwable t) {
-                        // Will not retry on shutdown
-                        return t instanceof IllegalStateException ||
-                                t instanceof RejectedExecutionException;
-                    }
-                })
-                .recoverWithUni(new Supplier<Uni<? extends HttpClientRequest>>() {
-                    @Override
-                    public Uni<? extends HttpClientRequest> get() {
-                        return Uni.createFrom().nothing();
-                    }
-                })
-                .onFailure()
-                .retry()
-                .withBackOff(Duration.ofMillis(100))
-                .atMost(numberOfAttempts)
-                .subscribe().with(
-                        new Consumer<>() {
-                            @Override
-                            public void accept(HttpClientRequest request) {
-                                clientRequestSuccessHandler.handle(request);
-                            }
-                        }, onFailureCallback);
+    /**
+     * @return the number of exports accepted and not completed yet, retries included
+     */
+    public int getInFlightExports() {
+        return inFlightExports.size();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return inFlightExports.flush();
     }
 
+    /**
+     * Stops accepting exports, waits for the exports in flight to complete for at most the drain timeout, then closes
+     * the client.
+     */
     @Override
     @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
     public CompletableResultCode shutdown() {
@@ -179,6 +355,36 @@ public final class VertxHttpSender implements HttpSender {
             return shutdownResult;
         }
 
+        inFlightExports.drain(vertx, drainTimeout).onComplete(abandoned -> {
+            if (abandoned.result() > 0) {
+                throttlingLogger.log(Level.WARNING, "Abandoned " + abandoned.result() + " exports to " + requestURI
+                        + " still in flight after " + drainTimeout.toMillis() + "ms on shutdown");
+            }
+            close();
+        });
+        return shutdownResult;
+    }
+
+    @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+    private void close() {
+        closed = true;
+        if (spool != null) {
+            spool.close();
+        }
+        if (endpointGroup != null) {
+            endpointGroup.close();
+        }
+        if (connectionKeeper != null) {
+            connectionKeeper.close();
+        }
+        exporterMetrics.close();
+        if (compressionWorkers != null) {
+            compressionWorkers.close();
+        }
+        if (shutdownHook != null) {
+            shutdownResult.whenComplete(shutdownHook);
+        }
+
         try {
             client.close()
                     .onSuccess(
@@ -198,124 +404,219 @@ public final class VertxHttpSender implements HttpSender {
             internalLogger.log(Level.FINE, "Unable to complete shutdown", e);
             shutdownResult.fail();
         }
-        return shutdownResult;
     }
 
-    private static class ClientRequestSuccessHandler implements Handler<HttpClientRequest> {
-        private final HttpClient client;
-        private final String requestURI;
-        private final Map<String, String> headers;
-        private final boolean compressionEnabled;
-        private final String contentType;
+    private void recordFailedAttempt(int statusCode) {
+        if (statusCode < 0 || statusCode >= statusAttributes.length) {
+            exporterMetrics.recordFailedAttempt(transportErrorAttributes);
+            return;
+        }
+        Attributes attributes = statusAttributes[statusCode];
+        if (attributes == null) {
+            // Racy, but any thread creates the same attributes
+            attributes = exporterMetrics.statusAttributes(Integer.toString(statusCode));
+            statusAttributes[statusCode] = attributes;
+        }
+        exporterMetrics.recordFailedAttempt(attributes);
+    }
+
+    /**
+     * Per OTLP, only these statuses may be retried.
+     */
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Drives one export through its attempts. The export is run by the {@link ConcurrencyLimiter} once it gets a slot,
+     * and gives the slot back when it completes. The handlers are allocated once per export and reused by every
+     * attempt; retries are scheduled with a Vert.x timer that calls back {@link #handle(Long)}.
+     * <p>
+     * With hedging, a {@link Hedge} may run concurrently with an attempt, possibly on another event loop: the first
+     * of them to complete the export wins, and the payload is only released once the export is complete and no
+     * request is still sending it.
+     */
+    private final class HttpExport implements Runnable, Handler<Long> {
+
+        private final String type;
+        private final MessageWriter requestBodyWriter;
+        private final Compression compression;
+        private final boolean replay;
         private final Consumer<HttpResponse> onHttpResponseRead;
         private final Consumer<Throwable> onError;
-        private final MessageWriter requestBodyWriter;
 
-        private final int attemptNumber;
-        private final Supplier<Boolean> isShutdown;
-
-        public ClientRequestSuccessHandler(HttpClient client,
-                String requestURI, Map<String, String> headers,
-                boolean compressionEnabled,
-                String contentType,
-                Consumer<HttpResponse> onHttpResponseRead,
-                Consumer<Throwable> onError,
-                MessageWriter requestBodyWriter,
-                int attemptNumber,
-                Supplier<Boolean> isShutdown) {
-            this.client = client;
-            this.requestURI = requestURI;
-            this.headers = headers;
-            this.compressionEnabled = compressionEnabled;
-            this.contentType = contentType;
+        private final Handler<AsyncResult<HttpClientRequest>> requestHandler = this::handleRequest;
+        private final Handler<AsyncResult<HttpClientResponse>> responseHandler = this::handleResponse;
+        private final Handler<AsyncResult<Buffer>> bodyHandler = this::handleBody;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // One reference for the export, plus one per request in flight
+        private final AtomicInteger payloadReferences = new AtomicInteger(1);
+
+        private PooledBuffer payload;
+        private Buffer body;
+        private long startNanos;
+        private long attemptStartNanos;
+        private int attempt;
+        private boolean attemptCompleted;
+        private EndpointGroup.Endpoint endpoint;
+        private EndpointGroup.Endpoint lastEndpoint;
+        private HttpClientResponse response;
+        private long hedgeTimerId = -1;
+        // Cancelled when a hedge completes the export while a retry is pending
+        private volatile long retryTimerId = -1;
+
+        HttpExport(MessageWriter requestBodyWriter, Consumer<HttpResponse> onHttpResponseRead,
+                Consumer<Throwable> onError) {
+            this.type = requestBodyWriter.getClass().getSimpleName();
+            this.requestBodyWriter = requestBodyWriter;
+            this.compression = codec != null ? codec.compression() : Compression.NONE;
+            this.replay = false;
+            this.onHttpResponseRead = onHttpResponseRead;
+            this.onError = onError;
+        }
+
+        HttpExport(Buffer body, Compression compression, Consumer<HttpResponse> onHttpResponseRead,
+                Consumer<Throwable> onError) {
+            this.type = "spooled export";
+            this.requestBodyWriter = null;
+            this.body = body;
+            this.compression = compression;
+            this.replay = true;
             this.onHttpResponseRead = onHttpResponseRead;
             this.onError = onError;
-            this.requestBodyWriter = requestBodyWriter;
-            this.attemptNumber = attemptNumber;
-            this.isShutdown = isShutdown;
         }
 
+        /**
+         * Runs once a slot is available.
+         */
         @Override
-        public void handle(HttpClientRequest request) {
+        public void run() {
+            if (closed) {
+                concurrencyLimiter.onIgnore();
+                reportIgnored();
+                onError.accept(new IllegalStateException("Sender is shut down"));
+                return;
+            }
+            if (replay) {
+                begin();
+                return;
+            }
+            // Encode and compress once, every attempt sends the same bytes
+            if (compressionWorkers != null && Context.isOnEventLoopThread()
+                    && requestBodyWriter.getContentLength() >= compressionOffloadThreshold) {
+                // Compressing a large payload would stall the event loop, and every connection it serves
+                compressionWorkers.executeBlocking(this::encode, false).onComplete(this::handleEncoded);
+                return;
+            }
+            PooledBuffer encoded;
+            try {
+                encoded = encode();
+            } catch (IOException e) {
+                encodingFailed(e);
+                return;
+            }
+            encoded(encoded);
+        }
 
-            HttpClientRequest clientRequest = request.response(new Handler<>() {
-                @Override
-                public void handle(AsyncResult<HttpClientResponse> callResult) {
-                    if (callResult.succeeded()) {
-                        HttpClientResponse clientResponse = callResult.result();
-                        clientResponse.body(new Handler<>() {
-                            @Override
-                            public void handle(AsyncResult<Buffer> bodyResult) {
-                                if (bodyResult.succeeded()) {
-                                    if (clientResponse.statusCode() >= 500) {
-                                        if (attemptNumber <= MAX_ATTEMPTS && !isShutdown.get()) {
-                                            // we should retry for 5xx error as they might be recoverable
-                                            initiateSend(client, requestURI,
-                                                    MAX_ATTEMPTS - attemptNumber,
-                                                    newAttempt(),
-                                                    onError);
-                                            return;
-                                        }
-                                    }
-                                    onHttpResponseRead.accept(new HttpResponse() {
-                                        @Override
-                                        public int getStatusCode() {
-                                            return clientResponse.statusCode();
-                                        }
-
-                                        @Override
-                                        public String getStatusMessage() {
-                                            return clientResponse.statusMessage();
-                                        }
-
-                                        @Override
-                                        public byte[] getResponseBody() {
-                                            return bodyResult.result().getBytes();
-                                        }
-                                    });
-                                } else {
-                                    if (attemptNumber <= MAX_ATTEMPTS && !isShutdown.get()) {
-                                        // retry
-                                        initiateSend(client, requestURI,
-                                                MAX_ATTEMPTS - attemptNumber,
-                                                newAttempt(),
-                                                onError);
-                                    } else {
-                                        onError.accept(bodyResult.cause());
-                                    }
-                                }
-                            }
-                        });
-                    } else {
-                        if (attemptNumber <= MAX_ATTEMPTS && !isShutdown.get()) {
-                            // retry
-                            initiateSend(client, requestURI,
-                                    MAX_ATTEMPTS - attemptNumber,
-                                    newAttempt(),
-                                    onError);
-                        } else {
-                            onError.accept(callResult.cause());
-                        }
-                    }
+        private PooledBuffer encode() throws IOException {
+            long encodeStartNanos = System.nanoTime();
+            PooledBuffer encoded = PayloadEncoder.encode(requestBodyWriter, codec);
+            exporterMetrics.recordEncoded(requestBodyWriter.getContentLength(), encoded.buffer().length(),
+                    System.nanoTime() - encodeStartNanos);
+            return encoded;
+        }
+
+        private void handleEncoded(AsyncResult<PooledBuffer> result) {
+            if (result.succeeded()) {
+                encoded(result.result());
+            } else {
+                encodingFailed(result.cause());
+            }
+        }
+
+        private void encoded(PooledBuffer encoded) {
+            payload = encoded;
+            body = payload.buffer();
+            begin();
+        }
+
+        private void encodingFailed(Throwable t) {
+            concurrencyLimiter.onIgnore();
+            reportIgnored();
+            failOnClientRequest(type, t, onError);
+        }
+
+        private void begin() {
+            startNanos = System.nanoTime();
+            start();
+            if (hedger != null && !replay) {
+                scheduleHedge();
+            }
+        }
+
+        void start() {
+            // A hedge may have completed the export, and released the payload, while the retry was pending
+            if (completed.get() || !retainPayload()) {
+                return;
+            }
+            attempt++;
+            attemptStartNanos = System.nanoTime();
+            attemptCompleted = false;
+            exporterMetrics.recordAttempt();
+            response = null;
+            try {
+                if (endpointGroup != null) {
+                    endpoint = endpointGroup.select();
+                    lastEndpoint = endpoint;
                 }
-            })
-                    .putHeader("Content-Type", contentType);
-
-            Buffer buffer = Buffer.buffer(requestBodyWriter.getContentLength());
-            OutputStream os = new BufferOutputStream(buffer);
-            if (compressionEnabled) {
-                clientRequest.putHeader("Content-Encoding", "gzip");
-                try (var gzos = new GZIPOutputStream(os)) {
-                    requestBodyWriter.writeMessage(gzos);
-                } catch (IOException e) {
-                    throw new IllegalStateException(e);
+                newRequest(endpoint).onComplete(requestHandler);
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Will not retry on shutdown
+                attemptCompleted = true;
+                if (endpoint != null) {
+                    endpointGroup.onIgnore(endpoint);
+                    endpoint = null;
                 }
+                releasePayload();
+                fail(e);
+            }
+        }
+
+        /**
+         * Reports the outcome of the attempt to the endpoint group, if any.
+         */
+        private void endAttempt(boolean endpointHealthy) {
+            attemptCompleted = true;
+            releasePayload();
+            if (endpoint == null) {
+                return;
+            }
+            if (endpointHealthy) {
+                endpointGroup.onSuccess(endpoint);
             } else {
-                try {
-                    requestBodyWriter.writeMessage(os);
-                } catch (IOException e) {
-                    throw new IllegalStateException(e);
-                }
+                endpointGroup.onFailure(endpoint);
+            }
+            endpoint = null;
+        }
+
+        private Future<HttpClientRequest> newRequest(EndpointGroup.Endpoint endpoint) {
+            if (endpoint == null && domainSocket == null) {
+                return client.request(HttpMethod.POST, requestURI);
+            }
+            return client.request(new RequestOptions()
+                    .setMethod(HttpMethod.POST)
+                    .setServer(endpoint != null ? endpoint.address() : domainSocket)
+                    .setHost(host)
+                    .setPort(port)
+                    .setURI(requestURI));
+        }
+
+        private HttpClientRequest prepare(HttpClientRequest clientRequest) {
+            clientRequest.putHeader("Content-Type", contentType);
+
+            if (compression != Compression.NONE) {
+                clientRequest.putHeader("Content-Encoding", compression.contentEncoding());
             }
 
             if (!headers.isEmpty()) {
@@ -323,14 +624,325 @@ public final class VertxHttpSender implements HttpSender {
                     clientRequest.putHeader(entry.getKey(), entry.getValue());
                 }
             }
+            return clientRequest;
+        }
+
+        /**
+         * Retry timer.
+         */
+        @Override
+        public void handle(Long timerId) {
+            retryTimerId = -1;
+            start();
+        }
+
+        private void handleRequest(AsyncResult<HttpClientRequest> result) {
+            if (result.failed()) {
+                retryOrFail(result.cause(), -1);
+                return;
+            }
+            prepare(result.result()).send(body).onComplete(responseHandler);
+        }
+
+        private void handleResponse(AsyncResult<HttpClientResponse> result) {
+            if (result.failed()) {
+                retryOrFail(result.cause(), -1);
+                return;
+            }
+            response = result.result();
+            response.body().onComplete(bodyHandler);
+        }
+
+        private void handleBody(AsyncResult<Buffer> bodyResult) {
+            if (attemptCompleted) {
+                return;
+            }
+            if (bodyResult.failed()) {
+                retryOrFail(bodyResult.cause(), -1);
+                return;
+            }
+            HttpClientResponse clientResponse = response;
+            int statusCode = clientResponse.statusCode();
+            if (statusCode < 200 || statusCode >= 300) {
+                recordFailedAttempt(statusCode);
+            }
+            // A gateway error counts towards the ejection of the endpoint, any other answer means it is up
+            endAttempt(statusCode != 502 && statusCode != 503 && statusCode != 504);
+            if (completed.get()) {
+                // A hedge won
+                return;
+            }
+            long latency = System.nanoTime() - attemptStartNanos;
+            if (isRetryable(statusCode)) {
+                long serverDelay = statusCode == 429 || statusCode == 503
+                        ? RetryHints.parseRetryAfter(clientResponse.getHeader("Retry-After"))
+                        : -1;
+                if (scheduleRetry(serverDelay)) {
+                    return;
+                }
+            } else if (hedger != null && statusCode >= 200 && statusCode < 300) {
+                hedger.record(latency);
+            }
+            complete(clientResponse, bodyResult.result(), latency);
+        }
+
+        /**
+         * Completes the export with the response of the original request or of a hedge.
+         */
+        private void complete(HttpClientResponse clientResponse, Buffer responseBody, long latencyNanos) {
+            if (!complete()) {
+                return;
+            }
+            int statusCode = clientResponse.statusCode();
+            exporterMetrics.recordExport(System.nanoTime() - startNanos, statusCode >= 200 && statusCode < 300);
+            if (isRetryable(statusCode)) {
+                spool();
+                reportFailed();
+            } else {
+                // The collector is up, even if it rejected the export
+                reportSucceeded();
+            }
+            releasePayload();
+            // Exhausted retries on overload statuses, or any other 5xx, count against the limit
+            boolean overloaded = statusCode >= 500 || isRetryable(statusCode);
+            onHttpResponseRead.accept(new HttpResponse() {
+                @Override
+                public int getStatusCode() {
+                    return clientResponse.statusCode();
+                }
+
+                @Override
+                public String getStatusMessage() {
+                    return clientResponse.statusMessage();
+                }
+
+                @Override
+                public byte[] getResponseBody() {
+                    return responseBody.getBytes();
+                }
+            });
+            if (overloaded) {
+                concurrencyLimiter.onDropped();
+            } else {
+                concurrencyLimiter.onSuccess(latencyNanos);
+            }
+        }
+
+        /**
+         * @return {@code true} if the caller completes the export, {@code false} if it was already completed
+         */
+        private boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            if (hedgeTimerId >= 0) {
+                vertx.cancelTimer(hedgeTimerId);
+            }
+            long retryTimerId = this.retryTimerId;
+            if (retryTimerId >= 0) {
+                vertx.cancelTimer(retryTimerId);
+            }
+            return true;
+        }
+
+        private void retryOrFail(Throwable t, long serverDelayNanos) {
+            if (attemptCompleted) {
+                return;
+            }
+            exporterMetrics.recordFailedAttempt(transportErrorAttributes);
+            endAttempt(false);
+            if (completed.get()) {
+                // A hedge won
+                return;
+            }
+            if (!scheduleRetry(serverDelayNanos)) {
+                fail(t);
+            }
+        }
+
+        /**
+         * @return {@code true} if another attempt has been scheduled
+         */
+        private boolean scheduleRetry(long serverDelayNanos) {
+            // Retries go on while the exports are drained on shutdown
+            if (replay || attempt >= retryPolicy.getMaxAttempts() || closed) {
+                return false;
+            }
+            if (serverDelayNanos > maxServerDelayNanos) {
+                return false;
+            }
+            long delayNanos = retryPolicy.backoffNanos(attempt, serverDelayNanos);
+            long deadlineNanos = retryPolicy.getDeadlineNanos();
+            if (deadlineNanos > 0 && System.nanoTime() - startNanos + delayNanos > deadlineNanos) {
+                return false;
+            }
+            try {
+                retryTimerId = vertx.setTimer(Math.max(1, NANOSECONDS.toMillis(delayNanos)), this);
+                return true;
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Vert.x is closing
+                return false;
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (!complete()) {
+                return;
+            }
+            spool();
+            releasePayload();
+            reportFailed();
+            exporterMetrics.recordExport(System.nanoTime() - startNanos, false);
+            failOnClientRequest(type, t, onError);
+            concurrencyLimiter.onDropped();
+        }
+
+        /**
+         * Keeps the payload of an export that could not be delivered for a later replay.
+         */
+        @SuppressForbidden(reason = "The use of ThrottlingLogger mandates the use of java.util.logging")
+        private void spool() {
+            if (replay || spool == null || body == null) {
+                return;
+            }
+            try {
+                spool.store(body, compression);
+            } catch (RuntimeException e) {
+                throttlingLogger.log(Level.WARNING, "Unable to spool the failed " + type + " export", e);
+            }
+        }
+
+        private void reportSucceeded() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess();
+            }
+        }
+
+        private void reportFailed() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+        }
+
+        void reportIgnored() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnore();
+            }
+        }
+
+        /**
+         * @return {@code false} if the payload has already been released
+         */
+        private boolean retainPayload() {
+            int references;
+            do {
+                references = payloadReferences.get();
+                if (references == 0) {
+                    return false;
+                }
+            } while (!payloadReferences.compareAndSet(references, references + 1));
+            return true;
+        }
+
+        private void releasePayload() {
+            if (payloadReferences.decrementAndGet() == 0 && payload != null) {
+                payload.release();
+            }
+        }
+
+        private void scheduleHedge() {
+            hedger.onExport();
+            long delayNanos = hedger.getDelayNanos();
+            if (delayNanos < 0) {
+                return;
+            }
+            try {
+                hedgeTimerId = vertx.setTimer(Math.max(1, NANOSECONDS.toMillis(delayNanos)), new Handler<>() {
+                    @Override
+                    public void handle(Long timerId) {
+                        hedge();
+                    }
+                });
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // Vert.x is closing
+            }
+        }
 
-            clientRequest.send(buffer);
+        private void hedge() {
+            if (completed.get() || isShutdown.get() || !retainPayload()) {
+                return;
+            }
+            if (!hedger.tryHedge()) {
+                releasePayload();
+                return;
+            }
+            new Hedge(endpointGroup == null ? null : endpointGroup.selectOther(lastEndpoint)).start();
         }
 
-        public ClientRequestSuccessHandler newAttempt() {
-            return new ClientRequestSuccessHandler(client, requestURI, headers, compressionEnabled,
-                    contentType, onHttpResponseRead,
-                    onError, requestBodyWriter, attemptNumber + 1, isShutdown);
+        /**
+         * A single extra request sent while the original one is still pending. Only a successful hedge completes the
+         * export, a failed one is dropped silently and the original request carries on.
+         */
+        private final class Hedge {
+
+            private final EndpointGroup.Endpoint endpoint;
+            private final long startNanos = System.nanoTime();
+            private HttpClientResponse response;
+            private boolean ended;
+
+            Hedge(EndpointGroup.Endpoint endpoint) {
+                this.endpoint = endpoint;
+            }
+
+            void start() {
+                exporterMetrics.recordAttempt();
+                try {
+                    newRequest(endpoint).onComplete(this::handleRequest);
+                } catch (IllegalStateException | RejectedExecutionException e) {
+                    end(null, null);
+                }
+            }
+
+            private void handleRequest(AsyncResult<HttpClientRequest> result) {
+                if (result.failed()) {
+                    end(null, null);
+                    return;
+                }
+                prepare(result.result()).send(body).onComplete(this::handleResponse);
+            }
+
+            private void handleResponse(AsyncResult<HttpClientResponse> result) {
+                if (result.failed()) {
+                    end(null, null);
+                    return;
+                }
+                response = result.result();
+                response.body().onComplete(bodyResult -> end(response, bodyResult.succeeded() ? bodyResult.result()
+                        : null));
+            }
+
+            private void end(HttpClientResponse clientResponse, Buffer responseBody) {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                int statusCode = clientResponse == null || responseBody == null ? -1 : clientResponse.statusCode();
+                if (statusCode < 200 || statusCode >= 300) {
+                    recordFailedAttempt(statusCode);
+                }
+                if (endpoint != null) {
+                    if (statusCode > 0 && statusCode != 502 && statusCode != 503 && statusCode != 504) {
+                        endpointGroup.onSuccess(endpoint);
+                    } else {
+                        endpointGroup.onFailure(endpoint);
+                    }
+                }
+                releasePayload();
+                if (statusCode >= 200 && statusCode < 300 && !completed.get()) {
+                    hedger.onHedgeWon();
+                    complete(clientResponse, responseBody, System.nanoTime() - startNanos);
+                }
+            }
         }
     }
 }
@@ -20,6 +20,6 @@ public final class BufferOutputStream extends OutputStream {
 
     @Override
     public void write(int b) throws IOException {
-        buffer.appendInt(b);
+        buffer.appendByte((byte) b);
     }
 }
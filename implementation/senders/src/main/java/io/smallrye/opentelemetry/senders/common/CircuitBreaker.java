@@ -0,0 +1,215 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops a sender from building, encoding and retrying exports while the collector is known to be unavailable.
+ * <p>
+ * The breaker opens after {@code failureThreshold} consecutive failed exports, or once the failure rate over the last
+ * {@code windowSize} exports reaches {@code failureRateThreshold}. While open, exports are short-circuited without
+ * being sent, and are only serialized when a spool keeps them for later. After {@code openDuration}, a single probe
+ * export is let through (half-open): the breaker closes if it succeeds, and opens again if it fails.
+ * <p>
+ * An export only fails, for the breaker, when it could not reach the collector or the collector kept answering with an
+ * overload status; an export rejected for good still proves the collector is up.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+
+    // Outcomes of the last exports, true for a failure
+    private final boolean[] window;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probing;
+
+    private volatile State state = State.CLOSED;
+
+    private final OpenException openException;
+
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * @param name the name of the sender, used in logs
+     * @param failureThreshold the number of consecutive failures opening the breaker
+     * @param failureRateThreshold the failure rate opening the breaker, between 0 and 1, {@code 0} to only consider
+     *        consecutive failures
+     * @param windowSize the number of exports the failure rate is computed on
+     * @param openDuration how long the breaker stays open before letting a probe through
+     */
+    public CircuitBreaker(String name, int failureThreshold, double failureRateThreshold, int windowSize,
+            Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        if (failureRateThreshold < 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be between 0 and 1");
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be at least 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.openDurationNanos = openDuration.toNanos();
+        this.openException = new OpenException("The collector of " + name
+                + " is unavailable, the export was dropped without being sent");
+    }
+
+    /**
+     * @return {@code true} if an export may be sent, which must then be reported with {@link #onSuccess()},
+     *         {@link #onFailure()} or {@link #onIgnore()}; {@code false} if it must be short-circuited
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                        break;
+                    }
+                    state = State.HALF_OPEN;
+                    probing = true;
+                    logger.log(Level.FINE, "Circuit breaker of {0} half-open, probing the collector", name);
+                    return true;
+                case HALF_OPEN:
+                    if (!probing) {
+                        probing = true;
+                        return true;
+                    }
+                    break;
+            }
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        record(true);
+        if (consecutiveFailures >= failureThreshold
+                || (failureRateThreshold > 0 && windowCount == window.length
+                        && windowFailures >= failureRateThreshold * window.length)) {
+            open();
+        }
+    }
+
+    /**
+     * Releases the permit of an export that ended without telling anything about the collector.
+     */
+    public synchronized void onIgnore() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+        probing = false;
+        opened.increment();
+        logger.log(Level.WARNING, "The collector of {0} is unavailable, exports are suspended for {1}",
+                new Object[] { name, Duration.ofNanos(openDurationNanos) });
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+        logger.log(Level.INFO, "The collector of {0} is available again, exports are resumed", name);
+    }
+
+    /**
+     * @return the error short-circuited exports fail with, shared by all of them
+     */
+    public OpenException getOpenException() {
+        return openException;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the number of exports short-circuited while the breaker was open
+     */
+    public long getShortCircuited() {
+        return shortCircuited.sum();
+    }
+
+    /**
+     * @return the number of times the breaker opened
+     */
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    /**
+     * The error of the exports short-circuited by an open breaker. It has no stack trace, the same instance is reused
+     * for every export.
+     */
+    public static final class OpenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        OpenException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
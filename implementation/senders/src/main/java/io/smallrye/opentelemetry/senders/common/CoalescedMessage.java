@@ -0,0 +1,55 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+
+/**
+ * Several OTLP export requests of the same signal, sent as one.
+ * <p>
+ * An export request only has one repeated field, the resource spans, metrics or logs, and protobuf parses
+ * concatenated messages as one message with the repeated fields concatenated: the concatenated requests are the merged
+ * request, with no need to decode them.
+ */
+final class CoalescedMessage implements PayloadWriter {
+
+    private final List<MessageWriter> messages;
+    private final int contentLength;
+
+    CoalescedMessage(List<MessageWriter> messages, int contentLength) {
+        this.messages = messages;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buffer) {
+        for (MessageWriter message : messages) {
+            if (message instanceof PayloadWriter) {
+                ((PayloadWriter) message).writeTo(buffer);
+                continue;
+            }
+            try {
+                message.writeMessage(new ByteBufOutputStream(buffer));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void writeMessage(OutputStream output) throws IOException {
+        for (MessageWriter message : messages) {
+            message.writeMessage(output);
+        }
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength;
+    }
+}
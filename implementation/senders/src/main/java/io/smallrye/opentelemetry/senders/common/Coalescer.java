@@ -0,0 +1,177 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.vertx.core.Vertx;
+
+/**
+ * Holds the small exports of a signal for up to a linger time, or until they reach a size, and sends them as a single
+ * request. Every export held in the request gets the outcome of that request.
+ * <p>
+ * Exports larger than the maximum size are sent right away, on their own.
+ *
+ * @param <R> the type of the responses
+ */
+public final class Coalescer<R> {
+
+    /**
+     * Sends a request, {@code GrpcSender::send} or {@code HttpSender::send}.
+     */
+    @FunctionalInterface
+    public interface Sink<R> {
+        void send(MessageWriter messageWriter, Consumer<R> onResponse, Consumer<Throwable> onError);
+    }
+
+    private final Vertx vertx;
+    private final long lingerMillis;
+    private final int maxBytes;
+    private final Sink<R> sink;
+
+    // Guarded by this
+    private Batch batch;
+    private boolean closed;
+
+    /**
+     * @param linger how long the first export of a request waits for others
+     * @param maxBytes the serialized size from which the request is sent without waiting
+     */
+    public Coalescer(Vertx vertx, Duration linger, int maxBytes, Sink<R> sink) {
+        this.vertx = vertx;
+        this.lingerMillis = Math.max(1, linger.toMillis());
+        this.maxBytes = maxBytes;
+        this.sink = sink;
+    }
+
+    public void send(MessageWriter messageWriter, Consumer<R> onResponse, Consumer<Throwable> onError) {
+        int length = messageWriter.getContentLength();
+        Batch full = null;
+        Batch ready = null;
+        boolean held = false;
+        synchronized (this) {
+            if (!closed && length < maxBytes) {
+                if (batch != null && batch.bytes + length > maxBytes) {
+                    full = detach();
+                }
+                if (batch == null) {
+                    Batch created = new Batch();
+                    if (schedule(created)) {
+                        batch = created;
+                    }
+                }
+                if (batch != null) {
+                    batch.add(messageWriter, onResponse, onError);
+                    held = true;
+                    if (batch.bytes >= maxBytes) {
+                        ready = detach();
+                    }
+                }
+            }
+        }
+        if (full != null) {
+            full.send();
+        }
+        if (ready != null) {
+            ready.send();
+        }
+        if (!held) {
+            sink.send(messageWriter, onResponse, onError);
+        }
+    }
+
+    /**
+     * Sends the held exports right away.
+     */
+    public void flush() {
+        Batch pending;
+        synchronized (this) {
+            pending = detach();
+        }
+        if (pending != null) {
+            pending.send();
+        }
+    }
+
+    /**
+     * Sends the held exports right away, the following exports are not held anymore.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    /**
+     * @return the current batch, which is no longer the current one, or {@code null} if there is none
+     */
+    private Batch detach() {
+        Batch detached = batch;
+        batch = null;
+        if (detached != null && detached.timerId >= 0) {
+            vertx.cancelTimer(detached.timerId);
+        }
+        return detached;
+    }
+
+    private boolean schedule(Batch scheduled) {
+        try {
+            scheduled.timerId = vertx.setTimer(lingerMillis, t -> {
+                synchronized (this) {
+                    if (batch != scheduled) {
+                        // Already sent
+                        return;
+                    }
+                    batch = null;
+                }
+                scheduled.send();
+            });
+            return true;
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            // Vert.x is closing, nothing is held anymore
+            return false;
+        }
+    }
+
+    private final class Batch {
+        private final List<MessageWriter> messages = new ArrayList<>();
+        private final List<Consumer<R>> responseConsumers = new ArrayList<>();
+        private final List<Consumer<Throwable>> errorConsumers = new ArrayList<>();
+        private int bytes;
+        private long timerId = -1;
+
+        void add(MessageWriter messageWriter, Consumer<R> onResponse, Consumer<Throwable> onError) {
+            messages.add(messageWriter);
+            responseConsumers.add(onResponse);
+            errorConsumers.add(onError);
+            bytes += messageWriter.getContentLength();
+        }
+
+        void send() {
+            if (messages.isEmpty()) {
+                return;
+            }
+            if (messages.size() == 1) {
+                sink.send(messages.get(0), responseConsumers.get(0), errorConsumers.get(0));
+                return;
+            }
+            sink.send(new CoalescedMessage(messages, bytes), this::onResponse, this::onError);
+        }
+
+        private void onResponse(R response) {
+            for (Consumer<R> consumer : responseConsumers) {
+                consumer.accept(response);
+            }
+        }
+
+        private void onError(Throwable t) {
+            for (Consumer<Throwable> consumer : errorConsumers) {
+                consumer.accept(t);
+            }
+        }
+    }
+}
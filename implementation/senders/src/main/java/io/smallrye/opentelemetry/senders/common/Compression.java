@@ -0,0 +1,58 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.Locale;
+
+/**
+ * The compression of an encoded payload, and how it is announced on the wire.
+ * <p>
+ * Snappy payloads use the framing format, which the collector receives as {@code snappy} over gRPC and as
+ * {@code x-snappy-framed} over HTTP.
+ */
+public enum Compression {
+    // The ordinal is persisted by the spools, only append new values
+    NONE("identity", null),
+    GZIP("gzip", "gzip"),
+    ZSTD("zstd", "zstd"),
+    SNAPPY("snappy", "x-snappy-framed");
+
+    private final String grpcEncoding;
+    private final String contentEncoding;
+
+    Compression(String grpcEncoding, String contentEncoding) {
+        this.grpcEncoding = grpcEncoding;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return the value of the {@code grpc-encoding} header
+     */
+    public String grpcEncoding() {
+        return grpcEncoding;
+    }
+
+    /**
+     * @return the value of the {@code Content-Encoding} header, {@code null} if the payload is not compressed
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * @param name {@code none}, {@code gzip}, {@code zstd} or {@code snappy}
+     */
+    public static Compression fromName(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "none":
+            case "identity":
+                return NONE;
+            case "gzip":
+                return GZIP;
+            case "zstd":
+                return ZSTD;
+            case "snappy":
+                return SNAPPY;
+            default:
+                throw new IllegalArgumentException("Unsupported compression: " + name);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses the payloads of a sender.
+ * <p>
+ * The gzip codec is always available. The zstd and snappy codecs need {@code com.github.luben:zstd-jni} and
+ * {@code org.xerial.snappy:snappy-java} respectively, which are optional dependencies of the senders.
+ */
+public interface CompressionCodec {
+
+    /**
+     * The level of a codec created with this value is the default level of the algorithm.
+     */
+    int DEFAULT_LEVEL = -1;
+
+    Compression compression();
+
+    /**
+     * Wraps a stream so that what is written to it is compressed. Closing the returned stream finishes the compressed
+     * data, closes {@code out} and gives back any resource the codec pooled.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @param compression the algorithm, {@link Compression#NONE} returns {@code null}
+     * @param level the compression level, {@link #DEFAULT_LEVEL} for the default level of the algorithm
+     * @throws IllegalArgumentException if the library implementing the algorithm is not available
+     */
+    static CompressionCodec create(Compression compression, int level) {
+        switch (compression) {
+            case NONE:
+                return null;
+            case GZIP:
+                return new GzipCodec(level);
+            case ZSTD:
+                requireClass("com.github.luben.zstd.ZstdOutputStreamNoFinalizer", "zstd", "com.github.luben:zstd-jni");
+                return new ZstdCodec(level);
+            case SNAPPY:
+                requireClass("org.xerial.snappy.SnappyFramedOutputStream", "snappy", "org.xerial.snappy:snappy-java");
+                return new SnappyCodec();
+            default:
+                throw new IllegalArgumentException("Unsupported compression: " + compression);
+        }
+    }
+
+    private static void requireClass(String className, String algorithm, String library) {
+        try {
+            Class.forName(className, false, CompressionCodec.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalArgumentException(algorithm + " compression requires " + library + " on the class path", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounds the number of exports in flight with a limit that adapts to the observed export latency (AIMD).
+ * <p>
+ * The limit grows by one every time a full window of exports completes in a timely manner, and is multiplied by
+ * {@code backoffRatio} when an export fails or when its latency exceeds {@code latencyTolerance} times the baseline
+ * latency, which tracks the fastest recent exports. Exports that cannot start right away wait in a bounded queue;
+ * once the queue is full, they are rejected. A queued export is started through the given executor once a slot is
+ * released, since the releasing thread is usually the event loop that completed the previous export.
+ * <p>
+ * An {@linkplain #unlimited() unlimited} limiter only counts the exports in flight.
+ * <p>
+ * Each task passed to {@link #execute(Runnable)} must eventually report its outcome with exactly one of
+ * {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnore()}.
+ */
+public final class ConcurrencyLimiter {
+
+    private static final double BASELINE_DECAY = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final Executor queuedTaskExecutor;
+
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private int successesInWindow;
+    private long baselineNanos = -1;
+    private long rejected;
+
+    /**
+     * @param initialLimit the limit to start with
+     * @param minLimit the lower bound of the limit
+     * @param maxLimit the upper bound of the limit
+     * @param maxQueueSize the maximum number of exports waiting for a slot, {@code 0} to reject right away
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize) {
+        this(initialLimit, minLimit, maxLimit, maxQueueSize, 0.9, 2.0, Runnable::run);
+    }
+
+    /**
+     * @param initialLimit the limit to start with
+     * @param minLimit the lower bound of the limit
+     * @param maxLimit the upper bound of the limit
+     * @param maxQueueSize the maximum number of exports waiting for a slot, {@code 0} to reject right away
+     * @param queuedTaskExecutor starts the queued exports once they get a slot
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize,
+            Executor queuedTaskExecutor) {
+        this(initialLimit, minLimit, maxLimit, maxQueueSize, 0.9, 2.0, queuedTaskExecutor);
+    }
+
+    /**
+     * @param initialLimit the limit to start with
+     * @param minLimit the lower bound of the limit
+     * @param maxLimit the upper bound of the limit
+     * @param maxQueueSize the maximum number of exports waiting for a slot, {@code 0} to reject right away
+     * @param backoffRatio the factor applied to the limit on failure or excessive latency
+     * @param latencyTolerance how much slower than the baseline an export may be before the limit decreases
+     * @param queuedTaskExecutor starts the queued exports once they get a slot
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize, double backoffRatio,
+            double latencyTolerance, Executor queuedTaskExecutor) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("maxQueueSize must not be negative");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        if (latencyTolerance < 1) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than or equal to 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.queuedTaskExecutor = queuedTaskExecutor;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return a limiter that never queues nor rejects an export, and only counts the exports in flight
+     */
+    public static ConcurrencyLimiter unlimited() {
+        return new ConcurrencyLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Runs the task on the calling thread if a slot is available, otherwise queues it to run through the executor of
+     * the queued tasks once a slot is released.
+     *
+     * @throws RejectedExecutionException if no slot is available and the queue is full
+     */
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                if (queue.size() >= maxQueueSize) {
+                    rejected++;
+                    throw new RejectedExecutionException("Too many exports in flight (limit " + (int) limit
+                            + ", queued " + queue.size() + ")");
+                }
+                queue.add(task);
+                return;
+            }
+            inFlight++;
+        }
+        task.run();
+    }
+
+    /**
+     * Reports a successful export and its latency.
+     */
+    public void onSuccess(long latencyNanos) {
+        synchronized (this) {
+            if (baselineNanos < 0 || latencyNanos < baselineNanos) {
+                baselineNanos = latencyNanos;
+            } else {
+                // Let the baseline drift up slowly, so that a lasting change of the network path is picked up
+                baselineNanos += (long) ((latencyNanos - baselineNanos) * BASELINE_DECAY);
+            }
+            if (latencyNanos > baselineNanos * latencyTolerance) {
+                decrease();
+            } else if (inFlight * 2 >= (int) limit && ++successesInWindow >= (int) limit) {
+                // Only grow when the current limit is actually used
+                successesInWindow = 0;
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+        release();
+    }
+
+    /**
+     * Reports a failed export, or one that had to be retried because the server is overloaded.
+     */
+    public void onDropped() {
+        synchronized (this) {
+            decrease();
+        }
+        release();
+    }
+
+    /**
+     * Releases the slot without affecting the limit, e.g. when the export never reached the server.
+     */
+    public void onIgnore() {
+        release();
+    }
+
+    private void decrease() {
+        successesInWindow = 0;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = inFlight <= (int) limit ? queue.poll() : null;
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+            // The slot is handed over to the queued task
+        }
+        try {
+            queuedTaskExecutor.execute(next);
+        } catch (RejectedExecutionException e) {
+            next.run();
+        }
+    }
+
+    /**
+     * @return {@code false} for an {@linkplain #unlimited() unlimited} limiter
+     */
+    public boolean isLimited() {
+        return maxLimit < Integer.MAX_VALUE;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ConcurrencyLimiter{limit=" + (int) limit
+                + ", inFlight=" + inFlight
+                + ", queueDepth=" + queue.size()
+                + ", rejected=" + rejected
+                + '}';
+    }
+}
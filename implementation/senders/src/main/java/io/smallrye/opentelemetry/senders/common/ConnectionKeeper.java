@@ -0,0 +1,147 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpConnection;
+
+/**
+ * Keeps the connections of a sender warm, so that the exports do not pay the DNS, TCP and TLS setup within their
+ * timeout: the first connection is opened when the sender is created, the idle HTTP/2 connections are kept alive with
+ * PING frames, and a new connection is opened in the background as soon as the last one drops, instead of on the next
+ * export.
+ * <p>
+ * A connection that does not acknowledge a PING before the next one is due is closed, and replaced.
+ */
+public final class ConnectionKeeper {
+
+    private static final Logger logger = Logger.getLogger(ConnectionKeeper.class.getName());
+
+    static final Duration DEFAULT_RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final Vertx vertx;
+    private final Supplier<Future<HttpConnection>> connector;
+    private final long pingIntervalMillis;
+    private final long reconnectDelayMillis;
+    // The timer pinging each connection, -1 when the connection is not pinged
+    private final Map<HttpConnection, Long> connections = new ConcurrentHashMap<>();
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * @param connector opens a connection to the server, through the connection pool of the sender
+     * @param pingInterval the interval of the PING frames sent on the connections, {@code null} to not send any, which
+     *        is required with HTTP/1.1 as it has no PING frame
+     */
+    public ConnectionKeeper(Vertx vertx, Supplier<Future<HttpConnection>> connector, Duration pingInterval) {
+        this.vertx = vertx;
+        this.connector = connector;
+        this.pingIntervalMillis = pingInterval != null ? Math.max(1, pingInterval.toMillis()) : 0;
+        this.reconnectDelayMillis = pingInterval != null ? pingIntervalMillis : DEFAULT_RECONNECT_DELAY.toMillis();
+    }
+
+    /**
+     * Opens the first connection, asynchronously.
+     */
+    public void start() {
+        connect();
+    }
+
+    /**
+     * Keeps a connection of the sender alive and replaces it when it drops. Connections already kept are ignored.
+     * <p>
+     * This sets the close handler of the connection, so a connection must only be tracked by one keeper, e.g. the one
+     * of {@link SharedGrpcClients.Lease#connectionKeeper(SenderOptions)} when the client is shared.
+     */
+    public void track(HttpConnection connection) {
+        if (closed || connection == null || connections.containsKey(connection)) {
+            return;
+        }
+        if (connections.putIfAbsent(connection, -1L) != null) {
+            return;
+        }
+        connection.closeHandler(v -> onClose(connection));
+        if (pingIntervalMillis > 0) {
+            connections.put(connection, vertx.setPeriodic(pingIntervalMillis, new Pinger(connection)));
+        }
+    }
+
+    /**
+     * Stops pinging the connections and replacing them. The connections themselves are closed with the client.
+     */
+    public void close() {
+        closed = true;
+        for (Long timer : connections.values()) {
+            if (timer >= 0) {
+                vertx.cancelTimer(timer);
+            }
+        }
+        connections.clear();
+    }
+
+    private void connect() {
+        if (closed || !connecting.compareAndSet(false, true)) {
+            return;
+        }
+        Future<HttpConnection> connection;
+        try {
+            connection = connector.get();
+        } catch (IllegalStateException e) {
+            // The client is closed
+            connecting.set(false);
+            return;
+        }
+        connection.onComplete(result -> {
+            connecting.set(false);
+            if (result.succeeded()) {
+                track(result.result());
+            } else if (!closed) {
+                logger.log(Level.FINE, "Unable to open a connection, retrying in " + reconnectDelayMillis + "ms",
+                        result.cause());
+                vertx.setTimer(reconnectDelayMillis, t -> connect());
+            }
+        });
+    }
+
+    private void onClose(HttpConnection connection) {
+        Long timer = connections.remove(connection);
+        if (timer != null && timer >= 0) {
+            vertx.cancelTimer(timer);
+        }
+        // Only the last connection is replaced, the pool sizes itself on the exports
+        if (!closed && connections.isEmpty()) {
+            connect();
+        }
+    }
+
+    private final class Pinger implements Handler<Long> {
+        private final HttpConnection connection;
+        private final Buffer payload = Buffer.buffer(new byte[8]);
+        private volatile boolean pending;
+
+        Pinger(HttpConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void handle(Long timer) {
+            if (pending) {
+                logger.log(Level.FINE, "No PING acknowledgement from {0}, closing the connection",
+                        connection.remoteAddress());
+                connection.close();
+                return;
+            }
+            pending = true;
+            connection.ping(payload).onComplete(result -> pending = false);
+        }
+    }
+}
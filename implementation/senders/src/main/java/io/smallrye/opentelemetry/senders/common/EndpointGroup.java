@@ -0,0 +1,249 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * The collector endpoints a sender balances its exports across.
+ * <p>
+ * The endpoints are either a static list, or the addresses a host name resolves to, resolved again periodically so
+ * that replicas behind a headless service are picked up as they come and go. An endpoint failing
+ * {@code ejectionThreshold} attempts in a row is ejected for {@code ejectionDuration}; if all endpoints are ejected,
+ * they are all considered again rather than failing every export.
+ */
+public final class EndpointGroup {
+
+    private static final Logger logger = Logger.getLogger(EndpointGroup.class.getName());
+
+    public enum Policy {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING
+    }
+
+    private final Policy policy;
+    private final int ejectionThreshold;
+    private final long ejectionDurationNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile Endpoint[] endpoints;
+
+    private Vertx vertx;
+    private String host;
+    private int port;
+    private long refreshTimerId = -1;
+    private volatile boolean closed;
+
+    private EndpointGroup(List<SocketAddress> addresses, Policy policy, int ejectionThreshold,
+            Duration ejectionDuration) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        this.policy = policy;
+        this.ejectionThreshold = ejectionThreshold;
+        this.ejectionDurationNanos = ejectionDuration.toNanos();
+        this.endpoints = toEndpoints(addresses, new Endpoint[0]);
+    }
+
+    /**
+     * A single endpoint, never ejected.
+     */
+    public static EndpointGroup single(SocketAddress address) {
+        return new EndpointGroup(List.of(address), Policy.ROUND_ROBIN, Integer.MAX_VALUE, Duration.ZERO);
+    }
+
+    public static EndpointGroup ofStatic(List<SocketAddress> addresses, Policy policy, int ejectionThreshold,
+            Duration ejectionDuration) {
+        return new EndpointGroup(addresses, policy, ejectionThreshold, ejectionDuration);
+    }
+
+    /**
+     * The addresses of {@code host}, resolved now and again every {@code refreshInterval}, which acts as the TTL of
+     * the resolved addresses.
+     *
+     * @throws UnknownHostException if the host cannot be resolved at all
+     */
+    public static EndpointGroup ofDns(Vertx vertx, String host, int port, Duration refreshInterval, Policy policy,
+            int ejectionThreshold, Duration ejectionDuration) throws UnknownHostException {
+        EndpointGroup group = new EndpointGroup(resolve(host, port), policy, ejectionThreshold, ejectionDuration);
+        group.vertx = vertx;
+        group.host = host;
+        group.port = port;
+        group.refreshTimerId = vertx.setPeriodic(Math.max(1, refreshInterval.toMillis()), new Handler<>() {
+            @Override
+            public void handle(Long timerId) {
+                group.refresh();
+            }
+        });
+        return group;
+    }
+
+    private static List<SocketAddress> resolve(String host, int port) throws UnknownHostException {
+        List<SocketAddress> addresses = new ArrayList<>();
+        for (InetAddress address : InetAddress.getAllByName(host)) {
+            // The resolved address keeps the host name, which is still used for TLS and the authority
+            addresses.add(SocketAddress.inetSocketAddress(new InetSocketAddress(address, port)));
+        }
+        return addresses;
+    }
+
+    private void refresh() {
+        if (closed) {
+            return;
+        }
+        vertx.executeBlocking(() -> resolve(host, port), false)
+                .onSuccess(addresses -> {
+                    if (!closed && !addresses.isEmpty()) {
+                        endpoints = toEndpoints(addresses, endpoints);
+                    }
+                })
+                .onFailure(t -> logger.log(Level.FINE, "Unable to resolve " + host + ", keeping the known endpoints",
+                        t));
+    }
+
+    /**
+     * Keeps the state of the endpoints that are still there.
+     */
+    private static Endpoint[] toEndpoints(List<SocketAddress> addresses, Endpoint[] previous) {
+        Endpoint[] result = new Endpoint[addresses.size()];
+        for (int i = 0; i < result.length; i++) {
+            SocketAddress address = addresses.get(i);
+            Endpoint endpoint = null;
+            for (Endpoint existing : previous) {
+                if (existing.address.equals(address)) {
+                    endpoint = existing;
+                    break;
+                }
+            }
+            result[i] = endpoint != null ? endpoint : new Endpoint(address);
+        }
+        return result;
+    }
+
+    /**
+     * Picks the endpoint of the next attempt. The caller must report the outcome of the attempt with
+     * {@link #onSuccess(Endpoint)} or {@link #onFailure(Endpoint)}.
+     */
+    public Endpoint select() {
+        Endpoint[] current = endpoints;
+        Endpoint selected;
+        if (current.length == 1) {
+            selected = current[0];
+        } else {
+            long now = System.nanoTime();
+            // Both passes start from the same endpoint, the cursor moves once per selection
+            int start = Math.floorMod(next.getAndIncrement(), current.length);
+            selected = select(current, start, now, false);
+            if (selected == null) {
+                // Everything is ejected, try them all again
+                selected = select(current, start, now, true);
+            }
+        }
+        selected.outstanding.incrementAndGet();
+        return selected;
+    }
+
+    /**
+     * Like {@link #select()}, but avoids the given endpoint unless it is the only one.
+     */
+    public Endpoint selectOther(Endpoint avoid) {
+        int attempts = endpoints.length;
+        for (int i = 0; i < attempts; i++) {
+            Endpoint selected = select();
+            if (selected != avoid || attempts == 1) {
+                return selected;
+            }
+            selected.outstanding.decrementAndGet();
+        }
+        return select();
+    }
+
+    private Endpoint select(Endpoint[] current, int start, long now, boolean includeEjected) {
+        Endpoint best = null;
+        for (int i = 0; i < current.length; i++) {
+            Endpoint candidate = current[(start + i) % current.length];
+            if (!includeEjected && candidate.isEjected(now)) {
+                continue;
+            }
+            if (policy == Policy.ROUND_ROBIN) {
+                return candidate;
+            }
+            if (best == null || candidate.outstanding.get() < best.outstanding.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    public void onSuccess(Endpoint endpoint) {
+        endpoint.outstanding.decrementAndGet();
+        endpoint.consecutiveFailures.set(0);
+    }
+
+    public void onFailure(Endpoint endpoint) {
+        endpoint.outstanding.decrementAndGet();
+        if (endpoint.consecutiveFailures.incrementAndGet() >= ejectionThreshold && endpoints.length > 1) {
+            endpoint.consecutiveFailures.set(0);
+            endpoint.ejectedUntilNanos = System.nanoTime() + ejectionDurationNanos;
+            logger.log(Level.FINE, "Ejecting endpoint " + endpoint.address + " for "
+                    + Duration.ofNanos(ejectionDurationNanos));
+        }
+    }
+
+    /**
+     * Releases the slot taken by {@link #select()} without reporting anything about the endpoint.
+     */
+    public void onIgnore(Endpoint endpoint) {
+        endpoint.outstanding.decrementAndGet();
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return List.of(endpoints);
+    }
+
+    public void close() {
+        closed = true;
+        if (refreshTimerId >= 0) {
+            vertx.cancelTimer(refreshTimerId);
+        }
+    }
+
+    public static final class Endpoint {
+        private final SocketAddress address;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntilNanos;
+
+        Endpoint(SocketAddress address) {
+            this.address = address;
+        }
+
+        public SocketAddress address() {
+            return address;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        boolean isEjected(long now) {
+            long until = ejectedUntilNanos;
+            return until != 0 && now - until < 0;
+        }
+
+        @Override
+        public String toString() {
+            return address.toString();
+        }
+    }
+}
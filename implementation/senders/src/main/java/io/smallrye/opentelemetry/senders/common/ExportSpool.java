@@ -0,0 +1,23 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Receives the encoded payloads of exports that could not be delivered after all their attempts, so that they can be
+ * replayed later through {@link ReplayableSender#replay}.
+ */
+public interface ExportSpool {
+
+    /**
+     * Stores a payload. The content must be copied before returning, the buffer is released right after.
+     *
+     * @param payload the encoded export request, as sent on the wire
+     * @param compression the compression of the payload
+     */
+    void store(Buffer payload, Compression compression);
+
+    /**
+     * Called when the sender shuts down.
+     */
+    void close();
+}
@@ -0,0 +1,206 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+
+/**
+ * The metrics a sender reports about itself: payload sizes before and after compression, encoding and export
+ * durations, attempts, failed attempts by gRPC status or HTTP status code, and the state of its concurrency limit and
+ * circuit breaker. The {@link PooledBufferAllocator payload buffer pool}, shared by all the senders, is reported once
+ * per meter provider.
+ * <p>
+ * Senders are usually created while the {@link MeterProvider} that would report their metrics is still being built, so
+ * the instruments are only registered when the sender starts exporting; until then, and when no provider is given,
+ * they are no-ops. The instruments and their attributes are created once, recording does not allocate. The HTTP and
+ * gRPC clients of the senders do not trace their requests, so exporting these metrics does not produce telemetry about
+ * itself in turn.
+ */
+public final class ExporterMetrics {
+
+    private static final Logger logger = Logger.getLogger(ExporterMetrics.class.getName());
+
+    static final String INSTRUMENTATION_NAME = "io.smallrye.opentelemetry.senders";
+
+    static final AttributeKey<String> TRANSPORT = AttributeKey.stringKey("exporter.transport");
+    static final AttributeKey<String> ENDPOINT = AttributeKey.stringKey("exporter.endpoint");
+    static final AttributeKey<String> STATUS = AttributeKey.stringKey("exporter.status");
+    static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("exporter.outcome");
+    static final AttributeKey<Boolean> POOLED = AttributeKey.booleanKey("exporter.buffer.pooled");
+
+    private static final Meter NOOP_METER = MeterProvider.noop().get(INSTRUMENTATION_NAME);
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final Attributes POOLED_ATTRIBUTES = Attributes.of(POOLED, true);
+    private static final Attributes UNPOOLED_ATTRIBUTES = Attributes.of(POOLED, false);
+    // The pool instruments live as long as their provider, whichever sender registered them
+    private static final Map<MeterProvider, Boolean> poolInstruments = new WeakHashMap<>();
+
+    private final Supplier<MeterProvider> meterProvider;
+    private final Attributes attributes;
+    private final Attributes successAttributes;
+    private final Attributes failureAttributes;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final List<AutoCloseable> instruments = new ArrayList<>();
+
+    private volatile LongCounter uncompressedBytes;
+    private volatile LongCounter compressedBytes;
+    private volatile DoubleHistogram encodeDuration;
+    private volatile DoubleHistogram exportDuration;
+    private volatile LongCounter attempts;
+    private volatile LongCounter failedAttempts;
+
+    /**
+     * @param meterProvider supplies the provider to register the instruments with, {@code null} to not report
+     *        anything
+     * @param transport {@code grpc} or {@code http}
+     * @param endpoint the gRPC service or the HTTP path the sender exports to
+     */
+    public ExporterMetrics(Supplier<MeterProvider> meterProvider, String transport, String endpoint) {
+        this.meterProvider = meterProvider;
+        this.attributes = Attributes.of(TRANSPORT, transport, ENDPOINT, endpoint);
+        this.successAttributes = attributes.toBuilder().put(OUTCOME, "success").build();
+        this.failureAttributes = attributes.toBuilder().put(OUTCOME, "failure").build();
+        createInstruments(NOOP_METER);
+    }
+
+    /**
+     * @return the attributes of a failed attempt with the given status, to be created once per status and passed to
+     *         {@link #recordFailedAttempt(Attributes)}
+     */
+    public Attributes statusAttributes(String status) {
+        return attributes.toBuilder().put(STATUS, status).build();
+    }
+
+    private void createInstruments(Meter meter) {
+        uncompressedBytes = meter.counterBuilder("otel.exporter.payload.uncompressed.size")
+                .setDescription("The size of the serialized export requests, before compression")
+                .setUnit("By")
+                .build();
+        compressedBytes = meter.counterBuilder("otel.exporter.payload.size")
+                .setDescription("The size of the export requests as sent, after compression")
+                .setUnit("By")
+                .build();
+        encodeDuration = meter.histogramBuilder("otel.exporter.encode.duration")
+                .setDescription("The time spent serializing and compressing export requests")
+                .setUnit("s")
+                .build();
+        exportDuration = meter.histogramBuilder("otel.exporter.export.duration")
+                .setDescription("The duration of the exports, from their first attempt to their outcome")
+                .setUnit("s")
+                .build();
+        attempts = meter.counterBuilder("otel.exporter.attempts")
+                .setDescription("The requests sent, including retries and hedges")
+                .build();
+        failedAttempts = meter.counterBuilder("otel.exporter.attempt.failures")
+                .setDescription("The requests that failed, by gRPC status or HTTP status code")
+                .build();
+    }
+
+    /**
+     * Registers the instruments, once.
+     */
+    public void start(CircuitBreaker circuitBreaker, ConcurrencyLimiter concurrencyLimiter) {
+        if (meterProvider == null || !started.compareAndSet(false, true)) {
+            return;
+        }
+        MeterProvider provider;
+        Meter meter;
+        try {
+            provider = meterProvider.get();
+            meter = provider.get(INSTRUMENTATION_NAME);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Unable to get the meter of the exporter metrics", e);
+            return;
+        }
+        createInstruments(meter);
+        registerPoolInstruments(provider, meter);
+        synchronized (instruments) {
+            instruments.add(meter.upDownCounterBuilder("otel.exporter.concurrency.in_flight")
+                    .setDescription("The exports in flight, retries included")
+                    .buildWithCallback(m -> m.record(concurrencyLimiter.getInFlight(), attributes)));
+            if (concurrencyLimiter.isLimited()) {
+                instruments.add(meter.gaugeBuilder("otel.exporter.concurrency.limit")
+                        .setDescription("The current limit of exports in flight")
+                        .ofLongs()
+                        .buildWithCallback(m -> m.record(concurrencyLimiter.getLimit(), attributes)));
+                instruments.add(meter.upDownCounterBuilder("otel.exporter.concurrency.queue_depth")
+                        .setDescription("The exports waiting for the concurrency limit")
+                        .buildWithCallback(m -> m.record(concurrencyLimiter.getQueueDepth(), attributes)));
+                instruments.add(meter.counterBuilder("otel.exporter.concurrency.rejected")
+                        .setDescription("The exports rejected because the concurrency limit queue was full")
+                        .buildWithCallback(m -> m.record(concurrencyLimiter.getRejected(), attributes)));
+            }
+            if (circuitBreaker != null) {
+                instruments.add(meter.gaugeBuilder("otel.exporter.circuit_breaker.state")
+                        .setDescription("The state of the exporter circuit breaker: 0 closed, 1 open, 2 half-open")
+                        .ofLongs()
+                        .buildWithCallback(m -> m.record(circuitBreaker.getState().ordinal(), attributes)));
+                instruments.add(meter.counterBuilder("otel.exporter.circuit_breaker.short_circuited")
+                        .setDescription("The exports dropped without being sent while the circuit breaker was open")
+                        .buildWithCallback(m -> m.record(circuitBreaker.getShortCircuited(), attributes)));
+            }
+        }
+    }
+
+    private static void registerPoolInstruments(MeterProvider provider, Meter meter) {
+        synchronized (poolInstruments) {
+            if (poolInstruments.putIfAbsent(provider, Boolean.TRUE) != null) {
+                return;
+            }
+        }
+        PooledBufferAllocator pool = PooledBufferAllocator.INSTANCE;
+        meter.counterBuilder("otel.exporter.buffer_pool.allocations")
+                .setDescription("The released payload buffers, by whether the pool served them")
+                .buildWithCallback(m -> {
+                    m.record(pool.getPooledAllocations(), POOLED_ATTRIBUTES);
+                    m.record(pool.getUnpooledAllocations(), UNPOOLED_ATTRIBUTES);
+                });
+        meter.upDownCounterBuilder("otel.exporter.buffer_pool.used")
+                .setDescription("The memory held by the payloads not released yet")
+                .setUnit("By")
+                .buildWithCallback(m -> m.record(pool.getBytesInUse()));
+    }
+
+    public void recordEncoded(long uncompressedSize, long size, long durationNanos) {
+        uncompressedBytes.add(uncompressedSize, attributes);
+        compressedBytes.add(size, attributes);
+        encodeDuration.record(durationNanos / NANOS_PER_SECOND, attributes);
+    }
+
+    public void recordAttempt() {
+        attempts.add(1, attributes);
+    }
+
+    public void recordFailedAttempt(Attributes statusAttributes) {
+        failedAttempts.add(1, statusAttributes);
+    }
+
+    public void recordExport(long durationNanos, boolean success) {
+        exportDuration.record(durationNanos / NANOS_PER_SECOND, success ? successAttributes : failureAttributes);
+    }
+
+    public void close() {
+        synchronized (instruments) {
+            for (AutoCloseable instrument : instruments) {
+                try {
+                    instrument.close();
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "Unable to close an exporter metric", e);
+                }
+            }
+            instruments.clear();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Collects the outcomes of one export sent to several destinations, and reports a single outcome once all of them have
+ * completed, according to the {@link Policy}.
+ * <p>
+ * The outcome is only reported once every destination has completed, even when the policy is already settled, as the
+ * exporters may reuse the exported message as soon as the outcome is reported.
+ *
+ * @param <R> the type of the responses
+ */
+public final class FanOut<R> {
+
+    public enum Policy {
+        /**
+         * The export succeeds if every destination accepted it.
+         */
+        ALL,
+        /**
+         * The export succeeds if at least one destination accepted it.
+         */
+        ANY
+    }
+
+    private final Policy policy;
+    private final Predicate<R> isSuccess;
+    private final Consumer<R> onResponse;
+    private final Consumer<Throwable> onError;
+    private final Runnable onComplete;
+
+    private int pending;
+    private int successes;
+    private R success;
+    private R failure;
+    private Throwable error;
+
+    /**
+     * @param destinations the number of destinations the export is sent to
+     * @param isSuccess tells whether a response accepts the export
+     * @param onComplete called once every destination has completed, before the outcome is reported
+     */
+    public FanOut(int destinations, Policy policy, Predicate<R> isSuccess, Consumer<R> onResponse,
+            Consumer<Throwable> onError, Runnable onComplete) {
+        this.pending = destinations;
+        this.policy = policy;
+        this.isSuccess = isSuccess;
+        this.onResponse = onResponse;
+        this.onError = onError;
+        this.onComplete = onComplete;
+    }
+
+    public void onResponse(R response) {
+        synchronized (this) {
+            if (isSuccess.test(response)) {
+                successes++;
+                if (success == null) {
+                    success = response;
+                }
+            } else if (failure == null) {
+                failure = response;
+            }
+            if (--pending > 0) {
+                return;
+            }
+        }
+        complete();
+    }
+
+    public void onError(Throwable t) {
+        synchronized (this) {
+            if (error == null) {
+                error = t;
+            }
+            if (--pending > 0) {
+                return;
+            }
+        }
+        complete();
+    }
+
+    private void complete() {
+        onComplete.run();
+        boolean succeeded = policy == Policy.ALL ? failure == null && error == null : successes > 0;
+        if (succeeded) {
+            onResponse.accept(success);
+        } else if (failure != null) {
+            onResponse.accept(failure);
+        } else {
+            onError.accept(error);
+        }
+    }
+}
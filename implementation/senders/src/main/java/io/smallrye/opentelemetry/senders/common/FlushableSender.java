@@ -0,0 +1,15 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * A sender which keeps track of the exports it is sending, so that the exporters can wait for them.
+ */
+public interface FlushableSender {
+
+    /**
+     * @return a result completed once the exports sent before this call have completed, retries included, whatever
+     *         their outcome
+     */
+    CompletableResultCode flush();
+}
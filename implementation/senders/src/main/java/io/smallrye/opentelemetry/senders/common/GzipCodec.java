@@ -0,0 +1,107 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Gzip with pooled {@link Deflater}s. {@link java.util.zip.GZIPOutputStream} allocates a new deflater, and its native
+ * state, for every stream; this codec writes the gzip framing itself around deflaters that are reset and reused.
+ */
+final class GzipCodec implements CompressionCodec {
+
+    private static final int MAX_POOLED = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, // magic
+            Deflater.DEFLATED, // method
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            0 // operating system
+    };
+
+    private final int level;
+    private final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    GzipCodec(int level) {
+        if (level != DEFAULT_LEVEL && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("The gzip level must be between 0 and 9");
+        }
+        this.level = level == DEFAULT_LEVEL ? Deflater.DEFAULT_COMPRESSION : level;
+    }
+
+    @Override
+    public Compression compression() {
+        return Compression.GZIP;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            // Raw deflate, the gzip header and trailer are written by the stream
+            deflater = new Deflater(level, true);
+        }
+        return new GzipStream(out, deflater);
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private final class GzipStream extends DeflaterOutputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean finished;
+        private boolean released;
+
+        GzipStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, BUFFER_SIZE);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            super.finish();
+            writeIntLE((int) crc.getValue());
+            writeIntLE((int) def.getBytesRead());
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    release(def);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when a sender sends a second copy of a slow export (a hedge), and whether it still may.
+ * <p>
+ * The hedge delay is the configured percentile of the latency of the recent successful exports, but never less than
+ * {@code minDelay}: an export still pending after that delay is likely stuck on a slow endpoint. The extra load is
+ * bounded by a token bucket that earns {@code maxRatio} of a token per export, so that at most that fraction of the
+ * exports is hedged over time.
+ */
+public final class Hedger {
+
+    private static final int SAMPLES = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 32;
+    private static final double MAX_TOKENS = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxRatio;
+
+    private final long[] samples = new long[SAMPLES];
+    private int sampleCount;
+    private int nextSample;
+    private int sinceRecompute;
+    private volatile long delayNanos = -1;
+    private double tokens;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    /**
+     * @param percentile the latency percentile after which a pending export is hedged, between 0 and 1
+     * @param minDelay the lower bound of the hedge delay
+     * @param maxRatio the maximum fraction of the exports that may be hedged, between 0 and 1
+     */
+    public Hedger(double percentile, Duration minDelay, double maxRatio) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        if (maxRatio <= 0 || maxRatio > 1) {
+            throw new IllegalArgumentException("maxRatio must be between 0 and 1");
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRatio = maxRatio;
+    }
+
+    /**
+     * Records the latency of a successful export.
+     */
+    public void record(long latencyNanos) {
+        long[] sorted = null;
+        synchronized (this) {
+            samples[nextSample] = latencyNanos;
+            nextSample = (nextSample + 1) % SAMPLES;
+            if (sampleCount < SAMPLES) {
+                sampleCount++;
+            }
+            if (sampleCount >= MIN_SAMPLES && ++sinceRecompute >= RECOMPUTE_EVERY) {
+                sinceRecompute = 0;
+                sorted = Arrays.copyOf(samples, sampleCount);
+            }
+        }
+        if (sorted != null) {
+            Arrays.sort(sorted);
+            long value = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+            delayNanos = Math.max(minDelayNanos, value);
+        }
+    }
+
+    /**
+     * @return the delay after which an export should be hedged, or {@code -1} while there are not enough samples yet
+     */
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * Called for every export, earns the budget of the hedges.
+     */
+    public synchronized void onExport() {
+        tokens = Math.min(MAX_TOKENS, tokens + maxRatio);
+    }
+
+    /**
+     * @return {@code true} if the budget allows one more hedge, which is then accounted for
+     */
+    public boolean tryHedge() {
+        synchronized (this) {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+        }
+        hedges.increment();
+        return true;
+    }
+
+    /**
+     * Called when a hedge completed the export before the original request.
+     */
+    public void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+}
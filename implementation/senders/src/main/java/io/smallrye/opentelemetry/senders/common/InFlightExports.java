@@ -0,0 +1,93 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * The exports a sender has accepted and not completed yet, whether they are waiting for a slot, in flight, or waiting
+ * for a retry.
+ */
+public final class InFlightExports {
+
+    private final Set<CompletableResultCode> exports = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return the handle of the export, to pass to {@link #end(CompletableResultCode)} once it completes
+     */
+    public CompletableResultCode begin() {
+        CompletableResultCode export = new CompletableResultCode();
+        exports.add(export);
+        return export;
+    }
+
+    public void end(CompletableResultCode export) {
+        if (exports.remove(export)) {
+            export.succeed();
+        }
+    }
+
+    /**
+     * @return the consumer, ending the export once it has consumed the outcome
+     */
+    public <T> Consumer<T> endWith(CompletableResultCode export, Consumer<T> consumer) {
+        return new Consumer<>() {
+            @Override
+            public void accept(T outcome) {
+                try {
+                    consumer.accept(outcome);
+                } finally {
+                    end(export);
+                }
+            }
+        };
+    }
+
+    public int size() {
+        return exports.size();
+    }
+
+    /**
+     * @return a result completed once the exports in flight at the time of the call have completed
+     */
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofAll(List.copyOf(exports));
+    }
+
+    /**
+     * Waits for the exports in flight to complete, for at most the given timeout.
+     *
+     * @return a future completed with the number of exports still in flight when it gave up, {@code 0} if they all
+     *         completed
+     */
+    public Future<Integer> drain(Vertx vertx, Duration timeout) {
+        if (exports.isEmpty()) {
+            return Future.succeededFuture(0);
+        }
+        if (timeout.isZero() || timeout.isNegative()) {
+            return Future.succeededFuture(exports.size());
+        }
+        Promise<Integer> drained = Promise.promise();
+        long timer;
+        try {
+            timer = vertx.setTimer(timeout.toMillis(), t -> drained.tryComplete(exports.size()));
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            // Vert.x is closing, the exports cannot complete anymore
+            return Future.succeededFuture(exports.size());
+        }
+        flush().whenComplete(() -> {
+            if (drained.tryComplete(0)) {
+                vertx.cancelTimer(timer);
+            }
+        });
+        return drained.future();
+    }
+}
@@ -3,6 +3,8 @@ package io.smallrye.opentelemetry.senders.common;
 import java.net.URI;
 import java.util.Locale;
 
+import io.vertx.core.net.SocketAddress;
+
 public final class OTelExporterUtil {
 
     private OTelExporterUtil() {
@@ -23,4 +25,21 @@ public final class OTelExporterUtil {
     public static boolean isHttps(URI uri) {
         return "https".equals(uri.getScheme().toLowerCase(Locale.ROOT));
     }
+
+    /**
+     * @return {@code true} for the {@code unix:///path/to.sock} endpoints of a Unix domain socket
+     */
+    public static boolean isDomainSocket(URI uri) {
+        return uri.getScheme() != null && "unix".equals(uri.getScheme().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the address of the server the URI points to, the socket file of a Unix domain socket or a host and port
+     */
+    public static SocketAddress getServerAddress(URI uri) {
+        if (isDomainSocket(uri)) {
+            return SocketAddress.domainSocketAddress(uri.getPath());
+        }
+        return SocketAddress.inetSocketAddress(getPort(uri), uri.getHost());
+    }
 }
@@ -0,0 +1,82 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+
+/**
+ * Serializes (and optionally compresses) a message into a pooled buffer. The senders do this once per export and send
+ * the resulting bytes on every attempt, so retries do not pay the marshaling and compression cost again.
+ */
+public final class PayloadEncoder {
+
+    private PayloadEncoder() {
+    }
+
+    /**
+     * @param codec the codec compressing the payload, {@code null} to not compress it
+     */
+    public static PooledBuffer encode(MessageWriter messageWriter, CompressionCodec codec) throws IOException {
+        if (messageWriter instanceof SharedPayload) {
+            return ((SharedPayload) messageWriter).encode(codec);
+        }
+        if (messageWriter instanceof PayloadWriter) {
+            return encode((PayloadWriter) messageWriter, codec);
+        }
+        PooledBuffer payload = PooledBufferAllocator.INSTANCE.acquire(messageWriter.getContentLength());
+        try {
+            OutputStream os = payload.outputStream();
+            if (codec != null) {
+                try (var compressed = codec.compress(os)) {
+                    messageWriter.writeMessage(compressed);
+                }
+            } else {
+                messageWriter.writeMessage(os);
+            }
+            return payload;
+        } catch (IOException | RuntimeException e) {
+            payload.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the message straight into the pooled buffer. A compressed message is first written into a second pooled
+     * buffer, which the codec then reads from.
+     *
+     * @param codec the codec compressing the payload, {@code null} to not compress it
+     */
+    public static PooledBuffer encode(PayloadWriter payloadWriter, CompressionCodec codec) throws IOException {
+        int length = payloadWriter.getContentLength();
+        if (codec == null) {
+            PooledBuffer payload = PooledBufferAllocator.INSTANCE.acquire(length);
+            try {
+                payloadWriter.writeTo(payload.byteBuf());
+                return payload;
+            } catch (RuntimeException e) {
+                payload.release();
+                throw e;
+            }
+        }
+
+        PooledBuffer uncompressed = PooledBufferAllocator.INSTANCE.acquire(length);
+        try {
+            ByteBuf source = uncompressed.byteBuf();
+            payloadWriter.writeTo(source);
+            PooledBuffer payload = PooledBufferAllocator.INSTANCE.acquire(length);
+            try {
+                try (var compressed = codec.compress(payload.outputStream())) {
+                    source.readBytes(compressed, source.readableBytes());
+                }
+                return payload;
+            } catch (IOException | RuntimeException e) {
+                payload.release();
+                throw e;
+            }
+        } finally {
+            uncompressed.release();
+        }
+    }
+}
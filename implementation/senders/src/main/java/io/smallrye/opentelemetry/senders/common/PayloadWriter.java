@@ -0,0 +1,33 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+
+/**
+ * A message that writes itself straight into a {@link ByteBuf}. The senders serialize such a message into their pooled
+ * payload buffer directly, rather than through an {@link OutputStream}; {@link #getContentLength()} must be the exact
+ * number of bytes written.
+ */
+public interface PayloadWriter extends MessageWriter {
+
+    /**
+     * Writes the message at the writer index of {@code buffer}.
+     */
+    void writeTo(ByteBuf buffer);
+
+    @Override
+    default void writeMessage(OutputStream output) throws IOException {
+        int length = getContentLength();
+        ByteBuf buffer = Unpooled.buffer(length);
+        try {
+            writeTo(buffer);
+            buffer.readBytes(output, buffer.readableBytes());
+        } finally {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * A serialized payload backed by a pooled direct buffer. The memory goes back to the pool on {@link #release()},
+ * which must be called once the request using it has completed.
+ */
+public final class PooledBuffer {
+
+    private final PooledBufferAllocator allocator;
+    private final ByteBuf byteBuf;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final boolean accounting;
+    private int accounted;
+
+    PooledBuffer(PooledBufferAllocator allocator, ByteBuf byteBuf) {
+        this(allocator, byteBuf, true);
+    }
+
+    private PooledBuffer(PooledBufferAllocator allocator, ByteBuf byteBuf, boolean accounting) {
+        this.allocator = allocator;
+        this.byteBuf = byteBuf;
+        this.accounting = accounting;
+        this.accounted = accounting ? byteBuf.capacity() : 0;
+    }
+
+    public OutputStream outputStream() {
+        return new ByteBufOutputStream(byteBuf);
+    }
+
+    public ByteBuf byteBuf() {
+        return byteBuf;
+    }
+
+    /**
+     * Returns a Vert.x view of the written bytes. The view cannot release the underlying buffer, so writing it to a
+     * connection leaves the pooled memory untouched until {@link #release()} is called.
+     */
+    public Buffer buffer() {
+        int capacity = byteBuf.capacity();
+        if (accounting && capacity != accounted) {
+            allocator.onResize(capacity - accounted);
+            accounted = capacity;
+        }
+        return Buffer.buffer(Unpooled.unreleasableBuffer(byteBuf));
+    }
+
+    /**
+     * Returns a payload sharing the memory of this one, with its own read position, to be sent by another sender. The
+     * memory goes back to the pool once both payloads are released; it is only accounted for by this one.
+     */
+    public PooledBuffer duplicate() {
+        return new PooledBuffer(allocator, byteBuf.retainedDuplicate(), false);
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            if (accounting) {
+                allocator.onRelease(accounted, byteBuf.capacity());
+            }
+            byteBuf.release();
+        }
+    }
+}
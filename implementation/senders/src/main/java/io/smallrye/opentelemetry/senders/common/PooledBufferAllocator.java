@@ -0,0 +1,75 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Hands out pooled direct {@link ByteBuf}s used to serialize OTLP payloads, and keeps track of how well the pool is
+ * serving the senders.
+ * <p>
+ * A payload is counted once released, from the capacity it ended up with after growing while being written: Netty
+ * serves buffers up to a pool chunk from its arenas, and allocates larger ones outside of the pool.
+ */
+public final class PooledBufferAllocator {
+
+    public static final PooledBufferAllocator INSTANCE = new PooledBufferAllocator(PooledByteBufAllocator.DEFAULT);
+
+    private final PooledByteBufAllocator allocator;
+    private final int chunkSize;
+
+    private final LongAdder pooled = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+    private final LongAdder bytesInUse = new LongAdder();
+
+    PooledBufferAllocator(PooledByteBufAllocator allocator) {
+        this.allocator = allocator;
+        this.chunkSize = allocator.metric().chunkSize();
+    }
+
+    public PooledBuffer acquire(int initialCapacity) {
+        ByteBuf byteBuf = allocator.directBuffer(Math.max(initialCapacity, 64));
+        bytesInUse.add(byteBuf.capacity());
+        return new PooledBuffer(this, byteBuf);
+    }
+
+    void onResize(int delta) {
+        bytesInUse.add(delta);
+    }
+
+    /**
+     * @param accounted the capacity counted in the bytes in use
+     * @param capacity the final capacity of the buffer
+     */
+    void onRelease(int accounted, int capacity) {
+        bytesInUse.add(-accounted);
+        if (capacity > chunkSize) {
+            unpooled.increment();
+        } else {
+            pooled.increment();
+        }
+    }
+
+    /**
+     * @return the number of released payloads whose buffer was served by the pool
+     */
+    public long getPooledAllocations() {
+        return pooled.sum();
+    }
+
+    /**
+     * @return the number of released payloads whose buffer was larger than a pool chunk, and allocated outside of the
+     *         pool
+     */
+    public long getUnpooledAllocations() {
+        return unpooled.sum();
+    }
+
+    /**
+     * @return the number of bytes currently held by payloads that have not been released yet
+     */
+    public long getBytesInUse() {
+        return bytesInUse.sum();
+    }
+}
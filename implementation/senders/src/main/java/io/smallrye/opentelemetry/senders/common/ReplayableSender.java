@@ -0,0 +1,23 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * A sender able to send a payload it encoded earlier, typically one read back from an {@link ExportSpool}.
+ */
+public interface ReplayableSender {
+
+    /**
+     * Sends the payload once, without retrying or spooling it again on failure.
+     * <p>
+     * The result succeeds when the payload does not need to be sent again, either because the server accepted it or
+     * because it rejected it for good. It fails when the endpoint is still unavailable.
+     *
+     * @param payload the encoded export request, as sent on the wire
+     * @param compression the compression of the payload
+     * @param resultHandler notified of the outcome
+     */
+    void replay(Buffer payload, Compression compression, Handler<AsyncResult<Void>> resultHandler);
+}
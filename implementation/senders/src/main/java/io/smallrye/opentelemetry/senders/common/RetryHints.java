@@ -0,0 +1,227 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Extracts the retry delay a server asks for, either from an HTTP {@code Retry-After} header or from the
+ * {@code google.rpc.RetryInfo} detail carried in the gRPC {@code grpc-status-details-bin} trailer.
+ */
+public final class RetryHints {
+
+    private static final String RETRY_INFO_TYPE_URL = "type.googleapis.com/google.rpc.RetryInfo";
+
+    private RetryHints() {
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either as a number of seconds or as an HTTP date.
+     *
+     * @return the delay in nanoseconds, {@link Long#MAX_VALUE} if it does not fit, or {@code -1} if the header is
+     *         absent or malformed
+     */
+    public static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds < 0 ? -1 : toNanos(Duration.ofSeconds(seconds));
+        } catch (NumberFormatException e) {
+            // not delay-seconds, try an HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, toNanos(Duration.between(ZonedDateTime.now(date.getZone()), date)));
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses the {@code grpc-status-details-bin} trailer, a base64 encoded {@code google.rpc.Status}, and looks for a
+     * {@code google.rpc.RetryInfo} detail.
+     *
+     * @return the retry delay in nanoseconds, {@link Long#MAX_VALUE} if it does not fit, or {@code -1} if the server
+     *         did not send one
+     */
+    public static long parseGrpcRetryDelay(String statusDetailsBin) {
+        if (statusDetailsBin == null || statusDetailsBin.isEmpty()) {
+            return -1;
+        }
+        try {
+            byte[] status = Base64.getDecoder().decode(statusDetailsBin.trim());
+            ProtoReader statusReader = new ProtoReader(status, 0, status.length);
+            while (statusReader.next()) {
+                // google.rpc.Status: repeated google.protobuf.Any details = 3;
+                if (statusReader.field == 3 && statusReader.wireType == ProtoReader.LENGTH_DELIMITED) {
+                    long delay = parseAny(status, statusReader.offset, statusReader.length);
+                    if (delay >= 0) {
+                        return delay;
+                    }
+                }
+                statusReader.skip();
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed base64 or protobuf, ignore the hint
+        }
+        return -1;
+    }
+
+    private static long parseAny(byte[] bytes, int offset, int length) {
+        ProtoReader anyReader = new ProtoReader(bytes, offset, offset + length);
+        boolean retryInfo = false;
+        int valueOffset = -1;
+        int valueLength = 0;
+        while (anyReader.next()) {
+            if (anyReader.wireType == ProtoReader.LENGTH_DELIMITED) {
+                if (anyReader.field == 1) {
+                    retryInfo = RETRY_INFO_TYPE_URL.equals(anyReader.string());
+                } else if (anyReader.field == 2) {
+                    valueOffset = anyReader.offset;
+                    valueLength = anyReader.length;
+                }
+            }
+            anyReader.skip();
+        }
+        if (!retryInfo || valueOffset < 0) {
+            return -1;
+        }
+        // google.rpc.RetryInfo: google.protobuf.Duration retry_delay = 1;
+        ProtoReader retryInfoReader = new ProtoReader(bytes, valueOffset, valueOffset + valueLength);
+        while (retryInfoReader.next()) {
+            if (retryInfoReader.field == 1 && retryInfoReader.wireType == ProtoReader.LENGTH_DELIMITED) {
+                return parseDuration(bytes, retryInfoReader.offset, retryInfoReader.length);
+            }
+            retryInfoReader.skip();
+        }
+        return -1;
+    }
+
+    private static long parseDuration(byte[] bytes, int offset, int length) {
+        // google.protobuf.Duration: int64 seconds = 1; int32 nanos = 2;
+        ProtoReader durationReader = new ProtoReader(bytes, offset, offset + length);
+        long seconds = 0;
+        long nanos = 0;
+        while (durationReader.next()) {
+            if (durationReader.wireType == ProtoReader.VARINT) {
+                if (durationReader.field == 1) {
+                    seconds = durationReader.varint;
+                } else if (durationReader.field == 2) {
+                    nanos = durationReader.varint;
+                }
+            }
+            durationReader.skip();
+        }
+        if (seconds < 0 || nanos < 0) {
+            return -1;
+        }
+        try {
+            return toNanos(Duration.ofSeconds(seconds, nanos));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Saturates the delays too long to be expressed in nanoseconds, the senders refuse to wait that long anyway.
+     */
+    private static long toNanos(Duration delay) {
+        try {
+            return delay.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Just enough of a protobuf reader to walk the few messages above.
+     */
+    private static final class ProtoReader {
+        static final int VARINT = 0;
+        static final int FIXED64 = 1;
+        static final int LENGTH_DELIMITED = 2;
+        static final int FIXED32 = 5;
+
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        int field;
+        int wireType;
+        long varint;
+        int offset;
+        int length;
+
+        ProtoReader(byte[] bytes, int position, int limit) {
+            if (limit > bytes.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            this.bytes = bytes;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean next() {
+            if (position >= limit) {
+                return false;
+            }
+            long tag = readVarint();
+            field = (int) (tag >>> 3);
+            wireType = (int) (tag & 0x7);
+            switch (wireType) {
+                case VARINT:
+                    varint = readVarint();
+                    offset = position;
+                    length = 0;
+                    break;
+                case FIXED64:
+                    offset = position;
+                    length = 8;
+                    break;
+                case LENGTH_DELIMITED:
+                    length = (int) readVarint();
+                    offset = position;
+                    break;
+                case FIXED32:
+                    offset = position;
+                    length = 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported wire type " + wireType);
+            }
+            if (length < 0 || offset + length > limit) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return true;
+        }
+
+        void skip() {
+            position = offset + length;
+        }
+
+        String string() {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        private long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IllegalArgumentException("Truncated varint");
+                }
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff policy used by the senders between export attempts.
+ * <p>
+ * The backoff before retry {@code n} is {@code min(initialBackoff * multiplier^(n - 1), maxBackoff)}. With jitter
+ * enabled ("full jitter"), the actual delay is picked uniformly between zero and that value, so that clients that
+ * failed at the same time do not retry in lockstep. A delay requested by the server always takes precedence over the
+ * computed backoff. An optional deadline bounds the total time spent on one export, across all attempts.
+ * <p>
+ * The {@linkplain #getDefault() default policy} keeps the retries of the earlier senders: 3 attempts, with a backoff
+ * starting at 100ms and doubling, jittered, and no deadline.
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy DEFAULT = new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(1), 2.0,
+            true, Duration.ZERO);
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double backoffMultiplier;
+    private final boolean jitter;
+    private final long deadlineNanos;
+
+    /**
+     * @param maxAttempts the maximum number of attempts, including the first one
+     * @param initialBackoff the backoff before the first retry
+     * @param maxBackoff the upper bound of the backoff
+     * @param backoffMultiplier the factor applied to the backoff after each retry
+     * @param jitter whether to randomize the backoff between zero and its computed value
+     * @param deadline the maximum time spent on one export across all attempts, {@link Duration#ZERO} for no deadline
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double backoffMultiplier,
+            boolean jitter, Duration deadline) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        if (initialBackoff.isNegative() || maxBackoff.isNegative() || deadline.isNegative()) {
+            throw new IllegalArgumentException("Backoff and deadline durations must not be negative");
+        }
+        if (backoffMultiplier < 1.0) {
+            throw new IllegalArgumentException("backoffMultiplier must be greater than or equal to 1.0");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(maxBackoff.toNanos(), initialBackoffNanos);
+        this.backoffMultiplier = backoffMultiplier;
+        this.jitter = jitter;
+        this.deadlineNanos = deadline.toNanos();
+    }
+
+    public static RetryPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * A policy that never retries.
+     */
+    public static RetryPolicy noRetry() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1.0, false, Duration.ZERO);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return Duration.ofNanos(initialBackoffNanos);
+    }
+
+    public Duration getMaxBackoff() {
+        return Duration.ofNanos(maxBackoffNanos);
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public boolean isJitter() {
+        return jitter;
+    }
+
+    public Duration getDeadline() {
+        return Duration.ofNanos(deadlineNanos);
+    }
+
+    /**
+     * @return the deadline in nanoseconds, or {@code 0} if exports are not bounded by a deadline
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Computes the delay before the given retry.
+     *
+     * @param retry the 1-based number of the retry (i.e. {@code attempt - 1})
+     * @param serverDelayNanos the delay requested by the server, or a negative value if it did not request one
+     * @return the delay in nanoseconds
+     */
+    public long backoffNanos(int retry, long serverDelayNanos) {
+        if (serverDelayNanos >= 0) {
+            return serverDelayNanos;
+        }
+        double backoff = initialBackoffNanos * Math.pow(backoffMultiplier, Math.max(0, retry - 1));
+        long capped = (long) Math.min(backoff, maxBackoffNanos);
+        if (jitter && capped > 0) {
+            return ThreadLocalRandom.current().nextLong(capped + 1);
+        }
+        return capped;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts
+                + ", initialBackoff=" + getInitialBackoff()
+                + ", maxBackoff=" + getMaxBackoff()
+                + ", backoffMultiplier=" + backoffMultiplier
+                + ", jitter=" + jitter
+                + ", deadline=" + getDeadline()
+                + '}';
+    }
+}
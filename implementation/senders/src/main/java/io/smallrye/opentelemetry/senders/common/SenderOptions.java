@@ -0,0 +1,402 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.http.HttpConnection;
+
+/**
+ * Tuning options shared by {@link io.smallrye.opentelemetry.senders.VertxGrpcSender} and
+ * {@link io.smallrye.opentelemetry.senders.VertxHttpSender}, on top of the connection level
+ * {@link io.vertx.core.http.HttpClientOptions}.
+ */
+public class SenderOptions {
+
+    public static final int DEFAULT_INITIAL_CONCURRENCY = 8;
+    public static final int DEFAULT_MIN_CONCURRENCY = 1;
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+    public static final int DEFAULT_MAX_QUEUED_EXPORTS = 128;
+    public static final boolean DEFAULT_SHARE_GRPC_CLIENT = true;
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 0;
+    public static final double DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 0.5;
+    public static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+    public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final int DEFAULT_COMPRESSION_WORKERS = 2;
+    public static final int DEFAULT_COMPRESSION_OFFLOAD_THRESHOLD = 64 * 1024;
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String COMPRESSION_WORKER_POOL = "otel-exporter-compression";
+
+    private RetryPolicy retryPolicy = RetryPolicy.getDefault();
+    private boolean concurrencyLimitEnabled;
+    private int initialConcurrency = DEFAULT_INITIAL_CONCURRENCY;
+    private int minConcurrency = DEFAULT_MIN_CONCURRENCY;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxQueuedExports = DEFAULT_MAX_QUEUED_EXPORTS;
+    private ExportSpool spool;
+    private Runnable shutdownHook;
+    private boolean shareGrpcClient = DEFAULT_SHARE_GRPC_CLIENT;
+    private EndpointGroup endpointGroup;
+    private double hedgingPercentile;
+    private Duration hedgingMinDelay = Duration.ofMillis(50);
+    private double hedgingMaxRatio = 0.05;
+    private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+    private double circuitBreakerFailureRate = DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+    private int circuitBreakerWindowSize = DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+    private Duration circuitBreakerOpenDuration = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+    private Supplier<MeterProvider> meterProvider;
+    private CompressionCodec compressionCodec;
+    private int compressionWorkers = DEFAULT_COMPRESSION_WORKERS;
+    private int compressionOffloadThreshold = DEFAULT_COMPRESSION_OFFLOAD_THRESHOLD;
+    private boolean connectionPrewarm;
+    private Duration keepAliveInterval;
+    private Duration drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public SenderOptions setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = Objects.requireNonNull(retryPolicy);
+        return this;
+    }
+
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimitEnabled;
+    }
+
+    /**
+     * Sets whether the exports in flight are bounded by an adaptive concurrency limit, the exports beyond it waiting in
+     * a bounded queue and being rejected once it is full. Disabled by default, every export is then sent right away.
+     */
+    public SenderOptions setConcurrencyLimitEnabled(boolean concurrencyLimitEnabled) {
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+        return this;
+    }
+
+    public int getInitialConcurrency() {
+        return initialConcurrency;
+    }
+
+    /**
+     * Sets the number of exports allowed in flight before the limit starts adapting to the export latency.
+     */
+    public SenderOptions setInitialConcurrency(int initialConcurrency) {
+        this.initialConcurrency = initialConcurrency;
+        return this;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    public SenderOptions setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = minConcurrency;
+        return this;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public SenderOptions setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public int getMaxQueuedExports() {
+        return maxQueuedExports;
+    }
+
+    /**
+     * Sets the number of exports that may wait for a slot when the concurrency limit is reached. Exports beyond that
+     * are rejected.
+     */
+    public SenderOptions setMaxQueuedExports(int maxQueuedExports) {
+        this.maxQueuedExports = maxQueuedExports;
+        return this;
+    }
+
+    public ExportSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * Sets the spool receiving the payloads of exports that failed after all their attempts, or that were
+     * short-circuited by an open circuit breaker, {@code null} to drop them.
+     */
+    public SenderOptions setSpool(ExportSpool spool) {
+        this.spool = spool;
+        return this;
+    }
+
+    public Runnable getShutdownHook() {
+        return shutdownHook;
+    }
+
+    /**
+     * Sets an action run once the sender has shut down, e.g. to release resources it was given.
+     */
+    public SenderOptions setShutdownHook(Runnable shutdownHook) {
+        this.shutdownHook = shutdownHook;
+        return this;
+    }
+
+    public boolean isShareGrpcClient() {
+        return shareGrpcClient;
+    }
+
+    /**
+     * Sets whether gRPC senders targeting the same endpoint with the same client options share their client, so that
+     * the exports of the different OTLP services are multiplexed over the same HTTP/2 connections. Enabled by default.
+     */
+    public SenderOptions setShareGrpcClient(boolean shareGrpcClient) {
+        this.shareGrpcClient = shareGrpcClient;
+        return this;
+    }
+
+    public EndpointGroup getEndpointGroup() {
+        return endpointGroup;
+    }
+
+    /**
+     * Sets the endpoints to balance the exports across, {@code null} to only use the endpoint of the base URI. The
+     * group is closed when the sender shuts down.
+     */
+    public SenderOptions setEndpointGroup(EndpointGroup endpointGroup) {
+        this.endpointGroup = endpointGroup;
+        return this;
+    }
+
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    /**
+     * Enables hedging: an export still pending after this percentile of the recent export latencies is sent again,
+     * to another endpoint if possible, and the first response wins. {@code 0} disables hedging.
+     */
+    public SenderOptions setHedgingPercentile(double hedgingPercentile) {
+        this.hedgingPercentile = hedgingPercentile;
+        return this;
+    }
+
+    public Duration getHedgingMinDelay() {
+        return hedgingMinDelay;
+    }
+
+    public SenderOptions setHedgingMinDelay(Duration hedgingMinDelay) {
+        this.hedgingMinDelay = Objects.requireNonNull(hedgingMinDelay);
+        return this;
+    }
+
+    public double getHedgingMaxRatio() {
+        return hedgingMaxRatio;
+    }
+
+    /**
+     * Sets the maximum fraction of the exports that may be hedged.
+     */
+    public SenderOptions setHedgingMaxRatio(double hedgingMaxRatio) {
+        this.hedgingMaxRatio = hedgingMaxRatio;
+        return this;
+    }
+
+    /**
+     * @return a new hedger, or {@code null} if hedging is disabled
+     */
+    public Hedger createHedger() {
+        return hedgingPercentile > 0 ? new Hedger(hedgingPercentile, hedgingMinDelay, hedgingMaxRatio) : null;
+    }
+
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failed exports opening the circuit breaker, {@code 0}, the default, disables the
+     * breaker.
+     */
+    public SenderOptions setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+        return this;
+    }
+
+    public double getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    /**
+     * Sets the failure rate over the last {@link #getCircuitBreakerWindowSize()} exports opening the circuit breaker,
+     * {@code 0} to only consider consecutive failures.
+     */
+    public SenderOptions setCircuitBreakerFailureRate(double circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+        return this;
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    public SenderOptions setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+        return this;
+    }
+
+    public Duration getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Sets how long exports are short-circuited once the breaker opens, before a probe export is let through.
+     */
+    public SenderOptions setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = Objects.requireNonNull(circuitBreakerOpenDuration);
+        return this;
+    }
+
+    /**
+     * @param name the name of the sender, used in logs
+     * @return a new circuit breaker, or {@code null} if the breaker is disabled
+     */
+    public CircuitBreaker createCircuitBreaker(String name) {
+        return circuitBreakerFailureThreshold > 0
+                ? new CircuitBreaker(name, circuitBreakerFailureThreshold, circuitBreakerFailureRate,
+                        circuitBreakerWindowSize, circuitBreakerOpenDuration)
+                : null;
+    }
+
+    public Supplier<MeterProvider> getMeterProvider() {
+        return meterProvider;
+    }
+
+    /**
+     * Sets the provider of the meter the sender reports its own metrics with, {@code null} to not report any. The
+     * provider is only looked up once the sender starts exporting.
+     */
+    public SenderOptions setMeterProvider(Supplier<MeterProvider> meterProvider) {
+        this.meterProvider = meterProvider;
+        return this;
+    }
+
+    /**
+     * @return the codec compressing the payloads when compression is enabled, gzip at its default level unless set
+     */
+    public CompressionCodec getCompressionCodec() {
+        if (compressionCodec == null) {
+            compressionCodec = CompressionCodec.create(Compression.GZIP, CompressionCodec.DEFAULT_LEVEL);
+        }
+        return compressionCodec;
+    }
+
+    public SenderOptions setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
+
+    public int getCompressionWorkers() {
+        return compressionWorkers;
+    }
+
+    /**
+     * Sets the size of the worker pool large payloads are compressed on, shared by the senders of a Vert.x instance.
+     * {@code 0} always compresses on the calling thread.
+     */
+    public SenderOptions setCompressionWorkers(int compressionWorkers) {
+        this.compressionWorkers = compressionWorkers;
+        return this;
+    }
+
+    public int getCompressionOffloadThreshold() {
+        return compressionOffloadThreshold;
+    }
+
+    /**
+     * Sets the size, in bytes, from which a payload encoded on an event loop is compressed on the worker pool instead.
+     */
+    public SenderOptions setCompressionOffloadThreshold(int compressionOffloadThreshold) {
+        this.compressionOffloadThreshold = compressionOffloadThreshold;
+        return this;
+    }
+
+    /**
+     * @return the worker pool large payloads are compressed on, or {@code null} if they are compressed inline. It must
+     *         be closed when the sender shuts down.
+     */
+    public WorkerExecutor createCompressionWorkers(Vertx vertx) {
+        return compressionWorkers > 0 ? vertx.createSharedWorkerExecutor(COMPRESSION_WORKER_POOL, compressionWorkers)
+                : null;
+    }
+
+    public boolean isConnectionPrewarm() {
+        return connectionPrewarm;
+    }
+
+    /**
+     * Sets whether the sender opens a connection when it is created, and opens a new one in the background as soon as
+     * the last one drops, rather than on the next export.
+     */
+    public SenderOptions setConnectionPrewarm(boolean connectionPrewarm) {
+        this.connectionPrewarm = connectionPrewarm;
+        return this;
+    }
+
+    public Duration getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
+    /**
+     * Sets the interval of the HTTP/2 PING frames keeping the connections alive, {@code null} to not send any. It
+     * should be shorter than the export timeout, which also closes the connections reading nothing for that long.
+     */
+    public SenderOptions setKeepAliveInterval(Duration keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+        return this;
+    }
+
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    /**
+     * Sets how long the sender waits, when shut down, for the exports in flight and their retries to complete before
+     * closing its connections. {@link Duration#ZERO} abandons them right away.
+     */
+    public SenderOptions setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = Objects.requireNonNull(drainTimeout);
+        return this;
+    }
+
+    /**
+     * @param http2 whether the connections are HTTP/2 ones, the only ones which can be pinged
+     * @return a new connection keeper, or {@code null} if the connections are neither pre-warmed nor kept alive
+     */
+    public ConnectionKeeper createConnectionKeeper(Vertx vertx, Supplier<Future<HttpConnection>> connector,
+            boolean http2) {
+        Duration pingInterval = http2 ? keepAliveInterval : null;
+        if (!connectionPrewarm && pingInterval == null) {
+            return null;
+        }
+        return new ConnectionKeeper(vertx, connector, pingInterval);
+    }
+
+    /**
+     * @param queuedTaskExecutor starts the exports that waited for a slot
+     * @return a new concurrency limiter, an {@linkplain ConcurrencyLimiter#unlimited() unlimited} one if the limit is
+     *         disabled
+     */
+    public ConcurrencyLimiter createConcurrencyLimiter(Executor queuedTaskExecutor) {
+        if (!concurrencyLimitEnabled) {
+            return ConcurrencyLimiter.unlimited();
+        }
+        return new ConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency, maxQueuedExports,
+                queuedTaskExecutor);
+    }
+}
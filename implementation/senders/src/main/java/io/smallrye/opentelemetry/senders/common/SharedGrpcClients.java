@@ -0,0 +1,218 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.grpc.client.GrpcClient;
+
+/**
+ * Reference-counted gRPC clients, shared by the senders of the different OTLP services that target the same endpoint
+ * with the same client options. The traces, metrics and logs exports are then multiplexed as HTTP/2 streams over the
+ * same connection pool instead of opening one pool per service.
+ */
+public final class SharedGrpcClients {
+
+    private static final Map<Key, SharedClient> clients = new HashMap<>();
+
+    private SharedGrpcClients() {
+    }
+
+    /**
+     * Returns a lease on the client shared by all the senders using the same Vert.x instance, endpoint and connection
+     * options, creating the client if needed. Each caller gets its own lease, which must be closed once the sender is
+     * done with it.
+     * <p>
+     * The read idle timeout, which the senders derive from the export timeout of their signal, does not prevent the
+     * sharing: the client keeps the one of the sender creating it.
+     */
+    public static Lease acquire(Vertx vertx, SocketAddress server, HttpClientOptions options) {
+        Key key = new Key(vertx, server, new HttpClientOptions(options).setReadIdleTimeout(0).toJson().encode());
+        synchronized (clients) {
+            SharedClient shared = clients.get(key);
+            if (shared == null) {
+                shared = new SharedClient(key, vertx, server, GrpcClient.client(vertx, options));
+                clients.put(key, shared);
+            }
+            shared.references++;
+            return new Lease(shared);
+        }
+    }
+
+    /**
+     * Returns a client used by a single sender, closed with the lease.
+     */
+    public static Lease unshared(Vertx vertx, SocketAddress server, HttpClientOptions options) {
+        SharedClient client = new SharedClient(null, vertx, server, GrpcClient.client(vertx, options));
+        client.references++;
+        return new Lease(client);
+    }
+
+    /**
+     * The handle of a sender on a client. Closing it releases the reference of that sender only, however many times
+     * it is closed.
+     */
+    public static final class Lease {
+
+        private final SharedClient shared;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(SharedClient shared) {
+            this.shared = shared;
+        }
+
+        public GrpcClient client() {
+            return shared.client;
+        }
+
+        /**
+         * Returns the keeper of the connections of the client, shared by the senders of the client so that each
+         * connection is tracked and pinged once. It is created, and started, with the options of the first sender
+         * asking for it, and closed with the client.
+         *
+         * @return the keeper, or {@code null} if the connections are neither pre-warmed nor kept alive
+         */
+        public ConnectionKeeper connectionKeeper(SenderOptions options) {
+            return shared.connectionKeeper(options);
+        }
+
+        /**
+         * Returns the counter of the streams a service has open on this client. Senders increment it when they start a
+         * request and decrement it once the response is complete.
+         */
+        public AtomicInteger streamCounter(String serviceName) {
+            return shared.activeStreams.computeIfAbsent(serviceName, s -> new AtomicInteger());
+        }
+
+        public int getActiveStreams(String serviceName) {
+            AtomicInteger counter = shared.activeStreams.get(serviceName);
+            return counter == null ? 0 : counter.get();
+        }
+
+        public int getActiveStreams() {
+            int total = 0;
+            for (AtomicInteger counter : shared.activeStreams.values()) {
+                total += counter.get();
+            }
+            return total;
+        }
+
+        public boolean isShared() {
+            return shared.key != null;
+        }
+
+        /**
+         * Releases this lease, closing the client when it is no longer used by any sender.
+         */
+        public Future<Void> close() {
+            if (!closed.compareAndSet(false, true)) {
+                return Future.succeededFuture();
+            }
+            return shared.release();
+        }
+    }
+
+    private static final class SharedClient {
+
+        private final Key key;
+        private final Vertx vertx;
+        private final SocketAddress server;
+        private final GrpcClient client;
+        private final ConcurrentHashMap<String, AtomicInteger> activeStreams = new ConcurrentHashMap<>();
+        // Guarded by the clients map
+        private int references;
+        private ConnectionKeeper connectionKeeper;
+        private boolean connectionKeeperCreated;
+
+        private SharedClient(Key key, Vertx vertx, SocketAddress server, GrpcClient client) {
+            this.key = key;
+            this.vertx = vertx;
+            this.server = server;
+            this.client = client;
+        }
+
+        private ConnectionKeeper connectionKeeper(SenderOptions options) {
+            ConnectionKeeper keeper;
+            synchronized (this) {
+                if (connectionKeeperCreated) {
+                    return connectionKeeper;
+                }
+                connectionKeeperCreated = true;
+                keeper = options.createConnectionKeeper(vertx, this::connect, true);
+                connectionKeeper = keeper;
+            }
+            if (keeper != null && options.isConnectionPrewarm()) {
+                keeper.start();
+            }
+            return keeper;
+        }
+
+        /**
+         * Opens a connection to the server, or takes one from the pool, without starting a call on it.
+         */
+        private Future<HttpConnection> connect() {
+            return client.request(server).map(request -> {
+                HttpConnection connection = request.connection();
+                request.cancel();
+                return connection;
+            });
+        }
+
+        private Future<Void> release() {
+            synchronized (clients) {
+                if (--references > 0) {
+                    return Future.succeededFuture();
+                }
+                if (key != null) {
+                    clients.remove(key);
+                }
+            }
+            ConnectionKeeper keeper;
+            synchronized (this) {
+                keeper = connectionKeeper;
+                connectionKeeper = null;
+            }
+            if (keeper != null) {
+                keeper.close();
+            }
+            return client.close();
+        }
+    }
+
+    private static final class Key {
+        private final Vertx vertx;
+        private final SocketAddress server;
+        private final String options;
+
+        Key(Vertx vertx, SocketAddress server, String options) {
+            this.vertx = vertx;
+            this.server = server;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return vertx == key.vertx && server.equals(key.server) && options.equals(key.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(vertx), server, options);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.opentelemetry.sdk.common.export.MessageWriter;
+
+/**
+ * A message sent by several senders, which is serialized and compressed once. The first sender to encode it does the
+ * work, the others get a duplicate of the same pooled buffer; senders compressing with another algorithm get their own
+ * encoding, shared with the senders using the same algorithm.
+ * <p>
+ * The message must stay valid until every sender has encoded it, and {@link #release()} must be called once they are
+ * all done with it.
+ */
+public final class SharedPayload implements MessageWriter {
+
+    private final MessageWriter messageWriter;
+    private final Map<Compression, PooledBuffer> encoded = new EnumMap<>(Compression.class);
+    private boolean released;
+
+    public SharedPayload(MessageWriter messageWriter) {
+        this.messageWriter = messageWriter;
+    }
+
+    @Override
+    public void writeMessage(OutputStream output) throws IOException {
+        messageWriter.writeMessage(output);
+    }
+
+    @Override
+    public int getContentLength() {
+        return messageWriter.getContentLength();
+    }
+
+    /**
+     * @param codec the codec compressing the payload, {@code null} to not compress it
+     * @return a payload to be released by the sender
+     */
+    synchronized PooledBuffer encode(CompressionCodec codec) throws IOException {
+        if (released) {
+            throw new IllegalStateException("The shared payload has been released");
+        }
+        Compression compression = codec != null ? codec.compression() : Compression.NONE;
+        PooledBuffer payload = encoded.get(compression);
+        if (payload == null) {
+            payload = PayloadEncoder.encode(messageWriter, codec);
+            encoded.put(compression, payload);
+        }
+        return payload.duplicate();
+    }
+
+    /**
+     * Releases the encoded payloads. Their memory goes back to the pool once the senders have released their
+     * duplicates too.
+     */
+    public synchronized void release() {
+        released = true;
+        for (PooledBuffer payload : encoded.values()) {
+            payload.release();
+        }
+        encoded.clear();
+    }
+}
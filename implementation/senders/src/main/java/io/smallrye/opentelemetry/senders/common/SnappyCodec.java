@@ -0,0 +1,22 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+/**
+ * Snappy, in the framing format. Snappy has no compression level. Only loaded when snappy-java is available.
+ */
+final class SnappyCodec implements CompressionCodec {
+
+    @Override
+    public Compression compression() {
+        return Compression.SNAPPY;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new SnappyFramedOutputStream(out);
+    }
+}
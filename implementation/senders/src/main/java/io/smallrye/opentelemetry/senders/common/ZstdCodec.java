@@ -0,0 +1,31 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.github.luben.zstd.RecyclingBufferPool;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+
+/**
+ * Zstandard, with the buffers of the streams recycled across payloads. Only loaded when zstd-jni is available.
+ */
+final class ZstdCodec implements CompressionCodec {
+
+    private static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    private final int level;
+
+    ZstdCodec(int level) {
+        this.level = level == DEFAULT_LEVEL ? DEFAULT_ZSTD_LEVEL : level;
+    }
+
+    @Override
+    public Compression compression() {
+        return Compression.ZSTD;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new ZstdOutputStreamNoFinalizer(out, RecyclingBufferPool.INSTANCE).setLevel(level);
+    }
+}
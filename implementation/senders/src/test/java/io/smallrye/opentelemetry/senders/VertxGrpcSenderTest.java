@@ -0,0 +1,96 @@
+package io.smallrye.opentelemetry.senders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.common.export.GrpcResponse;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.smallrye.opentelemetry.senders.common.RetryPolicy;
+import io.smallrye.opentelemetry.senders.common.SenderOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+
+class VertxGrpcSenderTest {
+    private static final byte[] MESSAGE = { 1, 2, 3 };
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void closeVertx() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void okStatus() throws Exception {
+        // A trailers-only response
+        int port = listen(request -> request.body().onSuccess(body -> request.response()
+                .putHeader("content-type", "application/grpc")
+                .putHeader("grpc-status", "0")
+                .end()));
+        VertxGrpcSender sender = sender(port);
+        try {
+            assertEquals(0, send(sender).get(5, TimeUnit.SECONDS).getStatusCode().getValue());
+        } finally {
+            sender.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Something else than a gRPC server, e.g. a proxy, may end the stream without any status.
+     */
+    @Test
+    void noStatusFailsTheExport() {
+        int port = listen(request -> request.body().onSuccess(body -> request.response()
+                .putHeader("content-type", "application/grpc")
+                .end()));
+        VertxGrpcSender sender = sender(port);
+        try {
+            assertThrows(ExecutionException.class, () -> send(sender).get(5, TimeUnit.SECONDS));
+        } finally {
+            sender.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private int listen(Handler<HttpServerRequest> handler) {
+        HttpServer server = vertx.createHttpServer().requestHandler(handler);
+        return server.listen(0).toCompletionStage().toCompletableFuture().join().actualPort();
+    }
+
+    private VertxGrpcSender sender(int port) {
+        return new VertxGrpcSender(URI.create("http://localhost:" + port), VertxGrpcSender.GRPC_TRACE_SERVICE_NAME,
+                false, Duration.ofSeconds(10), Map.of(), clientOptions -> {
+                }, vertx, new SenderOptions().setRetryPolicy(RetryPolicy.noRetry()));
+    }
+
+    private static CompletableFuture<GrpcResponse> send(VertxGrpcSender sender) {
+        CompletableFuture<GrpcResponse> response = new CompletableFuture<>();
+        sender.send(new BytesMessageWriter(), response::complete, response::completeExceptionally);
+        return response;
+    }
+
+    private static class BytesMessageWriter implements MessageWriter {
+        @Override
+        public void writeMessage(OutputStream output) throws IOException {
+            output.write(MESSAGE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return MESSAGE.length;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package io.smallrye.opentelemetry.senders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.common.export.HttpResponse;
+import io.opentelemetry.sdk.common.export.HttpSender;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.smallrye.opentelemetry.senders.common.CircuitBreaker;
+import io.smallrye.opentelemetry.senders.common.Compression;
+import io.smallrye.opentelemetry.senders.common.EndpointGroup;
+import io.smallrye.opentelemetry.senders.common.ExportSpool;
+import io.smallrye.opentelemetry.senders.common.FanOut;
+import io.smallrye.opentelemetry.senders.common.RetryPolicy;
+import io.smallrye.opentelemetry.senders.common.SenderOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+
+class VertxHttpSenderTest {
+    private static final byte[] MESSAGE = { 1, 2, 3 };
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void closeVertx() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    /**
+     * The original request fails and schedules a retry, then a hedge completes the export: the retry must not run, the
+     * payload it would send has been released.
+     */
+    @Test
+    void hedgeCancelsThePendingRetry() throws Exception {
+        AtomicInteger slowRequests = new AtomicInteger();
+        AtomicBoolean slow = new AtomicBoolean();
+        Handler<HttpServerRequest> handler = request -> request.body().onSuccess(body -> {
+            if (!slow.get()) {
+                request.response().end();
+            } else if (slowRequests.incrementAndGet() == 1) {
+                // The original request, retried after the delay asked for by the server
+                vertx.setTimer(200, id -> request.response().setStatusCode(503).putHeader("Retry-After", "1").end());
+            } else {
+                // The hedge, sent 100ms after the original request
+                vertx.setTimer(300, id -> request.response().end());
+            }
+        });
+        int first = listen(handler);
+        int second = listen(handler);
+
+        SenderOptions options = new SenderOptions()
+                .setRetryPolicy(new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(10), 1.0, false,
+                        Duration.ZERO))
+                .setEndpointGroup(EndpointGroup.ofStatic(
+                        List.of(SocketAddress.inetSocketAddress(first, "localhost"),
+                                SocketAddress.inetSocketAddress(second, "localhost")),
+                        EndpointGroup.Policy.ROUND_ROBIN, 100, Duration.ZERO))
+                .setHedgingPercentile(0.5)
+                .setHedgingMinDelay(Duration.ofMillis(100))
+                .setHedgingMaxRatio(1.0);
+        VertxHttpSender sender = sender(first, options);
+        try {
+            // Enough fast exports for the hedger to compute its delay
+            for (int i = 0; i < 64; i++) {
+                assertEquals(200, send(sender).get(5, TimeUnit.SECONDS).getStatusCode());
+            }
+
+            slow.set(true);
+            assertEquals(200, send(sender).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(1, sender.getHedger().getHedgesWon());
+
+            // Past the retry delay
+            Thread.sleep(1500);
+            assertEquals(2, slowRequests.get());
+        } finally {
+            sender.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void openCircuitBreakerSpoolsTheExports() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        int port = listen(request -> {
+            requests.incrementAndGet();
+            request.response().setStatusCode(503).end();
+        });
+        List<byte[]> spooled = new CopyOnWriteArrayList<>();
+        SenderOptions options = new SenderOptions()
+                .setRetryPolicy(RetryPolicy.noRetry())
+                .setCircuitBreakerFailureThreshold(1)
+                .setCircuitBreakerOpenDuration(Duration.ofMinutes(1))
+                .setSpool(new ExportSpool() {
+                    @Override
+                    public void store(Buffer payload, Compression compression) {
+                        spooled.add(payload.getBytes());
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+        VertxHttpSender sender = sender(port, options);
+        try {
+            // Fails, opening the breaker
+            assertEquals(503, send(sender).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(CircuitBreaker.State.OPEN, sender.getCircuitBreaker().getState());
+
+            ExecutionException shortCircuited = assertThrows(ExecutionException.class,
+                    () -> send(sender).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CircuitBreaker.OpenException.class, shortCircuited.getCause());
+            assertEquals(1, requests.get());
+            assertEquals(2, spooled.size());
+            assertArrayEquals(MESSAGE, spooled.get(1));
+        } finally {
+            sender.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A server asking for a delay longer than an export may take, or too long to even compute, is not waited for.
+     */
+    @Test
+    void retryAfterBeyondTheTimeoutFailsTheExport() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger retryAfter = new AtomicInteger();
+        int port = listen(request -> request.body().onSuccess(body -> {
+            requests.incrementAndGet();
+            String delay = retryAfter.getAndIncrement() == 0 ? "60" : String.valueOf(Long.MAX_VALUE);
+            request.response().setStatusCode(429).putHeader("Retry-After", delay).end();
+        }));
+        VertxHttpSender sender = sender(port, new SenderOptions());
+        try {
+            assertEquals(429, send(sender).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(429, send(sender).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(2, requests.get());
+        } finally {
+            sender.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void fanOutEncodesTheExportOnce() throws Exception {
+        List<byte[]> bodies = new CopyOnWriteArrayList<>();
+        int accepting = listen(request -> request.body().onSuccess(body -> {
+            bodies.add(body.getBytes());
+            request.response().end();
+        }));
+        int failing = listen(request -> request.body().onSuccess(body -> {
+            bodies.add(body.getBytes());
+            request.response().setStatusCode(503).end();
+        }));
+        SenderOptions options = new SenderOptions().setRetryPolicy(RetryPolicy.noRetry());
+        List<HttpSender> senders = List.of(sender(accepting, options), sender(failing, options));
+
+        FanOutHttpSender any = new FanOutHttpSender(senders, FanOut.Policy.ANY);
+        FanOutHttpSender all = new FanOutHttpSender(senders, FanOut.Policy.ALL);
+        try {
+            AtomicInteger writes = new AtomicInteger();
+            MessageWriter writer = new BytesMessageWriter() {
+                @Override
+                public void writeMessage(OutputStream output) throws IOException {
+                    writes.incrementAndGet();
+                    super.writeMessage(output);
+                }
+            };
+
+            assertEquals(200, send(any, writer).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(1, writes.get());
+            assertEquals(503, send(all, writer).get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(2, writes.get());
+
+            assertEquals(4, bodies.size());
+            for (byte[] body : bodies) {
+                assertArrayEquals(MESSAGE, body);
+            }
+        } finally {
+            all.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void sendAfterShutdownFails() {
+        VertxHttpSender sender = sender(listen(request -> request.response().end()), new SenderOptions());
+        sender.shutdown().join(5, TimeUnit.SECONDS);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> send(sender).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    private int listen(Handler<HttpServerRequest> handler) {
+        HttpServer server = vertx.createHttpServer().requestHandler(handler);
+        return server.listen(0).toCompletionStage().toCompletableFuture().join().actualPort();
+    }
+
+    private VertxHttpSender sender(int port, SenderOptions options) {
+        return new VertxHttpSender(URI.create("http://localhost:" + port), VertxHttpSender.TRACES_PATH, false,
+                Duration.ofSeconds(10), Map.of(), "application/x-protobuf", clientOptions -> {
+                }, vertx, options);
+    }
+
+    private static CompletableFuture<HttpResponse> send(HttpSender sender) {
+        return send(sender, new BytesMessageWriter());
+    }
+
+    private static CompletableFuture<HttpResponse> send(HttpSender sender, MessageWriter writer) {
+        CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        sender.send(writer, response::complete, response::completeExceptionally);
+        return response;
+    }
+
+    private static class BytesMessageWriter implements MessageWriter {
+        @Override
+        public void writeMessage(OutputStream output) throws IOException {
+            output.write(MESSAGE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return MESSAGE.length;
+        }
+    }
+}
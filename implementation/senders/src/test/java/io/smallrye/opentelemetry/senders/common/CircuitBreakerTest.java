@@ -0,0 +1,97 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, 0, 10, Duration.ofMinutes(1));
+        fail(breaker);
+        fail(breaker);
+        succeed(breaker);
+        fail(breaker);
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpened());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getShortCircuited());
+    }
+
+    @Test
+    void opensOnTheFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 100, 0.5, 4, Duration.ofMinutes(1));
+        fail(breaker);
+        succeed(breaker);
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // The window is full, half of it failed
+        succeed(breaker);
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void probesOnceHalfOpen() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 10, Duration.ZERO);
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        // A probe ending without an outcome lets the next one through
+        breaker.onIgnore();
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpened());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void staysOpenForTheOpenDuration() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 10, Duration.ofMinutes(1));
+        fail(breaker);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(breaker.tryAcquire());
+        }
+        assertEquals(10, breaker.getShortCircuited());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker("test", 0, 0, 10, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker("test", 1, 1.5, 10, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker("test", 1, 0, 0, Duration.ZERO));
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+    }
+
+    private static void succeed(CircuitBreaker breaker) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+    }
+}
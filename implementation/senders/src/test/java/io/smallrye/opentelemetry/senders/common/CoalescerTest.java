@@ -0,0 +1,182 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+import io.vertx.core.Vertx;
+
+class CoalescerTest {
+    private final Vertx vertx = Vertx.vertx();
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+    private final List<String> responses = new CopyOnWriteArrayList<>();
+    private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void closeVertx() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void coalescesTheExportsOfTheLingerTime() {
+        Coalescer<String> coalescer = coalescer(Duration.ofMillis(50), 100);
+        coalescer.send(message(1, 2, 3), responses::add, errors::add);
+        coalescer.send(message(4), responses::add, errors::add);
+        coalescer.send(message(5, 6), responses::add, errors::add);
+        assertTrue(sent.isEmpty());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> sent.size() == 1);
+        Sent request = sent.get(0);
+        assertEquals(6, request.message.getContentLength());
+        // Concatenated protobuf messages are parsed as one, with their repeated fields merged
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6 }, request.bytes());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6 }, request.writtenTo());
+
+        request.onResponse.accept("ok");
+        assertEquals(List.of("ok", "ok", "ok"), responses);
+    }
+
+    @Test
+    void singleExportSentAsIs() {
+        Coalescer<String> coalescer = coalescer(Duration.ofMillis(10), 100);
+        MessageWriter message = message(1, 2, 3);
+        coalescer.send(message, responses::add, errors::add);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> sent.size() == 1);
+        assertSame(message, sent.get(0).message);
+    }
+
+    @Test
+    void sendsTheExportsReachingTheMaximumSize() {
+        Coalescer<String> coalescer = coalescer(Duration.ofHours(1), 6);
+        coalescer.send(message(1, 2, 3), responses::add, errors::add);
+        assertTrue(sent.isEmpty());
+        coalescer.send(message(4, 5, 6), responses::add, errors::add);
+
+        assertEquals(1, sent.size());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6 }, sent.get(0).bytes());
+    }
+
+    @Test
+    void sendsTheHeldExportsBeforeExceedingTheMaximumSize() {
+        Coalescer<String> coalescer = coalescer(Duration.ofHours(1), 6);
+        coalescer.send(message(1, 2, 3), responses::add, errors::add);
+        coalescer.send(message(4, 5, 6, 7), responses::add, errors::add);
+
+        // The first export alone, the second one is held
+        assertEquals(1, sent.size());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, sent.get(0).bytes());
+        coalescer.flush();
+        assertEquals(2, sent.size());
+        assertArrayEquals(new byte[] { 4, 5, 6, 7 }, sent.get(1).bytes());
+    }
+
+    @Test
+    void sendsTheLargeExportsRightAway() {
+        Coalescer<String> coalescer = coalescer(Duration.ofHours(1), 4);
+        MessageWriter large = message(1, 2, 3, 4, 5);
+        coalescer.send(large, responses::add, errors::add);
+
+        assertEquals(1, sent.size());
+        assertSame(large, sent.get(0).message);
+    }
+
+    @Test
+    void errorsReachEveryExport() {
+        Coalescer<String> coalescer = coalescer(Duration.ofHours(1), 100);
+        coalescer.send(message(1), responses::add, errors::add);
+        coalescer.send(message(2), responses::add, errors::add);
+        coalescer.flush();
+
+        IOException failure = new IOException("Connection refused");
+        sent.get(0).onError.accept(failure);
+        assertEquals(List.of(failure, failure), errors);
+        assertTrue(responses.isEmpty());
+    }
+
+    @Test
+    void closeSendsTheHeldExports() {
+        Coalescer<String> coalescer = coalescer(Duration.ofHours(1), 100);
+        coalescer.send(message(1), responses::add, errors::add);
+        coalescer.close();
+        assertEquals(1, sent.size());
+
+        // Not held anymore
+        coalescer.send(message(2), responses::add, errors::add);
+        assertEquals(2, sent.size());
+    }
+
+    private Coalescer<String> coalescer(Duration linger, int maxBytes) {
+        return new Coalescer<>(vertx, linger, maxBytes,
+                (message, onResponse, onError) -> sent.add(new Sent(message, onResponse, onError)));
+    }
+
+    private static MessageWriter message(int... bytes) {
+        return new MessageWriter() {
+            @Override
+            public void writeMessage(OutputStream output) throws IOException {
+                for (int b : bytes) {
+                    output.write(b);
+                }
+            }
+
+            @Override
+            public int getContentLength() {
+                return bytes.length;
+            }
+        };
+    }
+
+    private static final class Sent {
+        final MessageWriter message;
+        final Consumer<String> onResponse;
+        final Consumer<Throwable> onError;
+
+        Sent(MessageWriter message, Consumer<String> onResponse, Consumer<Throwable> onError) {
+            this.message = message;
+            this.onResponse = onResponse;
+            this.onError = onError;
+        }
+
+        byte[] bytes() {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                message.writeMessage(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return output.toByteArray();
+        }
+
+        /**
+         * The bytes the senders write straight into their payload buffer.
+         */
+        byte[] writtenTo() {
+            ByteBuf buffer = Unpooled.buffer();
+            try {
+                ((PayloadWriter) message).writeTo(buffer);
+                return ByteBufUtil.getBytes(buffer);
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+}
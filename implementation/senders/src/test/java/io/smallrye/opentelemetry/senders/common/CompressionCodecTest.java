@@ -0,0 +1,79 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.xerial.snappy.SnappyFramedInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+class CompressionCodecTest {
+
+    @ParameterizedTest
+    @EnumSource(value = Compression.class, names = { "GZIP", "ZSTD", "SNAPPY" })
+    void roundTrip(Compression compression) throws IOException {
+        CompressionCodec codec = CompressionCodec.create(compression, CompressionCodec.DEFAULT_LEVEL);
+        assertEquals(compression, codec.compression());
+        // Twice, the second stream reuses what the codec pooled
+        for (int i = 0; i < 2; i++) {
+            for (byte[] message : new byte[][] { new byte[0], "hello".getBytes(), randomBytes(100_000) }) {
+                assertArrayEquals(message, decompress(compression, compress(codec, message)));
+            }
+        }
+    }
+
+    @Test
+    void gzipLevels() throws IOException {
+        byte[] message = new byte[100_000];
+        for (int level = 0; level <= 9; level++) {
+            CompressionCodec codec = CompressionCodec.create(Compression.GZIP, level);
+            assertArrayEquals(message, decompress(Compression.GZIP, compress(codec, message)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> CompressionCodec.create(Compression.GZIP, 10));
+    }
+
+    @Test
+    void noCompression() {
+        assertNull(CompressionCodec.create(Compression.NONE, CompressionCodec.DEFAULT_LEVEL));
+    }
+
+    private static byte[] compress(CompressionCodec codec, byte[] message) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = codec.compress(out)) {
+            compressed.write(message);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(Compression compression, byte[] compressed) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(compressed);
+        try (InputStream decompressed = compression == Compression.GZIP ? new GZIPInputStream(in)
+                : compression == Compression.ZSTD ? new ZstdInputStream(in)
+                        : new SnappyFramedInputStream(in)) {
+            return decompressed.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        Random random = new Random(42);
+        // Compressible, a small alphabet
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return bytes;
+    }
+}
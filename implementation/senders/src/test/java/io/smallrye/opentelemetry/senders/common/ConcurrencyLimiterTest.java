@@ -0,0 +1,112 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+    private static final long LATENCY = 1_000_000;
+
+    @Test
+    void queuesThenRejects() {
+        List<Runnable> executed = new ArrayList<>();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1, executed::add);
+        AtomicInteger started = new AtomicInteger();
+
+        limiter.execute(started::incrementAndGet);
+        limiter.execute(started::incrementAndGet);
+        assertEquals(1, started.get());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getQueueDepth());
+
+        assertThrows(RejectedExecutionException.class, () -> limiter.execute(started::incrementAndGet));
+        assertEquals(1, limiter.getRejected());
+
+        // The slot is handed over to the queued task, started through the executor
+        limiter.onIgnore();
+        assertEquals(1, executed.size());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueDepth());
+        executed.get(0).run();
+        assertEquals(2, started.get());
+
+        limiter.onIgnore();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void growsByOneAfterAFullWindow() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 0);
+        limiter.execute(() -> {
+        });
+        limiter.execute(() -> {
+        });
+        limiter.onSuccess(LATENCY);
+        assertEquals(2, limiter.getLimit());
+        limiter.onSuccess(LATENCY);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhenTheLimitIsNotUsed() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10, 0);
+        for (int i = 0; i < 10; i++) {
+            limiter.execute(() -> {
+            });
+            limiter.onSuccess(LATENCY);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnFailure() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 5, 10, 0);
+        limiter.execute(() -> {
+        });
+        limiter.onDropped();
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.execute(() -> {
+            });
+            limiter.onDropped();
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnExcessiveLatency() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 10, 0);
+        limiter.execute(() -> {
+        });
+        limiter.onSuccess(LATENCY);
+        assertEquals(10, limiter.getLimit());
+
+        limiter.execute(() -> {
+        });
+        limiter.onSuccess(LATENCY * 5);
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void unlimitedNeverRejects() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.unlimited();
+        assertFalse(limiter.isLimited());
+        for (int i = 0; i < 10_000; i++) {
+            limiter.execute(() -> {
+            });
+        }
+        assertEquals(10_000, limiter.getInFlight());
+        assertEquals(0, limiter.getRejected());
+        assertTrue(new ConcurrencyLimiter(1, 1, 1, 0).isLimited());
+    }
+}
@@ -0,0 +1,138 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.net.SocketAddress;
+
+class EndpointGroupTest {
+    private static final List<SocketAddress> ADDRESSES = List.of(
+            SocketAddress.inetSocketAddress(4317, "collector-1"),
+            SocketAddress.inetSocketAddress(4317, "collector-2"),
+            SocketAddress.inetSocketAddress(4317, "collector-3"));
+
+    @Test
+    void roundRobin() {
+        EndpointGroup group = EndpointGroup.ofStatic(ADDRESSES, EndpointGroup.Policy.ROUND_ROBIN, 3,
+                Duration.ofMinutes(1));
+        Set<SocketAddress> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            EndpointGroup.Endpoint endpoint = group.select();
+            selected.add(endpoint.address());
+            group.onSuccess(endpoint);
+        }
+        assertEquals(Set.copyOf(ADDRESSES), selected);
+    }
+
+    @Test
+    void leastOutstanding() {
+        EndpointGroup group = EndpointGroup.ofStatic(ADDRESSES.subList(0, 2), EndpointGroup.Policy.LEAST_OUTSTANDING,
+                3, Duration.ofMinutes(1));
+        EndpointGroup.Endpoint busy = group.select();
+        for (int i = 0; i < 5; i++) {
+            EndpointGroup.Endpoint endpoint = group.select();
+            assertNotSame(busy, endpoint);
+            group.onIgnore(endpoint);
+        }
+        assertEquals(1, busy.getOutstanding());
+    }
+
+    @Test
+    void ejectsAfterConsecutiveFailures() {
+        EndpointGroup group = EndpointGroup.ofStatic(ADDRESSES.subList(0, 2), EndpointGroup.Policy.ROUND_ROBIN, 2,
+                Duration.ofMinutes(1));
+        EndpointGroup.Endpoint failing = group.getEndpoints().get(0);
+
+        fail(group, failing);
+        // A success in between resets the count
+        succeed(group, failing);
+        fail(group, failing);
+        assertEquals(Set.of(failing, group.getEndpoints().get(1)), selectMany(group));
+
+        fail(group, failing);
+        assertEquals(Set.of(group.getEndpoints().get(1)), selectMany(group));
+    }
+
+    @Test
+    void retriesEveryEndpointOnceAllAreEjected() {
+        EndpointGroup group = EndpointGroup.ofStatic(ADDRESSES.subList(0, 2), EndpointGroup.Policy.ROUND_ROBIN, 1,
+                Duration.ofMinutes(1));
+        for (EndpointGroup.Endpoint endpoint : group.getEndpoints()) {
+            fail(group, endpoint);
+        }
+        assertEquals(Set.copyOf(group.getEndpoints()), selectMany(group));
+    }
+
+    @Test
+    void neverEjectsASingleEndpoint() {
+        EndpointGroup group = EndpointGroup.single(ADDRESSES.get(0));
+        EndpointGroup.Endpoint endpoint = group.select();
+        for (int i = 0; i < 10; i++) {
+            group.onFailure(group.select());
+        }
+        group.onIgnore(endpoint);
+        assertSame(endpoint, group.select());
+    }
+
+    @Test
+    void selectOther() {
+        EndpointGroup group = EndpointGroup.ofStatic(ADDRESSES, EndpointGroup.Policy.ROUND_ROBIN, 3,
+                Duration.ofMinutes(1));
+        EndpointGroup.Endpoint first = group.select();
+        for (int i = 0; i < 10; i++) {
+            EndpointGroup.Endpoint other = group.selectOther(first);
+            assertNotSame(first, other);
+            group.onIgnore(other);
+        }
+        assertEquals(0, group.getEndpoints().stream()
+                .filter(endpoint -> endpoint != first)
+                .mapToInt(EndpointGroup.Endpoint::getOutstanding)
+                .sum());
+    }
+
+    @Test
+    void requiresAnEndpoint() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EndpointGroup.ofStatic(List.of(), EndpointGroup.Policy.ROUND_ROBIN, 1, Duration.ZERO));
+    }
+
+    private static void fail(EndpointGroup group, EndpointGroup.Endpoint endpoint) {
+        group.onFailure(selectExactly(group, endpoint));
+    }
+
+    private static void succeed(EndpointGroup group, EndpointGroup.Endpoint endpoint) {
+        group.onSuccess(selectExactly(group, endpoint));
+    }
+
+    /**
+     * Selects until the given endpoint comes up, as the outcome of an attempt is reported against its selection.
+     */
+    private static EndpointGroup.Endpoint selectExactly(EndpointGroup group, EndpointGroup.Endpoint endpoint) {
+        while (true) {
+            EndpointGroup.Endpoint selected = group.select();
+            if (selected == endpoint) {
+                return selected;
+            }
+            group.onIgnore(selected);
+        }
+    }
+
+    private static Set<EndpointGroup.Endpoint> selectMany(EndpointGroup group) {
+        Set<EndpointGroup.Endpoint> selected = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            EndpointGroup.Endpoint endpoint = group.select();
+            selected.add(endpoint);
+            group.onIgnore(endpoint);
+        }
+        return selected;
+    }
+}
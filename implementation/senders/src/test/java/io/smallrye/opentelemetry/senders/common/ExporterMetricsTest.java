@@ -0,0 +1,121 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+
+class ExporterMetricsTest {
+    private final InMemoryMetricReader reader = InMemoryMetricReader.create();
+    private final SdkMeterProvider meterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build();
+
+    @AfterEach
+    void closeMeterProvider() {
+        meterProvider.close();
+    }
+
+    @Test
+    void recordsNothingUntilStarted() {
+        ExporterMetrics metrics = new ExporterMetrics(() -> meterProvider, "grpc", "traces");
+        metrics.recordAttempt();
+        assertTrue(reader.collectAllMetrics().isEmpty());
+
+        metrics.start(null, ConcurrencyLimiter.unlimited());
+        metrics.recordAttempt();
+        assertEquals(1, sum(metric(reader.collectAllMetrics(), "otel.exporter.attempts")));
+    }
+
+    @Test
+    void recordsTheFailedAttemptsByStatus() {
+        ExporterMetrics metrics = new ExporterMetrics(() -> meterProvider, "grpc", "traces");
+        metrics.start(null, ConcurrencyLimiter.unlimited());
+        Attributes unavailable = metrics.statusAttributes("UNAVAILABLE");
+        metrics.recordFailedAttempt(unavailable);
+        metrics.recordFailedAttempt(unavailable);
+        metrics.recordFailedAttempt(metrics.statusAttributes("TRANSPORT_ERROR"));
+
+        MetricData failures = metric(reader.collectAllMetrics(), "otel.exporter.attempt.failures");
+        assertEquals(2, failures.getLongSumData().getPoints().stream()
+                .filter(point -> "UNAVAILABLE".equals(point.getAttributes().get(ExporterMetrics.STATUS)))
+                .mapToLong(LongPointData::getValue)
+                .sum());
+        assertEquals(3, sum(failures));
+    }
+
+    @Test
+    void reportsTheLimiterAndTheBreaker() {
+        ExporterMetrics metrics = new ExporterMetrics(() -> meterProvider, "http", "/v1/traces");
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8, 0);
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 10, Duration.ofMinutes(1));
+        metrics.start(breaker, limiter);
+        limiter.execute(() -> {
+        });
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        Collection<MetricData> collected = reader.collectAllMetrics();
+        assertEquals(1, sum(metric(collected, "otel.exporter.concurrency.in_flight")));
+        assertEquals(4, metric(collected, "otel.exporter.concurrency.limit").getLongGaugeData().getPoints()
+                .iterator().next().getValue());
+        assertEquals(CircuitBreaker.State.OPEN.ordinal(),
+                metric(collected, "otel.exporter.circuit_breaker.state").getLongGaugeData().getPoints()
+                        .iterator().next().getValue());
+
+        metrics.close();
+        List<String> names = names(reader.collectAllMetrics());
+        assertFalse(names.contains("otel.exporter.concurrency.in_flight"));
+        assertFalse(names.contains("otel.exporter.circuit_breaker.state"));
+    }
+
+    @Test
+    void reportsTheLimitOnlyWhenLimited() {
+        ExporterMetrics metrics = new ExporterMetrics(() -> meterProvider, "http", "/v1/traces");
+        metrics.start(null, ConcurrencyLimiter.unlimited());
+        List<String> names = names(reader.collectAllMetrics());
+        assertTrue(names.contains("otel.exporter.concurrency.in_flight"));
+        assertFalse(names.contains("otel.exporter.concurrency.limit"));
+    }
+
+    @Test
+    void reportsThePool() {
+        // Registered by the first sender only, the pool is shared by all of them
+        new ExporterMetrics(() -> meterProvider, "grpc", "traces").start(null, ConcurrencyLimiter.unlimited());
+        new ExporterMetrics(() -> meterProvider, "grpc", "metrics").start(null, ConcurrencyLimiter.unlimited());
+        PooledBufferAllocator.INSTANCE.acquire(64).release();
+
+        Collection<MetricData> collected = reader.collectAllMetrics();
+        assertEquals(1, metric(collected, "otel.exporter.buffer_pool.used").getLongSumData().getPoints().size());
+        MetricData allocations = metric(collected, "otel.exporter.buffer_pool.allocations");
+        assertTrue(allocations.getLongSumData().getPoints().stream()
+                .anyMatch(point -> Boolean.TRUE.equals(point.getAttributes().get(ExporterMetrics.POOLED))
+                        && point.getValue() > 0));
+    }
+
+    private static MetricData metric(Collection<MetricData> metrics, String name) {
+        return metrics.stream()
+                .filter(metric -> metric.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No metric " + name + " in " + names(metrics)));
+    }
+
+    private static long sum(MetricData metric) {
+        return metric.getLongSumData().getPoints().stream().mapToLong(LongPointData::getValue).sum();
+    }
+
+    private static List<String> names(Collection<MetricData> metrics) {
+        return metrics.stream().map(MetricData::getName).collect(Collectors.toList());
+    }
+}
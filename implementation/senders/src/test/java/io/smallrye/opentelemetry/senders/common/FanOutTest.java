@@ -0,0 +1,88 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class FanOutTest {
+    private final AtomicReference<Integer> response = new AtomicReference<>();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    void allSucceeded() {
+        FanOut<Integer> fanOut = fanOut(2, FanOut.Policy.ALL);
+        fanOut.onResponse(200);
+        // Waits for every destination
+        assertEquals(List.of(), events);
+        fanOut.onResponse(202);
+
+        assertEquals(List.of("complete", "response"), events);
+        assertEquals(200, response.get());
+    }
+
+    @Test
+    void allWithAFailure() {
+        FanOut<Integer> fanOut = fanOut(3, FanOut.Policy.ALL);
+        fanOut.onResponse(200);
+        fanOut.onResponse(503);
+        fanOut.onResponse(400);
+
+        assertEquals(List.of("complete", "response"), events);
+        assertEquals(503, response.get());
+    }
+
+    @Test
+    void allWithAnError() {
+        FanOut<Integer> fanOut = fanOut(2, FanOut.Policy.ALL);
+        IOException failure = new IOException("Connection refused");
+        fanOut.onError(failure);
+        fanOut.onResponse(200);
+
+        assertEquals(List.of("complete", "error"), events);
+        assertSame(failure, error.get());
+        assertNull(response.get());
+    }
+
+    @Test
+    void anySucceeded() {
+        FanOut<Integer> fanOut = fanOut(3, FanOut.Policy.ANY);
+        fanOut.onError(new IOException("Connection refused"));
+        fanOut.onResponse(503);
+        fanOut.onResponse(200);
+
+        assertEquals(List.of("complete", "response"), events);
+        assertEquals(200, response.get());
+    }
+
+    @Test
+    void noneSucceeded() {
+        FanOut<Integer> fanOut = fanOut(2, FanOut.Policy.ANY);
+        fanOut.onError(new IOException("Connection refused"));
+        fanOut.onResponse(503);
+
+        // A response is more telling than an error
+        assertEquals(List.of("complete", "response"), events);
+        assertEquals(503, response.get());
+    }
+
+    private FanOut<Integer> fanOut(int destinations, FanOut.Policy policy) {
+        return new FanOut<>(destinations, policy, status -> status >= 200 && status < 300,
+                status -> {
+                    events.add("response");
+                    response.set(status);
+                },
+                t -> {
+                    events.add("error");
+                    error.set(t);
+                },
+                () -> events.add("complete"));
+    }
+}
@@ -0,0 +1,57 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class HedgerTest {
+    private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+    @Test
+    void delayIsAPercentileOfTheLatencies() {
+        Hedger hedger = new Hedger(0.9, Duration.ZERO, 0.1);
+        for (int i = 1; i <= 32; i++) {
+            assertEquals(-1, hedger.getDelayNanos());
+            hedger.record(i * MILLIS);
+        }
+        // Recomputed every 32 samples once there are enough of them, here from 1ms to 63ms
+        for (int i = 33; i <= 63; i++) {
+            hedger.record(i * MILLIS);
+        }
+        assertEquals(57 * MILLIS, hedger.getDelayNanos());
+    }
+
+    @Test
+    void delayIsAtLeastTheMinimum() {
+        Hedger hedger = new Hedger(0.5, Duration.ofMillis(50), 0.1);
+        for (int i = 0; i < 64; i++) {
+            hedger.record(MILLIS);
+        }
+        assertEquals(50 * MILLIS, hedger.getDelayNanos());
+    }
+
+    @Test
+    void hedgesAreBudgeted() {
+        Hedger hedger = new Hedger(0.5, Duration.ZERO, 0.5);
+        hedger.onExport();
+        assertFalse(hedger.tryHedge());
+        hedger.onExport();
+        assertTrue(hedger.tryHedge());
+        assertFalse(hedger.tryHedge());
+
+        // The unused budget is capped
+        for (int i = 0; i < 100; i++) {
+            hedger.onExport();
+        }
+        int hedges = 0;
+        while (hedger.tryHedge()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+        assertEquals(11, hedger.getHedges());
+    }
+}
@@ -0,0 +1,88 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+class InFlightExportsTest {
+    private final Vertx vertx = Vertx.vertx();
+    private final InFlightExports exports = new InFlightExports();
+
+    @AfterEach
+    void closeVertx() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void beginAndEnd() {
+        CompletableResultCode export = exports.begin();
+        assertEquals(1, exports.size());
+        exports.end(export);
+        assertTrue(export.isSuccess());
+        assertEquals(0, exports.size());
+        // Ending twice is harmless
+        exports.end(export);
+    }
+
+    @Test
+    void endsAfterTheOutcomeIsConsumed() {
+        CompletableResultCode export = exports.begin();
+        Consumer<String> consumer = exports.endWith(export, outcome -> {
+            assertEquals(1, exports.size());
+            throw new IllegalStateException(outcome);
+        });
+
+        assertThrows(IllegalStateException.class, () -> consumer.accept("failure"));
+        assertEquals(0, exports.size());
+    }
+
+    @Test
+    void flushWaitsForTheExportsInFlight() {
+        CompletableResultCode first = exports.begin();
+        CompletableResultCode flush = exports.flush();
+        CompletableResultCode second = exports.begin();
+
+        exports.end(first);
+        // The exports started after the flush are not waited for
+        assertTrue(flush.isSuccess());
+        assertFalse(second.isDone());
+    }
+
+    @Test
+    void drain() throws Exception {
+        assertEquals(0, join(exports.drain(vertx, Duration.ofSeconds(1))));
+
+        CompletableResultCode export = exports.begin();
+        assertEquals(1, join(exports.drain(vertx, Duration.ZERO)));
+
+        Future<Integer> drained = exports.drain(vertx, Duration.ofSeconds(10));
+        vertx.setTimer(50, id -> exports.end(export));
+        assertEquals(0, join(drained));
+    }
+
+    @Test
+    void drainGivesUpAfterTheTimeout() throws Exception {
+        exports.begin();
+        exports.begin();
+
+        long start = System.nanoTime();
+        assertEquals(2, join(exports.drain(vertx, Duration.ofMillis(100))));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private static int join(Future<Integer> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,41 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.net.SocketAddress;
+
+class OTelExporterUtilTest {
+
+    @Test
+    void port() {
+        assertEquals(4318, OTelExporterUtil.getPort(URI.create("http://localhost:4318")));
+        assertEquals(80, OTelExporterUtil.getPort(URI.create("http://localhost")));
+        assertEquals(443, OTelExporterUtil.getPort(URI.create("HTTPS://localhost/v1")));
+    }
+
+    @Test
+    void domainSocket() {
+        assertTrue(OTelExporterUtil.isDomainSocket(URI.create("unix:///var/run/otel/otlp.sock")));
+        assertTrue(OTelExporterUtil.isDomainSocket(URI.create("UNIX:///var/run/otel/otlp.sock")));
+        assertFalse(OTelExporterUtil.isDomainSocket(URI.create("http://localhost:4317")));
+        assertFalse(OTelExporterUtil.isDomainSocket(URI.create("/var/run/otel/otlp.sock")));
+    }
+
+    @Test
+    void serverAddress() {
+        SocketAddress socket = OTelExporterUtil.getServerAddress(URI.create("unix:///var/run/otel/otlp.sock"));
+        assertTrue(socket.isDomainSocket());
+        assertEquals("/var/run/otel/otlp.sock", socket.path());
+
+        SocketAddress inet = OTelExporterUtil.getServerAddress(URI.create("https://collector"));
+        assertTrue(inet.isInetSocket());
+        assertEquals("collector", inet.host());
+        assertEquals(443, inet.port());
+    }
+}
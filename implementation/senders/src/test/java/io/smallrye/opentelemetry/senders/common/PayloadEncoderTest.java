@@ -0,0 +1,79 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.opentelemetry.sdk.common.export.MessageWriter;
+
+class PayloadEncoderTest {
+    private static final byte[] MESSAGE = "an OTLP request, or close enough".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void encodesAMessageWriter() throws IOException {
+        assertArrayEquals(MESSAGE, encode(new BytesMessageWriter(), null));
+    }
+
+    @Test
+    void encodesAPayloadWriter() throws IOException {
+        assertArrayEquals(MESSAGE, encode(new BytesPayloadWriter(), null));
+    }
+
+    @Test
+    void compressesAMessageWriter() throws IOException {
+        CompressionCodec codec = new GzipCodec(CompressionCodec.DEFAULT_LEVEL);
+        assertArrayEquals(MESSAGE, gunzip(encode(new BytesMessageWriter(), codec)));
+    }
+
+    @Test
+    void compressesAPayloadWriter() throws IOException {
+        CompressionCodec codec = new GzipCodec(CompressionCodec.DEFAULT_LEVEL);
+        assertArrayEquals(MESSAGE, gunzip(encode(new BytesPayloadWriter(), codec)));
+    }
+
+    private static byte[] encode(MessageWriter writer, CompressionCodec codec) throws IOException {
+        PooledBuffer payload = PayloadEncoder.encode(writer, codec);
+        try {
+            return payload.buffer().getBytes();
+        } finally {
+            payload.release();
+        }
+    }
+
+    static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static class BytesMessageWriter implements MessageWriter {
+        @Override
+        public void writeMessage(OutputStream output) throws IOException {
+            output.write(MESSAGE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return MESSAGE.length;
+        }
+    }
+
+    private static class BytesPayloadWriter implements PayloadWriter {
+        @Override
+        public void writeTo(ByteBuf buffer) {
+            buffer.writeBytes(MESSAGE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return MESSAGE.length;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+
+class PooledBufferAllocatorTest {
+    private final PooledByteBufAllocator netty = new PooledByteBufAllocator(true);
+    private final PooledBufferAllocator allocator = new PooledBufferAllocator(netty);
+
+    @Test
+    void releaseReturnsTheBytesInUse() throws IOException {
+        PooledBuffer payload = allocator.acquire(16);
+        try (OutputStream out = payload.outputStream()) {
+            out.write(new byte[1024]);
+        }
+        Buffer buffer = payload.buffer();
+        assertEquals(1024, buffer.length());
+        assertEquals(payload.byteBuf().capacity(), allocator.getBytesInUse());
+
+        payload.release();
+        payload.release();
+        assertEquals(0, allocator.getBytesInUse());
+        assertEquals(1, allocator.getPooledAllocations());
+        assertEquals(0, allocator.getUnpooledAllocations());
+        assertEquals(0, payload.byteBuf().refCnt());
+    }
+
+    @Test
+    void countsThePayloadsLargerThanAChunkAsUnpooled() throws IOException {
+        int chunkSize = netty.metric().chunkSize();
+        PooledBuffer payload = allocator.acquire(64);
+        try (OutputStream out = payload.outputStream()) {
+            // Grows past a chunk while being written
+            out.write(new byte[chunkSize + 1]);
+        }
+        payload.buffer();
+        payload.release();
+
+        assertEquals(0, allocator.getBytesInUse());
+        assertEquals(0, allocator.getPooledAllocations());
+        assertEquals(1, allocator.getUnpooledAllocations());
+    }
+
+    @Test
+    void duplicateKeepsTheMemoryUntilBothAreReleased() throws IOException {
+        PooledBuffer payload = allocator.acquire(64);
+        try (OutputStream out = payload.outputStream()) {
+            out.write(new byte[] { 1, 2, 3 });
+        }
+        PooledBuffer duplicate = payload.duplicate();
+
+        payload.release();
+        assertEquals(1, duplicate.byteBuf().refCnt());
+        assertEquals(3, duplicate.buffer().length());
+
+        duplicate.release();
+        assertEquals(0, duplicate.byteBuf().refCnt());
+        // Only accounted for by the original payload
+        assertEquals(1, allocator.getPooledAllocations());
+        assertEquals(0, allocator.getBytesInUse());
+    }
+}
@@ -0,0 +1,118 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class RetryHintsTest {
+
+    @Test
+    void retryAfterSeconds() {
+        assertEquals(Duration.ofSeconds(7).toNanos(), RetryHints.parseRetryAfter("7"));
+        assertEquals(Duration.ofSeconds(7).toNanos(), RetryHints.parseRetryAfter(" 7 "));
+        assertEquals(0, RetryHints.parseRetryAfter("0"));
+    }
+
+    @Test
+    void retryAfterDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+        long delay = RetryHints.parseRetryAfter(date);
+        assertTrue(delay > Duration.ofSeconds(50).toNanos() && delay <= Duration.ofMinutes(1).toNanos(),
+                "Unexpected delay: " + delay);
+
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        assertEquals(0, RetryHints.parseRetryAfter(past));
+    }
+
+    @Test
+    void malformedRetryAfter() {
+        assertEquals(-1, RetryHints.parseRetryAfter(null));
+        assertEquals(-1, RetryHints.parseRetryAfter(""));
+        assertEquals(-1, RetryHints.parseRetryAfter("-1"));
+        assertEquals(-1, RetryHints.parseRetryAfter("soon"));
+    }
+
+    @Test
+    void delaysTooLongForNanoseconds() {
+        assertEquals(Long.MAX_VALUE, RetryHints.parseRetryAfter(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(Long.MAX_VALUE, RetryHints.parseRetryAfter("Fri, 31 Dec 9999 23:59:59 GMT"));
+
+        byte[] any = concat(delimited(1, "type.googleapis.com/google.rpc.RetryInfo".getBytes(StandardCharsets.UTF_8)),
+                delimited(2, delimited(1, varint(1, Long.MAX_VALUE))));
+        byte[] status = concat(varint(1, 8), delimited(3, any));
+        assertEquals(Long.MAX_VALUE, RetryHints.parseGrpcRetryDelay(Base64.getEncoder().encodeToString(status)));
+    }
+
+    @Test
+    void grpcRetryInfo() {
+        byte[] duration = concat(varint(1, 2), varint(2, 500_000_000));
+        byte[] retryInfo = delimited(1, duration);
+        byte[] any = concat(delimited(1, "type.googleapis.com/google.rpc.RetryInfo".getBytes(StandardCharsets.UTF_8)),
+                delimited(2, retryInfo));
+        byte[] status = concat(varint(1, 14), delimited(2, "unavailable".getBytes(StandardCharsets.UTF_8)),
+                delimited(3, otherDetail()), delimited(3, any));
+
+        assertEquals(Duration.ofMillis(2500).toNanos(),
+                RetryHints.parseGrpcRetryDelay(Base64.getEncoder().encodeToString(status)));
+    }
+
+    @Test
+    void grpcStatusWithoutRetryInfo() {
+        byte[] status = concat(varint(1, 14), delimited(3, otherDetail()));
+        assertEquals(-1, RetryHints.parseGrpcRetryDelay(Base64.getEncoder().encodeToString(status)));
+        assertEquals(-1, RetryHints.parseGrpcRetryDelay(null));
+    }
+
+    @Test
+    void malformedGrpcStatus() {
+        assertEquals(-1, RetryHints.parseGrpcRetryDelay("not base64!"));
+        // A length running past the end of the message
+        byte[] truncated = { 0x1a, 0x7f, 0x0a };
+        assertEquals(-1, RetryHints.parseGrpcRetryDelay(Base64.getEncoder().encodeToString(truncated)));
+    }
+
+    private static byte[] otherDetail() {
+        return concat(delimited(1, "type.googleapis.com/google.rpc.DebugInfo".getBytes(StandardCharsets.UTF_8)),
+                delimited(2, new byte[] { 0x0a, 0x01, 0x78 }));
+    }
+
+    private static byte[] varint(int field, long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, (long) field << 3);
+        writeVarint(out, value);
+        return out.toByteArray();
+    }
+
+    private static byte[] delimited(int field, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, (long) field << 3 | 2);
+        writeVarint(out, value.length);
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,66 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+    @Test
+    void defaultPolicy() {
+        RetryPolicy policy = RetryPolicy.getDefault();
+        assertEquals(3, policy.getMaxAttempts());
+        assertEquals(Duration.ofMillis(100), policy.getInitialBackoff());
+        assertEquals(Duration.ofSeconds(1), policy.getMaxBackoff());
+        assertEquals(2.0, policy.getBackoffMultiplier());
+        assertTrue(policy.isJitter());
+        assertEquals(0, policy.getDeadlineNanos());
+    }
+
+    @Test
+    void backoffGrowsUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofMillis(500), 2.0, false,
+                Duration.ZERO);
+        assertEquals(Duration.ofMillis(100).toNanos(), policy.backoffNanos(1, -1));
+        assertEquals(Duration.ofMillis(200).toNanos(), policy.backoffNanos(2, -1));
+        assertEquals(Duration.ofMillis(400).toNanos(), policy.backoffNanos(3, -1));
+        assertEquals(Duration.ofMillis(500).toNanos(), policy.backoffNanos(4, -1));
+        assertEquals(Duration.ofMillis(500).toNanos(), policy.backoffNanos(100, -1));
+    }
+
+    @Test
+    void jitterStaysBelowTheBackoff() {
+        RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofSeconds(1), 2.0, true,
+                Duration.ZERO);
+        for (int i = 0; i < 1000; i++) {
+            long backoff = policy.backoffNanos(2, -1);
+            assertTrue(backoff >= 0 && backoff <= Duration.ofMillis(200).toNanos(), "Backoff out of range: " + backoff);
+        }
+    }
+
+    @Test
+    void serverDelayTakesPrecedence() {
+        long serverDelay = Duration.ofSeconds(30).toNanos();
+        assertEquals(serverDelay, RetryPolicy.getDefault().backoffNanos(1, serverDelay));
+        assertEquals(0, RetryPolicy.getDefault().backoffNanos(1, 0));
+    }
+
+    @Test
+    void noRetry() {
+        assertEquals(1, RetryPolicy.noRetry().getMaxAttempts());
+    }
+
+    @Test
+    void rejectsInvalidPolicies() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy(0, Duration.ZERO, Duration.ZERO, 1.0, false, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy(1, Duration.ofMillis(-1), Duration.ZERO, 1.0, false, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0.5, false, Duration.ZERO));
+    }
+}
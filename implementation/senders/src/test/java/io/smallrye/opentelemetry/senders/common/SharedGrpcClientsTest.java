@@ -0,0 +1,132 @@
+package io.smallrye.opentelemetry.senders.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.net.SocketAddress;
+
+class SharedGrpcClientsTest {
+    private static final SocketAddress SERVER = SocketAddress.inetSocketAddress(4317, "localhost");
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void closeVertx() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void sharedBySendersWithTheSameOptions() {
+        SharedGrpcClients.Lease traces = SharedGrpcClients.acquire(vertx, SERVER, options().setReadIdleTimeout(10));
+        SharedGrpcClients.Lease metrics = SharedGrpcClients.acquire(vertx, SERVER, options().setReadIdleTimeout(30));
+        try {
+            assertTrue(traces.isShared());
+            // The read idle timeout follows the export timeout of each signal, it does not prevent the sharing
+            assertSame(traces.client(), metrics.client());
+
+            traces.streamCounter("traces").incrementAndGet();
+            metrics.streamCounter("metrics").incrementAndGet();
+            assertEquals(1, metrics.getActiveStreams("traces"));
+            assertEquals(2, traces.getActiveStreams());
+        } finally {
+            traces.close();
+            metrics.close();
+        }
+    }
+
+    @Test
+    void notSharedAcrossServersOrOptions() {
+        SharedGrpcClients.Lease lease = SharedGrpcClients.acquire(vertx, SERVER, options());
+        SharedGrpcClients.Lease otherServer = SharedGrpcClients.acquire(vertx,
+                SocketAddress.inetSocketAddress(4318, "localhost"), options());
+        SharedGrpcClients.Lease otherOptions = SharedGrpcClients.acquire(vertx, SERVER, options().setMaxPoolSize(4));
+        try {
+            assertNotSame(lease.client(), otherServer.client());
+            assertNotSame(lease.client(), otherOptions.client());
+        } finally {
+            lease.close();
+            otherServer.close();
+            otherOptions.close();
+        }
+    }
+
+    @Test
+    void closedWithTheLastLease() {
+        SharedGrpcClients.Lease first = SharedGrpcClients.acquire(vertx, SERVER, options());
+        SharedGrpcClients.Lease second = SharedGrpcClients.acquire(vertx, SERVER, options());
+        first.close();
+        // Closing a lease twice does not release the other one
+        first.close();
+
+        SharedGrpcClients.Lease third = SharedGrpcClients.acquire(vertx, SERVER, options());
+        assertSame(second.client(), third.client());
+        second.close();
+        third.close();
+
+        SharedGrpcClients.Lease fourth = SharedGrpcClients.acquire(vertx, SERVER, options());
+        try {
+            assertNotSame(second.client(), fourth.client());
+        } finally {
+            fourth.close();
+        }
+    }
+
+    @Test
+    void unsharedClient() {
+        SharedGrpcClients.Lease shared = SharedGrpcClients.acquire(vertx, SERVER, options());
+        SharedGrpcClients.Lease unshared = SharedGrpcClients.unshared(vertx, SERVER, options());
+        try {
+            assertFalse(unshared.isShared());
+            assertNotSame(shared.client(), unshared.client());
+        } finally {
+            shared.close();
+            unshared.close();
+        }
+    }
+
+    @Test
+    void singleConnectionKeeperPerClient() {
+        SharedGrpcClients.Lease traces = SharedGrpcClients.acquire(vertx, SERVER, options());
+        SharedGrpcClients.Lease metrics = SharedGrpcClients.acquire(vertx, SERVER, options());
+        try {
+            SenderOptions options = new SenderOptions().setKeepAliveInterval(Duration.ofSeconds(10));
+            ConnectionKeeper keeper = traces.connectionKeeper(options);
+            assertNotNull(keeper);
+            // Each connection is pinged once, whatever the number of senders using it
+            assertSame(keeper, metrics.connectionKeeper(options));
+            assertSame(keeper,
+                    metrics.connectionKeeper(new SenderOptions().setKeepAliveInterval(Duration.ofSeconds(5))));
+        } finally {
+            traces.close();
+            metrics.close();
+        }
+    }
+
+    @Test
+    void noConnectionKeeper() {
+        SharedGrpcClients.Lease lease = SharedGrpcClients.acquire(vertx, SERVER, options());
+        try {
+            assertNull(lease.connectionKeeper(new SenderOptions().setKeepAliveInterval(null)));
+            // Decided by the first sender
+            assertNull(lease.connectionKeeper(new SenderOptions().setKeepAliveInterval(Duration.ofSeconds(10))));
+        } finally {
+            lease.close();
+        }
+    }
+
+    private static HttpClientOptions options() {
+        return new HttpClientOptions().setHttp2ClearTextUpgrade(false);
+    }
+}